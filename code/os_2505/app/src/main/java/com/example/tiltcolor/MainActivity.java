@@ -3,9 +3,12 @@ package com.example.tiltcolor;
 import android.Manifest;
 import android.content.Intent;
 import android.content.pm.PackageManager;
+import android.hardware.Sensor;
 import android.net.Uri;
 import android.os.Build;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.provider.Settings;
 import android.widget.Switch;
 import android.widget.TextView;
@@ -14,18 +17,51 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
 
+import com.example.tiltcolor.dsp.GravityFilter;
+import com.example.tiltcolor.sensor.SensorFanout;
+import com.example.tiltcolor.sensor.SensorHub;
 import com.example.tiltcolor.service.GuardService;
+import com.example.tiltcolor.service.GuardSettings;
+import com.example.tiltcolor.util.TiltMath;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
 
 public class MainActivity extends AppCompatActivity {
 
-    private static final int REQ_NOTIF = 1000;
+    private static final int REQ_PERMS = 1000;
 
-    public static final String PREFS = "tilt_guard_prefs";
-    public static final String KEY_ENABLED = "enabled";
-    public static final String ACTION_UPDATE_ENABLED = "com.example.tiltcolor.ACTION_UPDATE_ENABLED";
+    // ライブ表示の間隔（SensorHub の passive 購読。判定のために届いているイベントを間引いて見るだけで、センサーは起こさない）
+    // 10Hz ではジャイロの積分が粗くなり判定側の推定とずれるので、ジャイロを使わず加速度のローパス（重力）だけで出す。
+    // GravityFilter はサンプル時刻の間隔で進めるので周期によらず（購読し直して間が空いたら新しいサンプルに置き換わる）、
+    // 静止すれば判定側の融合推定と同じ値に落ち着く
+    private static final int LIVE_INTERVAL_US = 100_000;
 
     private Switch swEnable;
     private TextView tvTips;
+    private TextView tvLive;
+
+    private SensorHub hub;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final GravityFilter liveGravity = new GravityFilter(GravityFilter.TILT_TIME_CONSTANT_S); // 配送スレッドだけが触る
+    private volatile float livePitch, liveTilt;
+    private volatile boolean liveReceived = false;
+    private volatile boolean livePosted = false;
+    private final Runnable renderLive = this::renderLive;
+
+    /** 配送スレッドで姿勢を進め、表示はメインスレッドへ（描画待ちの間は重ねて投げない） */
+    private final SensorFanout.Subscriber liveSubscriber = (type, t, values) -> {
+        liveGravity.update(t, values[0], values[1], values[2]);
+        float gx = liveGravity.gx(), gy = liveGravity.gy(), gz = liveGravity.gz();
+        livePitch = TiltMath.atan2Deg(gy, (float) Math.sqrt(gx * gx + gz * gz)); // asin(gy/|g|) と同じ（正面0°, 下向き負）
+        liveTilt = TiltMath.tiltDeg(gx, gy, gz);
+        liveReceived = true;
+        if (!livePosted) {
+            livePosted = true;
+            mainHandler.post(renderLive);
+        }
+    };
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -34,20 +70,29 @@ public class MainActivity extends AppCompatActivity {
 
         swEnable = findViewById(R.id.swEnable);
         tvTips   = findViewById(R.id.tvTips);
+        tvLive   = findViewById(R.id.tvLive);
+        hub = SensorHub.get(this);
 
         // 現在の有効/無効を反映（既定: 有効）
-        boolean enabled = getSharedPreferences(PREFS, MODE_PRIVATE)
-                .getBoolean(KEY_ENABLED, true);
+        boolean enabled = GuardSettings.store(this).get().enabled;
         swEnable.setChecked(enabled);
         renderTips(enabled);
 
+        // ランタイム権限（1回のダイアログでまとめて要求）
+        List<String> perms = new ArrayList<>();
         // 通知許可（Android 13+）
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU) {
-            if (ContextCompat.checkSelfPermission(this, Manifest.permission.POST_NOTIFICATIONS)
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU
+                && ContextCompat.checkSelfPermission(this, Manifest.permission.POST_NOTIFICATIONS)
                     != PackageManager.PERMISSION_GRANTED) {
-                ActivityCompat.requestPermissions(this,
-                        new String[]{Manifest.permission.POST_NOTIFICATIONS}, REQ_NOTIF);
-            }
+            perms.add(Manifest.permission.POST_NOTIFICATIONS);
+        }
+        // 歩数検出（ステップセンサーで歩行判定を起こすため。拒否されても RMS 常時監視で動く）
+        if (ContextCompat.checkSelfPermission(this, Manifest.permission.ACTIVITY_RECOGNITION)
+                != PackageManager.PERMISSION_GRANTED) {
+            perms.add(Manifest.permission.ACTIVITY_RECOGNITION);
+        }
+        if (!perms.isEmpty()) {
+            ActivityCompat.requestPermissions(this, perms.toArray(new String[0]), REQ_PERMS);
         }
         // オーバーレイ権限
         if (!Settings.canDrawOverlays(this)) {
@@ -59,18 +104,36 @@ public class MainActivity extends AppCompatActivity {
         // 監視サービス起動（常駐）
         ContextCompat.startForegroundService(this, new Intent(this, GuardService.class));
 
-        // トグル変更 → 永続化 + サービスへ通知
+        // トグル変更 → 設定を差し替え（サービスはセンサーを止めずに反映）+ 永続化
         swEnable.setOnCheckedChangeListener((btn, isChecked) -> {
-            getSharedPreferences(PREFS, MODE_PRIVATE)
-                    .edit().putBoolean(KEY_ENABLED, isChecked).apply();
+            GuardSettings.update(this, c -> c.withEnabled(isChecked));
             renderTips(isChecked);
-
-            // サービスへ“設定更新”ブロードキャスト
-            Intent upd = new Intent(ACTION_UPDATE_ENABLED).setPackage(getPackageName());
-            sendBroadcast(upd);
         });
     }
 
+    @Override
+    protected void onStart() {
+        super.onStart();
+        hub.subscribePassive(Sensor.TYPE_ACCELEROMETER, liveSubscriber, LIVE_INTERVAL_US);
+        renderLive();
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        hub.unsubscribe(liveSubscriber);
+        mainHandler.removeCallbacks(renderLive);
+        livePosted = false;
+    }
+
+    private void renderLive() {
+        livePosted = false;
+        String tier = String.valueOf(GuardService.currentRateTier());
+        tvLive.setText(liveReceived
+                ? String.format(Locale.US, "pitch %.1f° / tilt %.1f°（段 %s）", livePitch, liveTilt, tier)
+                : "姿勢センサー待機中（段 " + tier + "）");
+    }
+
     private void renderTips(boolean enabled) {
         tvTips.setText(enabled ? "歩行中＋下向きで画面をブロックします"
                 : "ブロックは無効です（監視は停止/解除）");
@@ -0,0 +1,180 @@
+package com.example.tiltcolor.decision;
+
+import com.example.tiltcolor.util.Hysteresis;
+import com.example.tiltcolor.util.TiltMath;
+
+/**
+ * 「ON かつ 画面ON かつ 歩行中 かつ 下向き」でブロックするかを決める状態機械（Android非依存）。
+ *  - 入力は型付きのイベント（Event）: 姿勢・歩行・ON/OFF・画面・タイマー。apply() はブロック要求の遷移だけを返す
+ *  - 下向きは Phase で持つ: pitch は基準補正 → ヒステリシス → デバウンス（FRONT → DOWN_PENDING → DOWN → FRONT_PENDING）
+ *  - デバウンスの満了は deadlineMs() の時刻に TIMER を入れて確定する（次の姿勢を待たない。
+ *    先に姿勢が届けばその時刻で確定する）
+ *  - 状態は enum とプリミティブだけで、イベント1件ごとのオブジェクト生成はない
+ * GuardLoop がセンサー通知とタイマーをここへ渡し、遷移したときだけオーバーレイを出し入れする。
+ * 時刻はミリ秒（センサー時刻 / 1_000_000）。
+ */
+public final class BlockDecision {
+
+    /** 入力イベントの種類 */
+    public enum Event {
+        /** 姿勢。value = pitch（deg, 基準補正前） */
+        POSE,
+        /** 歩行状態。value != 0 で歩行中 */
+        MOTION,
+        /** ON/OFF。value != 0 で ON */
+        ENABLED,
+        /** 画面。value != 0 で画面ON（OFF の間はブロックせず、姿勢の途中経過も捨てる） */
+        SCREEN,
+        /** デバウンスの満了確認（deadlineMs() の時刻に入れる）。value は使わない */
+        TIMER
+    }
+
+    /** apply() の結果: ブロック要求が変わったときだけ NONE 以外 */
+    public enum Transition { NONE, BLOCK, UNBLOCK }
+
+    /** 下向き判定の段階 */
+    public enum Phase {
+        FRONT(false), DOWN_PENDING(false), DOWN(true), FRONT_PENDING(true);
+
+        /** この段階で下向きとみなすか */
+        public final boolean down;
+
+        Phase(boolean down) { this.down = down; }
+    }
+
+    /** deadlineMs(): 待っているデバウンスが無い */
+    public static final long NO_DEADLINE = Long.MAX_VALUE;
+
+    private final Hysteresis hysteresis;
+    private long debounceMs;
+    private float baselinePitch;
+
+    private Phase phase = Phase.FRONT;
+    private long phaseSince = 0L;
+    private float lastAdjPitch = 0f;
+    private boolean isMoving = false;
+    private boolean enabled = true;
+    private boolean screenOn = true;
+
+    public BlockDecision(float hideThreshold, float showThreshold, long debounceMs, float baselinePitch) {
+        this.hysteresis = new Hysteresis(hideThreshold, showThreshold);
+        this.debounceMs = debounceMs;
+        this.baselinePitch = baselinePitch;
+    }
+
+    /** 設定から作る（enabled も反映） */
+    public static BlockDecision from(GuardConfig c) {
+        BlockDecision d = new BlockDecision(c.hideThreshold, c.showThreshold, c.debounceMs, c.baselinePitch);
+        d.setEnabled(c.enabled);
+        return d;
+    }
+
+    /**
+     * しきい値・デバウンス・基準を差し替える。
+     * ヒステリシスとデバウンスの途中経過は保つので、次のイベントから新しい値で判定が続く（deadlineMs() も変わる）。
+     */
+    public void configure(float hideThreshold, float showThreshold, long debounceMs, float baselinePitch) {
+        hysteresis.setThresholds(hideThreshold, showThreshold);
+        this.debounceMs = debounceMs;
+        this.baselinePitch = baselinePitch;
+    }
+
+    /** 基準補正だけを差し替える（自動校正用。判定中の状態は保つ） */
+    public void setBaselinePitch(float baselinePitch) { this.baselinePitch = baselinePitch; }
+
+    public float baselinePitch() { return baselinePitch; }
+
+    /**
+     * イベントを1件入力する。
+     * @param value イベントごとの値（Event の説明を参照。真偽値は 0 / 1）
+     * @return ブロック要求の遷移（変わらなければ NONE）
+     */
+    public Transition apply(Event event, long nowMs, float value) {
+        boolean before = shouldBlock();
+        switch (event) {
+            case POSE:    pose(value, nowMs); break;
+            case MOTION:  isMoving = value != 0f; break;
+            case ENABLED: enabled = value != 0f; break;
+            case SCREEN:  screen(value != 0f); break;
+            case TIMER:   expire(nowMs); break;
+        }
+        boolean after = shouldBlock();
+        if (after == before) return Transition.NONE;
+        return after ? Transition.BLOCK : Transition.UNBLOCK;
+    }
+
+    /**
+     * 姿勢を1件入力する（apply(POSE) と同じ）。
+     * @return 基準補正後の pitch（deg）
+     */
+    public float onPose(float pitchDeg, long nowMs) {
+        pose(pitchDeg, nowMs);
+        return lastAdjPitch;
+    }
+
+    public void onMotion(boolean moving) { isMoving = moving; }
+
+    /** デバウンスの満了を確認する（apply(TIMER) と同じ） */
+    public Transition onTimer(long nowMs) { return apply(Event.TIMER, nowMs, 0f); }
+
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public void setScreenOn(boolean on) { screen(on); }
+
+    /**
+     * 姿勢ストリームを止めた/再開するときに呼ぶ。古い pitch による isDown を持ち越さない。
+     * （ヒステリシスの状態は残す: 再開直後の1件目から同じ側に判定できるように）
+     */
+    public void resetPose() {
+        phase = Phase.FRONT;
+    }
+
+    /** 待っているデバウンスが満了する時刻（ms）。無ければ NO_DEADLINE */
+    public long deadlineMs() {
+        return phase == Phase.DOWN_PENDING || phase == Phase.FRONT_PENDING
+                ? phaseSince + debounceMs : NO_DEADLINE;
+    }
+
+    /** ON/OFF と 画面 と 条件（歩行AND下向き） */
+    public boolean shouldBlock() { return enabled && screenOn && isMoving && phase.down; }
+
+    public Phase phase()       { return phase; }
+    public boolean isDown()    { return phase.down; }
+    public boolean isMoving()  { return isMoving; }
+    public boolean isEnabled() { return enabled; }
+    public boolean isScreenOn() { return screenOn; }
+
+    private void pose(float pitchDeg, long nowMs) {
+        float adjPitch = TiltMath.applyBaseline(pitchDeg, baselinePitch);
+        lastAdjPitch = adjPitch;
+
+        boolean wantDown = hysteresis.next(adjPitch);
+        switch (phase) {
+            case FRONT:         if (wantDown) enter(Phase.DOWN_PENDING, nowMs); break;
+            case DOWN_PENDING:  if (!wantDown) phase = Phase.FRONT; break;
+            case DOWN:          if (!wantDown) enter(Phase.FRONT_PENDING, nowMs); break;
+            case FRONT_PENDING: if (wantDown) phase = Phase.DOWN; break;
+        }
+        expire(nowMs);
+    }
+
+    private void screen(boolean on) {
+        screenOn = on;
+        if (!on) resetPose(); // 画面OFF中の姿勢は使わない
+    }
+
+    /** 保留中の段階が debounceMs 続いていれば確定する */
+    private void expire(long nowMs) {
+        if (nowMs - phaseSince < debounceMs) return;
+        if (phase == Phase.DOWN_PENDING) {
+            phase = Phase.DOWN;
+        } else if (phase == Phase.FRONT_PENDING) {
+            phase = Phase.FRONT;
+        }
+    }
+
+    private void enter(Phase p, long nowMs) {
+        phase = p;
+        phaseSince = nowMs;
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.tiltcolor.decision;
+
+import com.example.tiltcolor.dsp.MotionClassifier;
+
+import java.util.Locale;
+
+/**
+ * 判定の調整値の不変スナップショット（Android非依存）。
+ *  - ON/OFF、下向き判定（しきい値・デバウンス・基準）、歩行判定（窓・持続・しきい値・周期性を見るか）
+ *  - autoBaseline なら基準は PoseCalibrator の学習値を使い、baselinePitch は使わない
+ *  - 変更は with*() で新しいインスタンスを作り、GuardConfigStore の参照ごと差し替える
+ */
+public final class GuardConfig {
+
+    /**
+     * 既定値。しきい値・デバウンス・歩行判定（窓・持続・しきい値）は従来の GuardService / MotionDetector の定数と同じ。
+     * 従来と違うのは autoBaseline が有効なこと（PoseCalibrator が学習を終えるまでは基準 0 で従来と同じ判定）。
+     * 歩調の周期性（gait）は MotionClassifier.DEFAULT_GAIT に従い既定では見ない。
+     */
+    public static final GuardConfig DEFAULT = new GuardConfig(true, 65f, 65f, 300, 0f, true,
+            MotionClassifier.DEFAULT_WINDOW_MS, MotionClassifier.DEFAULT_HOLD_MS,
+            MotionClassifier.DEFAULT_THRESH_MOVE, MotionClassifier.DEFAULT_THRESH_STILL, MotionClassifier.DEFAULT_GAIT);
+
+    public final boolean enabled;
+    /** pitch がこれ未満で DOWN へ */
+    public final float hideThreshold;
+    /** pitch がこれを超えたら FRONT へ */
+    public final float showThreshold;
+    public final long debounceMs;
+    public final float baselinePitch;
+    /** 静止中の姿勢から基準を学習して使うか */
+    public final boolean autoBaseline;
+    /** 歩行判定の RMS 窓幅・状態切替に必要な持続（ms） */
+    public final long windowMs;
+    public final long holdMs;
+    /** 歩行判定の RMS しきい値（m/s^2） */
+    public final double threshMove;
+    public final double threshStill;
+    /** 歩調の周期性（GaitClassifier）も満たしたときだけ歩行とするか */
+    public final boolean gait;
+
+    public GuardConfig(boolean enabled, float hideThreshold, float showThreshold, long debounceMs,
+                       float baselinePitch, boolean autoBaseline,
+                       long windowMs, long holdMs, double threshMove, double threshStill, boolean gait) {
+        if (showThreshold < hideThreshold) throw new IllegalArgumentException("show < hide");
+        if (debounceMs < 0) throw new IllegalArgumentException("debounceMs < 0");
+        if (windowMs <= 0) throw new IllegalArgumentException("windowMs <= 0");
+        if (holdMs < 0) throw new IllegalArgumentException("holdMs < 0");
+        this.enabled = enabled;
+        this.hideThreshold = hideThreshold;
+        this.showThreshold = showThreshold;
+        this.debounceMs = debounceMs;
+        this.baselinePitch = baselinePitch;
+        this.autoBaseline = autoBaseline;
+        this.windowMs = windowMs;
+        this.holdMs = holdMs;
+        this.threshMove = threshMove;
+        this.threshStill = threshStill;
+        this.gait = gait;
+    }
+
+    public GuardConfig withEnabled(boolean enabled) {
+        if (enabled == this.enabled) return this;
+        return new GuardConfig(enabled, hideThreshold, showThreshold, debounceMs, baselinePitch, autoBaseline,
+                windowMs, holdMs, threshMove, threshStill, gait);
+    }
+
+    public GuardConfig withAutoBaseline(boolean autoBaseline) {
+        if (autoBaseline == this.autoBaseline) return this;
+        return new GuardConfig(enabled, hideThreshold, showThreshold, debounceMs, baselinePitch, autoBaseline,
+                windowMs, holdMs, threshMove, threshStill, gait);
+    }
+
+    public GuardConfig withGait(boolean gait) {
+        if (gait == this.gait) return this;
+        return new GuardConfig(enabled, hideThreshold, showThreshold, debounceMs, baselinePitch, autoBaseline,
+                windowMs, holdMs, threshMove, threshStill, gait);
+    }
+
+    public GuardConfig withPitch(float hideThreshold, float showThreshold, long debounceMs, float baselinePitch) {
+        return new GuardConfig(enabled, hideThreshold, showThreshold, debounceMs, baselinePitch, autoBaseline,
+                windowMs, holdMs, threshMove, threshStill, gait);
+    }
+
+    public GuardConfig withMotion(long windowMs, long holdMs, double threshMove, double threshStill) {
+        return new GuardConfig(enabled, hideThreshold, showThreshold, debounceMs, baselinePitch, autoBaseline,
+                windowMs, holdMs, threshMove, threshStill, gait);
+    }
+
+    /**
+     * 1項目を文字列で変更する（dumpsys などの手動調整用）。
+     * key: enabled / hide / show / debounce / baseline / auto / window / hold / move / still / gait
+     * @throws IllegalArgumentException 不明な key・値の形式・範囲の誤り
+     */
+    public GuardConfig with(String key, String value) {
+        try {
+            switch (key) {
+                case "enabled":  return withEnabled(Boolean.parseBoolean(value));
+                case "hide":     return withPitch(Float.parseFloat(value), showThreshold, debounceMs, baselinePitch);
+                case "show":     return withPitch(hideThreshold, Float.parseFloat(value), debounceMs, baselinePitch);
+                case "debounce": return withPitch(hideThreshold, showThreshold, Long.parseLong(value), baselinePitch);
+                case "baseline": return withPitch(hideThreshold, showThreshold, debounceMs, Float.parseFloat(value));
+                case "auto":     return withAutoBaseline(Boolean.parseBoolean(value));
+                case "window":   return withMotion(Long.parseLong(value), holdMs, threshMove, threshStill);
+                case "hold":     return withMotion(windowMs, Long.parseLong(value), threshMove, threshStill);
+                case "move":     return withMotion(windowMs, holdMs, Double.parseDouble(value), threshStill);
+                case "still":    return withMotion(windowMs, holdMs, threshMove, Double.parseDouble(value));
+                case "gait":     return withGait(Boolean.parseBoolean(value));
+                default: throw new IllegalArgumentException("unknown key: " + key);
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("bad value for " + key + ": " + value, e);
+        }
+    }
+
+    /** 下向き判定（BlockDecision）の項目が同じか */
+    public boolean samePitch(GuardConfig o) {
+        return hideThreshold == o.hideThreshold && showThreshold == o.showThreshold
+                && debounceMs == o.debounceMs && baselinePitch == o.baselinePitch
+                && autoBaseline == o.autoBaseline;
+    }
+
+    /** 歩行判定（MotionClassifier）の項目が同じか */
+    public boolean sameMotion(GuardConfig o) {
+        return windowMs == o.windowMs && holdMs == o.holdMs
+                && threshMove == o.threshMove && threshStill == o.threshStill && gait == o.gait;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US,
+                "enabled=%b hide=%.1f show=%.1f debounce=%dms baseline=%s window=%dms hold=%dms move=%.3f still=%.3f gait=%b",
+                enabled, hideThreshold, showThreshold, debounceMs,
+                autoBaseline ? "auto" : String.format(Locale.US, "%.1f", baselinePitch),
+                windowMs, holdMs, threshMove, threshStill, gait);
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.tiltcolor.decision;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+/**
+ * 現在の GuardConfig を1つの参照で公開する（Android非依存）。
+ *  - get() は volatile 読み1回だけ。センサースレッドはイベントごとに読み、参照が変わったときだけ反映する
+ *  - update() は CAS で差し替える（別スレッドからの同時更新でも取りこぼさない）
+ * スナップショットは不変なので、読み手は途中まで書き換わった設定を見ることがない。
+ */
+public final class GuardConfigStore {
+
+    private final AtomicReference<GuardConfig> current;
+
+    public GuardConfigStore(GuardConfig initial) {
+        if (initial == null) throw new NullPointerException("initial");
+        this.current = new AtomicReference<>(initial);
+    }
+
+    public GuardConfig get() { return current.get(); }
+
+    public void set(GuardConfig config) {
+        if (config == null) throw new NullPointerException("config");
+        current.set(config);
+    }
+
+    /** change を現在値に当てて差し替える（競合したら読み直してやり直す）。差し替え後の値を返す */
+    public GuardConfig update(UnaryOperator<GuardConfig> change) {
+        while (true) {
+            GuardConfig prev = current.get();
+            GuardConfig next = change.apply(prev);
+            if (next == null) throw new NullPointerException("change returned null");
+            if (current.compareAndSet(prev, next)) return next;
+        }
+    }
+}
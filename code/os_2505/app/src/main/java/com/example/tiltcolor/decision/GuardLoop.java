@@ -0,0 +1,319 @@
+package com.example.tiltcolor.decision;
+
+import com.example.tiltcolor.domain.PoseSnapshot;
+import com.example.tiltcolor.motion.MotionSource;
+import com.example.tiltcolor.sensor.PoseProvider;
+
+/**
+ * センサースレッド側の判定ループ（Android非依存）。
+ *  - 姿勢・歩行・ON/OFF・画面のイベントを BlockDecision に流し、ブロック要求が変わったときだけ Host に知らせる
+ *  - デバウンスの満了時刻は Host.scheduleTimer() で予約し、その時刻に onTimer() を呼んでもらう
+ *  - ReportLatencyPolicy / RateScheduler でバッチ配送と購読段を決め、センサー源へ反映する
+ *  - 画面OFF・ロック中（setInteractive(false)）は全センサーを解除し、判定の途中経過も捨てる。
+ *    推定器（重力・姿勢・歩行）とヒステリシスの状態は残すので、再開直後から続きで判定できる
+ *  - ポケットの中・伏せ置き（PocketGate: 近接センサー＋姿勢）の間もブロックせず、購読段を GATED に落とす
+ *  - センサーの登録し直しはコールバックの外で行うため Host.post() に渡す
+ * GuardService は Handler で、リプレイ（trace.TraceReplay）は即時キューで Host を実装する。
+ * GuardConfigStore を渡すと、イベントごとに参照を1回読み、差し替わっていればその場で反映する
+ * （センサーは止めない。イベントが来ない OFF 段のために refreshConfig() も用意する）。
+ * 設定が autoBaseline なら、STILL の間の姿勢を PoseCalibrator に渡し、学習した基準を判定へ反映する。
+ * すべて1スレッドから呼ぶこと。時刻は SensorEvent.timestamp と同じナノ秒。
+ */
+public final class GuardLoop {
+
+    /** 判定ループの外側（オーバーレイ・通知・スケジューラ） */
+    public interface Host {
+        /** ブロック要求が変わった（eventNanos はきっかけになったセンサー時刻） */
+        void onBlockChanged(boolean block, long eventNanos);
+
+        /** 判定のたびに呼ぶ（通知文言用。変化の判定は受け手で行う） */
+        void onStatus(boolean enabled, boolean blocking);
+
+        /** 現在のコールバックが終わった後で r を実行する */
+        void post(Runnable r);
+
+        /** 現在時刻（ns, センサー時刻と同じ基準） */
+        long nowNanos();
+
+        /**
+         * デバウンスのタイマーを予約し直す（前の予約は取り消す）。負なら取り消しだけ。
+         * 満了したら onTimer(deadlineNanos) を呼ぶこと。待ち時間は現在時刻ではなく lastEventNanos() から測る
+         * （バッチ配送ではサンプルが最大1秒遅れて届くので、同じバッチの後続サンプルより先に確定させない）。
+         */
+        default void scheduleTimer(long deadlineNanos) {}
+
+        /** 購読段を反映した（ログ用） */
+        default void onTierApplied(RateScheduler.Tier tier) {}
+
+        /** バッチ配送モードを反映した（ログ用） */
+        default void onReportLatencyApplied(ReportLatencyPolicy.Mode mode, int maxReportLatencyUs) {}
+
+        /** 設定を反映した（ログ用） */
+        default void onConfigApplied(GuardConfig config) {}
+
+        /** 学習した基準補正が変わった（保存用。calibrator の値はこの呼び出しの中で読むこと） */
+        default void onCalibrationChanged(PoseCalibrator calibrator) {}
+
+        /** PocketGate が開閉した（reason は閉じた理由。開いたら NONE） */
+        default void onGateChanged(PocketGate.Reason reason, long eventNanos) {}
+    }
+
+    private final BlockDecision decision;
+    private final PoseProvider pose;
+    private final MotionSource motion;
+    private final Host host;
+    private final GuardConfigStore config;
+    private GuardConfig appliedConfig = null;
+    private final PoseCalibrator calibrator = new PoseCalibrator();
+    private final PocketGate gate = new PocketGate();
+
+    private final ReportLatencyPolicy reportLatency = new ReportLatencyPolicy();
+    private final RateScheduler rateScheduler = new RateScheduler();
+    private ReportLatencyPolicy.Mode appliedMode = ReportLatencyPolicy.Mode.LOW_LATENCY;
+    private RateScheduler.Tier appliedTier = null;
+    private boolean blockRequested = false;
+    private long timerNanos = -1L;
+    private long lastEventNanos = Long.MIN_VALUE;
+    private boolean interactive = true;
+    private boolean gated = false;
+
+    private final Runnable applyReportLatency = this::applyReportLatency;
+    private final Runnable applyRateTier = this::applyRateTier;
+
+    public GuardLoop(BlockDecision decision, PoseProvider pose, MotionSource motion, Host host) {
+        this(decision, pose, motion, host, null);
+    }
+
+    /** @param config 実行中に差し替える設定（null なら decision の値で固定） */
+    public GuardLoop(BlockDecision decision, PoseProvider pose, MotionSource motion, Host host,
+                     GuardConfigStore config) {
+        this.decision = decision;
+        this.pose = pose;
+        this.motion = motion;
+        this.host = host;
+        this.config = config;
+        if (config != null) configure(config.get());
+    }
+
+    /** 購読段を決めてセンサーを開始する（反映は post 先で） */
+    public void start(long nowNanos) {
+        rateScheduler.update(decision.isEnabled(), interactive, gated, false, nowNanos);
+        host.post(applyRateTier);
+    }
+
+    /** 全センサーを止める */
+    public void stopSensors() {
+        motion.stop();
+        pose.stop();
+    }
+
+    /**
+     * 姿勢を1件入力する。デバウンスはサンプル時刻で測る（バッチ配送のバーストでも間隔が正しい）。
+     * @return 基準補正後の pitch（deg）
+     */
+    public float onPose(PoseSnapshot p) {
+        long t = p.timestampNanos();
+        if (config != null && config.get() != appliedConfig) refreshConfig(t);
+        gate.onPose(p.tiltDeg(), p.rollDeg(), t);
+        updateGate(t);
+        if (isCalibrating() && calibrator.offer(p.pitchDeg(), p.tiltDeg())) {
+            decision.setBaselinePitch(calibrator.baseline());
+            host.onCalibrationChanged(calibrator);
+        }
+        float adjPitch = decision.onPose(p.pitchDeg(), t / 1_000_000L);
+        afterEvent(t);
+        return adjPitch;
+    }
+
+    /** 歩行状態を1件入力する */
+    public void onMotion(boolean moving, long eventNanos) {
+        if (config != null && config.get() != appliedConfig) refreshConfig(eventNanos);
+        gate.update(eventNanos);
+        updateGate(eventNanos);
+        decision.onMotion(moving);
+        afterEvent(eventNanos);
+    }
+
+    /** 予約したタイマーの時刻になった（nowNanos は予約した満了時刻。デバウンスが満了していれば確定する） */
+    public void onTimer(long nowNanos) {
+        timerNanos = -1L; // 満了していなければ予約し直す
+        decision.onTimer(nowNanos / 1_000_000L);
+        afterEvent(nowNanos);
+    }
+
+    /**
+     * 画面ON かつ ロック解除済みか。false の間はブロックせず、センサーもすべて解除する（SUSPENDED 段）。
+     * true に戻ると止める前の段から再開する。
+     */
+    public void setInteractive(boolean interactive, long nowNanos) {
+        if (interactive == this.interactive) return;
+        this.interactive = interactive;
+        decision.setScreenOn(interactive && !gated);
+        updateBlockState(nowNanos);
+        updateRateTier(nowNanos);
+    }
+
+    public boolean isInteractive() { return interactive; }
+
+    /** 近接センサーの変化（NEAR が続いたら PocketGate を閉じる） */
+    public void onProximity(boolean near, long eventNanos) {
+        gate.onProximity(near, eventNanos);
+        updateGate(eventNanos);
+    }
+
+    public PocketGate gate() { return gate; }
+
+    /** ON/OFF を切り替えてすぐ反映する */
+    public void setEnabled(boolean enabled, long nowNanos) {
+        decision.setEnabled(enabled);
+        updateBlockState(nowNanos);
+        updateRateTier(nowNanos);
+    }
+
+    /**
+     * 設定の差し替えをすぐ反映する（変わっていなければ何もしない）。
+     * ON/OFF が変わったら段も切り替える。設定更新の通知を受けたときに呼ぶ。
+     */
+    public void refreshConfig(long nowNanos) {
+        if (config == null) return;
+        GuardConfig c = config.get();
+        if (c == appliedConfig) return;
+        configure(c);
+        setEnabled(c.enabled, nowNanos);
+    }
+
+    /** 保存しておいた学習結果から再開する（autoBaseline なら基準もすぐ反映） */
+    public void restoreCalibration(float neutralPitchDeg, float neutralTiltDeg, long samples) {
+        calibrator.restore(neutralPitchDeg, neutralTiltDeg, samples);
+        if (appliedConfig != null && appliedConfig.autoBaseline) decision.setBaselinePitch(calibrator.baseline());
+    }
+
+    public PoseCalibrator calibrator() { return calibrator; }
+
+    /** 反映済みの設定（GuardConfigStore を渡していなければ null） */
+    public GuardConfig appliedConfig() { return appliedConfig; }
+
+    public BlockDecision decision() { return decision; }
+
+    public boolean isBlockRequested() { return blockRequested; }
+
+    /** 判定に入った最新の時刻（センサー時刻。まだ無ければ Long.MIN_VALUE） */
+    public long lastEventNanos() { return lastEventNanos; }
+
+    public RateScheduler.Tier rateTier() { return rateScheduler.tier(); }
+
+    public ReportLatencyPolicy.Mode reportMode() { return reportLatency.mode(); }
+
+    /** 変わった項目だけを判定器へ渡す */
+    private void configure(GuardConfig c) {
+        GuardConfig prev = appliedConfig;
+        appliedConfig = c;
+        if (prev == null || !c.samePitch(prev)) {
+            decision.configure(c.hideThreshold, c.showThreshold, c.debounceMs,
+                    c.autoBaseline ? calibrator.baseline() : c.baselinePitch);
+        }
+        if (prev == null || !c.sameMotion(prev)) {
+            motion.setClassifierConfig(c.windowMs, c.holdMs, c.threshMove, c.threshStill, c.gait);
+        }
+        decision.setEnabled(c.enabled);
+        host.onConfigApplied(c);
+    }
+
+    /** 校正するのは ON かつ STILL の間だけ（歩行中・ポケットの中の姿勢は「ふだんの持ち方」に入れない） */
+    private boolean isCalibrating() {
+        return appliedConfig != null && appliedConfig.autoBaseline
+                && decision.isEnabled() && !decision.isMoving() && !gated;
+    }
+
+    private void afterEvent(long eventNanos) {
+        updateBlockState(eventNanos);
+        updateReportLatency(eventNanos);
+        updateRateTier(eventNanos);
+    }
+
+    /** ON/OFF と 条件（歩行AND下向き）。変わったときだけ Host へ。デバウンスのタイマーもここで合わせる */
+    private void updateBlockState(long eventNanos) {
+        if (eventNanos > lastEventNanos) lastEventNanos = eventNanos;
+        boolean shouldBlock = decision.shouldBlock();
+        if (shouldBlock != blockRequested) {
+            blockRequested = shouldBlock;
+            host.onBlockChanged(shouldBlock, eventNanos);
+        }
+        host.onStatus(decision.isEnabled(), blockRequested);
+        updateTimer();
+    }
+
+    private void updateTimer() {
+        long deadlineMs = decision.deadlineMs();
+        long at = deadlineMs == BlockDecision.NO_DEADLINE ? -1L : deadlineMs * 1_000_000L;
+        if (at != timerNanos) {
+            timerNanos = at;
+            host.scheduleTimer(at);
+        }
+    }
+
+    /** 段が変わったら、コールバックの外で登録し直す */
+    private void updateRateTier(long eventNanos) {
+        RateScheduler.Tier tier =
+                rateScheduler.update(decision.isEnabled(), interactive, gated, decision.isMoving(), eventNanos);
+        if (tier != appliedTier) {
+            appliedTier = tier;
+            host.post(applyRateTier);
+        }
+    }
+
+    /** ゲートが開閉したら、画面が見えるかを判定へ渡して段を切り替える */
+    private void updateGate(long eventNanos) {
+        boolean g = gate.isGated();
+        if (g == gated) return;
+        gated = g;
+        decision.setScreenOn(interactive && !gated);
+        host.onGateChanged(gate.reason(), eventNanos);
+        updateBlockState(eventNanos);
+        updateRateTier(eventNanos);
+    }
+
+    private void applyRateTier() {
+        RateScheduler.Tier tier = rateScheduler.tier();
+        appliedTier = tier;
+
+        if (tier.motionEnabled()) {
+            motion.setSamplingPeriodUs(tier.motionPeriodUs);
+            motion.start();
+        } else if (motion.isRunning()) {
+            motion.stop();
+            decision.onMotion(false);
+        }
+
+        if (tier.poseEnabled()) {
+            if (!pose.isRunning()) decision.resetPose(); // 止めていた間の pitch は使わない
+            pose.setSamplingPeriodUs(tier.posePeriodUs);
+            pose.start();
+        } else if (pose.isRunning()) {
+            pose.stop();
+            decision.resetPose();
+            gate.clearPose(host.nowNanos());
+            updateGate(host.nowNanos());
+        }
+
+        updateBlockState(host.nowNanos());
+        host.onTierApplied(tier);
+    }
+
+    /** モードが変わったら、コールバックの外で登録し直す */
+    private void updateReportLatency(long eventNanos) {
+        ReportLatencyPolicy.Mode mode =
+                reportLatency.update(decision.isMoving(), decision.isDown(), eventNanos);
+        if (mode != appliedMode) {
+            appliedMode = mode;
+            host.post(applyReportLatency);
+        }
+    }
+
+    private void applyReportLatency() {
+        int us = reportLatency.maxReportLatencyUs();
+        pose.setMaxReportLatencyUs(us);
+        motion.setMaxReportLatencyUs(us);
+        host.onReportLatencyApplied(reportLatency.mode(), us);
+    }
+}
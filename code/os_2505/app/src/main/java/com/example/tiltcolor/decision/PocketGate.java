@@ -0,0 +1,98 @@
+package com.example.tiltcolor.decision;
+
+/**
+ * 画面が見えない持ち方（ポケット・カバンの中 / 伏せ置き）を見分けて、判定を止めるゲート（Android非依存）。
+ *  - 近接センサーが NEAR のまま ENTER_NEAR_MS 続いたら閉じる（FAR になったらすぐ開く）
+ *  - 画面が下を向いて水平に近い（|roll| > 90° かつ tilt < FACE_DOWN_TILT_DEG）状態が
+ *    ENTER_FACE_DOWN_MS 続いたら閉じる（起こしたらすぐ開く）
+ * 閉じている間、GuardLoop はブロックせず、購読段を GATED（姿勢は低レート）に落とす。
+ * 閉じるまでの待ちは、次に届いたイベントの時刻で確定する（歩行判定のイベントが常に流れているので足りる）。
+ * 時刻はナノ秒。閉じていた合計時間と回数を持つ。
+ */
+public final class PocketGate {
+
+    /** 閉じている理由 */
+    public enum Reason { NONE, NEAR, FACE_DOWN }
+
+    /** NEAR がこれだけ続いたら閉じる（手や指がかすめただけでは閉じない） */
+    public static final long ENTER_NEAR_MS = 500;
+    /** 伏せ置きがこれだけ続いたら閉じる */
+    public static final long ENTER_FACE_DOWN_MS = 1_000;
+    /** 伏せ置きとみなす傾き（水平からの角度）の上限 */
+    public static final float FACE_DOWN_TILT_DEG = 30f;
+
+    private static final long MS = 1_000_000L;
+
+    private long nearSince = -1L;
+    private long faceDownSince = -1L;
+
+    private Reason reason = Reason.NONE;
+    private long gatedSince = -1L;
+    private long gatedNanos = 0L;
+    private long entries = 0L;
+
+    /** 近接センサーの変化 */
+    public void onProximity(boolean near, long tNanos) {
+        if (!near) {
+            nearSince = -1L;
+        } else if (nearSince < 0) {
+            nearSince = tNanos;
+        }
+        update(tNanos);
+    }
+
+    /** 姿勢（PoseSnapshot の tilt / roll, deg） */
+    public void onPose(float tiltDeg, float rollDeg, long tNanos) {
+        boolean faceDown = tiltDeg < FACE_DOWN_TILT_DEG && Math.abs(rollDeg) > 90f;
+        if (!faceDown) {
+            faceDownSince = -1L;
+        } else if (faceDownSince < 0) {
+            faceDownSince = tNanos;
+        }
+        update(tNanos);
+    }
+
+    /** 姿勢の購読を止めた（伏せ置きかどうかは分からなくなるので忘れる） */
+    public void clearPose(long tNanos) {
+        faceDownSince = -1L;
+        update(tNanos);
+    }
+
+    /**
+     * 時刻 tNanos で状態を確定する。
+     * @return 閉じているか
+     */
+    public boolean update(long tNanos) {
+        Reason next;
+        if (nearSince >= 0 && tNanos - nearSince >= ENTER_NEAR_MS * MS) {
+            next = Reason.NEAR;
+        } else if (faceDownSince >= 0 && tNanos - faceDownSince >= ENTER_FACE_DOWN_MS * MS) {
+            next = Reason.FACE_DOWN;
+        } else {
+            next = Reason.NONE;
+        }
+        if ((next != Reason.NONE) != (reason != Reason.NONE)) {
+            if (next != Reason.NONE) {
+                gatedSince = tNanos;
+                entries++;
+            } else {
+                gatedNanos += tNanos - gatedSince;
+                gatedSince = -1L;
+            }
+        }
+        reason = next;
+        return next != Reason.NONE;
+    }
+
+    public boolean isGated() { return reason != Reason.NONE; }
+
+    public Reason reason() { return reason; }
+
+    /** 閉じた回数 */
+    public long entries() { return entries; }
+
+    /** 閉じていた合計時間（閉じている最中なら now までを含む） */
+    public long gatedNanos(long nowNanos) {
+        return gatedNanos + (gatedSince >= 0 ? nowNanos - gatedSince : 0L);
+    }
+}
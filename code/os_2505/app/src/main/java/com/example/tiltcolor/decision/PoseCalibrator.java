@@ -0,0 +1,73 @@
+package com.example.tiltcolor.decision;
+
+import com.example.tiltcolor.util.StreamingQuantile;
+
+/**
+ * 静止中の姿勢から、その人がふだん端末を持つ pitch / tilt（中央値）を学習する（Android非依存）。
+ *  - 机に置いた・ポケットの中などは pitch の範囲（MIN〜MAX_PITCH）で除外する
+ *  - 基準補正 baseline() = 学習した pitch − REFERENCE_PITCH。MIN_SAMPLES 件たまるまでは 0
+ *  - 補正は QUANTUM_DEG 刻みに丸め、MAX_SHIFT_* で制限する（判定しきい値が際限なく動かないように）
+ * メモリは推定値2つと件数だけ。GuardLoop が STILL の間の姿勢を渡す。
+ */
+public final class PoseCalibrator {
+
+    /** しきい値（GuardConfig.DEFAULT）が想定している、ふだんの持ち方の pitch */
+    public static final float REFERENCE_PITCH = 75f;
+    /** 持っているとみなす pitch の範囲 */
+    public static final float MIN_PITCH = 20f;
+    public static final float MAX_PITCH = 100f;
+    /** 補正を使い始めるまでのサンプル数（ACTIVE 段の 15Hz で 10 秒ぶん） */
+    public static final long MIN_SAMPLES = 150;
+    /** 補正の上限（下向き側 / 上向き側, deg） */
+    public static final float MAX_SHIFT_DOWN = 20f;
+    public static final float MAX_SHIFT_UP = 10f;
+    /** 補正の刻み（deg） */
+    public static final float QUANTUM_DEG = 0.5f;
+
+    /** 1件あたりの追従量（deg）と、逐次平均で寄せる件数 */
+    private static final double STEP_DEG = 0.1;
+    private static final long WARMUP = 32;
+
+    private final StreamingQuantile pitch = new StreamingQuantile(0.5, STEP_DEG, WARMUP);
+    private final StreamingQuantile tilt = new StreamingQuantile(0.5, STEP_DEG, WARMUP);
+    private float baseline = 0f;
+
+    /**
+     * 静止中の姿勢を1件入力する。
+     * @return baseline() が変わったら true
+     */
+    public boolean offer(float pitchDeg, float tiltDeg) {
+        if (!(pitchDeg >= MIN_PITCH && pitchDeg <= MAX_PITCH)) return false; // NaN も除外
+        pitch.add(pitchDeg);
+        tilt.add(tiltDeg);
+        return updateBaseline();
+    }
+
+    /** 保存しておいた学習結果から再開する */
+    public void restore(float neutralPitchDeg, float neutralTiltDeg, long samples) {
+        pitch.restore(neutralPitchDeg, samples);
+        tilt.restore(neutralTiltDeg, samples);
+        updateBaseline();
+    }
+
+    /** 判定に使う基準補正（deg）。BlockDecision の baselinePitch に渡す */
+    public float baseline() { return baseline; }
+
+    /** 学習したふだんの pitch / tilt（deg） */
+    public float neutralPitch() { return (float) pitch.estimate(); }
+    public float neutralTilt()  { return (float) tilt.estimate(); }
+
+    public long sampleCount() { return pitch.count(); }
+
+    private boolean updateBaseline() {
+        float b = 0f;
+        if (pitch.count() >= MIN_SAMPLES) {
+            float shift = (float) pitch.estimate() - REFERENCE_PITCH;
+            shift = Math.max(-MAX_SHIFT_DOWN, Math.min(MAX_SHIFT_UP, shift));
+            b = Math.round(shift / QUANTUM_DEG) * QUANTUM_DEG;
+        }
+        if (b == baseline) return false;
+        baseline = b;
+        return true;
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.tiltcolor.decision;
+
+/**
+ * 動き状態に応じてセンサーの購読レートを段階的に切り替えるスケジューラ（Android非依存）。
+ *  - OFF      : 無効時。すべて解除
+ *  - SUSPENDED: 画面OFF・ロック中（見せる画面が無い）。すべて解除
+ *  - GATED    : ポケットの中・伏せ置き（PocketGate）。加速度は WATCH と同じ低レート、
+ *               姿勢は伏せ置きの解除を見るためだけに低レート（5Hz）で残す
+ *  - WATCH    : 静止時。加速度（歩行判定）だけを低レートで監視、回転ベクトルは止める
+ *  - ACTIVE   : 動きを検知したら即座に。回転ベクトルを戻し、歩行判定も高レートへ
+ * ACTIVE → WATCH は静止が linger 続いてから（歩行の一時停止でバタつかないように）。
+ * SUSPENDED からは止める前の段へ戻す（ACTIVE だったら姿勢もすぐ購読し、linger は再開時刻から数える）。
+ * 時刻はセンサー時刻（ns）。
+ */
+public final class RateScheduler {
+
+    /** 各段のサンプリング周期（us, 0 = 購読しない）。値は SENSOR_DELAY_* 相当 */
+    public enum Tier {
+        OFF(0, 0),
+        SUSPENDED(0, 0),
+        GATED(50_000, 200_000),  // 20Hz 加速度 + NORMAL（姿勢。揺らいで 200ms を超えても OrientationFilter が加速度から取り直す）
+        WATCH(50_000, 0),        // 20Hz 加速度のみ
+        ACTIVE(20_000, 66_667);  // GAME（加速度）+ UI（回転ベクトル）
+
+        public final int motionPeriodUs;
+        public final int posePeriodUs;
+
+        Tier(int motionPeriodUs, int posePeriodUs) {
+            this.motionPeriodUs = motionPeriodUs;
+            this.posePeriodUs = posePeriodUs;
+        }
+
+        public boolean motionEnabled() { return motionPeriodUs > 0; }
+        public boolean poseEnabled()   { return posePeriodUs > 0; }
+    }
+
+    /** ACTIVE から WATCH へ落とすまでの静止時間 */
+    public static final long DEFAULT_LINGER_MS = 5_000;
+
+    private final long lingerNanos;
+    private Tier tier = Tier.WATCH;
+    private long stillSince = -1L;
+    private Tier resumeTier = Tier.WATCH;
+
+    public RateScheduler() { this(DEFAULT_LINGER_MS); }
+
+    public RateScheduler(long lingerMs) {
+        this.lingerNanos = lingerMs * 1_000_000L;
+    }
+
+    /** 画面を使える状態・ゲートを開けたまま更新する（update(enabled, true, false, moving, nowNanos) と同じ） */
+    public Tier update(boolean enabled, boolean moving, long nowNanos) {
+        return update(enabled, true, false, moving, nowNanos);
+    }
+
+    /**
+     * @param interactive 画面ON かつ ロック解除済みか
+     * @param gated       PocketGate が閉じているか（画面が見えない持ち方）
+     * @return 更新後の段
+     */
+    public Tier update(boolean enabled, boolean interactive, boolean gated, boolean moving, long nowNanos) {
+        if (!enabled) {
+            tier = Tier.OFF;
+            stillSince = -1L;
+        } else if (!interactive) {
+            if (tier != Tier.SUSPENDED) {
+                resumeTier = tier == Tier.ACTIVE ? Tier.ACTIVE : Tier.WATCH;
+                tier = Tier.SUSPENDED;
+                stillSince = -1L;
+            }
+        } else if (gated) {
+            tier = Tier.GATED;
+            stillSince = -1L;
+        } else if (moving) {
+            tier = Tier.ACTIVE;
+            stillSince = -1L;
+        } else if (tier == Tier.OFF || tier == Tier.GATED) {
+            tier = Tier.WATCH;
+        } else if (tier == Tier.SUSPENDED) {
+            tier = resumeTier;
+            stillSince = tier == Tier.ACTIVE ? nowNanos : -1L;
+        } else if (tier == Tier.ACTIVE) {
+            if (stillSince < 0) stillSince = nowNanos;
+            if (nowNanos - stillSince >= lingerNanos) {
+                tier = Tier.WATCH;
+                stillSince = -1L;
+            }
+        }
+        return tier;
+    }
+
+    public Tier tier() { return tier; }
+}
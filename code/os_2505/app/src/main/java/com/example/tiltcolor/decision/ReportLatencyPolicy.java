@@ -0,0 +1,56 @@
+package com.example.tiltcolor.decision;
+
+/**
+ * センサーのバッチング（maxReportLatencyUs）を切り替える方針（Android非依存）。
+ *  - 歩行中 or 下向き → LOW_LATENCY（即時配送）
+ *  - 静止かつ前向きが stillBeforeBatch 続いた → BATCHED（ハードウェアFIFOにためてまとめて配送）
+ * 時刻はセンサー時刻（ns）。バッチ配送でもイベント自身の時刻で判断する。
+ */
+public final class ReportLatencyPolicy {
+
+    public enum Mode { LOW_LATENCY, BATCHED }
+
+    /** BATCHED に入るまでの静止時間 */
+    public static final long DEFAULT_STILL_BEFORE_BATCH_MS = 10_000;
+    /** BATCHED 時の最大配送遅延 */
+    public static final int  DEFAULT_BATCH_LATENCY_US = 1_000_000;
+
+    private final long stillBeforeBatchNanos;
+    private final int batchLatencyUs;
+
+    private Mode mode = Mode.LOW_LATENCY;
+    private long stillSince = -1L;
+
+    public ReportLatencyPolicy() {
+        this(DEFAULT_STILL_BEFORE_BATCH_MS, DEFAULT_BATCH_LATENCY_US);
+    }
+
+    public ReportLatencyPolicy(long stillBeforeBatchMs, int batchLatencyUs) {
+        this.stillBeforeBatchNanos = stillBeforeBatchMs * 1_000_000L;
+        this.batchLatencyUs = batchLatencyUs;
+    }
+
+    /** @return 更新後のモード */
+    public Mode update(boolean moving, boolean down, long nowNanos) {
+        if (moving || down) {
+            stillSince = -1L;
+            mode = Mode.LOW_LATENCY;
+        } else {
+            if (stillSince < 0) stillSince = nowNanos;
+            if (nowNanos - stillSince >= stillBeforeBatchNanos) mode = Mode.BATCHED;
+        }
+        return mode;
+    }
+
+    public Mode mode() { return mode; }
+
+    /** 現在のモードで registerListener に渡す maxReportLatencyUs */
+    public int maxReportLatencyUs() {
+        return mode == Mode.BATCHED ? batchLatencyUs : 0;
+    }
+
+    public void reset() {
+        mode = Mode.LOW_LATENCY;
+        stillSince = -1L;
+    }
+}
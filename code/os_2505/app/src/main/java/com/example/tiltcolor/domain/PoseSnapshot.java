@@ -0,0 +1,64 @@
+package com.example.tiltcolor.domain;
+
+/**
+ * センサー通知ごとに使い回す可変の姿勢スナップショット（規約は PoseData と同じ）。
+ *  - PoseProvider.Listener へはこのインスタンスがそのまま渡される（通知ごとの new なし）
+ *  - 値は次の通知で上書きされるので、保持したい場合は toPoseData() で不変コピーを取る
+ *  - toPoseData() は値が変わるまで同じ PoseData を返す（要求されたときだけ生成）
+ */
+public final class PoseSnapshot {
+
+    private float pitchDeg;
+    private float rollDeg;
+    private float yawDeg;
+    private float tiltDeg;
+    private long tsMillis;
+    private long timestampNanos;
+
+    private PoseData cached;
+
+    public PoseSnapshot() {
+        this.tsMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * @param tsMillis       UNIXミリ秒（PoseData.tsMillis と同じ）
+     * @param timestampNanos センサーイベントの時刻（SensorEvent.timestamp, 不明なら0）
+     */
+    public void set(float pitchDeg, float rollDeg, float yawDeg, float tiltDeg,
+                    long tsMillis, long timestampNanos) {
+        this.pitchDeg = pitchDeg;
+        this.rollDeg = rollDeg;
+        this.yawDeg = yawDeg;
+        this.tiltDeg = tiltDeg;
+        this.tsMillis = tsMillis;
+        this.timestampNanos = timestampNanos;
+        this.cached = null;
+    }
+
+    public float pitchDeg() { return pitchDeg; }
+    public float rollDeg()  { return rollDeg; }
+    public float yawDeg()   { return yawDeg; }
+    public float tiltDeg()  { return tiltDeg; }
+    public long tsMillis()  { return tsMillis; }
+    public long timestampNanos() { return timestampNanos; }
+
+    /** 不変の PoseData に変換（値が変わるまでキャッシュ） */
+    public PoseData toPoseData() {
+        PoseData p = cached;
+        if (p == null) {
+            p = new PoseData(pitchDeg, rollDeg, yawDeg, tiltDeg, tsMillis);
+            cached = p;
+        }
+        return p;
+    }
+
+    @Override public String toString() {
+        return "PoseSnapshot{pitch=" + pitchDeg +
+                ", roll=" + rollDeg +
+                ", yaw=" + yawDeg +
+                ", tilt=" + tiltDeg +
+                ", ts=" + tsMillis +
+                ", tsNanos=" + timestampNanos + "}";
+    }
+}
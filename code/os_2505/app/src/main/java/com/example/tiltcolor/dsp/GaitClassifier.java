@@ -0,0 +1,155 @@
+package com.example.tiltcolor.dsp;
+
+/**
+ * 線形加速度から歩行の周期性（ケイデンス）を逐次推定する（Android非依存）。
+ *  - 主軸: 線形加速度の共分散（指数移動平均）にべき乗法を1回ずつ当てて、揺れの最も大きい軸を追う。
+ *    歩行では上下方向になるので、端末の向きによらず符号付きの1次元信号が得られる
+ *  - 周期性: 主軸への射影を、歩行の帯域（MIN_CADENCE_HZ〜MAX_CADENCE_HZ）の BINS 本の周波数で
+ *    指数窓つきの逐次 DFT（Goertzel と同じく各周波数の成分だけを持つ）に通し、
+ *    最大の成分が全エネルギーに占める割合を periodicity（0〜1）とする
+ *  - 正弦波なら 1 に近づき、白色ノイズ（乗り物の振動）や単発の衝撃（持ち替え）ではほぼ 0 のまま
+ * 1サンプルのコストは BINS に比例する定数（窓の長さ・サンプリング周波数によらない）。配列は生成時に確保するだけ。
+ * 時刻はナノ秒。間隔が MAX_GAP_NANOS を超えたら（購読の停止・再開）推定をやり直す。
+ */
+public final class GaitClassifier {
+
+    /** 歩行とみなす歩調の範囲（Hz, 1秒あたりの歩数） */
+    public static final double MIN_CADENCE_HZ = 1.2;
+    public static final double MAX_CADENCE_HZ = 2.8;
+    /** 周波数の本数（0.2Hz 刻み） */
+    public static final int BINS = 9;
+
+    /** periodicity がこれ以上で歩行へ */
+    public static final double ENTER_PERIODICITY = 0.4;
+    /** 歩行中は periodicity がこれ未満になるまで歩行のまま */
+    public static final double EXIT_PERIODICITY = 0.2;
+
+    /** スペクトル推定の時定数（秒）。長いほど周期性の判定は確かになるが、歩き始めの検出が遅れる */
+    private static final double TIME_CONSTANT_S = 0.8;
+    /** 主軸推定の時定数（秒）。スペクトルより遅くして軸を安定させる */
+    private static final double AXIS_TIME_CONSTANT_S = 2.0;
+    private static final long MAX_GAP_NANOS = 500_000_000L;
+    /** サンプル間隔がこの割合以上変わったら減衰率・回転量を計算し直す（ジッタのたびには計算しない） */
+    private static final double DT_TOLERANCE = 0.02;
+
+    private final double[] freqHz = new double[BINS];
+    // 各周波数の複素振幅（指数窓つきの和）と、e^{-j2πft} の位相子
+    private final double[] re = new double[BINS], im = new double[BINS];
+    private final double[] phRe = new double[BINS], phIm = new double[BINS];
+    // 1サンプルぶんの位相回転（cachedDt のときの値）
+    private final double[] rotCos = new double[BINS], rotSin = new double[BINS];
+
+    private double cachedDt = -1.0, decay, axisDecay;
+
+    // 主軸（単位ベクトル）と共分散
+    private double vx, vy, vz;
+    private double cxx, cxy, cxz, cyy, cyz, czz;
+
+    // 重みの和・平均・エネルギー（いずれも指数窓）
+    private double weight, sum, energy;
+    private long lastNanos = -1L;
+
+    private double periodicity = 0.0;
+    private double cadenceHz = 0.0;
+
+    public GaitClassifier() {
+        for (int k = 0; k < BINS; k++) {
+            freqHz[k] = MIN_CADENCE_HZ + (MAX_CADENCE_HZ - MIN_CADENCE_HZ) * k / (BINS - 1);
+        }
+        reset();
+    }
+
+    /** 線形加速度（重力除去済み, m/s^2）を1サンプル入力する */
+    public void onLinearAcceleration(long tNanos, float lx, float ly, float lz) {
+        long prev = lastNanos;
+        lastNanos = tNanos;
+        long gap = tNanos - prev;
+        if (prev < 0 || gap <= 0 || gap > MAX_GAP_NANOS) {
+            restart();
+            return;
+        }
+        updateRates(gap * 1e-9);
+
+        // 主軸: 共分散を更新して v ← C v / |C v|
+        double a = axisDecay, b = 1.0 - axisDecay;
+        cxx = a * cxx + b * lx * lx; cxy = a * cxy + b * lx * ly; cxz = a * cxz + b * lx * lz;
+        cyy = a * cyy + b * ly * ly; cyz = a * cyz + b * ly * lz; czz = a * czz + b * lz * lz;
+        double nx = cxx * vx + cxy * vy + cxz * vz;
+        double ny = cxy * vx + cyy * vy + cyz * vz;
+        double nz = cxz * vx + cyz * vy + czz * vz;
+        double n = Math.sqrt(nx * nx + ny * ny + nz * nz);
+        if (n > 1e-12) { vx = nx / n; vy = ny / n; vz = nz / n; }
+
+        // 射影 → 平均を引く → 各周波数へ
+        double x = lx * vx + ly * vy + lz * vz;
+        double d = decay;
+        weight = d * weight + 1.0;
+        sum = d * sum + x;
+        x -= sum / weight;
+        energy = d * energy + x * x;
+
+        double best = 0.0;
+        int bestK = 0;
+        for (int k = 0; k < BINS; k++) {
+            double pr = phRe[k] * rotCos[k] + phIm[k] * rotSin[k];
+            double pi = phIm[k] * rotCos[k] - phRe[k] * rotSin[k];
+            phRe[k] = pr;
+            phIm[k] = pi;
+            double r = d * re[k] + x * pr;
+            double i = d * im[k] + x * pi;
+            re[k] = r;
+            im[k] = i;
+            double p = r * r + i * i;
+            if (p > best) { best = p; bestK = k; }
+        }
+        // 正弦波なら |S|^2 ≈ W^2·A^2/4, E ≈ W·A^2/2 → 2|S|^2 / (W·E) ≈ 1。
+        // W は定常値 1/(1−d) を使うので、揺れ始めから約 TIME_CONSTANT_S かけて立ち上がる（数サンプルで 1 にならない）
+        periodicity = energy > 1e-12 ? Math.min(1.0, 2.0 * best * (1.0 - d) / energy) : 0.0;
+        cadenceHz = freqHz[bestK];
+    }
+
+    /**
+     * 周期的に揺れているか（ヒステリシスつき）。
+     * @param walking 直前まで歩行と判定していたか
+     */
+    public boolean isPeriodic(boolean walking) {
+        return periodicity >= (walking ? EXIT_PERIODICITY : ENTER_PERIODICITY);
+    }
+
+    /** 最大の周波数成分が全エネルギーに占める割合（0〜1） */
+    public double periodicity() { return periodicity; }
+
+    /** 最大の周波数成分の周波数（Hz）。periodicity が低いときは意味を持たない */
+    public double cadenceHz() { return cadenceHz; }
+
+    public void reset() {
+        lastNanos = -1L;
+        vx = vy = vz = 1.0 / Math.sqrt(3.0);
+        cxx = cxy = cxz = cyy = cyz = czz = 0.0;
+        restart();
+    }
+
+    /** スペクトルだけ捨てる（主軸は残す） */
+    private void restart() {
+        weight = sum = energy = 0.0;
+        periodicity = 0.0;
+        cadenceHz = 0.0;
+        for (int k = 0; k < BINS; k++) {
+            re[k] = im[k] = 0.0;
+            phRe[k] = 1.0;
+            phIm[k] = 0.0;
+        }
+    }
+
+    private void updateRates(double dt) {
+        if (cachedDt > 0 && Math.abs(dt - cachedDt) <= DT_TOLERANCE * cachedDt) return;
+        cachedDt = dt;
+        decay = Math.exp(-dt / TIME_CONSTANT_S);
+        axisDecay = Math.exp(-dt / AXIS_TIME_CONSTANT_S);
+        for (int k = 0; k < BINS; k++) {
+            double w = 2 * Math.PI * freqHz[k] * dt;
+            rotCos[k] = Math.cos(w);
+            rotSin[k] = Math.sin(w);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.tiltcolor.dsp;
+
+/**
+ * 加速度の1次ローパスで重力成分を推定するフィルタ（Android非依存）。
+ *  - 時定数 τ で決める: g += k * (a - g)、k = 1 − exp(−dt/τ)（dt はサンプル時刻の差）
+ *    サンプルごとの固定の重みと違い、周期を変えても・バッチ配送で間隔が揺れても同じ応答になる
+ *    （長く間が空いたら k → 1 で、そのサンプルにほぼ置き換わる）
+ *  - 最初のサンプルで初期化。時刻が進んでいないサンプルは捨てる
+ *  - 線形加速度は a - g で推定
+ * 時刻はナノ秒（SensorEvent.timestamp と同じ単位）。
+ */
+public final class GravityFilter {
+
+    /** 歩行判定（ACC − 重力）用。旧実装（MotionDetector: alpha=0.9）を GAME（20ms）周期で時定数に直したもの */
+    public static final float MOTION_TIME_CONSTANT_S = 0.19f;
+    /** 傾き（tilt）用。旧実装（SensorRepository: alpha=0.1）を UI（66.7ms）周期で時定数に直したもの */
+    public static final float TILT_TIME_CONSTANT_S = 0.63f;
+
+    private final float timeConstantS;
+    private float gx, gy, gz;
+    private long lastNanos;
+    private boolean initialized = false;
+
+    /** @param timeConstantS 時定数（秒, 小さいほど追従が速い） */
+    public GravityFilter(float timeConstantS) {
+        if (!(timeConstantS > 0f)) throw new IllegalArgumentException("timeConstantS: " + timeConstantS);
+        this.timeConstantS = timeConstantS;
+    }
+
+    public void update(long tNanos, float ax, float ay, float az) {
+        if (!initialized) {
+            gx = ax; gy = ay; gz = az;
+            lastNanos = tNanos;
+            initialized = true;
+            return;
+        }
+        long gap = tNanos - lastNanos;
+        if (gap <= 0) return;
+        lastNanos = tNanos;
+        float k = weight(gap * 1e-9f, timeConstantS);
+        gx += k * (ax - gx);
+        gy += k * (ay - gy);
+        gz += k * (az - gz);
+    }
+
+    /** 間隔 dtS 秒のサンプルの重み（1 − exp(−dt/τ)） */
+    public static float weight(float dtS, float timeConstantS) {
+        return (float) -Math.expm1(-dtS / timeConstantS);
+    }
+
+    /** update 後に呼ぶ: 線形加速度 |a - g|^2 */
+    public double linearMagnitudeSq(float ax, float ay, float az) {
+        double lx = ax - gx, ly = ay - gy, lz = az - gz;
+        return lx*lx + ly*ly + lz*lz;
+    }
+
+    public float timeConstantS() { return timeConstantS; }
+
+    public float gx() { return gx; }
+    public float gy() { return gy; }
+    public float gz() { return gz; }
+    public boolean isInitialized() { return initialized; }
+
+    public void reset() { initialized = false; gx = gy = gz = 0f; }
+}
@@ -0,0 +1,118 @@
+package com.example.tiltcolor.dsp;
+
+import com.example.tiltcolor.util.RmsWindow;
+
+/**
+ * 線形加速度から MOVING / STILL を判定する（Android非依存）。
+ *  - 窓内RMS + ヒステリシス（MOVE/STILL 2しきい値） + 持続時間
+ *    比較は二乗平均としきい値の二乗で行う（サンプルごとの sqrt なし。RMS は rms() で求めるときだけ）
+ *  - gait が有効なら、さらに歩調の周期性（GaitClassifier）も満たしたときだけ MOVING にする。
+ *    乗り物の振動や端末の持ち替えのように、強いが周期的でない揺れでは MOVING にならない
+ *  - 線形加速度センサーが無い端末向けに、重力ローパスで ACC - gravity を推定する経路も持つ
+ *    （ローパスはサンプル時刻の間隔で進めるので、周期を変えても同じ応答）
+ * 時刻はナノ秒（SensorEvent.timestamp / elapsedRealtimeNanos と同じ単位）。
+ */
+public final class MotionClassifier {
+
+    // ===== 既定の窓・しきい値・持続（MotionDetector / リプレイ共通） =====
+    public static final long DEFAULT_WINDOW_MS = 500;       // RMS窓幅
+    public static final long DEFAULT_HOLD_MS   = 500;       // 状態切替に必要な持続
+    public static final double DEFAULT_THRESH_MOVE = 0.28;  // 上回り続け→MOVING
+    public static final double DEFAULT_THRESH_STILL = 0.3;  // 下回り続け→STILL
+    // 周期性は既定では見ない（歩き出しの確定が RMS だけより約0.4秒遅れる。
+    //   BatchEvaluator のスイープで上回るまでは GuardConfig の gait で明示的に有効にする）
+    public static final boolean DEFAULT_GAIT = false;
+
+    private long holdNanos;
+    private double threshMoveSq;
+    private double threshStillSq;
+    private boolean gaitGate;
+
+    private final GravityFilter gravity = new GravityFilter(GravityFilter.MOTION_TIME_CONSTANT_S);
+    private final RmsWindow window;
+    private final GaitClassifier gait = new GaitClassifier();
+
+    private boolean moving = false;
+    private Boolean candidateMoving = null;
+    private long candidateStart = 0L;
+    private double meanSquare = 0.0;
+
+    /** RMS だけで判定する（周期性は見ない） */
+    public MotionClassifier(long windowNanos, long holdNanos, double threshMove, double threshStill) {
+        this(windowNanos, holdNanos, threshMove, threshStill, false);
+    }
+
+    public MotionClassifier(long windowNanos, long holdNanos, double threshMove, double threshStill, boolean gait) {
+        this.holdNanos = holdNanos;
+        setThresholds(threshMove, threshStill);
+        this.gaitGate = gait;
+        // 200Hz × 500ms でも再確保しない容量
+        this.window = new RmsWindow(windowNanos, 256);
+    }
+
+    /** 既定値（DEFAULT_*）で作る */
+    public static MotionClassifier withDefaults() {
+        return new MotionClassifier(DEFAULT_WINDOW_MS * 1_000_000L, DEFAULT_HOLD_MS * 1_000_000L,
+                DEFAULT_THRESH_MOVE, DEFAULT_THRESH_STILL, DEFAULT_GAIT);
+    }
+
+    /**
+     * 窓・持続・しきい値・周期性の有無を差し替える（入力と同じスレッドから）。
+     * 窓内のサンプルと判定中の状態は保つので、再購読や学習し直しは要らない。
+     */
+    public void configure(long windowNanos, long holdNanos, double threshMove, double threshStill, boolean gait) {
+        window.setWindowLength(windowNanos);
+        this.holdNanos = holdNanos;
+        setThresholds(threshMove, threshStill);
+        if (!gait) this.gait.reset();
+        this.gaitGate = gait;
+    }
+
+    /** 線形加速度（重力除去済み）を1サンプル入力。戻り値は判定後の moving。 */
+    public boolean onLinearAcceleration(long tNanos, float lx, float ly, float lz) {
+        window.addSquared(tNanos, (double) lx*lx + (double) ly*ly + (double) lz*lz);
+        if (gaitGate) gait.onLinearAcceleration(tNanos, lx, ly, lz);
+        return classify(tNanos);
+    }
+
+    /** 重力込みの加速度を1サンプル入力（重力は時定数 MOTION_TIME_CONSTANT_S のローパスで推定して差し引く）。 */
+    public boolean onAccelerometer(long tNanos, float ax, float ay, float az) {
+        gravity.update(tNanos, ax, ay, az);
+        return onLinearAcceleration(tNanos, ax - gravity.gx(), ay - gravity.gy(), az - gravity.gz());
+    }
+
+    public boolean isMoving() { return moving; }
+
+    /** 直近の窓内RMS（m/s^2） */
+    public double rms() { return Math.sqrt(meanSquare); }
+
+    /** 歩調の周期性（0〜1）と歩調（Hz）。gait が無効なら推定しない（0 のまま） */
+    public double periodicity() { return gait.periodicity(); }
+    public double cadenceHz() { return gait.cadenceHz(); }
+
+    private boolean classify(long now) {
+        meanSquare = window.meanSquare();
+
+        // ヒステリシス + 持続（rms < t ⇔ rms² < t²）
+        boolean movingNow = moving ? !(meanSquare < threshStillSq) : (meanSquare > threshMoveSq);
+        if (gaitGate) movingNow = movingNow && gait.isPeriodic(moving);
+
+        if (candidateMoving == null || candidateMoving != movingNow) {
+            candidateMoving = movingNow;
+            candidateStart = now;
+        } else if ((now - candidateStart) >= holdNanos) {
+            moving = movingNow;
+        }
+        return moving;
+    }
+
+    private void setThresholds(double threshMove, double threshStill) {
+        this.threshMoveSq = squared(threshMove);
+        this.threshStillSq = squared(threshStill);
+    }
+
+    /** 二乗平均と比べるしきい値（負のしきい値は RMS のどの値よりも小さいので -1 に置き換える） */
+    private static double squared(double thresh) {
+        return thresh < 0 ? -1.0 : thresh * thresh;
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.tiltcolor.dsp;
+
+import com.example.tiltcolor.util.TiltMath;
+
+/**
+ * ジャイロと加速度の相補フィルタで「上向き」（重力の逆向き）の単位ベクトルを端末座標で推定する（Android非依存）。
+ *  - ジャイロ: u ← normalize(u + (u × ω)·dt)（世界に固定したベクトルを機体座標で回す。遅れなし）
+ *  - 加速度: u ← normalize(u + k·(a/|a| − u))、k = dt / (τ + dt)。ジャイロのドリフトだけを τ でゆっくり補正する
+ *    |a| が g から離れている（歩行の衝撃など）ほど k を下げ、ACC_REJECT_MS2 以上離れたら補正しない
+ *  - pitch / tilt / roll はすべて同じ u から求めるので互いに食い違わない
+ *    （pitch = asin(u_y)、tilt = acos(|u_z|)、roll = atan2(−u_x, u_z)。OrientationMath / PoseEstimator と同じ規約）
+ *    角度は TiltMath の float 近似で出す（誤差は TiltMath.*_MAX_ERROR_DEG 以内）
+ *  - 加速度の間隔が MAX_GAP_NANOS を超えたら（購読の停止・再開、GATED 段の 5Hz が揺らいだとき）、
+ *    古い推定には寄せず加速度から取り直す（ジャイロはその間隔を積分しない）
+ * 状態は float 3つと時刻だけ。時刻はセンサー時刻（ns）で、dt はサンプル間隔から求める。
+ */
+public final class OrientationFilter {
+
+    /** 加速度で補正する時定数（秒）の既定値 */
+    public static final float DEFAULT_TIME_CONSTANT_S = 0.5f;
+
+    private static final float G = 9.80665f;
+    /** ||a| − g| がこれ以上なら加速度を信用しない（m/s^2） */
+    private static final float ACC_REJECT_MS2 = 0.5f * G;
+    /** これより長く間が空いたら積分せず、加速度から取り直す（購読の停止・再開） */
+    private static final long MAX_GAP_NANOS = 200_000_000L;
+
+    private final float timeConstantS;
+
+    private float ux, uy, uz;
+    private boolean initialized = false;
+    private long lastGyroNanos = -1L;
+    private long lastAccNanos = -1L;
+
+    public OrientationFilter() { this(DEFAULT_TIME_CONSTANT_S); }
+
+    public OrientationFilter(float timeConstantS) {
+        if (!(timeConstantS > 0f)) throw new IllegalArgumentException("timeConstantS: " + timeConstantS);
+        this.timeConstantS = timeConstantS;
+    }
+
+    /** 角速度（rad/s, 端末座標）を1サンプル入力する */
+    public void onGyroscope(long tNanos, float wx, float wy, float wz) {
+        long prev = lastGyroNanos;
+        lastGyroNanos = tNanos;
+        if (!initialized || prev < 0) return;
+        long gap = tNanos - prev;
+        if (gap <= 0 || gap > MAX_GAP_NANOS) return;
+        float dt = gap * 1e-9f;
+
+        // du/dt = u × ω
+        float nx = ux + (uy * wz - uz * wy) * dt;
+        float ny = uy + (uz * wx - ux * wz) * dt;
+        float nz = uz + (ux * wy - uy * wx) * dt;
+        set(nx, ny, nz);
+    }
+
+    /** 加速度（重力込み, m/s^2, 端末座標）を1サンプル入力する */
+    public void onAccelerometer(long tNanos, float ax, float ay, float az) {
+        float norm = (float) Math.sqrt(ax * ax + ay * ay + az * az);
+        long prev = lastAccNanos;
+        lastAccNanos = tNanos;
+        if (norm < 1e-3f) return;
+        if (!initialized) {
+            set(ax, ay, az);
+            initialized = true;
+            return;
+        }
+        long gap = tNanos - prev;
+        if (prev < 0 || gap <= 0) return;
+        float trust = 1f - Math.abs(norm - G) / ACC_REJECT_MS2;
+        if (trust <= 0f) return;
+        if (gap > MAX_GAP_NANOS) {
+            set(ax, ay, az);
+            return;
+        }
+        float dt = gap * 1e-9f;
+        float k = trust * dt / (timeConstantS + dt);
+        float inv = 1f / norm;
+        set(ux + k * (ax * inv - ux), uy + k * (ay * inv - uy), uz + k * (az * inv - uz));
+    }
+
+    /** PoseEstimator の回転ベクトル経路と同じ符号（縦持ち +90°, 水平 0°） */
+    public float pitchDeg() {
+        return TiltMath.asinDeg(uy);
+    }
+
+    /** 水平面からの角度（0°=水平, 90°=縦持ち） */
+    public float tiltDeg() {
+        return TiltMath.acosDeg(Math.abs(uz));
+    }
+
+    public float rollDeg() {
+        return TiltMath.atan2Deg(-ux, uz);
+    }
+
+    public boolean isInitialized() { return initialized; }
+
+    /** 上向きの単位ベクトル（端末座標） */
+    public float ux() { return ux; }
+    public float uy() { return uy; }
+    public float uz() { return uz; }
+
+    public void reset() {
+        initialized = false;
+        lastGyroNanos = -1L;
+        lastAccNanos = -1L;
+        ux = uy = uz = 0f;
+    }
+
+    private void set(float x, float y, float z) {
+        float n = (float) Math.sqrt(x * x + y * y + z * z);
+        if (n < 1e-6f) return;
+        ux = x / n;
+        uy = y / n;
+        uz = z / n;
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.tiltcolor.dsp;
+
+/**
+ * 回転ベクトル → 回転行列 → 方位角 と、重力ベクトル → tilt の計算（Android非依存）。
+ * SensorManager.getRotationMatrixFromVector / getOrientation（3x3版）と同じ式。
+ */
+public final class OrientationMath {
+
+    private OrientationMath() {} // インスタンス化禁止
+
+    /**
+     * 回転ベクトル（x, y, z[, w]）から 3x3 回転行列を求める。
+     * w が無い場合は単位四元数として補完する。
+     */
+    public static void getRotationMatrixFromVector(float[] R, float[] rv) {
+        float q1 = rv[0];
+        float q2 = rv[1];
+        float q3 = rv[2];
+        float q0;
+        if (rv.length >= 4) {
+            q0 = rv[3];
+        } else {
+            q0 = 1 - q1*q1 - q2*q2 - q3*q3;
+            q0 = (q0 > 0) ? (float) Math.sqrt(q0) : 0;
+        }
+
+        float sqQ1 = 2 * q1 * q1;
+        float sqQ2 = 2 * q2 * q2;
+        float sqQ3 = 2 * q3 * q3;
+        float q1q2 = 2 * q1 * q2;
+        float q3q0 = 2 * q3 * q0;
+        float q1q3 = 2 * q1 * q3;
+        float q2q0 = 2 * q2 * q0;
+        float q2q3 = 2 * q2 * q3;
+        float q1q0 = 2 * q1 * q0;
+
+        R[0] = 1 - sqQ2 - sqQ3;
+        R[1] = q1q2 - q3q0;
+        R[2] = q1q3 + q2q0;
+
+        R[3] = q1q2 + q3q0;
+        R[4] = 1 - sqQ1 - sqQ3;
+        R[5] = q2q3 - q1q0;
+
+        R[6] = q1q3 - q2q0;
+        R[7] = q2q3 + q1q0;
+        R[8] = 1 - sqQ1 - sqQ2;
+    }
+
+    /** 3x3 回転行列から [azimuth, pitch, roll]（rad）を求める。 */
+    public static void getOrientation(float[] R, float[] out) {
+        out[0] = (float) Math.atan2(R[1], R[4]);
+        out[1] = (float) Math.asin(-R[7]);
+        out[2] = (float) Math.atan2(-R[6], R[8]);
+    }
+
+    /**
+     * 重力ベクトルから tilt（水平面からの角度, deg）を求める。
+     * 0°=水平（画面が真上/真下）, 90°=縦持ち
+     */
+    public static double tiltDeg(float gx, float gy, float gz) {
+        double g = Math.max(1e-6, Math.sqrt(gx*gx + gy*gy + gz*gz));
+        double ratio = Math.min(1.0, Math.max(0.0, Math.abs(gz) / g));
+        return Math.toDegrees(Math.acos(ratio));
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.tiltcolor.dsp;
+
+/**
+ * 回転ベクトル・加速度の2ストリームからの姿勢通知を1本にまとめる間引き段（Android非依存）。
+ *  - pitch / tilt が epsilon を超えて変化したら即通知（検知遅延なし）
+ *  - 変化が小さくても tick ごとに1回は通知（時間ベースのデバウンスを進めるため）
+ *  - それ以外は抑制し、通知数/抑制数を数える
+ */
+public final class PoseCoalescer {
+
+    // 既定の間引き（変化が無くてもこの間隔で通知 / これを超える変化は即通知）
+    public static final long  DEFAULT_TICK_MS     = 50;
+    public static final float DEFAULT_EPSILON_DEG = 0.5f;
+
+    private final long tickNanos;
+    private final float epsilonDeg;
+
+    private boolean hasEmitted = false;
+    private long lastEmitNanos;
+    private float lastPitch, lastTilt;
+
+    private long emitted = 0L;
+    private long suppressed = 0L;
+
+    /**
+     * @param tickNanos  変化が無くても通知する最大間隔（ns）
+     * @param epsilonDeg これを超える pitch/tilt 変化は即通知（deg）
+     */
+    public PoseCoalescer(long tickNanos, float epsilonDeg) {
+        if (tickNanos <= 0) throw new IllegalArgumentException("tickNanos <= 0");
+        if (epsilonDeg < 0f) throw new IllegalArgumentException("epsilonDeg < 0");
+        this.tickNanos = tickNanos;
+        this.epsilonDeg = epsilonDeg;
+    }
+
+    /** @return true なら通知する（内部の基準値も更新される） */
+    public boolean offer(long tNanos, float pitchDeg, float tiltDeg) {
+        boolean emit = !hasEmitted
+                || Math.abs(pitchDeg - lastPitch) > epsilonDeg
+                || Math.abs(tiltDeg - lastTilt) > epsilonDeg
+                || (tNanos - lastEmitNanos) >= tickNanos;
+        if (emit) {
+            hasEmitted = true;
+            lastEmitNanos = tNanos;
+            lastPitch = pitchDeg;
+            lastTilt = tiltDeg;
+            emitted++;
+        } else {
+            suppressed++;
+        }
+        return emit;
+    }
+
+    /** 次の offer を必ず通知させる（再開時など） */
+    public void reset() { hasEmitted = false; }
+
+    public long emittedCount()    { return emitted; }
+    public long suppressedCount() { return suppressed; }
+}
@@ -0,0 +1,97 @@
+package com.example.tiltcolor.dsp;
+
+import com.example.tiltcolor.util.TiltMath;
+
+/**
+ * 回転ベクトル・加速度・ジャイロから pitch/roll/yaw/tilt（deg）を推定する（Android非依存）。
+ * SensorRepository はセンサー値をここへ渡すだけのアダプタ。
+ * 規約は PoseData と同じ（pitch: 正面0°, 下向き負）。
+ *  - ジャイロが届いていれば OrientationFilter（ジャイロ＋加速度の相補フィルタ）の1つの推定から pitch/tilt/roll を出す。
+ *    回転ベクトルは yaw だけに使う（融合中は SensorRepository が回転ベクトルを購読しないので yaw は止まる）
+ *  - 加速度が流れているのにジャイロが GYRO_TIMEOUT_NANOS 届かなければ、融合をやめて下のフォールバックへ戻る
+ *  - ジャイロが無い端末では従来どおり（フォールバック）: pitch/roll/yaw は回転ベクトル、tilt は加速度ローパス
+ *    （時定数 GravityFilter.TILT_TIME_CONSTANT_S。サンプル時刻の間隔で進めるので周期によらない）
+ *  - 角度は毎サンプル出すので TiltMath の float 近似を使う（誤差は TiltMath.*_MAX_ERROR_DEG 以内）
+ */
+public final class PoseEstimator {
+
+    /** 加速度が届いている間、ジャイロがこれだけ途切れたら融合推定をやめる */
+    public static final long GYRO_TIMEOUT_NANOS = 1_000_000_000L;
+
+    private final float[] rotation = new float[9];
+    private final GravityFilter gravity = new GravityFilter(GravityFilter.TILT_TIME_CONSTANT_S);
+    private final OrientationFilter fusion = new OrientationFilter();
+    private boolean fused = false;
+    private long lastGyroNanos = Long.MIN_VALUE;
+    private long lastAccNanos = Long.MIN_VALUE;
+
+    private float pitchDeg, rollDeg, yawDeg, tiltDeg;
+
+    /** 回転ベクトル（x, y, z[, w]）で姿勢を更新。値が不正なら false。 */
+    public boolean onRotationVector(float[] values) {
+        if (values == null || values.length < 3) return false;
+        OrientationMath.getRotationMatrixFromVector(rotation, values);
+        // OrientationMath.getOrientation と同じ式: azimuth = atan2(R1, R4), pitch = asin(−R7), roll = atan2(−R6, R8)
+        yawDeg = TiltMath.atan2Deg(rotation[1], rotation[4]);
+        if (fused) return true;
+        pitchDeg = TiltMath.asinDeg(rotation[7]); // 正面0°, 下向き負
+        rollDeg  = TiltMath.atan2Deg(-rotation[6], rotation[8]);
+        return true;
+    }
+
+    /** 加速度（重力込み）で姿勢を更新。値が不正なら false。 */
+    public boolean onAccelerometer(long tNanos, float[] values) {
+        if (values == null || values.length < 3) return false;
+        onAccelerometer(tNanos, values[0], values[1], values[2]);
+        return true;
+    }
+
+    public void onAccelerometer(long tNanos, float ax, float ay, float az) {
+        long prevAcc = lastAccNanos;
+        lastAccNanos = tNanos;
+        if (fused) {
+            if (prevAcc == Long.MIN_VALUE || tNanos - prevAcc > GYRO_TIMEOUT_NANOS) {
+                lastGyroNanos = tNanos; // 加速度も途切れていた（購読の停止・再開）ならジャイロの待ちも数え直す
+            } else if (tNanos - lastGyroNanos > GYRO_TIMEOUT_NANOS) {
+                fused = false;
+            }
+        }
+        fusion.onAccelerometer(tNanos, ax, ay, az);
+        if (fused) {
+            fromFusion();
+        } else {
+            gravity.update(tNanos, ax, ay, az);
+            tiltDeg = TiltMath.tiltDeg(gravity.gx(), gravity.gy(), gravity.gz());
+        }
+    }
+
+    /** 角速度（rad/s）で姿勢を更新。値が不正なら false。 */
+    public boolean onGyroscope(long tNanos, float[] values) {
+        if (values == null || values.length < 3) return false;
+        return onGyroscope(tNanos, values[0], values[1], values[2]);
+    }
+
+    /** @return 融合推定が使える（加速度で初期化済み）なら true */
+    public boolean onGyroscope(long tNanos, float wx, float wy, float wz) {
+        fusion.onGyroscope(tNanos, wx, wy, wz);
+        lastGyroNanos = tNanos;
+        if (!fusion.isInitialized()) return false;
+        fused = true;
+        fromFusion();
+        return true;
+    }
+
+    /** ジャイロによる融合推定を使っているか */
+    public boolean isFused() { return fused; }
+
+    public float pitchDeg() { return pitchDeg; }
+    public float rollDeg()  { return rollDeg; }
+    public float yawDeg()   { return yawDeg; }
+    public float tiltDeg()  { return tiltDeg; }
+
+    private void fromFusion() {
+        pitchDeg = fusion.pitchDeg();
+        tiltDeg = fusion.tiltDeg();
+        rollDeg = fusion.rollDeg();
+    }
+}
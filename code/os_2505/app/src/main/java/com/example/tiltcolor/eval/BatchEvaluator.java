@@ -0,0 +1,325 @@
+package com.example.tiltcolor.eval;
+
+import com.example.tiltcolor.decision.BlockDecision;
+import com.example.tiltcolor.decision.PocketGate;
+import com.example.tiltcolor.decision.RateScheduler;
+import com.example.tiltcolor.dsp.MotionClassifier;
+import com.example.tiltcolor.dsp.PoseCoalescer;
+import com.example.tiltcolor.dsp.PoseEstimator;
+import com.example.tiltcolor.sensor.SensorFanout;
+import com.example.tiltcolor.util.IntervalDecimator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * しきい値の組をトレース（TraceColumns）のコーパスでまとめて評価する（Android非依存）。
+ *  - 判定は GuardService と同じクラス（BlockDecision / MotionClassifier / RateScheduler / PoseCoalescer / PocketGate）を
+ *    GuardLoop と同じ順序で呼ぶ。姿勢センサーを止めている間（WATCH 段）の pitch は使わないところ、
+ *    ポケットの中・伏せ置きでゲートが閉じたら GATED 段に落としてブロックしないところまで同じ
+ *  - 記録したイベントは、段の周期（姿勢・歩行判定それぞれ）へ ReplayPoseProvider / ReplayMotionSource と同じ格子で
+ *    間引いてから使う（端末と同じレートで判定する）
+ *  - 回転ベクトル → pitch など、しきい値に依存しない計算は TraceColumns が1回だけ済ませている
+ *  - sweep() は組ごとに ForkJoinPool で並列に評価する（組どうしは状態を共有しない）
+ * ON/OFF は常に ON として評価する。バッチ配送モード（ReportLatencyPolicy）は判定に影響しないので省く。
+ * 基準の自動校正（PoseCalibrator）は使わず、EvalConfig.baselinePitch で固定する。
+ */
+public final class BatchEvaluator {
+
+    private static final long MS = 1_000_000L;
+    private static final int POSE_KINDS =
+            TraceColumns.KIND_ROTATION | TraceColumns.KIND_TILT | TraceColumns.KIND_GYRO;
+
+    private BatchEvaluator() {} // インスタンス化禁止
+
+    /** 評価対象: トレース1本とその正解ラベル */
+    public static final class Sample {
+        public final TraceColumns columns;
+        public final Labels labels;
+
+        public Sample(TraceColumns columns, Labels labels) {
+            this.columns = columns;
+            this.labels = labels;
+        }
+    }
+
+    /** config をコーパス全体で評価する */
+    public static EvalResult evaluate(List<Sample> corpus, EvalConfig config) {
+        EvalResult total = new EvalResult(config, 0, 0, 0, 0, 0, 0, 0, 0);
+        for (Sample s : corpus) total = total.plus(evaluate(s, config));
+        return total;
+    }
+
+    /** config をトレース1本で評価する */
+    public static EvalResult evaluate(Sample sample, EvalConfig config) {
+        Run run = new Run(config);
+        run.replay(sample.columns);
+        return run.score(sample.labels, config);
+    }
+
+    /** 全ての組を pool で並列に評価する（結果は configs と同じ順） */
+    public static List<EvalResult> sweep(List<Sample> corpus, List<EvalConfig> configs, ForkJoinPool pool) {
+        EvalResult[] out = new EvalResult[configs.size()];
+        pool.invoke(new SweepTask(corpus, configs, out, 0, out.length));
+        return Collections.unmodifiableList(Arrays.asList(out));
+    }
+
+    /** 組の範囲を半分ずつに分けて評価する */
+    private static final class SweepTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Sample> corpus;
+        private final List<EvalConfig> configs;
+        private final EvalResult[] out;
+        private final int lo, hi;
+
+        SweepTask(List<Sample> corpus, List<EvalConfig> configs, EvalResult[] out, int lo, int hi) {
+            this.corpus = corpus;
+            this.configs = configs;
+            this.out = out;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= 1) {
+                if (hi > lo) out[lo] = evaluate(corpus, configs.get(lo));
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new SweepTask(corpus, configs, out, lo, mid),
+                      new SweepTask(corpus, configs, out, mid, hi));
+        }
+    }
+
+    /** 1つの組でトレース1本を流す（GuardLoop + ReplayPoseProvider + ReplayMotionSource と同じ手順） */
+    private static final class Run {
+        private final BlockDecision decision;
+        private final MotionClassifier motion;
+        private final RateScheduler rate = new RateScheduler();
+        private final PoseCoalescer coalescer =
+                new PoseCoalescer(PoseCoalescer.DEFAULT_TICK_MS * MS, PoseCoalescer.DEFAULT_EPSILON_DEG);
+        private final PoseEstimator pose = new PoseEstimator();
+        private final PocketGate gate = new PocketGate();
+        private final IntervalDecimator rotationGrid = new IntervalDecimator(0L);
+        private final IntervalDecimator tiltGrid = new IntervalDecimator(0L);
+        private final IntervalDecimator gyroGrid = new IntervalDecimator(0L);
+        private final IntervalDecimator motionGrid = new IntervalDecimator(0L);
+        private int posePeriodUs = 0, motionPeriodUs = 0;
+
+        private RateScheduler.Tier appliedTier = null;
+        private boolean applyPending = false;
+        private boolean poseRunning = false;
+        private boolean gated = false;
+        private float pitch = 0f, roll = 0f, tilt = 0f;
+
+        private boolean blocked = false;
+        private long blockStart;
+        private long[] blockStarts = new long[16], blockEnds = new long[16];
+        private int blocks = 0;
+
+        Run(EvalConfig c) {
+            decision = new BlockDecision(c.hideThreshold, c.showThreshold, c.debounceMs, c.baselinePitch);
+            motion = new MotionClassifier(c.windowMs * MS, c.holdMs * MS, c.threshMove, c.threshStill, c.gait);
+        }
+
+        void replay(TraceColumns c) {
+            if (c.size == 0) return;
+            // GuardLoop.start: 段を決めて反映
+            rate.update(true, true, false, false, c.t[0]);
+            applyRateTier(c.t[0]);
+
+            for (int i = 0; i < c.size; i++) {
+                long t = c.t[i];
+                byte k = c.kind[i];
+
+                // TraceReplay と同じく、満了時刻を過ぎたデバウンスはこのイベントの前に確定する
+                long deadline = decision.deadlineMs();
+                if (deadline != BlockDecision.NO_DEADLINE && deadline * MS <= t) {
+                    decision.onTimer(deadline);
+                    afterEvent(deadline * MS);
+                    if (applyPending) {
+                        applyPending = false;
+                        applyRateTier(deadline * MS);
+                    }
+                }
+
+                if (poseRunning && (k & POSE_KINDS) != 0 && updatePose(c, i, k, t)) {
+                    if (coalescer.offer(t, pitch, tilt)) {
+                        gate.onPose(tilt, roll, t);
+                        updateGate(t);
+                        decision.onPose(pitch, t / MS);
+                        afterEvent(t);
+                    }
+                }
+                if ((k & TraceColumns.KIND_MOTION) != 0 && motionGrid.accept(t)) {
+                    boolean moving = c.motionFromAccelerometer
+                            ? motion.onAccelerometer(t, c.ax[i], c.ay[i], c.az[i])
+                            : motion.onLinearAcceleration(t, c.lx[i], c.ly[i], c.lz[i]);
+                    gate.update(t);
+                    updateGate(t);
+                    decision.onMotion(moving);
+                    afterEvent(t);
+                }
+                if ((k & TraceColumns.KIND_PROXIMITY) != 0) {
+                    gate.onProximity(c.near[i], t);
+                    updateGate(t);
+                }
+                if (applyPending) {
+                    applyPending = false;
+                    applyRateTier(t);
+                }
+            }
+            if (blocked) closeBlock(c.t[c.size - 1]);
+        }
+
+        /** PoseEstimator と同じ規則で pitch / roll / tilt を進める（回転ベクトルの角度は計算済みの列を使う） */
+        private boolean updatePose(TraceColumns c, int i, byte k, long t) {
+            if ((k & TraceColumns.KIND_ROTATION) != 0) {
+                if (!rotationGrid.accept(t)) return false;
+                if (!pose.isFused()) {
+                    pitch = c.pitch[i];
+                    roll = c.roll[i];
+                }
+                return true;
+            }
+            if ((k & TraceColumns.KIND_TILT) != 0) {
+                if (!tiltGrid.accept(t)) return false;
+                pose.onAccelerometer(t, c.ax[i], c.ay[i], c.az[i]);
+            } else if (!gyroGrid.accept(t) || !pose.onGyroscope(t, c.ax[i], c.ay[i], c.az[i])) {
+                return false;
+            }
+            if (pose.isFused()) {
+                pitch = pose.pitchDeg();
+                roll = pose.rollDeg();
+            }
+            tilt = pose.tiltDeg();
+            return true;
+        }
+
+        private void afterEvent(long t) {
+            updateBlockState(t);
+            updateRateTier(t);
+        }
+
+        private void updateRateTier(long t) {
+            RateScheduler.Tier tier = rate.update(true, true, gated, decision.isMoving(), t);
+            if (tier != appliedTier) {
+                appliedTier = tier;
+                applyPending = true;
+            }
+        }
+
+        /** GuardLoop.updateGate と同じ: ゲートが開閉したら画面が見えるかを判定へ渡して段を切り替える */
+        private void updateGate(long t) {
+            boolean g = gate.isGated();
+            if (g == gated) return;
+            gated = g;
+            decision.setScreenOn(!gated);
+            updateBlockState(t);
+            updateRateTier(t);
+        }
+
+        private void applyRateTier(long t) {
+            RateScheduler.Tier tier = rate.tier();
+            appliedTier = tier;
+            if (tier.motionPeriodUs != motionPeriodUs) {
+                motionPeriodUs = tier.motionPeriodUs;
+                motionGrid.setIntervalNanos(SensorFanout.periodUs(motionPeriodUs) * 1_000L);
+            }
+            if (tier.poseEnabled()) {
+                if (!poseRunning) {
+                    decision.resetPose(); // 止めていた間の pitch は使わない
+                    coalescer.reset();
+                    rotationGrid.reset();
+                    tiltGrid.reset();
+                    gyroGrid.reset();
+                    poseRunning = true;
+                }
+                if (tier.posePeriodUs != posePeriodUs) {
+                    posePeriodUs = tier.posePeriodUs;
+                    long interval = SensorFanout.periodUs(posePeriodUs) * 1_000L;
+                    rotationGrid.setIntervalNanos(interval);
+                    tiltGrid.setIntervalNanos(interval);
+                    gyroGrid.setIntervalNanos(interval);
+                }
+            } else if (poseRunning) {
+                poseRunning = false;
+                decision.resetPose();
+                gate.clearPose(t);
+                updateGate(t);
+            }
+            updateBlockState(t);
+        }
+
+        private void updateBlockState(long t) {
+            boolean should = decision.shouldBlock();
+            if (should == blocked) return;
+            blocked = should;
+            if (should) blockStart = t; else closeBlock(t);
+        }
+
+        private void closeBlock(long t) {
+            if (blocks == blockStarts.length) {
+                blockStarts = Arrays.copyOf(blockStarts, blocks * 2);
+                blockEnds = Arrays.copyOf(blockEnds, blocks * 2);
+            }
+            blockStarts[blocks] = blockStart;
+            blockEnds[blocks] = t;
+            blocks++;
+        }
+
+        /** ブロック区間とラベル区間を突き合わせる（どちらも時刻順・重なりなし） */
+        EvalResult score(Labels labels, EvalConfig config) {
+            long blockedTotal = 0L;
+            for (int b = 0; b < blocks; b++) blockedTotal += blockEnds[b] - blockStarts[b];
+
+            long overlap = 0L, ttbSum = 0L, ttbMax = 0L;
+            int missed = 0;
+            int b = 0;
+            for (int l = 0; l < labels.size(); l++) {
+                long ls = labels.start[l], le = labels.end[l];
+                while (b < blocks && blockEnds[b] <= ls) b++;
+                long firstBlock = -1L;
+                for (int j = b; j < blocks && blockStarts[j] < le; j++) {
+                    long s = Math.max(ls, blockStarts[j]), e = Math.min(le, blockEnds[j]);
+                    if (firstBlock < 0) firstBlock = s;
+                    overlap += Math.max(0L, e - s);
+                }
+                if (firstBlock < 0) {
+                    missed++;
+                } else {
+                    long ttb = firstBlock - ls;
+                    ttbSum += ttb;
+                    ttbMax = Math.max(ttbMax, ttb);
+                }
+            }
+            long labeledTotal = labels.totalNanos();
+            return new EvalResult(config, overlap, blockedTotal - overlap, labeledTotal - overlap,
+                    blocks, labels.size(), missed, ttbSum, ttbMax);
+        }
+    }
+
+    /**
+     * 組の格子を作る補助（直積）。HIDE/SHOW は同じ値、THRESH_STILL は既定と同じ差（MOVE + 0.02）にそろえる。
+     * 残りの項目は EvalConfig.DEFAULT のまま。
+     */
+    public static List<EvalConfig> grid(float[] hideThresholds, long[] debounceMs,
+                                        long[] windowMs, long[] holdMs, double[] threshMove) {
+        List<EvalConfig> out = new ArrayList<>();
+        EvalConfig d = EvalConfig.DEFAULT;
+        for (float hide : hideThresholds)
+            for (long deb : debounceMs)
+                for (long win : windowMs)
+                    for (long hold : holdMs)
+                        for (double move : threshMove)
+                            out.add(new EvalConfig(hide, hide, deb, d.baselinePitch, win, hold,
+                                    move, move + (d.threshStill - d.threshMove), d.gait));
+        return out;
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.tiltcolor.eval;
+
+import com.example.tiltcolor.decision.GuardConfig;
+
+import java.util.Locale;
+
+/**
+ * 評価するしきい値の組（不変）。GuardConfig から ON/OFF を除いた項目。
+ */
+public final class EvalConfig {
+
+    /** GuardConfig.DEFAULT と同じ値（autoBaseline は評価では使わず、基準は baselinePitch 固定） */
+    public static final EvalConfig DEFAULT = of(GuardConfig.DEFAULT);
+
+    public final float hideThreshold;
+    public final float showThreshold;
+    public final long debounceMs;
+    public final float baselinePitch;
+    public final long windowMs;
+    public final long holdMs;
+    public final double threshMove;
+    public final double threshStill;
+    public final boolean gait;
+
+    public EvalConfig(float hideThreshold, float showThreshold, long debounceMs, float baselinePitch,
+                      long windowMs, long holdMs, double threshMove, double threshStill, boolean gait) {
+        this.hideThreshold = hideThreshold;
+        this.showThreshold = showThreshold;
+        this.debounceMs = debounceMs;
+        this.baselinePitch = baselinePitch;
+        this.windowMs = windowMs;
+        this.holdMs = holdMs;
+        this.threshMove = threshMove;
+        this.threshStill = threshStill;
+        this.gait = gait;
+    }
+
+    /** 端末の設定と同じ組 */
+    public static EvalConfig of(GuardConfig c) {
+        return new EvalConfig(c.hideThreshold, c.showThreshold, c.debounceMs, c.baselinePitch,
+                c.windowMs, c.holdMs, c.threshMove, c.threshStill, c.gait);
+    }
+
+    /** この組を端末の設定へ当てはめる（ON/OFF は base のまま） */
+    public GuardConfig applyTo(GuardConfig base) {
+        return base.withPitch(hideThreshold, showThreshold, debounceMs, baselinePitch)
+                .withMotion(windowMs, holdMs, threshMove, threshStill).withGait(gait);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US,
+                "hide=%.1f show=%.1f debounce=%dms baseline=%.1f window=%dms hold=%dms move=%.3f still=%.3f gait=%b",
+                hideThreshold, showThreshold, debounceMs, baselinePitch, windowMs, holdMs, threshMove, threshStill, gait);
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.tiltcolor.eval;
+
+import java.util.Locale;
+
+/**
+ * 1つのしきい値の組をコーパス全体で評価した結果。
+ *  - precision / recall は時間重み（ブロックした時間とラベル区間の重なり）
+ *  - time-to-block はラベル区間の開始から最初にブロックするまで（区間内にブロックが無ければ見逃し）
+ */
+public final class EvalResult {
+
+    public final EvalConfig config;
+    /** ブロックした時間のうちラベル区間と重なった時間（ns） */
+    public final long truePositiveNanos;
+    /** ラベル区間外でブロックした時間（ns） */
+    public final long falsePositiveNanos;
+    /** ラベル区間内でブロックしなかった時間（ns） */
+    public final long falseNegativeNanos;
+    /** ブロック要求に入った回数 */
+    public final long blockCount;
+    /** ラベル区間の数 / そのうち一度もブロックしなかった数 */
+    public final int labeledIntervals;
+    public final int missedIntervals;
+    /** 検出できたラベル区間の time-to-block の合計・最大（ns） */
+    public final long timeToBlockSumNanos;
+    public final long timeToBlockMaxNanos;
+
+    EvalResult(EvalConfig config, long tp, long fp, long fn, long blockCount,
+               int labeledIntervals, int missedIntervals, long ttbSum, long ttbMax) {
+        this.config = config;
+        this.truePositiveNanos = tp;
+        this.falsePositiveNanos = fp;
+        this.falseNegativeNanos = fn;
+        this.blockCount = blockCount;
+        this.labeledIntervals = labeledIntervals;
+        this.missedIntervals = missedIntervals;
+        this.timeToBlockSumNanos = ttbSum;
+        this.timeToBlockMaxNanos = ttbMax;
+    }
+
+    /** 複数トレースの結果を足し合わせる（同じ config どうし） */
+    EvalResult plus(EvalResult o) {
+        return new EvalResult(config,
+                truePositiveNanos + o.truePositiveNanos,
+                falsePositiveNanos + o.falsePositiveNanos,
+                falseNegativeNanos + o.falseNegativeNanos,
+                blockCount + o.blockCount,
+                labeledIntervals + o.labeledIntervals,
+                missedIntervals + o.missedIntervals,
+                timeToBlockSumNanos + o.timeToBlockSumNanos,
+                Math.max(timeToBlockMaxNanos, o.timeToBlockMaxNanos));
+    }
+
+    /** ブロックした時間のうち正しかった割合（ブロックしなければ 1） */
+    public double precision() {
+        long blocked = truePositiveNanos + falsePositiveNanos;
+        return blocked == 0 ? 1.0 : (double) truePositiveNanos / blocked;
+    }
+
+    /** ブロックすべき時間のうちブロックできた割合（ラベルが無ければ 1） */
+    public double recall() {
+        long labeled = truePositiveNanos + falseNegativeNanos;
+        return labeled == 0 ? 1.0 : (double) truePositiveNanos / labeled;
+    }
+
+    /** 検出できたラベル区間の平均 time-to-block（ms。1件も無ければ NaN） */
+    public double meanTimeToBlockMs() {
+        int detected = labeledIntervals - missedIntervals;
+        return detected == 0 ? Double.NaN : timeToBlockSumNanos / 1e6 / detected;
+    }
+
+    public double maxTimeToBlockMs() { return timeToBlockMaxNanos / 1e6; }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US,
+                "%s -> precision=%.3f recall=%.3f blocks=%d missed=%d/%d ttb mean=%.0fms max=%.0fms",
+                config, precision(), recall(), blockCount, missedIntervals, labeledIntervals,
+                meanTimeToBlockMs(), maxTimeToBlockMs());
+    }
+}
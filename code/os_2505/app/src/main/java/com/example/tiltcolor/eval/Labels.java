@@ -0,0 +1,46 @@
+package com.example.tiltcolor.eval;
+
+import java.util.Arrays;
+
+/**
+ * 正解ラベル: 「ブロックすべき（歩行中かつ下向き）」区間 [start, end) の並び（ns, トレースと同じ時刻基準）。
+ */
+public final class Labels {
+
+    final long[] start;
+    final long[] end;
+
+    private Labels(long[] start, long[] end) {
+        this.start = start;
+        this.end = end;
+    }
+
+    /** start0, end0, start1, end1, ... の順で区間を指定する（重なり不可） */
+    public static Labels of(long... startEndPairs) {
+        if (startEndPairs.length % 2 != 0) throw new IllegalArgumentException("odd number of bounds");
+        int n = startEndPairs.length / 2;
+        long[][] pairs = new long[n][];
+        for (int i = 0; i < n; i++) {
+            long s = startEndPairs[2 * i], e = startEndPairs[2 * i + 1];
+            if (e < s) throw new IllegalArgumentException("end < start");
+            pairs[i] = new long[]{s, e};
+        }
+        Arrays.sort(pairs, (a, b) -> Long.compare(a[0], b[0]));
+        long[] start = new long[n], end = new long[n];
+        for (int i = 0; i < n; i++) {
+            if (i > 0 && pairs[i][0] < end[i - 1]) throw new IllegalArgumentException("overlapping labels");
+            start[i] = pairs[i][0];
+            end[i] = pairs[i][1];
+        }
+        return new Labels(start, end);
+    }
+
+    public int size() { return start.length; }
+
+    /** ラベル区間の合計時間（ns） */
+    public long totalNanos() {
+        long sum = 0L;
+        for (int i = 0; i < start.length; i++) sum += end[i] - start[i];
+        return sum;
+    }
+}
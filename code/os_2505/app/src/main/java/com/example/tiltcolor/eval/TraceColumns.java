@@ -0,0 +1,147 @@
+package com.example.tiltcolor.eval;
+
+import com.example.tiltcolor.dsp.PoseEstimator;
+import com.example.tiltcolor.trace.SensorTrace;
+import com.example.tiltcolor.trace.TraceReader;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * センサートレースを列ごとのプリミティブ配列に展開したもの（Android非依存）。
+ * しきい値に依存しない計算は読み込み時に1回だけ済ませておく:
+ *  - 回転ベクトル → pitch / roll（PoseEstimator と同じ計算。回転ベクトルは状態を持たない）
+ * 加速度の tilt・ジャイロの融合推定・歩行判定は、購読している間だけ段の周期に間引いて更新されるので、
+ * 生の値を残して評価時に計算する（歩行判定は線形加速度、それが無い端末なら加速度。motionFromAccelerometer）。
+ * 近接は NEAR / FAR だけを残す（PocketGate の入力）。
+ */
+public final class TraceColumns {
+
+    /** kind: 姿勢（回転ベクトル） */
+    public static final byte KIND_ROTATION = 1;
+    /** kind: 姿勢（加速度 → tilt） */
+    public static final byte KIND_TILT = 1 << 1;
+    /** kind: 歩行判定の入力 */
+    public static final byte KIND_MOTION = 1 << 2;
+    /** kind: 姿勢（ジャイロ。gx/gy/gz） */
+    public static final byte KIND_GYRO = 1 << 3;
+    /** kind: 近接（near） */
+    public static final byte KIND_PROXIMITY = 1 << 4;
+
+    final int size;
+    final long[] t;
+    final byte[] kind;
+    final float[] pitch, roll;
+    /** 近接が NEAR か（KIND_PROXIMITY） */
+    final boolean[] near;
+    /** 加速度（KIND_TILT）またはジャイロ（KIND_GYRO）の生の値 */
+    final float[] ax, ay, az;
+    /** 歩行判定に渡す線形加速度（KIND_MOTION。motionFromAccelerometer なら使わず ax/ay/az を渡す） */
+    final float[] lx, ly, lz;
+    /** 線形加速度が無い端末の記録（歩行判定は加速度から MotionClassifier が重力を除いて行う） */
+    final boolean motionFromAccelerometer;
+
+    private TraceColumns(boolean motionFromAccelerometer, int size, long[] t, byte[] kind, float[] pitch, float[] roll, boolean[] near,
+                         float[] ax, float[] ay, float[] az, float[] lx, float[] ly, float[] lz) {
+        this.motionFromAccelerometer = motionFromAccelerometer;
+        this.size = size;
+        this.t = t;
+        this.kind = kind;
+        this.pitch = pitch;
+        this.roll = roll;
+        this.near = near;
+        this.ax = ax;
+        this.ay = ay;
+        this.az = az;
+        this.lx = lx;
+        this.ly = ly;
+        this.lz = lz;
+    }
+
+    /** トレースを終端まで読んで列にする（reader は閉じない） */
+    public static TraceColumns load(TraceReader reader) throws IOException {
+        boolean useLinear = reader.hasLinearAcceleration();
+        PoseEstimator estimator = new PoseEstimator();
+
+        int cap = 1 << 12, n = 0;
+        long[] t = new long[cap];
+        byte[] kind = new byte[cap];
+        float[] pitch = new float[cap], roll = new float[cap];
+        boolean[] near = new boolean[cap];
+        float[] ax = new float[cap], ay = new float[cap], az = new float[cap];
+        float[] lx = new float[cap], ly = new float[cap], lz = new float[cap];
+
+        while (reader.next()) {
+            int type = reader.type();
+            float[] v = reader.values();
+            byte k = 0;
+            boolean nr = false;
+            float p = 0f, r = 0f, x = 0f, y = 0f, z = 0f, mx = 0f, my = 0f, mz = 0f;
+
+            if (type == SensorTrace.TYPE_ROTATION_VECTOR) {
+                if (!estimator.onRotationVector(v)) continue;
+                k = KIND_ROTATION;
+                p = estimator.pitchDeg();
+                r = estimator.rollDeg();
+            } else if (type == SensorTrace.TYPE_ACCELEROMETER && v.length >= 3) {
+                k = KIND_TILT;
+                x = v[0];
+                y = v[1];
+                z = v[2];
+                if (!useLinear) k |= KIND_MOTION;
+            } else if (type == SensorTrace.TYPE_GYROSCOPE && v.length >= 3) {
+                k = KIND_GYRO;
+                x = v[0];
+                y = v[1];
+                z = v[2];
+            } else if (type == SensorTrace.TYPE_PROXIMITY) {
+                k = KIND_PROXIMITY;
+                nr = SensorTrace.isNear(v);
+            } else if (type == SensorTrace.TYPE_LINEAR_ACCELERATION && useLinear && v.length >= 3) {
+                k = KIND_MOTION;
+                mx = v[0];
+                my = v[1];
+                mz = v[2];
+            } else {
+                continue;
+            }
+
+            if (n == cap) {
+                cap *= 2;
+                t = Arrays.copyOf(t, cap);
+                kind = Arrays.copyOf(kind, cap);
+                pitch = Arrays.copyOf(pitch, cap);
+                roll = Arrays.copyOf(roll, cap);
+                near = Arrays.copyOf(near, cap);
+                ax = Arrays.copyOf(ax, cap);
+                ay = Arrays.copyOf(ay, cap);
+                az = Arrays.copyOf(az, cap);
+                lx = Arrays.copyOf(lx, cap);
+                ly = Arrays.copyOf(ly, cap);
+                lz = Arrays.copyOf(lz, cap);
+            }
+            t[n] = reader.timestampNanos();
+            kind[n] = k;
+            pitch[n] = p;
+            roll[n] = r;
+            near[n] = nr;
+            ax[n] = x;
+            ay[n] = y;
+            az[n] = z;
+            lx[n] = mx;
+            ly[n] = my;
+            lz[n] = mz;
+            n++;
+        }
+        return new TraceColumns(!useLinear, n, t, kind, pitch, roll, near, ax, ay, az, lx, ly, lz);
+    }
+
+    /** イベント数 */
+    public int size() { return size; }
+
+    /** 先頭イベントの時刻（空なら 0） */
+    public long startNanos() { return size == 0 ? 0L : t[0]; }
+
+    /** 末尾イベントの時刻（空なら 0） */
+    public long endNanos() { return size == 0 ? 0L : t[size - 1]; }
+}
@@ -0,0 +1,103 @@
+package com.example.tiltcolor.motion;
+
+/**
+ * きっかけセンサー（WakeSource）で RMS 判定（delegate）を起こす MotionSource（Android非依存）。
+ *  - 普段は delegate を止め、ステップ/有意な動きの通知だけを待つ（机に置いている間はほぼ無負荷）
+ *  - きっかけが来たら delegate を開始し、判定結果をそのまま中継
+ *  - STILL かつきっかけ無しが idle 続いたら delegate を止めて待ちに戻る
+ *  - WakeSource が使えない端末では delegate を常時動かす（従来どおり）
+ *    使えるかどうかは start() のときに1回だけ調べる（権限の確認を伴うので毎サンプルは呼ばない。
+ *    権限が後から付いたら、次に購読段が切り替わって start() したときに反映される）
+ */
+public final class ArmedMotionSource implements MotionSource {
+
+    /** delegate を止めるまでの静止時間 */
+    public static final long DEFAULT_IDLE_MS = 10_000;
+
+    private final MotionSource delegate;
+    private final WakeSource wake;
+    private final long idleNanos;
+
+    private Listener listener;
+    private boolean running = false;
+    private boolean awake = false;
+    private boolean wakeAvailable = false;
+    private long lastActiveNanos = 0L;
+    private long wakeCount = 0L;
+
+    private final WakeSource.Listener onWake = this::onWake;
+
+    public ArmedMotionSource(MotionSource delegate, WakeSource wake) {
+        this(delegate, wake, DEFAULT_IDLE_MS);
+    }
+
+    public ArmedMotionSource(MotionSource delegate, WakeSource wake, long idleMs) {
+        this.delegate = delegate;
+        this.wake = wake;
+        this.idleNanos = idleMs * 1_000_000L;
+        delegate.setListener(this::onDelegateMotion);
+    }
+
+    @Override public void start() {
+        if (running) return;
+        running = true;
+        wakeAvailable = wake.isAvailable();
+        if (wakeAvailable) {
+            awake = false;
+            wake.arm(onWake);
+        } else {
+            awake = true; // フォールバック: 常時 RMS
+            delegate.start();
+        }
+    }
+
+    @Override public void stop() {
+        running = false;
+        awake = false;
+        wake.disarm();
+        delegate.stop();
+    }
+
+    @Override public boolean isRunning() { return running; }
+
+    @Override public void setListener(Listener listener) { this.listener = listener; }
+
+    @Override public long lastEventNanos() { return Math.max(delegate.lastEventNanos(), lastActiveNanos); }
+
+    @Override public void setSamplingPeriodUs(int us) { delegate.setSamplingPeriodUs(us); }
+
+    @Override public void setMaxReportLatencyUs(int us) { delegate.setMaxReportLatencyUs(us); }
+
+    @Override public void setClassifierConfig(long windowMs, long holdMs, double threshMove, double threshStill,
+                                              boolean gait) {
+        delegate.setClassifierConfig(windowMs, holdMs, threshMove, threshStill, gait);
+    }
+
+    /** RMS 判定が動いているか */
+    public boolean isAwake() { return awake; }
+
+    /** きっかけで起動した回数 */
+    public long wakeCount() { return wakeCount; }
+
+    private void onWake(long tNanos) {
+        if (!running) return;
+        lastActiveNanos = Math.max(lastActiveNanos, tNanos);
+        if (!awake) {
+            awake = true;
+            wakeCount++;
+            delegate.start();
+        }
+    }
+
+    private void onDelegateMotion(boolean moving, double rms) {
+        long now = delegate.lastEventNanos();
+        if (moving) lastActiveNanos = Math.max(lastActiveNanos, now);
+        if (listener != null) listener.onMotionState(moving, rms);
+
+        if (!moving && wakeAvailable && now - lastActiveNanos >= idleNanos) {
+            awake = false;
+            delegate.stop();
+            wake.arm(onWake); // ワンショット型の再武装
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.tiltcolor.motion;
+
+/**
+ * JVM テスト・デバッグ用の MotionSource。emit() で任意の判定結果を流す（Android非依存）。
+ */
+public class FakeMotionSource implements MotionSource {
+
+    private Listener listener;
+    private boolean running = false;
+    private long lastEventNanos = 0L;
+    private int startCount = 0;
+    private int samplingPeriodUs = 0;
+    private int maxReportLatencyUs = 0;
+
+    @Override public void start() {
+        if (running) return;
+        running = true;
+        startCount++;
+    }
+
+    @Override public void stop() { running = false; }
+
+    @Override public boolean isRunning() { return running; }
+
+    @Override public void setListener(Listener listener) { this.listener = listener; }
+
+    @Override public long lastEventNanos() { return lastEventNanos; }
+
+    @Override public void setSamplingPeriodUs(int us) { samplingPeriodUs = us; }
+
+    @Override public void setMaxReportLatencyUs(int us) { maxReportLatencyUs = us; }
+
+    /** 動作中なら判定結果を通知する（停止中は捨てる: 実センサーと同じ） */
+    public boolean emit(long tNanos, boolean moving, double rms) {
+        if (!running) return false;
+        lastEventNanos = tNanos;
+        if (listener != null) listener.onMotionState(moving, rms);
+        return true;
+    }
+
+    public int startCount() { return startCount; }
+    public int samplingPeriodUs() { return samplingPeriodUs; }
+    public int maxReportLatencyUs() { return maxReportLatencyUs; }
+}
@@ -2,124 +2,111 @@ package com.example.tiltcolor.motion;
 
 import android.content.Context;
 import android.hardware.Sensor;
-import android.hardware.SensorEvent;
-import android.hardware.SensorEventListener;
 import android.hardware.SensorManager;
-import android.os.SystemClock;
 
-import java.util.ArrayDeque;
+import com.example.tiltcolor.dsp.MotionClassifier;
+import com.example.tiltcolor.sensor.SensorFanout;
+import com.example.tiltcolor.sensor.SensorHub;
 
 /**
  * 加速度のみで「動いている/止まっている」を判定するユーティリティ。
  * - TYPE_LINEAR_ACCELERATION を優先。無ければ ACC - gravity（ローパス）で線形加速度を推定。
- * - 窓内RMS + ヒステリシス + 持続時間で安定判定。
+ * - 窓内RMS + ヒステリシス + 持続時間で安定判定。GuardConfig.gait なら歩調の周期性も見る。
+ * 判定ロジック本体は dsp.MotionClassifier（Android非依存）。ここはセンサー購読のアダプタ。
+ * センサーは SensorHub から購読する（姿勢側と加速度を共有する）。リスナー通知は SensorHub の配送スレッドで行われる。
+ * 時刻は SensorEvent.timestamp を使うので、FIFO のバッチ配送でまとめて届いても窓・持続判定は正しい。
  */
-public class MotionDetector implements SensorEventListener {
+public class MotionDetector implements MotionSource, SensorFanout.Subscriber {
 
-    // ===== 窓・しきい値・持続（必要に応じて調整） =====
-    private static final long WINDOW_MS = 500;     // RMS窓幅
-    private static final long HOLD_MS   = 500;      // 状態切替に必要な持続
-    private static final double THRESH_MOVE = 0.28; // 上回り続け→MOVING
-    private static final double THRESH_STILL = 0.3;// 下回り続け→STILL
+    private final SensorHub hub;
+    private final boolean useLinear;
+    private boolean running = false;
+    private int samplingPeriodUs = SensorManager.SENSOR_DELAY_GAME;
+    private int maxReportLatencyUs = 0;
+    private Listener listener;
+    private long lastEventNanos = 0L;
+
+    // 窓・しきい値・持続は MotionClassifier.DEFAULT_*（setClassifierConfig で実行中に変更可）
+    private final MotionClassifier classifier = MotionClassifier.withDefaults();
 
-    public interface Listener {
-        void onMotionState(boolean moving, double rms);
+    public MotionDetector(Context ctx) {
+        this(SensorHub.get(ctx));
     }
 
-    private final SensorManager sm;
-    private final Sensor linearAcc, acc;
-    private boolean useLinear;
-    private Listener listener;
+    public MotionDetector(SensorHub hub) {
+        this.hub = hub;
+        useLinear = hub.hasSensor(Sensor.TYPE_LINEAR_ACCELERATION);
+    }
 
-    // 重力ローパス
-    private final float[] g = new float[3];
-    private boolean gInit = false;
+    @Override
+    public void setListener(Listener l) { this.listener = l; }
 
-    private static class Sample { long t; double v; Sample(long t, double v){ this.t=t; this.v=v; } }
-    private final ArrayDeque<Sample> window = new ArrayDeque<>();
+    /** 直近に処理したイベントの SensorEvent.timestamp（ns, elapsedRealtimeNanos 基準） */
+    @Override
+    public long lastEventNanos() { return lastEventNanos; }
 
-    private enum State { MOVING, STILL }
-    private State state = State.STILL;
-    private Boolean candidateMoving = null;
-    private long candidateStart = 0L;
+    @Override
+    public void start() {
+        if (running) return;
+        subscribe();
+        running = true;
+    }
 
-    public MotionDetector(Context ctx) {
-        sm = (SensorManager) ctx.getSystemService(Context.SENSOR_SERVICE);
-        linearAcc = sm.getDefaultSensor(Sensor.TYPE_LINEAR_ACCELERATION);
-        acc       = sm.getDefaultSensor(Sensor.TYPE_ACCELEROMETER);
-        useLinear = (linearAcc != null);
+    @Override
+    public void stop() {
+        running = false;
+        hub.unsubscribe(this);
     }
 
-    public void setListener(Listener l) { this.listener = l; }
+    @Override
+    public boolean isRunning() { return running; }
 
-    public void start() {
-        if (useLinear && linearAcc != null) {
-            sm.registerListener(this, linearAcc, SensorManager.SENSOR_DELAY_GAME);
-        } else if (acc != null) {
-            sm.registerListener(this, acc, SensorManager.SENSOR_DELAY_GAME);
-            useLinear = false;
-        }
+    /** サンプリング周期を変更（us または SENSOR_DELAY_*）。動作中なら登録し直す。 */
+    @Override
+    public void setSamplingPeriodUs(int us) {
+        reconfigure(us, maxReportLatencyUs);
     }
 
-    public void stop() { sm.unregisterListener(this); }
+    /** バッチ配送の最大遅延を変更（0 = 即時配送）。動作中なら登録し直す。 */
+    @Override
+    public void setMaxReportLatencyUs(int us) {
+        reconfigure(samplingPeriodUs, us);
+    }
 
-    @Override public void onAccuracyChanged(Sensor sensor, int accuracy) {}
+    /**
+     * 周期・バッチ遅延を変更し、動作中なら購読し直す
+     * （登録のし直しと、バッチ配送中だった場合の flush は SensorHub が行う）。
+     */
+    private void reconfigure(int periodUs, int latencyUs) {
+        if (periodUs == samplingPeriodUs && latencyUs == maxReportLatencyUs) return;
+        samplingPeriodUs = periodUs;
+        maxReportLatencyUs = latencyUs;
+        if (running) subscribe();
+    }
+
+    private void subscribe() {
+        int type = useLinear ? Sensor.TYPE_LINEAR_ACCELERATION : Sensor.TYPE_ACCELEROMETER;
+        hub.subscribe(type, this, samplingPeriodUs, maxReportLatencyUs);
+    }
+
+    /** 判定の窓・持続・しきい値・周期性の有無を変更（センサー配送と同じスレッドから。登録はそのまま） */
+    @Override
+    public void setClassifierConfig(long windowMs, long holdMs, double threshMove, double threshStill, boolean gait) {
+        classifier.configure(windowMs * 1_000_000L, holdMs * 1_000_000L, threshMove, threshStill, gait);
+    }
 
     @Override
-    public void onSensorChanged(SensorEvent e) {
-        int type = e.sensor.getType();
+    public void onSensorEvent(int type, long timestampNanos, float[] v) {
         if (useLinear && type != Sensor.TYPE_LINEAR_ACCELERATION) return;
         if (!useLinear && type != Sensor.TYPE_ACCELEROMETER) return;
 
-        long now = SystemClock.elapsedRealtime();
-
-        // 線形加速度を取得/推定
-        double lx, ly, lz;
-        if (useLinear) {
-            lx = e.values[0]; ly = e.values[1]; lz = e.values[2];
-        } else {
-            final float alpha = 0.9f;
-            if (!gInit) {
-                System.arraycopy(e.values, 0, g, 0, 3);
-                gInit = true;
-            } else {
-                g[0] = alpha * g[0] + (1 - alpha) * e.values[0];
-                g[1] = alpha * g[1] + (1 - alpha) * e.values[1];
-                g[2] = alpha * g[2] + (1 - alpha) * e.values[2];
-            }
-            lx = e.values[0] - g[0];
-            ly = e.values[1] - g[1];
-            lz = e.values[2] - g[2];
-        }
-
-        // |a| を窓へ
-        double mag = Math.sqrt(lx*lx + ly*ly + lz*lz);
-        window.addLast(new Sample(now, mag));
-        while (!window.isEmpty() && (now - window.peekFirst().t) > WINDOW_MS) {
-            window.removeFirst();
-        }
-
-        // RMS
-        double rms = computeRms();
-
-        // ヒステリシス + 持続
-        boolean movingNow = (state == State.MOVING) ? !(rms < THRESH_STILL) : (rms > THRESH_MOVE);
-
-        if (candidateMoving == null || candidateMoving != movingNow) {
-            candidateMoving = movingNow;
-            candidateStart = now;
-        } else if ((now - candidateStart) >= HOLD_MS) {
-            State newState = movingNow ? State.MOVING : State.STILL;
-            if (newState != state) state = newState;
-        }
-
-        if (listener != null) listener.onMotionState(state == State.MOVING, rms);
-    }
+        // 配送時刻ではなくサンプル時刻（バースト内でも正しい間隔になる）
+        long now = timestampNanos;
+        lastEventNanos = now;
+        boolean moving = useLinear
+                ? classifier.onLinearAcceleration(now, v[0], v[1], v[2])
+                : classifier.onAccelerometer(now, v[0], v[1], v[2]);
 
-    private double computeRms() {
-        if (window.isEmpty()) return 0.0;
-        double sumSq = 0.0;
-        for (Sample s : window) sumSq += s.v * s.v;
-        return Math.sqrt(sumSq / window.size());
+        if (listener != null) listener.onMotionState(moving, classifier.rms());
     }
 }
@@ -0,0 +1,33 @@
+package com.example.tiltcolor.motion;
+
+/**
+ * 「動いている/止まっている」の供給I/F（Android非依存）。
+ * MotionDetector（RMS 常時監視）／ArmedMotionSource（きっかけセンサーで起動）／
+ * FakeMotionSource（JVM テスト用）がこれを満たす。
+ */
+public interface MotionSource {
+
+    void start();
+
+    void stop();
+
+    boolean isRunning();
+
+    void setListener(Listener listener);
+
+    /** 直近に処理したイベントのセンサー時刻（ns, elapsedRealtimeNanos 基準） */
+    long lastEventNanos();
+
+    /** サンプリング周期（us または SENSOR_DELAY_*）。対応しない実装は無視してよい。 */
+    void setSamplingPeriodUs(int us);
+
+    /** バッチ配送の最大遅延（0 = 即時）。対応しない実装は無視してよい。 */
+    void setMaxReportLatencyUs(int us);
+
+    /** 判定の窓・持続・しきい値・周期性の有無を変更する（センサーは登録し直さない）。対応しない実装は無視してよい。 */
+    default void setClassifierConfig(long windowMs, long holdMs, double threshMove, double threshStill, boolean gait) {}
+
+    interface Listener {
+        void onMotionState(boolean moving, double rms);
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.tiltcolor.motion;
+
+import android.Manifest;
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.hardware.Sensor;
+import android.hardware.SensorEvent;
+import android.hardware.SensorEventListener;
+import android.hardware.SensorManager;
+import android.hardware.TriggerEvent;
+import android.hardware.TriggerEventListener;
+import android.os.Handler;
+
+/**
+ * TYPE_STEP_DETECTOR / TYPE_SIGNIFICANT_MOTION を使う WakeSource。
+ *  - どちらもハードウェア側で判定する低電力センサー（AP を起こすのは1歩ごと/動き出し時だけ）
+ *  - ステップ検出は ACTIVITY_RECOGNITION 権限が必要。無ければ有意な動きだけを使う
+ *  - 通知は handler のスレッドで行う（TriggerEvent はメインスレッドに来るので転送する）
+ */
+public class TriggerWakeSource implements WakeSource, SensorEventListener {
+
+    private final Context context;
+    private final SensorManager sm;
+    private final Sensor stepDetector;
+    private final Sensor significantMotion;
+    private final Handler handler;
+
+    private Listener listener;
+    private boolean stepRegistered = false;
+    private boolean triggerRequested = false;
+
+    private final TriggerEventListener triggerListener = new TriggerEventListener() {
+        @Override public void onTrigger(TriggerEvent event) {
+            triggerRequested = false; // ワンショットなので発火で自動解除される
+            final long t = event.timestamp;
+            if (handler != null) handler.post(() -> dispatch(t));
+            else dispatch(t);
+        }
+    };
+
+    public TriggerWakeSource(Context context, Handler handler) {
+        this.context = context;
+        this.handler = handler;
+        sm = (SensorManager) context.getSystemService(Context.SENSOR_SERVICE);
+        stepDetector = sm.getDefaultSensor(Sensor.TYPE_STEP_DETECTOR);
+        significantMotion = sm.getDefaultSensor(Sensor.TYPE_SIGNIFICANT_MOTION);
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return significantMotion != null || canUseStepDetector();
+    }
+
+    @Override
+    public void arm(Listener listener) {
+        this.listener = listener;
+        if (canUseStepDetector() && !stepRegistered) {
+            stepRegistered = sm.registerListener(this, stepDetector, SensorManager.SENSOR_DELAY_NORMAL, handler);
+        }
+        if (significantMotion != null && !triggerRequested) {
+            triggerRequested = sm.requestTriggerSensor(triggerListener, significantMotion);
+        }
+    }
+
+    @Override
+    public void disarm() {
+        if (stepRegistered) {
+            sm.unregisterListener(this);
+            stepRegistered = false;
+        }
+        if (triggerRequested) {
+            sm.cancelTriggerSensor(triggerListener, significantMotion);
+            triggerRequested = false;
+        }
+        listener = null;
+    }
+
+    @Override
+    public void onSensorChanged(SensorEvent event) {
+        if (event.sensor.getType() == Sensor.TYPE_STEP_DETECTOR) dispatch(event.timestamp);
+    }
+
+    @Override
+    public void onAccuracyChanged(Sensor sensor, int accuracy) {}
+
+    private void dispatch(long tNanos) {
+        Listener l = listener;
+        if (l != null) l.onWake(tNanos);
+    }
+
+    private boolean canUseStepDetector() {
+        return stepDetector != null
+                && context.checkSelfPermission(Manifest.permission.ACTIVITY_RECOGNITION)
+                        == PackageManager.PERMISSION_GRANTED;
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.tiltcolor.motion;
+
+/**
+ * 歩行の「きっかけ」を知らせる低電力センサーのI/F（Android非依存）。
+ * 例: TYPE_SIGNIFICANT_MOTION（ワンショット）/ TYPE_STEP_DETECTOR（1歩ごと）。
+ */
+public interface WakeSource {
+
+    /** 端末に使えるセンサー（と権限）があるか */
+    boolean isAvailable();
+
+    /** きっかけ待ちを開始（ワンショット型は発火後に再度呼ぶ）。二重に呼んでもよい。 */
+    void arm(Listener listener);
+
+    void disarm();
+
+    interface Listener {
+        /** @param tNanos センサー時刻（ns） */
+        void onWake(long tNanos);
+    }
+}
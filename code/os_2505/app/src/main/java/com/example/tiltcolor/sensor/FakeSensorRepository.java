@@ -4,6 +4,7 @@ import android.os.Handler;
 import android.os.Looper;
 
 import com.example.tiltcolor.domain.PoseData;
+import com.example.tiltcolor.domain.PoseSnapshot;
 
 /**
  * AのSensorRepositoryが未実装でも動作確認できるダミーセンサー。
@@ -14,7 +15,7 @@ public class FakeSensorRepository implements PoseProvider {
     private final Handler handler = new Handler(Looper.getMainLooper());
     private boolean running = false;
     private float t = 0f;
-    private PoseData lastPose = new PoseData(0f, 0f, 0f, System.currentTimeMillis());
+    private final PoseSnapshot lastPose = new PoseSnapshot();
     private Listener listener;
 
     private final Runnable loop = new Runnable() {
@@ -24,7 +25,7 @@ public class FakeSensorRepository implements PoseProvider {
 
             // 角度を滑らかに往復させる（周期およそ 2π / 0.05 = 約125フレーム ≒ 2秒）
             float pitch = (float) (-17.5f * Math.sin(t) - 7.5f);
-            lastPose = new PoseData(pitch, 0f, 0f, System.currentTimeMillis());
+            lastPose.set(pitch, 0f, 0f, 0f, System.currentTimeMillis(), 0L);
 
             if (listener != null) listener.onPose(lastPose);
 
@@ -46,9 +47,14 @@ public class FakeSensorRepository implements PoseProvider {
         handler.removeCallbacks(loop);
     }
 
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
     @Override
     public PoseData getLastPose() {
-        return lastPose;
+        return lastPose.toPoseData();
     }
 
     @Override
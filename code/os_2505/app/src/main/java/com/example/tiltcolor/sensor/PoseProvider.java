@@ -1,6 +1,7 @@
 package com.example.tiltcolor.sensor;
 
 import com.example.tiltcolor.domain.PoseData;
+import com.example.tiltcolor.domain.PoseSnapshot;
 
 /**
  * 姿勢データ供給I/F。
@@ -14,13 +15,26 @@ public interface PoseProvider {
     /** センサー購読停止。onPause 等で呼ぶ。 */
     void stop();
 
-    /** 直近の姿勢（nullにしないこと）。 */
+    /** 購読中か */
+    boolean isRunning();
+
+    /** サンプリング周期（us）。周期を持たない実装は無視してよい。 */
+    default void setSamplingPeriodUs(int us) {}
+
+    /** バッチ配送の最大遅延（us, 0 = 即時配送）。バッチを持たない実装は無視してよい。 */
+    default void setMaxReportLatencyUs(int us) {}
+
+    /** 直近の姿勢（nullにしないこと）。不変コピーなので保持してよい。 */
     PoseData getLastPose();
 
     /** 新しい姿勢が来るたびに通知。UIスレッド or 明示のスレッドで可。 */
     void setListener(Listener listener);
 
     interface Listener {
-        void onPose(PoseData pose);
+        /**
+         * pose は実装側で使い回される（次の通知で上書き）。
+         * コールバック外で保持する場合は pose.toPoseData() を使うこと。
+         */
+        void onPose(PoseSnapshot pose);
     }
 }
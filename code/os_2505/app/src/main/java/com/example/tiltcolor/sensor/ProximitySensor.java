@@ -0,0 +1,55 @@
+package com.example.tiltcolor.sensor;
+
+import android.hardware.Sensor;
+import android.hardware.SensorManager;
+
+/**
+ * 近接センサーの購読アダプタ（NEAR / FAR だけを通知する）。
+ * 変化したときだけ届くセンサーなので、購読していても待機中のコストはほぼ無い。
+ * SensorHub から購読するので、非ウェイクアップ版があればそれを使う（ポケットの中で SoC を起こさない）。
+ * 無い端末では何もしない。イベントは SensorHub の配送スレッドで届く。
+ */
+public class ProximitySensor implements SensorFanout.Subscriber {
+
+    public interface Listener {
+        /** timestampNanos は SensorEvent.timestamp（elapsedRealtimeNanos 基準） */
+        void onProximity(boolean near, long timestampNanos);
+    }
+
+    private final SensorHub hub;
+    private final Sensor proximity;
+    private Listener listener;
+    private boolean running = false;
+
+    public ProximitySensor(SensorHub hub) {
+        this.hub = hub;
+        proximity = hub.sensor(Sensor.TYPE_PROXIMITY);
+    }
+
+    public void setListener(Listener listener) { this.listener = listener; }
+
+    /** 近接センサーがある端末か */
+    public boolean isAvailable() { return proximity != null; }
+
+    public void start() {
+        if (running || proximity == null) return;
+        hub.subscribe(Sensor.TYPE_PROXIMITY, this, SensorManager.SENSOR_DELAY_NORMAL, 0);
+        running = true;
+    }
+
+    /** 止めたら FAR として扱う（次の start で現在値が届く） */
+    public void stop() {
+        if (!running) return;
+        running = false;
+        hub.unsubscribe(Sensor.TYPE_PROXIMITY, this);
+    }
+
+    public boolean isRunning() { return running; }
+
+    @Override
+    public void onSensorEvent(int type, long timestampNanos, float[] values) {
+        // 2値の端末は 0 / 最大レンジを返すので、最大レンジ未満を NEAR とする
+        boolean near = values[0] < proximity.getMaximumRange();
+        if (listener != null) listener.onProximity(near, timestampNanos);
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.tiltcolor.sensor;
+
+import com.example.tiltcolor.util.IntervalDecimator;
+
+/**
+ * 1つのセンサーのイベントを複数の購読者へ配る（Android非依存。SensorHub がセンサー種別ごとに1個持つ）。
+ *  - 購読者は copy-on-write の配列で持つ。追加・解除・周期の変更は配列を作り直し、配送は配列を1回読んで回すだけ
+ *    （配送中の追加・解除は次のイベントから効く。イベントごとのオブジェクト生成なし）
+ *  - センサーの登録周期は購読者が求める周期の最短、バッチ遅延は最小にそろえる（passive の購読者は数えない）
+ *  - 登録周期より長い周期を求めた購読者には間引いて配る。間引きは時刻の格子に合わせるので（util.IntervalDecimator）、
+ *    センサー側の揺らぎがあっても平均レートは求めた周期どおりになる
+ * 周期は us（SensorManager.SENSOR_DELAY_* の 0〜3 も受け付ける）。時刻はナノ秒。
+ * 追加・解除は任意のスレッドから、dispatch() は配送スレッド1本から呼ぶこと。
+ */
+public final class SensorFanout {
+
+    /** 購読者。1つの購読者が複数の種別を受けてもよい */
+    public interface Subscriber {
+        /** values は配送側で使い回される（コールバックの外で保持しないこと） */
+        void onSensorEvent(int type, long timestampNanos, float[] values);
+    }
+
+    private static final Entry[] EMPTY = new Entry[0];
+
+    /** 購読者1件（配列を作り直すたびに作り直す。decimator の位置だけは配送スレッドが書く） */
+    private static final class Entry {
+        final Subscriber subscriber;
+        final int periodUs;
+        final int latencyUs;
+        final boolean passive;
+        final IntervalDecimator decimator; // 間引きの間隔（0 = 全部配る）
+
+        Entry(Subscriber subscriber, int periodUs, int latencyUs, boolean passive, IntervalDecimator decimator) {
+            this.subscriber = subscriber;
+            this.periodUs = periodUs;
+            this.latencyUs = latencyUs;
+            this.passive = passive;
+            this.decimator = decimator;
+        }
+    }
+
+    private final int type;
+    private volatile Entry[] entries = EMPTY;
+    private int samplingPeriodUs = -1;   // 登録周期（active な購読者が無ければ -1）
+    private int maxReportLatencyUs = 0;
+
+    private long received = 0L;
+    private long delivered = 0L;
+
+    /** @param type センサー種別（Sensor.TYPE_*。購読者へそのまま渡す） */
+    public SensorFanout(int type) {
+        this.type = type;
+    }
+
+    public int type() { return type; }
+
+    /**
+     * 購読を追加する（同じ購読者なら周期・遅延を差し替える）。
+     * @param samplingPeriodUs   求める周期（us または SENSOR_DELAY_*）
+     * @param maxReportLatencyUs 許せるバッチ遅延（0 = 即時配送）
+     * @return センサーの登録（周期・遅延・登録の要否）が変わったか
+     */
+    public synchronized boolean put(Subscriber s, int samplingPeriodUs, int maxReportLatencyUs) {
+        return replace(s, new Entry(s, periodUs(samplingPeriodUs), Math.max(0, maxReportLatencyUs), false,
+                new IntervalDecimator(0L)));
+    }
+
+    /**
+     * 登録周期に影響しない購読を追加する（届いているイベントを intervalUs に間引いて受けるだけ。
+     * active な購読者がいない間は何も届かない）。
+     * @return センサーの登録が変わったか（passive だけなら変わらない）
+     */
+    public synchronized boolean putPassive(Subscriber s, int intervalUs) {
+        return replace(s, new Entry(s, periodUs(intervalUs), 0, true, new IntervalDecimator(0L)));
+    }
+
+    /** @return センサーの登録が変わったか */
+    public synchronized boolean remove(Subscriber s) {
+        return replace(s, null);
+    }
+
+    /** センサーを登録しておく必要があるか（active な購読者がいるか） */
+    public synchronized boolean isActive() { return samplingPeriodUs >= 0; }
+
+    /** 登録周期（us）。active な購読者がいなければ -1 */
+    public synchronized int samplingPeriodUs() { return samplingPeriodUs; }
+
+    /** 登録するバッチ遅延（us） */
+    public synchronized int maxReportLatencyUs() { return maxReportLatencyUs; }
+
+    public int subscriberCount() { return entries.length; }
+
+    /** 届いたイベント数（配送スレッドが書く。他のスレッドからは途中の値が見えることがある） */
+    public long receivedCount() { return received; }
+
+    /** 購読者へ配った延べ件数 */
+    public long deliveredCount() { return delivered; }
+
+    /** イベントを1件配る（配送スレッドから） */
+    public void dispatch(long timestampNanos, float[] values) {
+        received++;
+        Entry[] es = entries;
+        for (Entry e : es) {
+            if (!e.decimator.accept(timestampNanos)) continue;
+            delivered++;
+            e.subscriber.onSensorEvent(type, timestampNanos, values);
+        }
+    }
+
+    /**
+     * SENSOR_DELAY_* を us に直す（SensorManager と同じ対応）。それ以外はそのまま。
+     * FASTEST は 0（間引かない）。
+     */
+    public static int periodUs(int samplingPeriodUs) {
+        switch (samplingPeriodUs) {
+            case 0: return 0;        // SENSOR_DELAY_FASTEST
+            case 1: return 20_000;   // SENSOR_DELAY_GAME
+            case 2: return 66_667;   // SENSOR_DELAY_UI
+            case 3: return 200_000;  // SENSOR_DELAY_NORMAL
+            default: return Math.max(0, samplingPeriodUs);
+        }
+    }
+
+    /** s の購読を e に差し替え（null なら解除）、登録周期と間引きを計算し直して配列を作り直す */
+    private boolean replace(Subscriber s, Entry e) {
+        Entry[] old = entries;
+        int idx = -1;
+        for (int i = 0; i < old.length; i++) {
+            if (old[i].subscriber == s) { idx = i; break; }
+        }
+        if (idx < 0 && e == null) return false;
+
+        int n = old.length + (idx < 0 ? 1 : 0) - (e == null ? 1 : 0);
+        Entry[] next = new Entry[n];
+        int k = 0;
+        for (int i = 0; i < old.length; i++) {
+            if (i == idx) {
+                if (e != null) next[k++] = e;
+            } else {
+                next[k++] = old[i];
+            }
+        }
+        if (idx < 0) next[k] = e;
+
+        int period = -1, latency = Integer.MAX_VALUE;
+        for (Entry x : next) {
+            if (x.passive) continue;
+            period = period < 0 ? x.periodUs : Math.min(period, x.periodUs);
+            latency = Math.min(latency, x.latencyUs);
+        }
+        if (period < 0) latency = 0;
+
+        // 登録周期より長い周期を求めた購読者だけ間引く（間引きの位置は引き継ぐ）
+        for (int i = 0; i < next.length; i++) {
+            Entry x = next[i];
+            long interval = period >= 0 && x.periodUs > period ? x.periodUs * 1_000L : 0L;
+            if (interval != x.decimator.intervalNanos()) {
+                next[i] = new Entry(x.subscriber, x.periodUs, x.latencyUs, x.passive,
+                        new IntervalDecimator(interval, x.decimator.nextNanos()));
+            }
+        }
+
+        boolean changed = period != samplingPeriodUs || latency != maxReportLatencyUs;
+        samplingPeriodUs = period;
+        maxReportLatencyUs = latency;
+        entries = next;
+        return changed;
+    }
+}
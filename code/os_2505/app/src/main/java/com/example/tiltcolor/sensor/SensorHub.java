@@ -0,0 +1,186 @@
+package com.example.tiltcolor.sensor;
+
+import android.content.Context;
+import android.hardware.Sensor;
+import android.hardware.SensorEvent;
+import android.hardware.SensorEventListener2;
+import android.hardware.SensorManager;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.Process;
+
+/**
+ * プロセスで1つのセンサー購読ハブ。
+ *  - センサーは種別ごとに1回だけ SensorManager へ登録し、SensorFanout で購読者（判定・画面のライブ表示・トレース記録）へ配る
+ *  - 登録周期は購読者が求める最短、バッチ遅延は最小。遅い購読者には SensorFanout が間引いて配る
+ *  - 周期・遅延が変わったら登録し直す。バッチ配送中だった場合は FIFO にたまっている分を先に flush してから
+ *    切り替える（捨てないため）
+ *  - 配送は専用スレッド（tilt-sensor）。購読者はこのスレッドで呼ばれる。handler() / looper() で同じスレッドに処理を載せられる
+ * 非ウェイクアップ版があるセンサーはそれを使う（SoC を起こさない）。subscribe/unsubscribe は任意のスレッドから呼べる。
+ */
+public final class SensorHub implements SensorEventListener2 {
+
+    /** 扱う種別の上限（Sensor.TYPE_* の値で配列を引く） */
+    private static final int MAX_TYPE = 64;
+
+    private static SensorHub instance;
+
+    /** プロセスで共有するハブ（最初の呼び出しで配送スレッドを起こす） */
+    public static synchronized SensorHub get(Context context) {
+        if (instance == null) instance = new SensorHub(context.getApplicationContext());
+        return instance;
+    }
+
+    private final SensorManager sm;
+    private final Handler handler;
+    private final Sensor[] sensors = new Sensor[MAX_TYPE];
+    private final boolean[] resolved = new boolean[MAX_TYPE];
+    private final SensorFanout[] fanouts = new SensorFanout[MAX_TYPE];
+    private final boolean[] flushPending = new boolean[MAX_TYPE];
+
+    private SensorHub(Context context) {
+        sm = (SensorManager) context.getSystemService(Context.SENSOR_SERVICE);
+        HandlerThread thread = new HandlerThread("tilt-sensor", Process.THREAD_PRIORITY_DISPLAY);
+        thread.start();
+        handler = new Handler(thread.getLooper());
+    }
+
+    /** 配送スレッドの Handler（センサー配送と同じスレッドで処理したいとき） */
+    public Handler handler() { return handler; }
+
+    public Looper looper() { return handler.getLooper(); }
+
+    /** 種別 type のセンサー（非ウェイクアップ版を優先）。無い端末では null */
+    public synchronized Sensor sensor(int type) {
+        if (type < 0 || type >= MAX_TYPE) return null;
+        if (!resolved[type]) {
+            Sensor s = sm.getDefaultSensor(type, false);
+            sensors[type] = s != null ? s : sm.getDefaultSensor(type);
+            resolved[type] = true;
+        }
+        return sensors[type];
+    }
+
+    public boolean hasSensor(int type) { return sensor(type) != null; }
+
+    /**
+     * 購読する（同じ購読者なら周期・遅延を差し替える）。
+     * @return センサーがあって購読できたか
+     */
+    public synchronized boolean subscribe(int type, SensorFanout.Subscriber s,
+                                          int samplingPeriodUs, int maxReportLatencyUs) {
+        Sensor sensor = sensor(type);
+        if (sensor == null) return false;
+        SensorFanout f = fanout(type);
+        boolean wasActive = f.isActive();
+        int oldLatencyUs = f.maxReportLatencyUs();
+        if (f.put(s, samplingPeriodUs, maxReportLatencyUs)) apply(type, sensor, f, wasActive, oldLatencyUs);
+        return true;
+    }
+
+    /**
+     * 登録周期に影響しない購読（他の購読者のために届いているイベントを intervalUs に間引いて受ける）。
+     * デバッグ表示のように、見るためにセンサーを起こしたくない場合に使う。
+     */
+    public synchronized boolean subscribePassive(int type, SensorFanout.Subscriber s, int intervalUs) {
+        if (sensor(type) == null) return false;
+        fanout(type).putPassive(s, intervalUs);
+        return true;
+    }
+
+    /** type の購読をやめる（最後の購読者ならセンサーの登録も解除する） */
+    public synchronized void unsubscribe(int type, SensorFanout.Subscriber s) {
+        SensorFanout f = type >= 0 && type < MAX_TYPE ? fanouts[type] : null;
+        if (f == null) return;
+        boolean wasActive = f.isActive();
+        int oldLatencyUs = f.maxReportLatencyUs();
+        if (f.remove(s)) apply(type, sensors[type], f, wasActive, oldLatencyUs);
+    }
+
+    /** s のすべての購読をやめる */
+    public synchronized void unsubscribe(SensorFanout.Subscriber s) {
+        for (int type = 0; type < MAX_TYPE; type++) {
+            if (fanouts[type] != null) unsubscribe(type, s);
+        }
+    }
+
+    /** 受け取ったセンサーイベント数（全種別の合計。購読者へ配る前の件数） */
+    public long receivedCount() {
+        long n = 0L;
+        for (SensorFanout f : fanouts) {
+            if (f != null) n += f.receivedCount();
+        }
+        return n;
+    }
+
+    /** dumpsys 用（種別ごとの購読者数・登録周期・遅延・受信/配送件数） */
+    public synchronized String summary() {
+        StringBuilder sb = new StringBuilder("sensors");
+        for (SensorFanout f : fanouts) {
+            if (f == null || (f.subscriberCount() == 0 && f.receivedCount() == 0)) continue;
+            sb.append(" | type=").append(f.type())
+              .append(" subs=").append(f.subscriberCount())
+              .append(" period=").append(f.samplingPeriodUs()).append("us")
+              .append(" latency=").append(f.maxReportLatencyUs()).append("us")
+              .append(" received=").append(f.receivedCount())
+              .append(" delivered=").append(f.deliveredCount());
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public void onSensorChanged(SensorEvent event) {
+        int type = event.sensor.getType();
+        SensorFanout f = type >= 0 && type < MAX_TYPE ? fanouts[type] : null;
+        if (f != null) f.dispatch(event.timestamp, event.values);
+    }
+
+    @Override
+    public void onAccuracyChanged(Sensor sensor, int accuracy) {}
+
+    @Override
+    public void onFlushCompleted(Sensor sensor) {
+        synchronized (this) {
+            int type = sensor.getType();
+            if (type < 0 || type >= MAX_TYPE || !flushPending[type]) return;
+            flushPending[type] = false;
+            sm.unregisterListener(this, sensor);
+            SensorFanout f = fanouts[type];
+            if (f.isActive()) register(sensor, f);
+        }
+    }
+
+    private SensorFanout fanout(int type) {
+        SensorFanout f = fanouts[type];
+        if (f == null) {
+            f = new SensorFanout(type);
+            fanouts[type] = f;
+        }
+        return f;
+    }
+
+    /** 登録を f の周期・遅延に合わせる */
+    private void apply(int type, Sensor sensor, SensorFanout f, boolean wasActive, int oldLatencyUs) {
+        if (!f.isActive()) {
+            flushPending[type] = false;
+            if (wasActive) sm.unregisterListener(this, sensor);
+            return;
+        }
+        if (!wasActive) {
+            register(sensor, f);
+            return;
+        }
+        if (flushPending[type]) return; // flush 完了後に新しい値で登録し直す
+        if (oldLatencyUs > 0 && sm.flush(this)) {
+            flushPending[type] = true;
+            return;
+        }
+        sm.unregisterListener(this, sensor);
+        register(sensor, f);
+    }
+
+    private void register(Sensor sensor, SensorFanout f) {
+        sm.registerListener(this, sensor, f.samplingPeriodUs(), f.maxReportLatencyUs(), handler);
+    }
+}
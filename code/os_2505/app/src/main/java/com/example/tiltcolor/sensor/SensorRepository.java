@@ -2,91 +2,158 @@ package com.example.tiltcolor.sensor;
 
 import android.content.Context;
 import android.hardware.Sensor;
-import android.hardware.SensorEvent;
-import android.hardware.SensorEventListener;
 import android.hardware.SensorManager;
+import android.os.SystemClock;
 
 import com.example.tiltcolor.domain.PoseData;
+import com.example.tiltcolor.domain.PoseSnapshot;
+import com.example.tiltcolor.dsp.PoseCoalescer;
+import com.example.tiltcolor.dsp.PoseEstimator;
 
-public class SensorRepository implements PoseProvider, SensorEventListener {
+/**
+ * 回転ベクトル＋加速度＋ジャイロの購読アダプタ。
+ * 姿勢計算は dsp.PoseEstimator（Android非依存）に任せ、結果を PoseSnapshot で通知する。
+ * ジャイロがある端末では pitch/tilt をジャイロ＋加速度の融合推定で出す（無ければ回転ベクトル＋加速度ローパス）。
+ * 融合推定が使えている間は回転ベクトルの購読を外す（融合中に回転ベクトルで出すのは yaw だけで、yaw はどこも読まない）。
+ * ジャイロが途切れて PoseEstimator がフォールバックしたら購読し直す。
+ * 定常状態ではイベントごとのアロケーションなし（行列は PoseEstimator 内で使い回し、
+ * スナップショットも1個を上書き。不変の PoseData は getLastPose() が呼ばれたときだけ作る）。
+ * 2ストリームの通知は PoseCoalescer で1本にまとめ、意味のある変化か tick 経過時だけ通知する。
+ * センサーは SensorHub から購読する（他の購読者と登録を共有する）。リスナー通知は SensorHub の配送スレッドで行われる。
+ * maxReportLatencyUs > 0 でハードウェアFIFOのバッチ配送を許可する。バーストで届いても
+ * 時刻はすべて SensorEvent.timestamp を基準に扱う。
+ */
+public class SensorRepository implements PoseProvider, SensorFanout.Subscriber {
 
-    private final SensorManager sm;
-    private final Sensor rotVec;
-    private final Sensor acc;
+    // 通知の間引き（変化が無くてもこの間隔で通知 / これを超える変化は即通知）
+    public static final long  DEFAULT_TICK_MS     = PoseCoalescer.DEFAULT_TICK_MS;
+    public static final float DEFAULT_EPSILON_DEG = PoseCoalescer.DEFAULT_EPSILON_DEG;
+
+    private final SensorHub hub;
     private Listener listener;
-    private PoseData lastPose = new PoseData(0,0,0,0,System.currentTimeMillis());
+    private boolean running = false;
+    private boolean rotationSubscribed = false;
+    private int samplingPeriodUs = SensorManager.SENSOR_DELAY_UI;
+    private int maxReportLatencyUs = 0;
+    private final PoseSnapshot snapshot = new PoseSnapshot();
 
-    private final float[] accLP = new float[3];
-    private boolean accInit = false;
-    private double lastTilt = 0.0;
+    private final PoseEstimator estimator = new PoseEstimator();
+    private final PoseCoalescer coalescer;
 
     public SensorRepository(Context context) {
-        sm = (SensorManager) context.getSystemService(Context.SENSOR_SERVICE);
-        rotVec = sm.getDefaultSensor(Sensor.TYPE_ROTATION_VECTOR);
-        acc = sm.getDefaultSensor(Sensor.TYPE_ACCELEROMETER);
+        this(SensorHub.get(context));
+    }
+
+    public SensorRepository(SensorHub hub) {
+        this(hub, DEFAULT_TICK_MS, DEFAULT_EPSILON_DEG);
+    }
+
+    public SensorRepository(SensorHub hub, long tickMs, float epsilonDeg) {
+        this.hub = hub;
+        coalescer = new PoseCoalescer(tickMs * 1_000_000L, epsilonDeg);
     }
 
     @Override
     public void start() {
-        if (rotVec != null) sm.registerListener(this, rotVec, SensorManager.SENSOR_DELAY_UI);
-        if (acc != null) sm.registerListener(this, acc, SensorManager.SENSOR_DELAY_UI);
+        if (running) return;
+        coalescer.reset();
+        subscribe();
+        running = true;
     }
 
     @Override
     public void stop() {
-        sm.unregisterListener(this);
+        running = false;
+        hub.unsubscribe(this);
+    }
+
+    @Override
+    public boolean isRunning() { return running; }
+
+    /** サンプリング周期を変更（us または SENSOR_DELAY_*）。動作中なら登録し直す。 */
+    @Override
+    public void setSamplingPeriodUs(int us) {
+        reconfigure(us, maxReportLatencyUs);
+    }
+
+    /** バッチ配送の最大遅延を変更（0 = 即時配送）。動作中なら登録し直す。 */
+    @Override
+    public void setMaxReportLatencyUs(int us) {
+        reconfigure(samplingPeriodUs, us);
+    }
+
+    /**
+     * 周期・バッチ遅延を変更し、動作中なら購読し直す
+     * （登録のし直しと、バッチ配送中だった場合の flush は SensorHub が行う）。
+     */
+    private void reconfigure(int periodUs, int latencyUs) {
+        if (periodUs == samplingPeriodUs && latencyUs == maxReportLatencyUs) return;
+        samplingPeriodUs = periodUs;
+        maxReportLatencyUs = latencyUs;
+        if (running) subscribe();
+    }
+
+    private void subscribe() {
+        hub.subscribe(Sensor.TYPE_ACCELEROMETER, this, samplingPeriodUs, maxReportLatencyUs);
+        hub.subscribe(Sensor.TYPE_GYROSCOPE, this, samplingPeriodUs, maxReportLatencyUs);
+        subscribeRotationVector();
+    }
+
+    /** 回転ベクトルは融合推定を使っていない間だけ購読する */
+    private void subscribeRotationVector() {
+        rotationSubscribed = !estimator.isFused();
+        if (rotationSubscribed) {
+            hub.subscribe(Sensor.TYPE_ROTATION_VECTOR, this, samplingPeriodUs, maxReportLatencyUs);
+        } else {
+            hub.unsubscribe(Sensor.TYPE_ROTATION_VECTOR, this);
+        }
     }
 
     @Override
-    public PoseData getLastPose() { return lastPose; }
+    public PoseData getLastPose() { return snapshot.toPoseData(); }
 
     @Override
     public void setListener(Listener listener) {
         this.listener = listener;
     }
 
+    /** 通知した姿勢イベント数 */
+    public long emittedCount() { return coalescer.emittedCount(); }
+
+    /** 間引いた姿勢イベント数 */
+    public long suppressedCount() { return coalescer.suppressedCount(); }
+
     @Override
-    public void onSensorChanged(SensorEvent event) {
+    public void onSensorEvent(int type, long timestampNanos, float[] values) {
         try {
-            if (event.sensor.getType() == Sensor.TYPE_ROTATION_VECTOR) {
-                updateOrientation(event.values);
-            } else if (event.sensor.getType() == Sensor.TYPE_ACCELEROMETER) {
-                updateTilt(event.values);
+            if (type == Sensor.TYPE_ROTATION_VECTOR) {
+                updateOrientation(values, timestampNanos);
+            } else if (type == Sensor.TYPE_ACCELEROMETER) {
+                updateTilt(values, timestampNanos);
+            } else if (type == Sensor.TYPE_GYROSCOPE) {
+                if (estimator.onGyroscope(timestampNanos, values)) publish(timestampNanos);
             }
+            if (running && rotationSubscribed == estimator.isFused()) subscribeRotationVector();
         } catch (Throwable ignored) {}
     }
 
-    @Override
-    public void onAccuracyChanged(Sensor sensor, int accuracy) {}
-
-    private void updateOrientation(float[] values) {
-        if (values == null || values.length < 3) return;
-        float[] R = new float[9];
-        SensorManager.getRotationMatrixFromVector(R, values);
-        float[] ori = new float[3];
-        SensorManager.getOrientation(R, ori);
-        float yaw = (float) Math.toDegrees(ori[0]);
-        float pitch = (float) -Math.toDegrees(ori[1]); // 正面0°, 下向き負
-        float roll = (float) Math.toDegrees(ori[2]);
-        lastPose = new PoseData(pitch, roll, yaw, (float) lastTilt, System.currentTimeMillis());
-        if (listener != null) listener.onPose(lastPose);
+    private void updateOrientation(float[] values, long timestampNanos) {
+        if (!estimator.onRotationVector(values)) return;
+        publish(timestampNanos);
     }
 
-    private void updateTilt(float[] values) {
-        if (values == null || values.length < 3) return;
-        final float alpha = 0.1f;
-        if (!accInit) {
-            System.arraycopy(values, 0, accLP, 0, 3);
-            accInit = true;
-        } else {
-            for (int i = 0; i < 3; i++) accLP[i] += alpha * (values[i] - accLP[i]);
-        }
-        float ax = accLP[0], ay = accLP[1], az = accLP[2];
-        double g = Math.max(1e-6, Math.sqrt(ax*ax + ay*ay + az*az));
-        double ratio = Math.min(1.0, Math.max(0.0, Math.abs(az) / g));
-        lastTilt = Math.toDegrees(Math.acos(ratio));
+    private void updateTilt(float[] values, long timestampNanos) {
+        if (!estimator.onAccelerometer(timestampNanos, values)) return;
         // tilt更新時にPose通知（姿勢が変わらなくても tilt を更新したい場合）
-        lastPose = new PoseData(lastPose.pitchDeg, lastPose.rollDeg, lastPose.yawDeg, (float) lastTilt, System.currentTimeMillis());
-        if (listener != null) listener.onPose(lastPose);
+        publish(timestampNanos);
+    }
+
+    private void publish(long timestampNanos) {
+        // 配送時刻ではなくサンプル時刻を UNIXミリ秒に換算（バッチ配送で遅れて届いても正しい時刻）
+        long ageMs = (SystemClock.elapsedRealtimeNanos() - timestampNanos) / 1_000_000L;
+        snapshot.set(estimator.pitchDeg(), estimator.rollDeg(), estimator.yawDeg(),
+                estimator.tiltDeg(), System.currentTimeMillis() - ageMs, timestampNanos);
+        if (!coalescer.offer(timestampNanos, snapshot.pitchDeg(), snapshot.tiltDeg())) return;
+        if (listener != null) listener.onPose(snapshot);
     }
 }
@@ -0,0 +1,78 @@
+package com.example.tiltcolor.sensor;
+
+import android.hardware.Sensor;
+import android.hardware.SensorManager;
+import android.util.Log;
+
+import com.example.tiltcolor.trace.MappedTraceLog;
+import com.example.tiltcolor.trace.SensorTrace;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * 回転ベクトル・加速度・線形加速度・ジャイロ・近接の生イベントを trace.MappedTraceLog（メモリマップの分割ログ）へ記録する。
+ * イベントごとの書き込みはマップ済みバッファへの put だけで、圧縮と容量上限の管理はバックグラウンドで行う。
+ * 記録ごとに root/<session>/ へ書き、容量の上限は root 以下の全記録で数える（古い記録から消える）。
+ * 記録したディレクトリは MappedTraceLog.export() で SensorTrace 形式にして trace.TraceReplay で再生できる。
+ * センサーは SensorHub から GAME 周期で購読する（判定側には SensorHub が元の周期に間引いて配るので、記録中も判定は変わらない）。
+ * 近接は変化したときだけ届くセンサーなので ProximitySensor と同じ NORMAL で購読し（間引かせない）、
+ * 距離と最大レンジを書く（SensorTrace.isNear() でポケット判定を再生できる）。
+ * イベントは SensorHub の配送スレッドで受けて書く（start/stop も同じスレッドから呼ぶこと）。
+ */
+public class SensorTraceRecorder implements SensorFanout.Subscriber {
+
+    private static final String TAG = "SensorTraceRecorder";
+
+    private static final int[] TYPES = {
+            Sensor.TYPE_ROTATION_VECTOR, Sensor.TYPE_ACCELEROMETER,
+            Sensor.TYPE_LINEAR_ACCELERATION, Sensor.TYPE_GYROSCOPE
+    };
+
+    private final float[] proximityValues = new float[2];
+
+    private final SensorHub hub;
+    private MappedTraceLog log;
+    private File dir;
+
+    public SensorTraceRecorder(SensorHub hub) {
+        this.hub = hub;
+    }
+
+    public boolean isRecording() { return log != null; }
+
+    /** root/session/ へ記録を開始する（記録中なら何もしない） */
+    public void start(File root, String session) throws IOException {
+        if (log != null) return;
+        int flags = hub.hasSensor(Sensor.TYPE_LINEAR_ACCELERATION) ? SensorTrace.FLAG_HAS_LINEAR_ACCELERATION : 0;
+        log = new MappedTraceLog(root, session, flags);
+        this.dir = new File(root, session);
+        for (int type : TYPES) hub.subscribe(type, this, SensorManager.SENSOR_DELAY_GAME, 0);
+        Sensor proximity = hub.sensor(Sensor.TYPE_PROXIMITY);
+        if (proximity != null) {
+            proximityValues[1] = proximity.getMaximumRange();
+            hub.subscribe(Sensor.TYPE_PROXIMITY, this, SensorManager.SENSOR_DELAY_NORMAL, 0);
+        }
+    }
+
+    /** 記録を止めて書きかけのセグメントを確定する（圧縮は待たない。バックグラウンドで続く） */
+    public void stop() {
+        if (log == null) return;
+        hub.unsubscribe(this);
+        log.close();
+        Log.i(TAG, "trace records=" + log.writtenCount() + " dropped=" + log.droppedCount()
+                + " compressed=" + log.compressedCount() + " deleted=" + log.deletedCount() + " -> " + dir);
+        if (log.ioError() != null) Log.w(TAG, "trace io failed", log.ioError());
+        log = null;
+    }
+
+    @Override
+    public void onSensorEvent(int type, long timestampNanos, float[] values) {
+        if (log == null) return;
+        if (type == Sensor.TYPE_PROXIMITY) {
+            proximityValues[0] = values[0];
+            values = proximityValues;
+        }
+        log.write(type, timestampNanos, values);
+    }
+}
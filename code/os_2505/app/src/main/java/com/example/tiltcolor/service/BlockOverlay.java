@@ -0,0 +1,185 @@
+package com.example.tiltcolor.service;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.PixelFormat;
+import android.os.Build;
+import android.os.SystemClock;
+import android.provider.Settings;
+import android.view.Gravity;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.WindowManager;
+import android.widget.FrameLayout;
+import android.widget.ImageView;
+
+import com.example.tiltcolor.R;
+import com.example.tiltcolor.util.LatencyStats;
+
+/**
+ * ブロック用の全画面オーバーレイ（メインスレッド専用）。
+ * View・デコード済み画像・WindowManager.LayoutParams は最初に1回だけ作り、以降は使い回す。
+ *  - ATTACH    : 表示のたびに addView / removeView（ウィンドウは非表示中に存在しない）
+ *  - VISIBILITY: ウィンドウは付けたまま、可視/不可視とタッチ可否だけを切り替える（最速）
+ * 表示要求から最初の描画までの時間を計測する。
+ */
+final class BlockOverlay {
+
+    enum Mode { ATTACH, VISIBILITY }
+
+    private final Context context;
+    private final WindowManager wm;
+    private final Mode mode;
+
+    private FrameLayout root;
+    private Bitmap image;
+    private WindowManager.LayoutParams lp;
+    private boolean attached = false;
+    private boolean shown = false;
+
+    // 計測: show() の処理時間 / show() → 最初の描画
+    private final LatencyStats showCallLatency = new LatencyStats("overlay show()");
+    private final LatencyStats timeToBlock = new LatencyStats("show->draw");
+    private long showRequestedNanos = -1L;
+
+    BlockOverlay(Context context, WindowManager wm, Mode mode) {
+        this.context = context;
+        this.wm = wm;
+        this.mode = mode;
+    }
+
+    /** View と画像を前もって作っておく（サービス開始時など）。VISIBILITY ならウィンドウも付けておく。 */
+    void prewarm() {
+        ensureBuilt();
+        if (mode == Mode.VISIBILITY && !attached && Settings.canDrawOverlays(context)) {
+            setHiddenWindowState();
+            root.setVisibility(View.GONE);
+            attach();
+        }
+    }
+
+    boolean isShown() { return shown; }
+
+    void show() {
+        if (shown) return;
+        if (!Settings.canDrawOverlays(context)) return;
+        long start = SystemClock.elapsedRealtimeNanos();
+        ensureBuilt();
+
+        showRequestedNanos = start;
+        if (mode == Mode.VISIBILITY) {
+            lp.flags &= ~(WindowManager.LayoutParams.FLAG_NOT_TOUCHABLE
+                    | WindowManager.LayoutParams.FLAG_NOT_FOCUSABLE);
+            lp.alpha = 1f;
+            root.setVisibility(View.VISIBLE);
+            if (attached) updateLayout(); else attach();
+        } else {
+            root.setVisibility(View.VISIBLE);
+            attach();
+        }
+        shown = attached;
+        if (!shown) showRequestedNanos = -1L;
+        showCallLatency.record(SystemClock.elapsedRealtimeNanos() - start);
+    }
+
+    void hide() {
+        if (!shown) return;
+        showRequestedNanos = -1L;
+        if (mode == Mode.VISIBILITY) {
+            root.setVisibility(View.GONE);
+            setHiddenWindowState();
+            updateLayout();
+        } else {
+            detach();
+        }
+        shown = false;
+    }
+
+    /** サービス終了時: ウィンドウを外し、画像を解放 */
+    void release() {
+        detach();
+        shown = false;
+        if (image != null) {
+            image.recycle();
+            image = null;
+        }
+        root = null;
+        lp = null;
+    }
+
+    LatencyStats showCallLatency() { return showCallLatency; }
+    LatencyStats timeToBlock()     { return timeToBlock; }
+
+    private void ensureBuilt() {
+        if (root != null) return;
+
+        root = new FrameLayout(context);
+        root.setBackgroundColor(0xFF000000);
+        root.setOnTouchListener((v, e) -> true); // タッチ吸収
+        root.getViewTreeObserver().addOnDrawListener(() -> {
+            if (showRequestedNanos >= 0 && root.getVisibility() == View.VISIBLE) {
+                timeToBlock.record(SystemClock.elapsedRealtimeNanos() - showRequestedNanos);
+                showRequestedNanos = -1L;
+            }
+        });
+
+        image = BitmapFactory.decodeResource(context.getResources(), R.drawable.look_up);
+        ImageView iv = new ImageView(context);
+        iv.setImageBitmap(image);
+        iv.setAdjustViewBounds(true);
+        iv.setScaleType(ImageView.ScaleType.CENTER_INSIDE);
+
+        int sideMarginPx = (int) (context.getResources().getDisplayMetrics().density * 24);
+        FrameLayout.LayoutParams ivLp = new FrameLayout.LayoutParams(
+                ViewGroup.LayoutParams.WRAP_CONTENT,
+                ViewGroup.LayoutParams.WRAP_CONTENT
+        );
+        ivLp.gravity = Gravity.CENTER;
+        ivLp.setMargins(sideMarginPx, sideMarginPx, sideMarginPx, sideMarginPx);
+        root.addView(iv, ivLp);
+
+        int type = (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O)
+                ? WindowManager.LayoutParams.TYPE_APPLICATION_OVERLAY
+                : WindowManager.LayoutParams.TYPE_PHONE;
+
+        lp = new WindowManager.LayoutParams(
+                WindowManager.LayoutParams.MATCH_PARENT,
+                WindowManager.LayoutParams.MATCH_PARENT,
+                type,
+                WindowManager.LayoutParams.FLAG_LAYOUT_IN_SCREEN
+                        | WindowManager.LayoutParams.FLAG_LAYOUT_NO_LIMITS,
+                PixelFormat.TRANSLUCENT
+        );
+        lp.gravity = Gravity.TOP | Gravity.START;
+    }
+
+    /**
+     * 付けたまま隠すときのウィンドウ状態。
+     * 不可視でもタッチを下のアプリへ通すため、タッチ不可＋完全透明にする
+     * （Android 12+ は不透明な非タッチウィンドウ越しのタッチを遮断するため alpha=0 が必要）。
+     */
+    private void setHiddenWindowState() {
+        lp.flags |= WindowManager.LayoutParams.FLAG_NOT_TOUCHABLE
+                | WindowManager.LayoutParams.FLAG_NOT_FOCUSABLE;
+        lp.alpha = 0f;
+    }
+
+    private void attach() {
+        if (attached) return;
+        try {
+            wm.addView(root, lp);
+            attached = true;
+        } catch (Throwable ignore) {}
+    }
+
+    private void detach() {
+        if (!attached) return;
+        try { wm.removeView(root); } catch (Throwable ignored) {}
+        attached = false;
+    }
+
+    private void updateLayout() {
+        try { wm.updateViewLayout(root, lp); } catch (Throwable ignored) {}
+    }
+}
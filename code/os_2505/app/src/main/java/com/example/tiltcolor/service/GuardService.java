@@ -1,36 +1,67 @@
 package com.example.tiltcolor.service;
 
-import android.app.Notification;
+import android.app.KeyguardManager;
 import android.app.NotificationChannel;
 import android.app.NotificationManager;
-import android.app.PendingIntent;
 import android.app.Service;
 import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
 import android.content.IntentFilter;
 import android.os.Build;
+import android.os.Handler;
 import android.os.IBinder;
+import android.os.Looper;
+import android.os.PowerManager;
+import android.os.Process;
+import android.os.SystemClock;
 import android.util.Log;
-import android.graphics.PixelFormat;
-import android.view.Gravity;
-import android.view.View;
 import android.view.WindowManager;
-import android.provider.Settings;
 
 import androidx.annotation.Nullable;
-import androidx.core.app.NotificationCompat;
 import androidx.core.content.ContextCompat;
 
-import com.example.tiltcolor.MainActivity;
-import com.example.tiltcolor.R;
-import com.example.tiltcolor.domain.PoseData;
-import com.example.tiltcolor.sensor.PoseProvider;
+import com.example.tiltcolor.BuildConfig;
+import com.example.tiltcolor.decision.BlockDecision;
+import com.example.tiltcolor.decision.GuardConfig;
+import com.example.tiltcolor.decision.GuardConfigStore;
+import com.example.tiltcolor.decision.GuardLoop;
+import com.example.tiltcolor.decision.PocketGate;
+import com.example.tiltcolor.decision.PoseCalibrator;
+import com.example.tiltcolor.decision.RateScheduler;
+import com.example.tiltcolor.decision.ReportLatencyPolicy;
+import com.example.tiltcolor.domain.PoseSnapshot;
+import com.example.tiltcolor.sensor.ProximitySensor;
+import com.example.tiltcolor.sensor.SensorHub;
 import com.example.tiltcolor.sensor.SensorRepository;
-import com.example.tiltcolor.util.Hysteresis;
-import com.example.tiltcolor.util.TiltMath;
+import com.example.tiltcolor.sensor.SensorTraceRecorder;
+import com.example.tiltcolor.motion.ArmedMotionSource;
 import com.example.tiltcolor.motion.MotionDetector;
-
+import com.example.tiltcolor.motion.MotionSource;
+import com.example.tiltcolor.motion.TriggerWakeSource;
+import com.example.tiltcolor.util.DutyStats;
+import com.example.tiltcolor.util.LatencyStats;
+import com.example.tiltcolor.util.TelemetryRing;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+
+/**
+ * 常駐監視サービス。
+ * センサーは SensorHub（プロセスで共有）から購読し、配送・判定はそのスレッド（tilt-sensor）で行う。
+ * オーバーレイの出し入れだけをメインスレッドへ渡す。
+ * 遅延の内訳は `adb shell dumpsys activity service com.example.tiltcolor/.service.GuardService` で確認できる。
+ * 末尾に `telemetry` を付けると判定テレメトリを files/telemetry.bin へ書き出す。
+ * `trace start` / `trace stop` で生センサーイベントを files/trace/<開始時刻>/ へ記録する（trace.TraceReplay で再生）。
+ * `config hide=60 debounce=500 ...` で判定設定を変更する（GuardConfig.with() の key。保存され、すぐ反映）。
+ * 画面OFF・ロック中はセンサーをすべて解除し（GuardLoop.setInteractive）、ポケットの中・伏せ置きでは判定を止める
+ * （PocketGate）。状態ごとのイベント数・CPU時間を dump に出す。
+ */
 public class GuardService extends Service {
 
     // === MainActivity との“ON/OFF共有” ===
@@ -41,61 +72,249 @@ public class GuardService extends Service {
     private static final String CHANNEL_ID = "tilt_guard_channel";
     private static final int NOTIF_ID = 1001;
 
-    // しきい値（必要に応じて調整）
-    private static final float HIDE_THRESHOLD = 65f;
-    private static final float SHOW_THRESHOLD = 65f;
-    private static final long  DEBOUNCE_MS    = 300;
-    private static final float BASELINE_PITCH = 0f;
+    // 判定テレメトリ（デバッグは全件、リリースは間引いて記録）
+    private static final int TELEMETRY_CAPACITY = 4096;
+    private static final int TELEMETRY_SAMPLE_EVERY = BuildConfig.DEBUG ? 1 : 16;
+    private static final String TELEMETRY_FILE = "telemetry.bin";
+
+    // ブロック要求中なのにオーバーレイを出せていない間、出し直す間隔（権限が後から付いた場合など。姿勢の時刻で測る）
+    private static final long OVERLAY_RETRY_NANOS = 1_000_000_000L;
+
+    // 画面を使える状態（DutyStats の状態番号）
+    private static final int STATE_INTERACTIVE = 0;
+    private static final int STATE_GATED = 1;
+    private static final int STATE_SUSPENDED = 2;
+
+    // 生センサーイベントの記録（dumpsys から開始/停止。センサースレッドで書く）
+    private SensorTraceRecorder traceRecorder;
+
+    private SensorRepository pose;
+
+    // 近接センサー（ポケットの中の判定。画面を使える段の間だけ購読）
+    private ProximitySensor proximity;
+
+    // 歩行判定（ステップ/有意な動きで RMS 判定を起こす。無い端末では RMS 常時）
+    private MotionSource motionSource;
+
+    // 判定設定（しきい値・デバウンス・歩行判定・ON/OFF。既定は GuardConfig.DEFAULT）
+    //   MainActivity などが GuardSettings.update() で差し替え、判定ループがイベントごとに参照を読んで反映する
+    private GuardConfigStore config;
+
+    // 判定（下向きデバウンス・歩行・ON/OFF）
+    private BlockDecision decision;
+
+    // 常駐通知（状態が変わったときだけ更新）
+    private StatusNotifier notifier;
+
+    // センサー購読（プロセスで共有。配送スレッドは SensorHub が持つ）
+    private SensorHub hub;
 
-    private PoseProvider pose;
-    private Hysteresis hysteresis;
-    private long downSince = -1L, frontSince = -1L;
-    private boolean isDown = false;
+    // センサー処理スレッド（SensorHub の配送スレッド。判定ループ loop はこのスレッドだけが触る）
+    //   このサービス専用の Handler なので、終了時に自分の分だけ取り消せる
+    private Handler sensorHandler;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
 
-    // 歩行判定
-    private MotionDetector motionDetector;
-    private boolean isMoving = false;
+    // 判定ループ（ブロック要求・バッチ配送モード・購読レート段。Android非依存）
+    //   省電力: 静止が続いたらセンサーをバッチ配送へ、歩行/下向きで即時配送へ
+    //   省電力: 動き状態でセンサーの購読レートを段階切替（静止中は加速度のみ低レート、無効時は全解除）
+    private GuardLoop loop;
+    private static volatile RateScheduler.Tier currentTier = RateScheduler.Tier.OFF;
 
-    // ON/OFF
-    private boolean enabled = true;
+    // onDestroy で立てる（メイン・センサーの両スレッドが読む）。以後はオーバーレイを作り直さず、
+    //   post 済みの段切替も実行しない（stopSensors の後でセンサーを登録し直さない）
+    private volatile boolean destroyed = false;
 
-    // オーバーレイ
-    private WindowManager wm;
-    private View overlayView;
-    private boolean overlayShown = false;
+    // オーバーレイ（メインスレッドのみ。View・画像・LayoutParams は使い回す）
+    private BlockOverlay overlay;
+    private volatile boolean overlayShown = false;
+    private final Runnable showOnMain = () -> applyOverlay(true);
+    private final Runnable hideOnMain = () -> applyOverlay(false);
+    // 出し直し（ブロック要求が続いている間だけ。遅延計測には数えない）
+    private volatile boolean blockRequested = false;
+    private long lastOverlayRetryNanos = 0L; // センサースレッド
+    private final Runnable retryOnMain = () -> {
+        if (!destroyed && blockRequested && !overlayShown) {
+            showOverlay();
+            updateStatus();
+        }
+    };
+
+    // 通知の ON/OFF（センサースレッドが書く）。BLOCKING かどうかはメインスレッドで overlayShown から決める
+    private volatile boolean statusEnabled = true;
+    private final Runnable statusOnMain = this::updateStatus;
+
+    // 判定テレメトリ（センサースレッドだけが書く）と直近の歩行RMS
+    private final TelemetryRing telemetry = new TelemetryRing(TELEMETRY_CAPACITY, TELEMETRY_SAMPLE_EVERY);
+    private float lastRms = 0f;
+
+    // 遅延計測: センサー時刻→判定スレッド / 判定スレッド→メイン / センサー時刻→オーバーレイ変化
+    private final LatencyStats deliveryLatency = new LatencyStats("sensor->handler");
+    private final LatencyStats handoffLatency  = new LatencyStats("handler->main");
+    private final LatencyStats endToEndLatency = new LatencyStats("sensor->overlay");
+    private volatile long pendingEventNanos = 0L; // 切替の元になったセンサー時刻
+    private volatile long pendingPostNanos  = 0L; // メインへ post した時刻
+
+    // 画面ON・ロック解除中 / ゲート中 / 停止中 のイベント数と CPU時間（センサースレッドだけが書く）
+    private final DutyStats duty = new DutyStats("interactive", "gated", "suspended");
+    private KeyguardManager keyguard;
+
+    // デバウンスの満了タイマー（センサースレッド。予約のたびに同じ Runnable を使い回す）
+    //   満了時刻をそのまま渡す（TraceReplay / BatchEvaluator と同じ。姿勢の時刻より先の時刻で確定させない）
+    private long timerDeadlineNanos = -1L;
+    private final Runnable debounceTimer = () -> loop.onTimer(timerDeadlineNanos);
 
     // 設定更新ブロードキャスト受信
     private final BroadcastReceiver settingReceiver = new BroadcastReceiver() {
         @Override public void onReceive(Context context, Intent intent) {
-            enabled = getSharedPreferences(PREFS, MODE_PRIVATE).getBoolean(KEY_ENABLED, true);
-            updateOverlayState(); // すぐ反映
+            // 公開済みのスナップショットを読み直すだけ（prefs は読まない。OFF 段でイベントが来なくてもすぐ反映）
+            loop.refreshConfig(SystemClock.elapsedRealtimeNanos());
+        }
+    };
+
+    // 画面の ON/OFF とロック解除（見せる画面が無い間はセンサーごと止める）
+    private final BroadcastReceiver screenReceiver = new BroadcastReceiver() {
+        @Override public void onReceive(Context context, Intent intent) {
+            String action = intent.getAction();
+            if (Intent.ACTION_SCREEN_OFF.equals(action)) {
+                setInteractive(false);
+            } else if (Intent.ACTION_USER_PRESENT.equals(action)) {
+                setInteractive(true);
+            } else if (Intent.ACTION_SCREEN_ON.equals(action)) {
+                // ロック画面のままなら解除（USER_PRESENT）まで待つ
+                setInteractive(!keyguard.isKeyguardLocked());
+            }
+        }
+    };
+
+    // 判定ループからの出力（センサースレッドで呼ばれる）
+    private final GuardLoop.Host loopHost = new GuardLoop.Host() {
+        /** 状態が変わったときだけメインスレッドへ切替を投げる */
+        @Override public void onBlockChanged(boolean block, long eventNanos) {
+            if (destroyed) return;
+            blockRequested = block;
+            pendingEventNanos = eventNanos;
+            pendingPostNanos = SystemClock.elapsedRealtimeNanos();
+            mainHandler.removeCallbacks(block ? hideOnMain : showOnMain);
+            mainHandler.post(block ? showOnMain : hideOnMain);
+        }
+
+        /**
+         * ON/OFF が変わったときだけメインスレッドで通知を更新する。
+         * blocking（ブロック要求）は使わない: BLOCKING と出すのはオーバーレイを実際に出せたときだけ（applyOverlay）
+         */
+        @Override public void onStatus(boolean enabled, boolean blocking) {
+            if (enabled == statusEnabled) return;
+            statusEnabled = enabled;
+            mainHandler.post(statusOnMain);
+        }
+
+        /** センサーの登録し直しはコールバックの外で（実行時にも終了済みでないかを見る） */
+        @Override public void post(Runnable r) {
+            if (destroyed) return;
+            sensorHandler.post(() -> {
+                if (!destroyed) r.run();
+            });
+        }
+
+        @Override public long nowNanos() { return SystemClock.elapsedRealtimeNanos(); }
+
+        /**
+         * 満了時刻に debounceTimer を流す（次の姿勢イベントを待たずに確定させる）。
+         * 待ち時間は最新のイベント時刻から測る（バッチで遅れて届いた分の後続サンプルを先に処理させる）
+         */
+        @Override public void scheduleTimer(long deadlineNanos) {
+            sensorHandler.removeCallbacks(debounceTimer);
+            timerDeadlineNanos = deadlineNanos;
+            if (deadlineNanos < 0) return;
+            long from = loop != null ? loop.lastEventNanos() : Long.MIN_VALUE;
+            if (from == Long.MIN_VALUE) from = SystemClock.elapsedRealtimeNanos();
+            long delayMs = (deadlineNanos - from) / 1_000_000L;
+            sensorHandler.postDelayed(debounceTimer, Math.max(0L, delayMs));
+        }
+
+        @Override public void onTierApplied(RateScheduler.Tier tier) {
+            currentTier = tier;
+            Log.i("GuardService", "rate tier=" + tier);
+            if (tier == RateScheduler.Tier.OFF || tier == RateScheduler.Tier.SUSPENDED) {
+                if (proximity.isRunning()) {
+                    proximity.stop();
+                    // 止めた近接センサーの NEAR を持ち越さない（段の反映が終わってから）
+                    sensorHandler.post(() -> loop.onProximity(false, SystemClock.elapsedRealtimeNanos()));
+                }
+            } else {
+                proximity.start();
+            }
+        }
+
+        @Override public void onGateChanged(PocketGate.Reason reason, long eventNanos) {
+            updateDuty();
+            Log.i("GuardService", "gate=" + reason);
+        }
+
+        @Override public void onReportLatencyApplied(ReportLatencyPolicy.Mode mode, int us) {
+            Log.i("GuardService", "report mode=" + mode + " maxReportLatencyUs=" + us);
+        }
+
+        @Override public void onConfigApplied(GuardConfig c) {
+            Log.i("GuardService", "config " + c);
+        }
+
+        /** 基準が刻み（0.5°）単位で変わったときだけ保存する */
+        @Override public void onCalibrationChanged(PoseCalibrator c) {
+            GuardSettings.saveCalibration(GuardService.this, c);
+            Log.i("GuardService", "baseline=" + c.baseline() + " neutralPitch=" + c.neutralPitch()
+                    + " samples=" + c.sampleCount());
         }
     };
 
     @Override public void onCreate() {
         super.onCreate();
         createChannel();
-        startForeground(NOTIF_ID, buildNotification("監視中（前を向いて歩きましょう）"));
+        notifier = new StatusNotifier(this, CHANNEL_ID, NOTIF_ID);
+        startForeground(NOTIF_ID, notifier.build(StatusNotifier.Status.MONITORING));
+
+        // 保存済みの設定（ON/OFF・しきい値）をロード
+        config = GuardSettings.store(this);
+        decision = BlockDecision.from(config.get());
 
-        // 現在のON/OFFをロード
-        enabled = getSharedPreferences(PREFS, MODE_PRIVATE).getBoolean(KEY_ENABLED, true);
+        // センサー処理スレッド（SensorHub の配送スレッドに載せる）
+        hub = SensorHub.get(this);
+        sensorHandler = new Handler(hub.looper());
 
         // 姿勢センサー
-        hysteresis = new Hysteresis(HIDE_THRESHOLD, SHOW_THRESHOLD);
-        pose = new SensorRepository(this);
+        pose = new SensorRepository(hub);
         pose.setListener(this::onPose);
-        pose.start();
+
+        // 近接センサー
+        proximity = new ProximitySensor(hub);
+        proximity.setListener((near, t) -> loop.onProximity(near, t));
 
         // 歩行検出
-        motionDetector = new MotionDetector(this);
-        motionDetector.setListener((moving, rms) -> {
-            isMoving = moving;
-            updateOverlayState();
+        motionSource = new ArmedMotionSource(
+                new MotionDetector(hub),
+                new TriggerWakeSource(this, sensorHandler));
+        motionSource.setListener((moving, rms) -> {
+            long eventNanos = motionSource.lastEventNanos();
+            deliveryLatency.record(SystemClock.elapsedRealtimeNanos() - eventNanos);
+            lastRms = (float) rms;
+            loop.onMotion(moving, eventNanos);
         });
-        motionDetector.start();
 
-        // オーバーレイ
-        wm = (WindowManager) getSystemService(WINDOW_SERVICE);
+        // 購読開始（段の決定と登録はセンサースレッドで）。画面OFF・ロック中に起動したら停止中から
+        traceRecorder = new SensorTraceRecorder(hub);
+        loop = new GuardLoop(decision, pose, motionSource, loopHost, config);
+        GuardSettings.restoreCalibration(this, loop);
+        keyguard = (KeyguardManager) getSystemService(KEYGUARD_SERVICE);
+        PowerManager pm = (PowerManager) getSystemService(POWER_SERVICE);
+        long now = SystemClock.elapsedRealtimeNanos();
+        duty.start(now, cpuTotalNanos(), sensorEventTotal());
+        if (!pm.isInteractive() || keyguard.isKeyguardLocked()) setInteractive(false);
+        loop.start(now);
+
+        // オーバーレイ（初回表示を速くするため先に作っておく）
+        overlay = new BlockOverlay(this, (WindowManager) getSystemService(WINDOW_SERVICE),
+                BlockOverlay.Mode.ATTACH);
+        overlay.prewarm();
 
         // 設定更新の購読（API33+ はフラグ必須）
         // 設定更新の購読（常に flags 付きの registerReceiver を使う）
@@ -106,110 +325,221 @@ public class GuardService extends Service {
                 ? Context.RECEIVER_NOT_EXPORTED  // 自アプリ内専用
                 : 0;
 
-        registerReceiver(settingReceiver, f, flags);
+        // 判定状態と同じスレッドで受ける
+        registerReceiver(settingReceiver, f, null, sensorHandler, flags);
+
+        // 画面の ON/OFF・ロック解除（システムのブロードキャスト。これも判定と同じスレッドで受ける）
+        // システムの保護されたブロードキャストは NOT_EXPORTED でも届く
+        IntentFilter screen = new IntentFilter(Intent.ACTION_SCREEN_ON);
+        screen.addAction(Intent.ACTION_SCREEN_OFF);
+        screen.addAction(Intent.ACTION_USER_PRESENT);
+        registerReceiver(screenReceiver, screen, null, sensorHandler, flags);
     }
 
     @Nullable @Override public IBinder onBind(Intent intent) { return null; }
     @Override public int onStartCommand(Intent intent, int flags, int startId) { return START_STICKY; }
 
     @Override public void onDestroy() {
+        destroyed = true;
         super.onDestroy();
-        if (pose != null) pose.stop();
-        if (motionDetector != null) motionDetector.stop();
         try { unregisterReceiver(settingReceiver); } catch (Exception ignored) {}
+        try { unregisterReceiver(screenReceiver); } catch (Exception ignored) {}
+        if (sensorHandler != null) {
+            // 解除はセンサースレッド上で（実行中の段切替と競合しないように）行う。スレッドは SensorHub のものなので残す
+            sensorHandler.removeCallbacksAndMessages(null);
+            sensorHandler.post(this::stopSensors);
+        }
+        currentTier = RateScheduler.Tier.OFF;
+        mainHandler.removeCallbacks(showOnMain);
+        mainHandler.removeCallbacks(hideOnMain);
+        mainHandler.removeCallbacks(retryOnMain);
+        mainHandler.removeCallbacks(statusOnMain);
         hideOverlay();
+        if (overlay != null) {
+            Log.i("GuardService", overlay.showCallLatency() + " / " + overlay.timeToBlock());
+            overlay.release();
+        }
+        if (notifier != null) {
+            Log.i("GuardService", "notify posted=" + notifier.postedCount()
+                    + " avoided=" + notifier.avoidedCount());
+        }
+        Log.i("GuardService", deliveryLatency + " / " + handoffLatency + " / " + endToEndLatency);
+        Log.i("GuardService", dutySummary());
     }
 
-    private void onPose(PoseData p) {
-        float adjPitch = TiltMath.applyBaseline(p.pitchDeg, BASELINE_PITCH);
+    /** センサースレッド（onCreate の間はまだ他から触られないのでメインスレッドでも可） */
+    private void setInteractive(boolean interactive) {
+        long now = SystemClock.elapsedRealtimeNanos();
+        loop.setInteractive(interactive, now);
+        updateDuty();
+        Log.i("GuardService", "interactive=" + interactive);
+    }
 
-        long now = System.currentTimeMillis();
-        boolean wantDown = hysteresis.next(adjPitch);
-        if (wantDown) {
-            if (downSince < 0) downSince = now;
-            frontSince = -1L;
-            if (now - downSince >= DEBOUNCE_MS) isDown = true;
-        } else {
-            if (frontSince < 0) frontSince = now;
-            downSince = -1L;
-            if (now - frontSince >= DEBOUNCE_MS) isDown = false;
+    /** センサースレッド */
+    private void updateDuty() {
+        int state = !loop.isInteractive() ? STATE_SUSPENDED
+                : loop.gate().isGated() ? STATE_GATED : STATE_INTERACTIVE;
+        duty.enter(state, SystemClock.elapsedRealtimeNanos(), cpuTotalNanos(), sensorEventTotal());
+    }
+
+    /** プロセス全体の CPU時間（ns。分解能は ms） */
+    private static long cpuTotalNanos() {
+        return Process.getElapsedCpuTime() * 1_000_000L;
+    }
+
+    /** 受け取ったセンサーイベント数（SensorHub が受けた件数。購読者へ配る前） */
+    private long sensorEventTotal() {
+        return hub != null ? hub.receivedCount() : 0L;
+    }
+
+    private String dutySummary() {
+        return "duty " + duty.format(SystemClock.elapsedRealtimeNanos(), cpuTotalNanos(), sensorEventTotal());
+    }
+
+    /** センサースレッド。これが最後（destroyed なので、後から段を反映してもセンサーは登録し直さない） */
+    private void stopSensors() {
+        loop.stopSensors();
+        GuardSettings.saveCalibration(this, loop.calibrator()); // 刻み未満の学習も残す
+        proximity.stop();
+        traceRecorder.stop();
+        Log.i("GuardService", "pose events emitted=" + pose.emittedCount()
+                + " suppressed=" + pose.suppressedCount());
+    }
+
+    @Override protected void dump(FileDescriptor fd, PrintWriter pw, String[] args) {
+        pw.println("overlayShown=" + overlayShown + " reportMode=" + (loop != null ? loop.reportMode() : null)
+                + " rateTier=" + currentTier);
+        if (config != null) pw.println("config " + config.get());
+        if (loop != null) {
+            PoseCalibrator c = loop.calibrator();
+            pw.println("baseline applied=" + decision.baselinePitch() + " learned=" + c.baseline()
+                    + " neutralPitch=" + c.neutralPitch() + " neutralTilt=" + c.neutralTilt()
+                    + " samples=" + c.sampleCount());
+        }
+        pw.println(deliveryLatency);
+        pw.println(handoffLatency);
+        pw.println(endToEndLatency);
+        pw.println("notify posted=" + notifier.postedCount() + " avoided=" + notifier.avoidedCount());
+        pw.println(dutySummary());
+        if (loop != null) {
+            PocketGate g = loop.gate();
+            pw.println("gate=" + g.reason() + " entries=" + g.entries()
+                    + " gated=" + g.gatedNanos(SystemClock.elapsedRealtimeNanos()) / 1_000_000L + "ms"
+                    + " proximity=" + (proximity.isAvailable() ? proximity.isRunning() ? "on" : "off" : "none"));
+        }
+        if (overlay != null) {
+            pw.println(overlay.showCallLatency());
+            pw.println(overlay.timeToBlock());
+        }
+        if (pose != null) {
+            pw.println("pose events emitted=" + pose.emittedCount() + " suppressed=" + pose.suppressedCount());
+        }
+        if (hub != null) pw.println(hub.summary());
+        // dumpsys ... GuardService telemetry でリングをファイルへ書き出す
+        if (args != null && args.length > 0 && "telemetry".equals(args[0]) && sensorHandler != null) {
+            File file = new File(getFilesDir(), TELEMETRY_FILE);
+            sensorHandler.post(() -> writeTelemetry(file));
+            pw.println("telemetry -> " + file.getAbsolutePath());
         }
+        // dumpsys ... GuardService config key=value ... で判定設定を変更
+        if (args != null && args.length > 1 && "config".equals(args[0])) {
+            try {
+                GuardConfig c = GuardSettings.update(this, cfg -> {
+                    for (int i = 1; i < args.length; i++) {
+                        int eq = args[i].indexOf('=');
+                        if (eq < 0) throw new IllegalArgumentException("expected key=value: " + args[i]);
+                        cfg = cfg.with(args[i].substring(0, eq), args[i].substring(eq + 1));
+                    }
+                    return cfg;
+                });
+                pw.println("config -> " + c);
+            } catch (IllegalArgumentException e) {
+                pw.println("config: " + e.getMessage());
+            }
+        }
+        // dumpsys ... GuardService trace start|stop で生センサーイベントを記録
+        if (args != null && args.length > 1 && "trace".equals(args[0]) && sensorHandler != null) {
+            if ("start".equals(args[1])) {
+                File root = new File(getFilesDir(), "trace");
+                String session = Long.toString(System.currentTimeMillis());
+                sensorHandler.post(() -> startTrace(root, session));
+                pw.println("trace -> " + new File(root, session).getAbsolutePath());
+            } else if ("stop".equals(args[1])) {
+                sensorHandler.post(traceRecorder::stop);
+                pw.println("trace stopped");
+            }
+        }
+    }
 
-        Log.d("GuardService", String.format(
-                "pitch=%.1f isDown=%s isMoving=%s enabled=%s",
-                adjPitch, isDown, isMoving, enabled));
+    /** センサースレッド */
+    private void startTrace(File root, String session) {
+        try {
+            traceRecorder.start(root, session);
+        } catch (IOException e) {
+            Log.w("GuardService", "trace start failed", e);
+        }
+    }
 
-        updateOverlayState();
+    /** テレメトリをファイルへ書き出す（センサースレッド。リングの書き手と同じスレッドで読む） */
+    private void writeTelemetry(File file) {
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+            telemetry.writeTo(out);
+            Log.i("GuardService", "telemetry records=" + telemetry.size() + " -> " + file);
+        } catch (IOException e) {
+            Log.w("GuardService", "telemetry dump failed", e);
+        }
     }
 
-    /** ON/OFF と 条件（歩行AND下向き）でオーバーレイを出し入れ */
-    private void updateOverlayState() {
-        boolean shouldBlock = enabled && isMoving && isDown;
-        if (shouldBlock && !overlayShown) {
-            showOverlay();
-        } else if (!shouldBlock && overlayShown) {
-            hideOverlay();
+    /** センサースレッド */
+    private void onPose(PoseSnapshot p) {
+        deliveryLatency.record(SystemClock.elapsedRealtimeNanos() - p.timestampNanos());
+        float adjPitch = loop.onPose(p);
+        // 権限が無い・addView に失敗した等で出せていなければ、ブロック要求が続く間は出し直す
+        if (blockRequested && !overlayShown
+                && p.timestampNanos() - lastOverlayRetryNanos >= OVERLAY_RETRY_NANOS) {
+            lastOverlayRetryNanos = p.timestampNanos();
+            mainHandler.removeCallbacks(retryOnMain);
+            mainHandler.post(retryOnMain);
+        }
+        telemetry.record(p.timestampNanos(), adjPitch, p.tiltDeg(), lastRms,
+                decision.isDown(), decision.isMoving(), overlayShown);
+    }
+
+    /** 現在の購読レート段（UI・デバッグ表示用。どのスレッドからでも可） */
+    public static RateScheduler.Tier currentRateTier() { return currentTier; }
+
+    /** メインスレッド: オーバーレイを切り替えて遅延を記録し、実際に出せたかで通知を更新 */
+    private void applyOverlay(boolean show) {
+        if (destroyed) return; // release 後に作り直さない
+        handoffLatency.record(SystemClock.elapsedRealtimeNanos() - pendingPostNanos);
+        boolean before = overlayShown;
+        if (show) showOverlay(); else hideOverlay();
+        if (overlayShown != before) {
+            endToEndLatency.record(SystemClock.elapsedRealtimeNanos() - pendingEventNanos);
         }
-        // 通知文言もON/OFFに合わせて更新
-        if (!enabled) {
-            updateNotification("無効：ブロックしません");
+        updateStatus();
+    }
+
+    /** メインスレッド: 通知文言（変化したときだけ notify） */
+    private void updateStatus() {
+        if (!statusEnabled) {
+            notifier.update(StatusNotifier.Status.DISABLED);
         } else if (overlayShown) {
-            updateNotification("下向き＋歩行中：画面をロック中");
+            notifier.update(StatusNotifier.Status.BLOCKING);
         } else {
-            updateNotification("監視中（前を向いて歩きましょう）");
+            notifier.update(StatusNotifier.Status.MONITORING);
         }
     }
 
     private void showOverlay() {
-        if (overlayShown) return;
-        if (!Settings.canDrawOverlays(this)) return;
-
-        android.widget.FrameLayout root = new android.widget.FrameLayout(this);
-        root.setBackgroundColor(0xFF000000);
-        root.setOnTouchListener((v, e) -> true); // タッチ吸収
-
-        android.widget.ImageView iv = new android.widget.ImageView(this);
-        iv.setImageResource(R.drawable.look_up);
-        iv.setAdjustViewBounds(true);
-        iv.setScaleType(android.widget.ImageView.ScaleType.CENTER_INSIDE);
-
-        int sideMarginPx = (int) (getResources().getDisplayMetrics().density * 24);
-        android.widget.FrameLayout.LayoutParams ivLp = new android.widget.FrameLayout.LayoutParams(
-                android.view.ViewGroup.LayoutParams.WRAP_CONTENT,
-                android.view.ViewGroup.LayoutParams.WRAP_CONTENT
-        );
-        ivLp.gravity = Gravity.CENTER;
-        ivLp.setMargins(sideMarginPx, sideMarginPx, sideMarginPx, sideMarginPx);
-        root.addView(iv, ivLp);
-
-        int type = (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O)
-                ? WindowManager.LayoutParams.TYPE_APPLICATION_OVERLAY
-                : WindowManager.LayoutParams.TYPE_PHONE;
-
-        WindowManager.LayoutParams lp = new WindowManager.LayoutParams(
-                WindowManager.LayoutParams.MATCH_PARENT,
-                WindowManager.LayoutParams.MATCH_PARENT,
-                type,
-                WindowManager.LayoutParams.FLAG_LAYOUT_IN_SCREEN
-                        | WindowManager.LayoutParams.FLAG_LAYOUT_NO_LIMITS,
-                PixelFormat.TRANSLUCENT
-        );
-        lp.gravity = Gravity.TOP | Gravity.START;
-
-        try {
-            wm.addView(root, lp);
-            overlayView = root;
-            overlayShown = true;
-        } catch (Throwable ignore) {}
+        overlay.show();
+        overlayShown = overlay.isShown();
     }
 
     private void hideOverlay() {
-        if (!overlayShown) return;
-        if (overlayView != null) {
-            try { wm.removeView(overlayView); } catch (Throwable ignored) {}
-            overlayView = null;
-        }
-        overlayShown = false;
+        if (overlay == null) return;
+        overlay.hide();
+        overlayShown = overlay.isShown();
     }
 
     private void createChannel() {
@@ -221,25 +551,4 @@ public class GuardService extends Service {
             nm.createNotificationChannel(ch);
         }
     }
-
-    private Notification buildNotification(String text) {
-        PendingIntent contentIntent = PendingIntent.getActivity(
-                this, 0, new Intent(this, MainActivity.class),
-                Build.VERSION.SDK_INT >= 23 ? PendingIntent.FLAG_IMMUTABLE : 0);
-
-        return new NotificationCompat.Builder(this, CHANNEL_ID)
-                .setSmallIcon(R.mipmap.ic_launcher)
-                .setContentTitle("Tilt Guard")
-                .setContentText(text)
-                .setContentIntent(contentIntent)
-                .setOngoing(true)
-                .build();
-    }
-
-    private void updateNotification(String text) {
-        Notification n = buildNotification(text);
-        NotificationManager nm =
-                (NotificationManager) getSystemService(Context.NOTIFICATION_SERVICE);
-        nm.notify(NOTIF_ID, n);
-    }
 }
@@ -0,0 +1,130 @@
+package com.example.tiltcolor.service;
+
+import android.content.Context;
+import android.content.Intent;
+import android.content.SharedPreferences;
+
+import com.example.tiltcolor.decision.GuardConfig;
+import com.example.tiltcolor.decision.GuardConfigStore;
+import com.example.tiltcolor.decision.GuardLoop;
+import com.example.tiltcolor.decision.PoseCalibrator;
+
+import java.util.function.UnaryOperator;
+
+/**
+ * 判定設定（GuardConfig）の保存とプロセス内での共有。
+ *  - SharedPreferences を読むのはプロセスで最初の1回だけ。以降は store() の参照を読むだけ
+ *  - 変更は update() で: 新しいスナップショットを公開 → 保存 → GuardService へ通知
+ *    （GuardService は通知を受けると参照を読み直すだけで、センサーは登録し直さない）
+ * 未保存の項目は GuardConfig.DEFAULT のまま。
+ * 基準の自動校正（PoseCalibrator）の学習結果も同じ prefs に保存し、サービス起動時に戻す。
+ */
+public final class GuardSettings {
+
+    private static final String KEY_HIDE = "hide_threshold";
+    private static final String KEY_SHOW = "show_threshold";
+    private static final String KEY_DEBOUNCE = "debounce_ms";
+    private static final String KEY_BASELINE = "baseline_pitch";
+    private static final String KEY_AUTO_BASELINE = "auto_baseline";
+    private static final String KEY_WINDOW = "motion_window_ms";
+    private static final String KEY_HOLD = "motion_hold_ms";
+    private static final String KEY_MOVE = "motion_thresh_move";
+    private static final String KEY_STILL = "motion_thresh_still";
+    private static final String KEY_GAIT = "motion_gait";
+
+    // 基準の学習結果（PoseCalibrator）
+    private static final String KEY_CALIB_PITCH = "calib_neutral_pitch";
+    private static final String KEY_CALIB_TILT = "calib_neutral_tilt";
+    private static final String KEY_CALIB_SAMPLES = "calib_samples";
+
+    private static final GuardConfigStore STORE = new GuardConfigStore(GuardConfig.DEFAULT);
+    private static boolean loaded = false;
+
+    private GuardSettings() {} // インスタンス化禁止
+
+    /** プロセス共通のストア（初回だけ保存値を読み込む） */
+    public static synchronized GuardConfigStore store(Context context) {
+        if (!loaded) {
+            loaded = true;
+            STORE.set(read(prefs(context)));
+        }
+        return STORE;
+    }
+
+    /** 設定を変更して公開・保存し、GuardService に知らせる。変更後の値を返す */
+    public static synchronized GuardConfig update(Context context, UnaryOperator<GuardConfig> change) {
+        GuardConfig c = store(context).update(change);
+        write(prefs(context), c);
+        context.sendBroadcast(new Intent(GuardService.ACTION_UPDATE_ENABLED).setPackage(context.getPackageName()));
+        return c;
+    }
+
+    /** 保存しておいた基準の学習結果を loop へ戻す（未保存なら何もしない） */
+    public static void restoreCalibration(Context context, GuardLoop loop) {
+        SharedPreferences p = prefs(context);
+        long samples = p.getLong(KEY_CALIB_SAMPLES, 0L);
+        if (samples <= 0) return;
+        loop.restoreCalibration(p.getFloat(KEY_CALIB_PITCH, 0f), p.getFloat(KEY_CALIB_TILT, 0f), samples);
+    }
+
+    /** 基準の学習結果を保存する（非同期書き込み。センサースレッドから呼んでよい） */
+    public static void saveCalibration(Context context, PoseCalibrator c) {
+        prefs(context).edit()
+                .putFloat(KEY_CALIB_PITCH, c.neutralPitch())
+                .putFloat(KEY_CALIB_TILT, c.neutralTilt())
+                .putLong(KEY_CALIB_SAMPLES, c.sampleCount())
+                .apply();
+    }
+
+    private static SharedPreferences prefs(Context context) {
+        return context.getApplicationContext().getSharedPreferences(GuardService.PREFS, Context.MODE_PRIVATE);
+    }
+
+    private static GuardConfig read(SharedPreferences p) {
+        GuardConfig d = GuardConfig.DEFAULT;
+        try {
+            return new GuardConfig(
+                    p.getBoolean(GuardService.KEY_ENABLED, d.enabled),
+                    p.getFloat(KEY_HIDE, d.hideThreshold),
+                    p.getFloat(KEY_SHOW, d.showThreshold),
+                    p.getLong(KEY_DEBOUNCE, d.debounceMs),
+                    p.getFloat(KEY_BASELINE, d.baselinePitch),
+                    p.getBoolean(KEY_AUTO_BASELINE, d.autoBaseline),
+                    p.getLong(KEY_WINDOW, d.windowMs),
+                    p.getLong(KEY_HOLD, d.holdMs),
+                    getDouble(p, KEY_MOVE, d.threshMove),
+                    getDouble(p, KEY_STILL, d.threshStill),
+                    p.getBoolean(KEY_GAIT, d.gait));
+        } catch (IllegalArgumentException e) {
+            // 壊れた保存値は捨てて既定値（ON/OFF だけは残す）
+            return d.withEnabled(p.getBoolean(GuardService.KEY_ENABLED, d.enabled));
+        }
+    }
+
+    private static void write(SharedPreferences p, GuardConfig c) {
+        p.edit()
+                .putBoolean(GuardService.KEY_ENABLED, c.enabled)
+                .putFloat(KEY_HIDE, c.hideThreshold)
+                .putFloat(KEY_SHOW, c.showThreshold)
+                .putLong(KEY_DEBOUNCE, c.debounceMs)
+                .putFloat(KEY_BASELINE, c.baselinePitch)
+                .putBoolean(KEY_AUTO_BASELINE, c.autoBaseline)
+                .putLong(KEY_WINDOW, c.windowMs)
+                .putLong(KEY_HOLD, c.holdMs)
+                .putString(KEY_MOVE, Double.toString(c.threshMove))
+                .putString(KEY_STILL, Double.toString(c.threshStill))
+                .putBoolean(KEY_GAIT, c.gait)
+                .apply();
+    }
+
+    /** double は文字列で保存する（float 経由の丸めで既定値とずれないように） */
+    private static double getDouble(SharedPreferences p, String key, double def) {
+        String s = p.getString(key, null);
+        if (s == null) return def;
+        try {
+            return Double.parseDouble(s);
+        } catch (NumberFormatException e) {
+            return def;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.tiltcolor.service;
+
+import android.app.Notification;
+import android.app.NotificationManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Build;
+
+import androidx.core.app.NotificationCompat;
+
+import com.example.tiltcolor.MainActivity;
+import com.example.tiltcolor.R;
+
+/**
+ * 常駐通知の表示状態キャッシュ。
+ *  - 表示中の状態と同じなら notify（NotificationManager への IPC）をしない
+ *  - Builder と PendingIntent は1回だけ作って使い回す
+ * update() は1スレッド（センサースレッド）から呼ぶこと。カウンタはどのスレッドから読んでもよい。
+ */
+final class StatusNotifier {
+
+    enum Status {
+        MONITORING("監視中（前を向いて歩きましょう）"),
+        BLOCKING("下向き＋歩行中：画面をロック中"),
+        DISABLED("無効：ブロックしません");
+
+        final String text;
+
+        Status(String text) { this.text = text; }
+    }
+
+    private final NotificationManager nm;
+    private final NotificationCompat.Builder builder;
+    private final int notificationId;
+
+    private Status current = null;
+    private volatile long posted = 0L;
+    private volatile long avoided = 0L;
+
+    StatusNotifier(Context context, String channelId, int notificationId) {
+        this.notificationId = notificationId;
+        this.nm = (NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
+
+        PendingIntent contentIntent = PendingIntent.getActivity(
+                context, 0, new Intent(context, MainActivity.class),
+                Build.VERSION.SDK_INT >= 23 ? PendingIntent.FLAG_IMMUTABLE : 0);
+
+        this.builder = new NotificationCompat.Builder(context, channelId)
+                .setSmallIcon(R.mipmap.ic_launcher)
+                .setContentTitle("Tilt Guard")
+                .setContentIntent(contentIntent)
+                .setOnlyAlertOnce(true)
+                .setOngoing(true);
+    }
+
+    /** startForeground 用に通知を組み立てる（表示中の状態として記録する） */
+    Notification build(Status status) {
+        current = status;
+        return builder.setContentText(status.text).build();
+    }
+
+    /** 状態が変わったときだけ通知を差し替える */
+    void update(Status status) {
+        if (status == current) {
+            avoided = avoided + 1;
+            return;
+        }
+        current = status;
+        nm.notify(notificationId, builder.setContentText(status.text).build());
+        posted = posted + 1;
+    }
+
+    /** notify した回数 */
+    long postedCount()  { return posted; }
+
+    /** 状態が同じで notify を省いた回数 */
+    long avoidedCount() { return avoided; }
+}
@@ -0,0 +1,467 @@
+package com.example.tiltcolor.trace;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * MappedByteBuffer に直接書くセンサートレースの分割ログ（Android非依存）。
+ *  - 固定長レコード（RECORD_BYTES）を固定長セグメントファイル（NNNNNN.seg）に詰める
+ *  - write() はマップ済みバッファへの絶対位置 put だけ（ロック・アロケーション・システムコールなし）
+ *  - セグメントが埋まったらバックグラウンドの I/O スレッドへ渡し、次のセグメントは I/O スレッドが先にマップしておく
+ *  - 埋まったセグメントは I/O スレッドが gzip 圧縮（NNNNNN.seg.gz）し、合計サイズが上限を超えたら古い順に消す
+ *  - 上限は root 以下（root 直下と、記録ごとのサブディレクトリ root/<session>/ の全部）で数える
+ *  - 前回クラッシュなどで生のまま残ったセグメント（.seg）は、I/O スレッドが起動時に圧縮する（壊れていれば消す）
+ *  - 次のセグメントが間に合わなかったときは待たずに捨てて数える（droppedCount）
+ *  - close() は I/O スレッドを待たない（最後の圧縮は I/O スレッドが続け、終わったら止まる）
+ *
+ * write() / close() は1スレッド（センサースレッド）から呼ぶこと。複数スレッドから書く場合はスレッドごとに1個作る。
+ * I/O スレッドはプロセス内で前のインスタンスの I/O スレッドが終わってから動き出す（同じファイルを取り合わない）。
+ * 書き手と I/O スレッドの受け渡しは volatile と LockSupport.unpark だけで行う。
+ *
+ * セグメント形式（ビッグエンディアン）:
+ *   header（HEADER_BYTES）: int MAGIC, int VERSION, int flags（SensorTrace.FLAG_*）, int RECORD_BYTES, int records
+ *   record（RECORD_BYTES）: long timestampNanos, byte type, byte count, 2 byte 予備, float × SensorTrace.MAX_VALUES
+ * export() で SensorTrace 形式に変換すれば TraceReader / TraceReplay でそのまま読める。
+ */
+public final class MappedTraceLog implements Closeable {
+
+    public static final int MAGIC = 0x54524D31; // "TRM1"
+    public static final int VERSION = 1;
+    public static final int HEADER_BYTES = 32;
+    public static final int RECORD_BYTES = 32;
+
+    /** 既定のセグメントサイズ（3ストリーム × 100Hz で約100秒分） */
+    public static final int DEFAULT_SEGMENT_BYTES = 1 << 20;
+    /** 既定の合計サイズ上限（圧縮済み＋書き込み中） */
+    public static final long DEFAULT_MAX_TOTAL_BYTES = 32L << 20;
+
+    private static final String RAW_SUFFIX = ".seg";
+    private static final String GZ_SUFFIX = ".seg.gz";
+
+    // header
+    private static final int H_RECORDS = 16;
+    // record
+    private static final int R_TYPE = 8;
+    private static final int R_COUNT = 9;
+    private static final int R_VALUES = 12;
+
+    /** 圧縮待ちセグメントの受け渡し枠（I/O スレッドは次をマップする前に全部圧縮するので 2 件以上たまらない） */
+    private static final int COMPLETED_SLOTS = 4;
+
+    private final File root;
+    private final File dir;
+    private final int flags;
+    private final int segmentBytes;
+    private final int recordsPerSegment;
+    private final long maxTotalBytes;
+    private final Thread io;
+
+    // 書き手スレッドだけが触る
+    private MappedByteBuffer current;
+    private long currentSegment = 0L;
+    private int recordInSegment = 0;
+    private boolean closed = false;
+
+    // 書き手 → I/O スレッド
+    private volatile MappedByteBuffer prepared;
+    private final AtomicReferenceArray<MappedByteBuffer> completed = new AtomicReferenceArray<>(COMPLETED_SLOTS);
+    private final int[] completedRecords = new int[COMPLETED_SLOTS];
+    private volatile long completedUpTo = -1L;
+    private volatile boolean closing = false;
+
+    // カウンタ（書き手は1スレッドなので volatile で足りる）
+    private volatile long written = 0L;
+    private volatile long dropped = 0L;
+    private volatile long compressed = 0L;
+    private volatile long deleted = 0L;
+    private volatile IOException ioError;
+
+    /** 直近に作ったインスタンスの I/O スレッド（次の I/O スレッドはこれが終わるのを待つ） */
+    private static Thread lastIo;
+
+    public MappedTraceLog(File root, String session, int flags) throws IOException {
+        this(root, session, flags, DEFAULT_SEGMENT_BYTES, DEFAULT_MAX_TOTAL_BYTES);
+    }
+
+    /** root 直下にセグメントを置く */
+    public MappedTraceLog(File dir, int flags, int segmentBytes, long maxTotalBytes) throws IOException {
+        this(dir, null, flags, segmentBytes, maxTotalBytes);
+    }
+
+    /**
+     * @param root          上限を数える範囲（無ければ作る）
+     * @param session       セグメントを置く root 直下のサブディレクトリ名（null なら root 直下。既存のセグメントの後ろに番号を振る）
+     * @param flags         SensorTrace.FLAG_*（各セグメントのヘッダに入れる）
+     * @param segmentBytes  セグメント1個のサイズ（ヘッダ＋レコード2件以上）
+     * @param maxTotalBytes root 以下のセグメント合計サイズの上限
+     */
+    public MappedTraceLog(File root, String session, int flags, int segmentBytes, long maxTotalBytes)
+            throws IOException {
+        if (segmentBytes < HEADER_BYTES + 2 * RECORD_BYTES) throw new IllegalArgumentException("segmentBytes too small");
+        if (maxTotalBytes < 2L * segmentBytes) throw new IllegalArgumentException("maxTotalBytes < 2 segments");
+        File dir = session == null ? root : new File(root, session);
+        if (!dir.isDirectory() && !dir.mkdirs()) throw new IOException("cannot create " + dir);
+        this.root = root;
+        this.dir = dir;
+        this.flags = flags;
+        this.segmentBytes = segmentBytes;
+        this.recordsPerSegment = (segmentBytes - HEADER_BYTES) / RECORD_BYTES;
+        this.maxTotalBytes = maxTotalBytes;
+
+        File[] existing = segments(dir);
+        long first = existing.length == 0 ? 0L : segmentNumber(existing[existing.length - 1]) + 1;
+        this.currentSegment = first;
+        this.current = map(first);
+
+        Thread before;
+        synchronized (MappedTraceLog.class) {
+            before = lastIo;
+            io = new Thread(() -> ioLoop(before, first), "trace-io");
+            lastIo = io;
+        }
+        io.setDaemon(true);
+        io.setPriority(Thread.MIN_PRIORITY);
+        io.start();
+    }
+
+    /**
+     * 1イベントを書く（値は先頭 SensorTrace.MAX_VALUES 個まで）。
+     * @return 書けたら true。次のセグメントが間に合わず捨てたら false
+     */
+    public boolean write(int type, long timestampNanos, float[] values) {
+        MappedByteBuffer buf = current;
+        if (buf == null) {
+            if (closed) return false;
+            buf = takePrepared();
+            if (buf == null) {
+                dropped = dropped + 1;
+                return false;
+            }
+        }
+        int count = Math.min(values.length, SensorTrace.MAX_VALUES);
+        int base = HEADER_BYTES + recordInSegment * RECORD_BYTES;
+        buf.putLong(base, timestampNanos);
+        buf.put(base + R_TYPE, (byte) type);
+        buf.put(base + R_COUNT, (byte) count);
+        for (int i = 0; i < count; i++) buf.putFloat(base + R_VALUES + 4 * i, values[i]);
+        written = written + 1;
+
+        if (++recordInSegment == recordsPerSegment) handOff();
+        return true;
+    }
+
+    /** 書いたレコード数 */
+    public long writtenCount() { return written; }
+
+    /** 次のセグメントが間に合わず捨てたレコード数 */
+    public long droppedCount() { return dropped; }
+
+    /** 圧縮し終えたセグメント数 */
+    public long compressedCount() { return compressed; }
+
+    /** 上限超過で消したセグメント数 */
+    public long deletedCount() { return deleted; }
+
+    /** I/O スレッドで起きた直近のエラー（無ければ null） */
+    public IOException ioError() { return ioError; }
+
+    public int recordsPerSegment() { return recordsPerSegment; }
+
+    /**
+     * 書きかけのセグメントを確定して I/O スレッドへ渡す（書き手スレッドから）。
+     * 圧縮は待たない。I/O スレッドは残りを圧縮して上限を反映したら止まる（待つなら awaitTermination()）。
+     */
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        if (current != null && recordInSegment > 0) {
+            handOff();
+        } else if (current != null) {
+            // 1件も書いていないセグメントは残さない
+            current = null;
+            delete(rawFile(currentSegment));
+        }
+        closing = true;
+        LockSupport.unpark(io);
+    }
+
+    /** close() 後、I/O スレッドが止まるまで最大 timeoutMillis 待つ（解析・テスト用）。@return 止まったら true */
+    public boolean awaitTermination(long timeoutMillis) throws InterruptedException {
+        io.join(timeoutMillis);
+        return !io.isAlive();
+    }
+
+    /** 埋まった（または閉じる）セグメントを I/O スレッドへ渡す */
+    private void handOff() {
+        current.putInt(H_RECORDS, recordInSegment);
+        int slot = (int) (currentSegment % COMPLETED_SLOTS);
+        completedRecords[slot] = recordInSegment;
+        completed.set(slot, current);
+        completedUpTo = currentSegment;
+        current = null;
+        recordInSegment = 0;
+        currentSegment++;
+        if (!closed) takePrepared();
+        LockSupport.unpark(io);
+    }
+
+    /** I/O スレッドがマップ済みの次セグメントを受け取る（無ければ null） */
+    private MappedByteBuffer takePrepared() {
+        MappedByteBuffer p = prepared;
+        if (p == null) return null;
+        prepared = null;
+        current = p;
+        LockSupport.unpark(io);
+        return p;
+    }
+
+    // ===== I/O スレッド =====
+
+    private void ioLoop(Thread before, long first) {
+        if (before != null) {
+            try {
+                before.join();
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+        recoverLeftovers(first);
+        enforceCap();
+        long nextToCompress = first;
+        long nextToMap = first + 1;
+        while (true) {
+            long upTo = completedUpTo;
+            while (nextToCompress <= upTo) {
+                int slot = (int) (nextToCompress % COMPLETED_SLOTS);
+                MappedByteBuffer done = completed.getAndSet(slot, null);
+                if (done != null) {
+                    done.force();
+                    compress(rawFile(nextToCompress), completedRecords[slot]);
+                }
+                nextToCompress++;
+            }
+            if (closing) {
+                // close() は completedUpTo を書いてから closing を立てるので、読み直せば最後の分も見える
+                if (nextToCompress > completedUpTo) break;
+                continue;
+            }
+            if (prepared == null) {
+                try {
+                    prepared = map(nextToMap++);
+                } catch (IOException e) {
+                    ioError = e;
+                }
+            }
+            enforceCap();
+            LockSupport.parkNanos(this, 1_000_000_000L);
+        }
+        // 渡さずに終わった先読みセグメントは消す
+        if (prepared != null) {
+            prepared = null;
+            delete(rawFile(nextToMap - 1));
+        }
+        enforceCap();
+    }
+
+    private MappedByteBuffer map(long segment) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(rawFile(segment), "rw")) {
+            raf.setLength(segmentBytes);
+            MappedByteBuffer buf = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+            buf.putInt(0, MAGIC);
+            buf.putInt(4, VERSION);
+            buf.putInt(8, flags);
+            buf.putInt(12, RECORD_BYTES);
+            buf.putInt(H_RECORDS, 0);
+            return buf;
+        }
+    }
+
+    /** root 以下に生のまま残ったセグメント（このインスタンスが書くもの以外）を圧縮する */
+    private void recoverLeftovers(long first) {
+        for (File raw : allSegments()) {
+            if (!raw.getName().endsWith(RAW_SUFFIX)) continue;
+            if (raw.getParentFile().equals(dir) && segmentNumber(raw) >= first) continue;
+            int records = finishLeftover(raw);
+            if (records > 0) {
+                compress(raw, records);
+            } else {
+                delete(raw);
+            }
+        }
+    }
+
+    /**
+     * 書きかけで残った生セグメントのレコード数を確定してヘッダに書く。
+     * @return レコード数（形式が違う・1件も無いときは 0）
+     */
+    private int finishLeftover(File raw) {
+        try (RandomAccessFile raf = new RandomAccessFile(raw, "rw")) {
+            long length = raf.length();
+            if (length < HEADER_BYTES + RECORD_BYTES || length > Integer.MAX_VALUE) return 0;
+            MappedByteBuffer buf = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, length);
+            if (buf.getInt(0) != MAGIC || buf.getInt(4) != VERSION || buf.getInt(12) != RECORD_BYTES) return 0;
+            int capacity = (int) ((length - HEADER_BYTES) / RECORD_BYTES);
+            int records = buf.getInt(H_RECORDS);
+            if (records <= 0 || records > capacity) {
+                // 閉じる前に止まったセグメントは records = 0。type = 0 の空きレコードまでを数える
+                records = 0;
+                while (records < capacity && buf.get(HEADER_BYTES + records * RECORD_BYTES + R_TYPE) != 0) records++;
+                buf.putInt(H_RECORDS, records);
+                buf.force();
+            }
+            return records;
+        } catch (IOException e) {
+            ioError = e;
+            return 0;
+        }
+    }
+
+    /** 生セグメントの使用部分だけを gzip にして生ファイルを消す */
+    private void compress(File raw, int records) {
+        File gz = new File(raw.getParentFile(), raw.getName() + ".gz");
+        long length = HEADER_BYTES + (long) records * RECORD_BYTES;
+        byte[] chunk = new byte[64 * 1024];
+        try (InputStream in = new FileInputStream(raw);
+             OutputStream out = new GZIPOutputStream(new BufferedOutputStream(new FileOutputStream(gz)))) {
+            long left = length;
+            while (left > 0) {
+                int n = in.read(chunk, 0, (int) Math.min(chunk.length, left));
+                if (n < 0) break;
+                out.write(chunk, 0, n);
+                left -= n;
+            }
+        } catch (IOException e) {
+            ioError = e;
+            return;
+        }
+        delete(raw);
+        compressed = compressed + 1;
+    }
+
+    /** root 以下の合計サイズが上限を超えていたら、古い圧縮済みセグメントから消す（空になった記録のディレクトリも消す） */
+    private void enforceCap() {
+        List<File> files = allSegments();
+        long total = 0L;
+        for (File f : files) total += f.length();
+        for (File f : files) {
+            if (total <= maxTotalBytes) break;
+            if (!f.getName().endsWith(GZ_SUFFIX)) continue; // 書き込み中・圧縮待ちは消さない
+            total -= f.length();
+            if (!delete(f)) continue;
+            deleted = deleted + 1;
+            File parent = f.getParentFile();
+            if (!parent.equals(dir) && !parent.equals(root)) {
+                String[] rest = parent.list();
+                if (rest != null && rest.length == 0) delete(parent);
+            }
+        }
+    }
+
+    /** root 以下のセグメントを古い順に（root 直下、続いてサブディレクトリを名前順に。数字の名前は数値順） */
+    private List<File> allSegments() {
+        List<File> out = new ArrayList<>(Arrays.asList(segments(root)));
+        File[] sessions = root.listFiles(File::isDirectory);
+        if (sessions == null) return out;
+        Arrays.sort(sessions, (a, b) -> {
+            String x = a.getName(), y = b.getName();
+            return x.length() != y.length() ? Integer.compare(x.length(), y.length()) : x.compareTo(y);
+        });
+        for (File s : sessions) out.addAll(Arrays.asList(segments(s)));
+        return out;
+    }
+
+    private File rawFile(long segment) { return new File(dir, name(segment) + RAW_SUFFIX); }
+
+    private static String name(long segment) { return String.format(Locale.US, "%06d", segment); }
+
+    private static boolean delete(File f) { return f.delete(); }
+
+    private static long segmentNumber(File f) {
+        String n = f.getName();
+        return Long.parseLong(n.substring(0, n.indexOf('.')));
+    }
+
+    /** ディレクトリ内のセグメント（生・圧縮済み）を番号順に */
+    private static File[] segments(File dir) {
+        File[] files = dir.listFiles((d, n) -> n.endsWith(RAW_SUFFIX) || n.endsWith(GZ_SUFFIX));
+        if (files == null) return new File[0];
+        Arrays.sort(files, (a, b) -> Long.compare(segmentNumber(a), segmentNumber(b)));
+        return files;
+    }
+
+    // ===== 解析用 =====
+
+    /**
+     * ディレクトリ内のセグメントを番号順に読み、SensorTrace 形式で out へ書き出す（out は閉じない）。
+     * 書きかけのまま残った生セグメント（records = 0）は type = 0 の空きレコードまでを読む。
+     * @return 書き出したレコード数
+     */
+    public static long export(File dir, OutputStream out) throws IOException {
+        File[] files = segments(dir);
+        TraceWriter writer = null;
+        float[][] valuesByCount = new float[SensorTrace.MAX_VALUES + 1][];
+        for (int n = 0; n <= SensorTrace.MAX_VALUES; n++) valuesByCount[n] = new float[n];
+
+        for (File f : files) {
+            InputStream raw = new FileInputStream(f);
+            if (f.getName().endsWith(GZ_SUFFIX)) raw = new GZIPInputStream(raw);
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(raw))) {
+                if (in.readInt() != MAGIC) throw new IOException("not a trace segment: " + f);
+                int version = in.readInt();
+                if (version != VERSION) throw new IOException("unsupported segment version " + version);
+                int segFlags = in.readInt();
+                int recordBytes = in.readInt();
+                int records = in.readInt();
+                in.skipBytes(HEADER_BYTES - 20);
+                if (writer == null) writer = new TraceWriter(out, segFlags);
+
+                int limit = records > 0 ? records : Integer.MAX_VALUE;
+                for (int r = 0; r < limit; r++) {
+                    long t;
+                    int type, count;
+                    try {
+                        t = in.readLong();
+                        type = in.readUnsignedByte();
+                        count = in.readUnsignedByte();
+                    } catch (EOFException e) {
+                        break;
+                    }
+                    if (type == 0) break;
+                    if (count > SensorTrace.MAX_VALUES) throw new IOException("bad value count " + count);
+                    in.skipBytes(R_VALUES - R_COUNT - 1);
+                    float[] v = valuesByCount[count];
+                    for (int i = 0; i < SensorTrace.MAX_VALUES; i++) {
+                        float x = in.readFloat();
+                        if (i < count) v[i] = x;
+                    }
+                    in.skipBytes(recordBytes - RECORD_BYTES);
+                    writer.write(type, t, v);
+                }
+            }
+        }
+        if (writer == null) writer = new TraceWriter(out, 0);
+        writer.flush();
+        return writer.recordCount();
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.tiltcolor.trace;
+
+import com.example.tiltcolor.dsp.MotionClassifier;
+import com.example.tiltcolor.motion.MotionSource;
+import com.example.tiltcolor.sensor.SensorFanout;
+import com.example.tiltcolor.util.IntervalDecimator;
+
+/**
+ * 記録したトレースから歩行状態を流す MotionSource（Android非依存）。
+ * MotionDetector と同じく、線形加速度があればそれを、無ければ加速度（重力ローパス差し引き）を使う。
+ * 購読中（start〜stop）のイベントだけを判定・通知する。
+ * 記録は GAME 周期なので、setSamplingPeriodUs() の周期（WATCH / GATED 段なら 20Hz）へ SensorFanout と同じ格子で
+ * 間引いてから判定する（歩行判定の結果はレートで変わるので、端末と同じレートで流す）。
+ */
+public final class ReplayMotionSource implements MotionSource {
+
+    private final MotionClassifier classifier;
+    private final boolean useLinear;
+    private Listener listener;
+    private boolean running = false;
+    private final IntervalDecimator grid = new IntervalDecimator(0L);
+    private long lastEventNanos = 0L;
+    private int samplingPeriodUs = 0;
+    private int maxReportLatencyUs = 0;
+
+    /** @param useLinear 線形加速度を使うか（SensorTrace.FLAG_HAS_LINEAR_ACCELERATION に合わせる） */
+    public ReplayMotionSource(boolean useLinear) {
+        this(useLinear, MotionClassifier.withDefaults());
+    }
+
+    public ReplayMotionSource(boolean useLinear, MotionClassifier classifier) {
+        this.useLinear = useLinear;
+        this.classifier = classifier;
+    }
+
+    /** トレースの1イベントを入力する（使わない type は無視） */
+    public void onEvent(int type, long timestampNanos, float[] values) {
+        if (!running) return;
+        if (type != (useLinear ? SensorTrace.TYPE_LINEAR_ACCELERATION : SensorTrace.TYPE_ACCELEROMETER)) return;
+        if (!grid.accept(timestampNanos)) return;
+        boolean moving = useLinear
+                ? classifier.onLinearAcceleration(timestampNanos, values[0], values[1], values[2])
+                : classifier.onAccelerometer(timestampNanos, values[0], values[1], values[2]);
+        lastEventNanos = timestampNanos;
+        if (listener != null) listener.onMotionState(moving, classifier.rms());
+    }
+
+    @Override
+    public void start() {
+        if (running) return;
+        grid.reset();
+        running = true;
+    }
+
+    @Override
+    public void stop() { running = false; }
+
+    @Override
+    public boolean isRunning() { return running; }
+
+    @Override
+    public void setListener(Listener l) { this.listener = l; }
+
+    @Override
+    public long lastEventNanos() { return lastEventNanos; }
+
+    /** 周期を変えたら、次のイベントから新しい格子で間引く */
+    @Override
+    public void setSamplingPeriodUs(int us) {
+        if (us == samplingPeriodUs) return;
+        samplingPeriodUs = us;
+        grid.setIntervalNanos(SensorFanout.periodUs(us) * 1_000L);
+    }
+
+    @Override
+    public void setMaxReportLatencyUs(int us) { maxReportLatencyUs = us; }
+
+    @Override
+    public void setClassifierConfig(long windowMs, long holdMs, double threshMove, double threshStill, boolean gait) {
+        classifier.configure(windowMs * 1_000_000L, holdMs * 1_000_000L, threshMove, threshStill, gait);
+    }
+
+    /** 直近に設定されたサンプリング周期（us） */
+    public int samplingPeriodUs() { return samplingPeriodUs; }
+
+    /** 直近に設定されたバッチ遅延（us） */
+    public int maxReportLatencyUs() { return maxReportLatencyUs; }
+}
@@ -0,0 +1,108 @@
+package com.example.tiltcolor.trace;
+
+import com.example.tiltcolor.domain.PoseData;
+import com.example.tiltcolor.domain.PoseSnapshot;
+import com.example.tiltcolor.dsp.PoseCoalescer;
+import com.example.tiltcolor.dsp.PoseEstimator;
+import com.example.tiltcolor.sensor.PoseProvider;
+import com.example.tiltcolor.sensor.SensorFanout;
+import com.example.tiltcolor.util.IntervalDecimator;
+
+/**
+ * 記録したトレースから姿勢を流す PoseProvider（Android非依存）。
+ * SensorRepository と同じ PoseEstimator → PoseCoalescer の経路で、購読中（start〜stop）のイベントだけを通知する。
+ * 記録は GAME 周期なので、setSamplingPeriodUs() の周期へ種別ごとに SensorFanout と同じ格子で間引いてから使う
+ * （端末で段の周期を購読したときと同じレートで推定する）。
+ * tsMillis はサンプル時刻（ns）をそのままミリ秒にしたもの（壁時計は使わない）。
+ */
+public final class ReplayPoseProvider implements PoseProvider {
+
+    private final PoseEstimator estimator = new PoseEstimator();
+    private final PoseCoalescer coalescer;
+    private final PoseSnapshot snapshot = new PoseSnapshot();
+    private Listener listener;
+    private boolean running = false;
+    private final IntervalDecimator rotationGrid = new IntervalDecimator(0L);
+    private final IntervalDecimator accelerometerGrid = new IntervalDecimator(0L);
+    private final IntervalDecimator gyroscopeGrid = new IntervalDecimator(0L);
+    private int samplingPeriodUs = 0;
+    private int maxReportLatencyUs = 0;
+
+    public ReplayPoseProvider() {
+        this(PoseCoalescer.DEFAULT_TICK_MS, PoseCoalescer.DEFAULT_EPSILON_DEG);
+    }
+
+    public ReplayPoseProvider(long tickMs, float epsilonDeg) {
+        coalescer = new PoseCoalescer(tickMs * 1_000_000L, epsilonDeg);
+    }
+
+    /** トレースの1イベントを入力する（姿勢に関係ない type は無視） */
+    public void onEvent(int type, long timestampNanos, float[] values) {
+        if (!running) return;
+        boolean updated;
+        if (type == SensorTrace.TYPE_ROTATION_VECTOR) {
+            if (!rotationGrid.accept(timestampNanos)) return;
+            updated = estimator.onRotationVector(values);
+        } else if (type == SensorTrace.TYPE_ACCELEROMETER) {
+            if (!accelerometerGrid.accept(timestampNanos)) return;
+            updated = estimator.onAccelerometer(timestampNanos, values);
+        } else if (type == SensorTrace.TYPE_GYROSCOPE) {
+            if (!gyroscopeGrid.accept(timestampNanos)) return;
+            updated = estimator.onGyroscope(timestampNanos, values);
+        } else {
+            return;
+        }
+        if (!updated) return;
+
+        snapshot.set(estimator.pitchDeg(), estimator.rollDeg(), estimator.yawDeg(),
+                estimator.tiltDeg(), timestampNanos / 1_000_000L, timestampNanos);
+        if (!coalescer.offer(timestampNanos, snapshot.pitchDeg(), snapshot.tiltDeg())) return;
+        if (listener != null) listener.onPose(snapshot);
+    }
+
+    @Override
+    public void start() {
+        if (running) return;
+        coalescer.reset();
+        rotationGrid.reset();
+        accelerometerGrid.reset();
+        gyroscopeGrid.reset();
+        running = true;
+    }
+
+    @Override
+    public void stop() { running = false; }
+
+    @Override
+    public boolean isRunning() { return running; }
+
+    /** 周期を変えたら、次のイベントから新しい格子で間引く（SensorFanout で購読し直したときと同じ） */
+    @Override
+    public void setSamplingPeriodUs(int us) {
+        if (us == samplingPeriodUs) return;
+        samplingPeriodUs = us;
+        long interval = SensorFanout.periodUs(us) * 1_000L;
+        rotationGrid.setIntervalNanos(interval);
+        accelerometerGrid.setIntervalNanos(interval);
+        gyroscopeGrid.setIntervalNanos(interval);
+    }
+
+    @Override
+    public void setMaxReportLatencyUs(int us) { maxReportLatencyUs = us; }
+
+    /** 直近に設定されたサンプリング周期（us） */
+    public int samplingPeriodUs() { return samplingPeriodUs; }
+
+    /** 直近に設定されたバッチ遅延（us） */
+    public int maxReportLatencyUs() { return maxReportLatencyUs; }
+
+    @Override
+    public PoseData getLastPose() { return snapshot.toPoseData(); }
+
+    @Override
+    public void setListener(Listener listener) { this.listener = listener; }
+
+    public long emittedCount() { return coalescer.emittedCount(); }
+
+    public long suppressedCount() { return coalescer.suppressedCount(); }
+}
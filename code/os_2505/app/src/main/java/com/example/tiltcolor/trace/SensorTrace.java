@@ -0,0 +1,37 @@
+package com.example.tiltcolor.trace;
+
+/**
+ * センサートレースのバイナリ形式（Android非依存）。
+ * 端末で生の回転ベクトル・加速度・線形加速度・ジャイロ・近接のイベントを記録し、JVM 上で判定経路にそのまま流すためのもの。
+ *
+ * 形式（ビッグエンディアン。DataOutputStream の並び）:
+ *   header: int MAGIC, int VERSION, int flags（FLAG_*）
+ *   record: byte type（TYPE_*）, byte count（値の数 1..MAX_VALUES）, long timestampNanos, float × count
+ * type は android.hardware.Sensor.TYPE_* と同じ値。timestampNanos は SensorEvent.timestamp のまま。
+ * 近接（TYPE_PROXIMITY）だけは値を2つ書く: 距離と、そのセンサーの最大レンジ（NEAR の判定に使う。isNear()）。
+ */
+public final class SensorTrace {
+
+    private SensorTrace() {} // インスタンス化禁止
+
+    public static final int MAGIC = 0x54525331; // "TRS1"
+    public static final int VERSION = 1;
+
+    /** header.flags: 記録した端末に線形加速度センサーがあった（MotionDetector はそちらを使う） */
+    public static final int FLAG_HAS_LINEAR_ACCELERATION = 1;
+
+    // Sensor.TYPE_* と同じ値
+    public static final int TYPE_ACCELEROMETER = 1;
+    public static final int TYPE_GYROSCOPE = 4;
+    public static final int TYPE_PROXIMITY = 8;
+    public static final int TYPE_LINEAR_ACCELERATION = 10;
+    public static final int TYPE_ROTATION_VECTOR = 11;
+
+    /** 1レコードの値の最大数（回転ベクトルの x, y, z, w, 精度） */
+    public static final int MAX_VALUES = 5;
+
+    /** 近接レコードの値（距離, 最大レンジ）が NEAR か。ProximitySensor と同じく最大レンジ未満を NEAR とする */
+    public static boolean isNear(float[] values) {
+        return values.length >= 2 && values[0] < values[1];
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.tiltcolor.trace;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * センサートレースの読み込み（形式は SensorTrace）。
+ * next() で1件進め、type() / timestampNanos() / values() で読む。
+ * values() は値の数ちょうどの長さの配列を使い回す（SensorEvent.values と同じ長さで渡すため）。
+ */
+public final class TraceReader implements Closeable {
+
+    private final DataInputStream in;
+    private final int flags;
+    private final float[][] valuesByCount = new float[SensorTrace.MAX_VALUES + 1][];
+
+    private int type;
+    private long timestampNanos;
+    private float[] values;
+
+    public TraceReader(InputStream in) throws IOException {
+        this.in = new DataInputStream(new BufferedInputStream(in));
+        if (this.in.readInt() != SensorTrace.MAGIC) throw new IOException("not a sensor trace");
+        int version = this.in.readInt();
+        if (version != SensorTrace.VERSION) throw new IOException("unsupported trace version " + version);
+        this.flags = this.in.readInt();
+        for (int n = 0; n <= SensorTrace.MAX_VALUES; n++) valuesByCount[n] = new float[n];
+    }
+
+    public int flags() { return flags; }
+
+    public boolean hasLinearAcceleration() {
+        return (flags & SensorTrace.FLAG_HAS_LINEAR_ACCELERATION) != 0;
+    }
+
+    /** 次のイベントへ進む。@return 終端なら false */
+    public boolean next() throws IOException {
+        int t = in.read();
+        if (t < 0) return false;
+        int count = in.readUnsignedByte();
+        if (count > SensorTrace.MAX_VALUES) throw new IOException("bad value count " + count);
+        try {
+            long ts = in.readLong();
+            float[] v = valuesByCount[count];
+            for (int i = 0; i < count; i++) v[i] = in.readFloat();
+            type = t;
+            timestampNanos = ts;
+            values = v;
+        } catch (EOFException e) {
+            throw new IOException("truncated trace record", e);
+        }
+        return true;
+    }
+
+    public int type() { return type; }
+
+    public long timestampNanos() { return timestampNanos; }
+
+    /** 現在のイベントの値（次の next() で上書きされる） */
+    public float[] values() { return values; }
+
+    @Override
+    public void close() throws IOException { in.close(); }
+}
@@ -0,0 +1,181 @@
+package com.example.tiltcolor.trace;
+
+import com.example.tiltcolor.decision.BlockDecision;
+import com.example.tiltcolor.decision.GuardConfigStore;
+import com.example.tiltcolor.decision.GuardLoop;
+import com.example.tiltcolor.decision.RateScheduler;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+
+/**
+ * 記録したトレースを GuardService と同じ判定経路（GuardLoop + ReplayPoseProvider + ReplayMotionSource）に
+ * 実時間より速く流すハーネス（Android非依存）。
+ *  - 時刻はすべてトレースのサンプル時刻。GuardLoop の post は各イベントの直後にまとめて実行する
+ *    （センサースレッドの Handler と同じ順序。購読段の切替もそのまま再現される）
+ *  - デバウンスのタイマーは、予約時刻以降の最初のイベントの前に予約時刻で発火させる
+ *  - ブロック要求の回数・最初のブロック時刻・ブロック中の合計時間を数える
+ * 端末のきっかけセンサー（歩数計など）は記録しないので、歩行判定は RMS 常時監視
+ * （ArmedMotionSource のフォールバックと同じ）で再現する。
+ * トレースに近接のレコードがあれば GuardLoop.onProximity() へ流す（PocketGate も再現される）。
+ */
+public final class TraceReplay {
+
+    /** ブロック要求の変化を受け取る（テスト・解析用） */
+    public interface BlockListener {
+        void onBlockChanged(boolean block, long eventNanos);
+    }
+
+    private final GuardLoop loop;
+    private final ReplayPoseProvider pose;
+    private final ReplayMotionSource motion;
+    private final ArrayDeque<Runnable> pending = new ArrayDeque<>(16);
+    private BlockListener blockListener;
+
+    private boolean started = false;
+    private long now = 0L;
+    private long timerNanos = -1L;
+
+    private long events = 0L;
+    private long poseEvents = 0L;
+    private long motionEvents = 0L;
+    private long blockCount = 0L;
+    private long firstBlockNanos = -1L;
+    private long blockedSince = -1L;
+    private long blockedNanos = 0L;
+
+    private final GuardLoop.Host host = new GuardLoop.Host() {
+        @Override public void onBlockChanged(boolean block, long eventNanos) {
+            if (block) {
+                blockCount++;
+                if (firstBlockNanos < 0) firstBlockNanos = eventNanos;
+                blockedSince = eventNanos;
+            } else if (blockedSince >= 0) {
+                blockedNanos += eventNanos - blockedSince;
+                blockedSince = -1L;
+            }
+            if (blockListener != null) blockListener.onBlockChanged(block, eventNanos);
+        }
+
+        @Override public void onStatus(boolean enabled, boolean blocking) {}
+
+        @Override public void post(Runnable r) { pending.addLast(r); }
+
+        @Override public long nowNanos() { return now; }
+
+        @Override public void scheduleTimer(long deadlineNanos) { timerNanos = deadlineNanos; }
+    };
+
+    /** @param useLinear 線形加速度で歩行判定するか（TraceReader.hasLinearAcceleration() に合わせる） */
+    public TraceReplay(BlockDecision decision, boolean useLinear) {
+        this(decision, useLinear, null);
+    }
+
+    /** 設定を store から読み、再生中の差し替えも GuardService と同じく反映する */
+    public TraceReplay(GuardConfigStore store, boolean useLinear) {
+        this(BlockDecision.from(store.get()), useLinear, store);
+    }
+
+    private TraceReplay(BlockDecision decision, boolean useLinear, GuardConfigStore store) {
+        pose = new ReplayPoseProvider();
+        motion = new ReplayMotionSource(useLinear);
+        loop = new GuardLoop(decision, pose, motion, host, store);
+        pose.setListener(p -> {
+            poseEvents++;
+            loop.onPose(p);
+        });
+        motion.setListener((moving, rms) -> {
+            motionEvents++;
+            loop.onMotion(moving, motion.lastEventNanos());
+        });
+    }
+
+    public void setBlockListener(BlockListener l) { this.blockListener = l; }
+
+    /** トレースを終端まで流す（reader は閉じない） */
+    public void run(TraceReader reader) throws IOException {
+        while (reader.next()) {
+            onEvent(reader.type(), reader.timestampNanos(), reader.values());
+        }
+        finish();
+    }
+
+    /** 1イベントを流す（最初のイベントの時刻で GuardLoop を開始する） */
+    public void onEvent(int type, long timestampNanos, float[] values) {
+        while (timerNanos >= 0 && timerNanos <= timestampNanos) {
+            now = timerNanos;
+            timerNanos = -1L;
+            loop.onTimer(now);
+            drain();
+        }
+        now = timestampNanos;
+        if (!started) {
+            started = true;
+            loop.start(timestampNanos);
+            drain();
+        }
+        events++;
+        if (type == SensorTrace.TYPE_PROXIMITY) {
+            loop.onProximity(SensorTrace.isNear(values), timestampNanos);
+            drain();
+            return;
+        }
+        pose.onEvent(type, timestampNanos, values);
+        motion.onEvent(type, timestampNanos, values);
+        drain();
+    }
+
+    /**
+     * 画面の ON/OFF・ロック解除を流す（トレースには記録されないので呼び出し側で入れる）。
+     * timestampNanos は直前のイベント以降の時刻にすること。
+     */
+    public void setInteractive(boolean interactive, long timestampNanos) {
+        now = timestampNanos;
+        loop.setInteractive(interactive, timestampNanos);
+        drain();
+    }
+
+    /** 近接センサーの変化を流す（近接を記録していないトレースに、呼び出し側で入れるとき） */
+    public void onProximity(boolean near, long timestampNanos) {
+        now = timestampNanos;
+        loop.onProximity(near, timestampNanos);
+        drain();
+    }
+
+    /** 終端処理: ブロック中ならその時間を合計に足す */
+    public void finish() {
+        if (blockedSince >= 0) {
+            blockedNanos += now - blockedSince;
+            blockedSince = now;
+        }
+    }
+
+    private void drain() {
+        Runnable r;
+        while ((r = pending.pollFirst()) != null) r.run();
+    }
+
+    public GuardLoop loop() { return loop; }
+
+    public BlockDecision decision() { return loop.decision(); }
+
+    public RateScheduler.Tier rateTier() { return loop.rateTier(); }
+
+    /** 流したイベント数 */
+    public long eventCount() { return events; }
+
+    /** GuardLoop に届いた姿勢通知数（購読停止中・間引き分は含まない） */
+    public long poseEventCount() { return poseEvents; }
+
+    /** GuardLoop に届いた歩行通知数 */
+    public long motionEventCount() { return motionEvents; }
+
+    /** ブロック要求に入った回数 */
+    public long blockCount() { return blockCount; }
+
+    /** 最初にブロック要求に入ったセンサー時刻（無ければ -1） */
+    public long firstBlockNanos() { return firstBlockNanos; }
+
+    /** ブロック要求中だった合計時間（ns） */
+    public long blockedNanos() { return blockedNanos; }
+}
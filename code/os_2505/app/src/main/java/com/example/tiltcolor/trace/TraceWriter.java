@@ -0,0 +1,42 @@
+package com.example.tiltcolor.trace;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * センサートレースの書き出し（形式は SensorTrace）。
+ * write() はバッファへ書くだけでイベントごとのアロケーションなし。1スレッドから使うこと。
+ */
+public final class TraceWriter implements Closeable {
+
+    private final DataOutputStream out;
+    private long records = 0L;
+
+    public TraceWriter(OutputStream out, int flags) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(out));
+        this.out.writeInt(SensorTrace.MAGIC);
+        this.out.writeInt(SensorTrace.VERSION);
+        this.out.writeInt(flags);
+    }
+
+    /** 1イベントを書く（値は先頭 MAX_VALUES 個まで） */
+    public void write(int type, long timestampNanos, float[] values) throws IOException {
+        int count = Math.min(values.length, SensorTrace.MAX_VALUES);
+        out.writeByte(type);
+        out.writeByte(count);
+        out.writeLong(timestampNanos);
+        for (int i = 0; i < count; i++) out.writeFloat(values[i]);
+        records++;
+    }
+
+    /** 書いたイベント数 */
+    public long recordCount() { return records; }
+
+    public void flush() throws IOException { out.flush(); }
+
+    @Override
+    public void close() throws IOException { out.close(); }
+}
@@ -0,0 +1,96 @@
+package com.example.tiltcolor.util;
+
+import java.util.Locale;
+
+/**
+ * 状態ごとの滞在時間・センサーイベント数・CPU時間を集計する（Android非依存）。
+ *  - CPU時間とイベント数は呼び出し側の累計値を受け取り、状態を切り替えた時点の差分をその状態に積む
+ *    （イベントごとの呼び出しは要らない）
+ *  - 書き込み（enter）は1スレッドのみ。読み出しは任意スレッドから可（集計途中の値が見えることはある）
+ * 時刻・CPU時間はナノ秒。
+ */
+public final class DutyStats {
+
+    private final String[] names;
+    private final long[] wallNanos;
+    private final long[] cpuNanos;
+    private final long[] events;
+    private final long[] entries;
+
+    private volatile int state;
+    private volatile long sinceNanos, cpuSince, eventsSince;
+
+    /** @param names 状態の名前（添字が状態番号。最初の状態から始める） */
+    public DutyStats(String... names) {
+        if (names.length == 0) throw new IllegalArgumentException("no states");
+        this.names = names.clone();
+        wallNanos = new long[names.length];
+        cpuNanos = new long[names.length];
+        events = new long[names.length];
+        entries = new long[names.length];
+        entries[0] = 1;
+    }
+
+    /** 最初の状態の開始時点を合わせる（生成から計測開始までの分を数えないように） */
+    public void start(long nowNanos, long cpuTotalNanos, long eventTotal) {
+        sinceNanos = nowNanos;
+        cpuSince = cpuTotalNanos;
+        eventsSince = eventTotal;
+    }
+
+    /**
+     * 状態を切り替える（同じ状態なら何もしない）。
+     * @param cpuTotalNanos 計測対象の CPU時間の累計
+     * @param eventTotal    センサーイベント数の累計
+     */
+    public void enter(int next, long nowNanos, long cpuTotalNanos, long eventTotal) {
+        int s = state;
+        if (next == s) return;
+        wallNanos[s] += nowNanos - sinceNanos;
+        cpuNanos[s] += cpuTotalNanos - cpuSince;
+        events[s] += eventTotal - eventsSince;
+        entries[next]++;
+        sinceNanos = nowNanos;
+        cpuSince = cpuTotalNanos;
+        eventsSince = eventTotal;
+        state = next;
+    }
+
+    public int state() { return state; }
+
+    public String stateName() { return names[state]; }
+
+    /** 状態 s に入った回数 */
+    public long entries(int s) { return entries[s]; }
+
+    /** 状態 s の滞在時間（現在の状態なら now までを含む） */
+    public long wallNanos(int s, long nowNanos) {
+        return wallNanos[s] + (s == state ? nowNanos - sinceNanos : 0L);
+    }
+
+    /** 状態 s の CPU時間（現在の状態なら累計 cpuTotalNanos までを含む） */
+    public long cpuNanos(int s, long cpuTotalNanos) {
+        return cpuNanos[s] + (s == state ? cpuTotalNanos - cpuSince : 0L);
+    }
+
+    /** 状態 s のイベント数（現在の状態なら累計 eventTotal までを含む） */
+    public long events(int s, long eventTotal) {
+        return events[s] + (s == state ? eventTotal - eventsSince : 0L);
+    }
+
+    /** dumpsys 用の1行（状態ごとに 時間・イベント数・イベント/秒・CPU時間・CPU率） */
+    public String format(long nowNanos, long cpuTotalNanos, long eventTotal) {
+        StringBuilder sb = new StringBuilder("state=").append(names[state]);
+        for (int s = 0; s < names.length; s++) {
+            long wall = wallNanos(s, nowNanos);
+            long ev = events(s, eventTotal);
+            long cpu = cpuNanos(s, cpuTotalNanos);
+            double sec = wall / 1e9;
+            sb.append(" | ").append(names[s])
+              .append(": n=").append(entries[s])
+              .append(String.format(Locale.US, " time=%.1fs events=%d (%.1f/s) cpu=%.1fms (%.2f%%)",
+                      sec, ev, sec > 0 ? ev / sec : 0.0, cpu / 1e6, wall > 0 ? 100.0 * cpu / wall : 0.0));
+        }
+        return sb.toString();
+    }
+}
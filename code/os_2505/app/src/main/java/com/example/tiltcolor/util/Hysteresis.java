@@ -8,8 +8,8 @@ package com.example.tiltcolor.util;
  */
 public final class Hysteresis {
 
-    private final float low;
-    private final float high;
+    private float low;
+    private float high;
     private boolean state = false; // false=FRONT, true=DOWN
 
     public Hysteresis(float low, float high) {
@@ -17,6 +17,12 @@ public final class Hysteresis {
         this.high = high;
     }
 
+    /** しきい値を差し替える（現在の状態は保つ） */
+    public void setThresholds(float low, float high) {
+        this.low = low;
+        this.high = high;
+    }
+
     /** 現在の値から次の状態を返す */
     public boolean next(float x) {
         if (!state && x < low) {
@@ -0,0 +1,59 @@
+package com.example.tiltcolor.util;
+
+/**
+ * サンプルを時刻の格子に沿って間引く（Android非依存）。
+ * SensorFanout（登録周期より遅い購読者へ配るとき）と、リプレイ（記録した GAME 周期のトレースを段の周期に落とすとき）で
+ * 同じ規則を使う。
+ *  - 格子の時刻（前回の格子 + interval）以降のサンプルを通し、格子を interval 進める
+ *  - 格子より interval / SLACK だけ早いサンプルも通す（センサー側の揺らぎがあっても平均レートは interval どおり）
+ *  - interval 以上遅れたら（大きく空いたら）そのサンプルから数え直す
+ * interval 0 なら全部通す。時刻はナノ秒。
+ */
+public final class IntervalDecimator {
+
+    /** 格子より早く届いたサンプルを許す幅（間隔に対する割合の逆数: 1/4） */
+    public static final int SLACK = 4;
+
+    private long intervalNanos;
+    private long nextNanos = Long.MIN_VALUE;
+
+    public IntervalDecimator(long intervalNanos) {
+        this.intervalNanos = Math.max(0L, intervalNanos);
+    }
+
+    /** 間引きの位置（nextNanos()）を引き継いで作る */
+    public IntervalDecimator(long intervalNanos, long nextNanos) {
+        this(intervalNanos);
+        this.nextNanos = nextNanos;
+    }
+
+    /** 間隔を変えて、次のサンプルから数え直す */
+    public void setIntervalNanos(long intervalNanos) {
+        this.intervalNanos = Math.max(0L, intervalNanos);
+        nextNanos = Long.MIN_VALUE;
+    }
+
+    public long intervalNanos() { return intervalNanos; }
+
+    /** 次の格子の時刻（まだ無ければ Long.MIN_VALUE） */
+    public long nextNanos() { return nextNanos; }
+
+    /** 次のサンプルから数え直す */
+    public void reset() { nextNanos = Long.MIN_VALUE; }
+
+    /** @return tNanos のサンプルを通すか */
+    public boolean accept(long tNanos) {
+        long interval = intervalNanos;
+        if (interval <= 0) return true;
+        long next = nextNanos;
+        if (next == Long.MIN_VALUE) {
+            nextNanos = tNanos + interval;
+            return true;
+        }
+        long late = tNanos - next;
+        if (late < -interval / SLACK) return false;
+        // 格子に沿って進める（大きく空いたらこのサンプルから数え直す）
+        nextNanos = late < interval ? next + interval : tNanos + interval;
+        return true;
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.tiltcolor.util;
+
+/**
+ * 遅延（ns）の件数・平均・最大を集計する軽量カウンタ。
+ *  - 書き込みは1スレッドのみを想定（ロック・アロケーションなし）
+ *  - 読み出しは任意スレッドから可（volatile。集計途中の値が見えることはある）
+ */
+public final class LatencyStats {
+
+    private final String name;
+    private volatile long count = 0L;
+    private volatile long sumNanos = 0L;
+    private volatile long maxNanos = 0L;
+    private volatile long lastNanos = 0L;
+
+    public LatencyStats(String name) {
+        this.name = name;
+    }
+
+    /** 1件記録（負値は時計のずれとして 0 に丸める） */
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        count = count + 1;
+        sumNanos = sumNanos + nanos;
+        if (nanos > maxNanos) maxNanos = nanos;
+        lastNanos = nanos;
+    }
+
+    public void reset() {
+        count = 0L;
+        sumNanos = 0L;
+        maxNanos = 0L;
+        lastNanos = 0L;
+    }
+
+    public String name()     { return name; }
+    public long count()      { return count; }
+    public long maxNanos()   { return maxNanos; }
+    public long lastNanos()  { return lastNanos; }
+
+    public double meanNanos() {
+        long n = count;
+        return n == 0 ? 0.0 : (double) sumNanos / n;
+    }
+
+    @Override public String toString() {
+        return name + ": n=" + count +
+                " mean=" + String.format(java.util.Locale.US, "%.2f", meanNanos() / 1e6) + "ms" +
+                " max=" + String.format(java.util.Locale.US, "%.2f", maxNanos / 1e6) + "ms" +
+                " last=" + String.format(java.util.Locale.US, "%.2f", lastNanos / 1e6) + "ms";
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.tiltcolor.util;
+
+/**
+ * 時間窓RMSを求めるリングバッファ（プリミティブ配列・二乗和の逐次更新）。
+ *  - 時刻は long[]、二乗値は double[] で保持し、サンプル毎のオブジェクト生成なし
+ *  - 追い出しとRMS計算は O(1)（窓内全走査をしない）
+ *  - 時刻の単位は呼び出し側と windowLength で揃えること（ms / ns どちらでも可）
+ *
+ * 判定規則は旧 ArrayDeque 実装と同じ:
+ *   追加後に (t - 最古の時刻) > windowLength のサンプルを先頭から捨てる。
+ */
+public final class RmsWindow {
+
+    /** 二乗和の丸め誤差をリセットする間隔（追加回数） */
+    private static final int RESYNC_INTERVAL = 4096;
+
+    private long windowLength;
+    private long[] times;
+    private double[] squares;
+    private int head = 0;  // 最古サンプルの位置
+    private int size = 0;
+    private double sumSq = 0.0;
+    private int sinceResync = 0;
+
+    /**
+     * @param windowLength    窓幅（時刻と同じ単位）
+     * @param initialCapacity 初期容量。窓内の最大サンプル数以上にしておけば再確保は起きない
+     */
+    public RmsWindow(long windowLength, int initialCapacity) {
+        if (windowLength < 0) throw new IllegalArgumentException("windowLength < 0");
+        if (initialCapacity < 1) throw new IllegalArgumentException("initialCapacity < 1");
+        this.windowLength = windowLength;
+        this.times = new long[initialCapacity];
+        this.squares = new double[initialCapacity];
+    }
+
+    /** 値 v（例: |a|）を追加する。 */
+    public void add(long t, double v) {
+        addSquared(t, v * v);
+    }
+
+    /** 二乗済みの値を追加する（sqrt を省ける呼び出し側向け）。 */
+    public void addSquared(long t, double sq) {
+        evictOlderThan(t);
+        if (size == times.length) grow();
+
+        int tail = (head + size) % times.length;
+        times[tail] = t;
+        squares[tail] = sq;
+        size++;
+        sumSq += sq;
+
+        if (++sinceResync >= RESYNC_INTERVAL) resync();
+    }
+
+    /** 窓内RMS（空なら0）。 */
+    public double rms() {
+        return size == 0 ? 0.0 : Math.sqrt(meanSquare());
+    }
+
+    /** 窓内の二乗平均（空なら0）。RMS をしきい値の二乗と比べたい場合に使う。 */
+    public double meanSquare() {
+        if (size == 0) return 0.0;
+        return Math.max(0.0, sumSq) / size;
+    }
+
+    public int size() { return size; }
+
+    /** 窓幅を変更する（はみ出したサンプルは次の追加で捨てる） */
+    public void setWindowLength(long windowLength) {
+        if (windowLength < 0) throw new IllegalArgumentException("windowLength < 0");
+        this.windowLength = windowLength;
+    }
+
+    public void clear() {
+        head = 0;
+        size = 0;
+        sumSq = 0.0;
+        sinceResync = 0;
+    }
+
+    private void evictOlderThan(long now) {
+        while (size > 0 && (now - times[head]) > windowLength) {
+            sumSq -= squares[head];
+            head = (head + 1) % times.length;
+            size--;
+        }
+        if (size == 0) sumSq = 0.0;
+    }
+
+    /** 窓内の最大サンプル数が容量を超えたときだけ倍に拡張（定常状態では起きない） */
+    private void grow() {
+        int cap = times.length;
+        long[] nt = new long[cap * 2];
+        double[] ns = new double[cap * 2];
+        for (int i = 0; i < size; i++) {
+            int j = (head + i) % cap;
+            nt[i] = times[j];
+            ns[i] = squares[j];
+        }
+        times = nt;
+        squares = ns;
+        head = 0;
+    }
+
+    /** 足し引きの累積誤差を窓内の再集計で打ち消す（償却 O(1)） */
+    private void resync() {
+        double s = 0.0;
+        for (int i = 0; i < size; i++) s += squares[(head + i) % times.length];
+        sumSq = s;
+        sinceResync = 0;
+    }
+}
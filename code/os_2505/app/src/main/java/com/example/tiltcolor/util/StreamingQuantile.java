@@ -0,0 +1,51 @@
+package com.example.tiltcolor.util;
+
+/**
+ * 定数メモリの分位点推定（Frugal Streaming 型の確率的近似）。
+ *  - 立ち上がり（warmup 件まで）は逐次平均で素早く寄せる
+ *  - 以後は x が推定より上なら step·q、下なら step·(1-q) だけ寄せる（外れ値に強く、ゆっくり追従する）
+ * 保持するのは推定値と件数だけ。q=0.5 で中央値。
+ */
+public final class StreamingQuantile {
+
+    private final double q;
+    private final double step;
+    private final long warmup;
+    private double estimate = 0.0;
+    private long count = 0L;
+
+    /**
+     * @param q      分位（0〜1）
+     * @param step   1件あたりの最大移動量（値と同じ単位）
+     * @param warmup 逐次平均で寄せる件数
+     */
+    public StreamingQuantile(double q, double step, long warmup) {
+        if (q <= 0.0 || q >= 1.0) throw new IllegalArgumentException("q must be in (0, 1)");
+        if (step <= 0.0) throw new IllegalArgumentException("step <= 0");
+        if (warmup < 1) throw new IllegalArgumentException("warmup < 1");
+        this.q = q;
+        this.step = step;
+        this.warmup = warmup;
+    }
+
+    public void add(double x) {
+        count++;
+        if (count <= warmup) {
+            estimate += (x - estimate) / count;
+        } else if (x > estimate) {
+            estimate += step * q;
+        } else if (x < estimate) {
+            estimate -= step * (1.0 - q);
+        }
+    }
+
+    public double estimate() { return estimate; }
+
+    public long count() { return count; }
+
+    /** 保存しておいた推定値から再開する */
+    public void restore(double estimate, long count) {
+        this.estimate = estimate;
+        this.count = Math.max(0L, count);
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.tiltcolor.util;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * 判定テレメトリのバイナリ・リングバッファ（列指向のプリミティブ配列）。
+ *  - 1レコード = (timestamp, pitch, tilt, rms, isDown, isMoving, overlayShown)
+ *  - 配列は生成時に確保し、record() は文字列整形もオブジェクト生成もしない
+ *  - sampleEvery 件に1件だけ記録する（リリースビルドで間引く用。1なら全件）
+ *  - 満杯になったら最古のレコードから上書きする
+ *
+ * record() / writeTo() は1スレッド（センサースレッド）から呼ぶこと。
+ *
+ * ダンプ形式（ビッグエンディアン。DataOutputStream の並び）:
+ *   header: int MAGIC, int VERSION, int sampleEvery, int count
+ *   record: long timestampNanos, float pitch, float tilt, float rms, byte flags
+ *   （古い順。flags は FLAG_DOWN / FLAG_MOVING / FLAG_OVERLAY のビット和）
+ */
+public final class TelemetryRing {
+
+    public static final int MAGIC = 0x544C4D31; // "TLM1"
+    public static final int VERSION = 1;
+    public static final int RECORD_BYTES = 8 + 4 + 4 + 4 + 1;
+
+    public static final byte FLAG_DOWN = 1;
+    public static final byte FLAG_MOVING = 1 << 1;
+    public static final byte FLAG_OVERLAY = 1 << 2;
+
+    private final long[] timestamps;
+    private final float[] pitches;
+    private final float[] tilts;
+    private final float[] rmsValues;
+    private final byte[] flags;
+    private final int mask;
+    private final int sampleEvery;
+
+    private long written = 0L;   // 記録した総数（上書き分を含む）
+    private int skip = 0;        // 間引きカウンタ
+
+    /**
+     * @param capacity    保持するレコード数（2の冪に切り上げる）
+     * @param sampleEvery 何件に1件記録するか（1以上）
+     */
+    public TelemetryRing(int capacity, int sampleEvery) {
+        if (capacity < 1) throw new IllegalArgumentException("capacity < 1");
+        if (sampleEvery < 1) throw new IllegalArgumentException("sampleEvery < 1");
+        int cap = Integer.highestOneBit(capacity);
+        if (cap < capacity) cap <<= 1;
+        this.timestamps = new long[cap];
+        this.pitches = new float[cap];
+        this.tilts = new float[cap];
+        this.rmsValues = new float[cap];
+        this.flags = new byte[cap];
+        this.mask = cap - 1;
+        this.sampleEvery = sampleEvery;
+    }
+
+    /** 1件記録する（間引き対象なら何もしない） */
+    public void record(long timestampNanos, float pitch, float tilt, float rms,
+                       boolean down, boolean moving, boolean overlayShown) {
+        if (++skip < sampleEvery) return;
+        skip = 0;
+
+        int i = (int) written & mask;
+        timestamps[i] = timestampNanos;
+        pitches[i] = pitch;
+        tilts[i] = tilt;
+        rmsValues[i] = rms;
+        flags[i] = (byte) ((down ? FLAG_DOWN : 0)
+                | (moving ? FLAG_MOVING : 0)
+                | (overlayShown ? FLAG_OVERLAY : 0));
+        written++;
+    }
+
+    /** 保持しているレコード数 */
+    public int size() {
+        return (int) Math.min(written, timestamps.length);
+    }
+
+    public int capacity() { return timestamps.length; }
+
+    public int sampleEvery() { return sampleEvery; }
+
+    /** 記録した総数（上書きで消えた分を含む） */
+    public long writtenCount() { return written; }
+
+    public void clear() {
+        written = 0L;
+        skip = 0;
+    }
+
+    /** 古い順の index 番目のタイムスタンプ（テスト・解析用） */
+    public long timestampAt(int index) { return timestamps[slot(index)]; }
+
+    public float pitchAt(int index) { return pitches[slot(index)]; }
+
+    public float tiltAt(int index) { return tilts[slot(index)]; }
+
+    public float rmsAt(int index) { return rmsValues[slot(index)]; }
+
+    public byte flagsAt(int index) { return flags[slot(index)]; }
+
+    /** 保持しているレコードを古い順にバイナリで書き出す（out は閉じない） */
+    public void writeTo(OutputStream out) throws IOException {
+        DataOutputStream d = new DataOutputStream(out);
+        int n = size();
+        d.writeInt(MAGIC);
+        d.writeInt(VERSION);
+        d.writeInt(sampleEvery);
+        d.writeInt(n);
+        for (int k = 0; k < n; k++) {
+            int i = slot(k);
+            d.writeLong(timestamps[i]);
+            d.writeFloat(pitches[i]);
+            d.writeFloat(tilts[i]);
+            d.writeFloat(rmsValues[i]);
+            d.writeByte(flags[i]);
+        }
+        d.flush();
+    }
+
+    private int slot(int index) {
+        int n = size();
+        if (index < 0 || index >= n) throw new IndexOutOfBoundsException("index=" + index + " size=" + n);
+        return (int) (written - n + index) & mask;
+    }
+}
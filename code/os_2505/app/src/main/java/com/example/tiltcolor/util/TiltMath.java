@@ -4,9 +4,21 @@ package com.example.tiltcolor.util;
  * 角度計算の簡易ユーティリティ。
  *  - applyBaseline(): 現在の角度から基準角を引いて補正する。
  *  - normalizeAngle(): 将来用（-180〜180°範囲に正規化）
+ *  - acosDeg() / asinDeg() / atan2Deg() / tiltDeg(): 姿勢の毎サンプルの計算用の float だけの近似（deg を直接返す）。
+ *    Math.acos / asin / atan2 は JIT でも組み込み命令にならず double で数十 ns かかるので、多項式で置き換える。
+ *    誤差の上限は *_MAX_ERROR_DEG（判定のしきい値との比較が変わるのは、角度がしきい値からこれ未満のときだけ）
  */
 public final class TiltMath {
 
+    /** acosDeg / asinDeg の最大誤差（deg）。多項式の誤差 2e-8 rad（A&S 4.4.46）と float の丸め */
+    public static final float ACOS_MAX_ERROR_DEG = 5e-5f;
+    /** atan2Deg / tiltDeg の最大誤差（deg）。atan の [0, 1] 上の最小最大近似（11次の奇多項式）と float の丸め */
+    public static final float ATAN2_MAX_ERROR_DEG = 2e-4f;
+
+    private static final float RAD_TO_DEG = (float) (180.0 / Math.PI);
+    private static final float HALF_PI = (float) (Math.PI / 2);
+    private static final float PI = (float) Math.PI;
+
     private TiltMath() {} // インスタンス化禁止
 
     /**
@@ -26,4 +38,63 @@ public final class TiltMath {
         if (a < -180f) a += 360f;
         return a;
     }
+
+    /** acos(x)（deg, 0〜180）。|x| > 1 は ±1 として扱う（NaN にしない） */
+    public static float acosDeg(float x) {
+        if (x >= 0f) return x >= 1f ? 0f : acosUnit(x) * RAD_TO_DEG;
+        return x <= -1f ? 180f : 180f - acosUnit(-x) * RAD_TO_DEG;
+    }
+
+    /** asin(x)（deg, -90〜90）。|x| > 1 は ±1 として扱う */
+    public static float asinDeg(float x) {
+        float a = Math.abs(x);
+        float r = a >= 1f ? 90f : 90f - acosUnit(a) * RAD_TO_DEG;
+        return x < 0f ? -r : r;
+    }
+
+    /** atan2(y, x)（deg, -180〜180）。(0, 0) は 0。y = -0 の符号は区別しない（±180° は +180°） */
+    public static float atan2Deg(float y, float x) {
+        float ay = Math.abs(y), ax = Math.abs(x);
+        if (ax == 0f && ay == 0f) return 0f;
+        float r = ay <= ax ? atanUnit(ay / ax) : HALF_PI - atanUnit(ax / ay);
+        if (x < 0f) r = PI - r;
+        r *= RAD_TO_DEG;
+        return y < 0f ? -r : r;
+    }
+
+    /**
+     * 重力ベクトルから tilt（水平面からの角度, deg）を求める（OrientationMath.tiltDeg の float 版）。
+     * 0°=水平（画面が真上/真下）, 90°=縦持ち。ほぼ無重力なら 90°。
+     * acos(|gz|/|g|) は水平の近くで float の比の丸めを大きく拡大するので、atan2(水平成分, |gz|) で求める
+     */
+    public static float tiltDeg(float gx, float gy, float gz) {
+        float h2 = gx * gx + gy * gy;
+        if (!(h2 + gz * gz > 1e-12f)) return 90f;
+        return atan2Deg((float) Math.sqrt(h2), Math.abs(gz));
+    }
+
+    /** acos(x)（rad）, 0 <= x < 1 */
+    private static float acosUnit(float x) {
+        float p = -0.0012624911f;
+        p = p * x + 0.0066700901f;
+        p = p * x - 0.0170881256f;
+        p = p * x + 0.0308918810f;
+        p = p * x - 0.0501743046f;
+        p = p * x + 0.0889789874f;
+        p = p * x - 0.2145988016f;
+        p = p * x + 1.5707963050f;
+        return (float) Math.sqrt(1f - x) * p;
+    }
+
+    /** atan(z)（rad）, 0 <= z <= 1 */
+    private static float atanUnit(float z) {
+        float z2 = z * z;
+        float p = -0.01172120f;
+        p = p * z2 + 0.05265332f;
+        p = p * z2 - 0.11643287f;
+        p = p * z2 + 0.19354346f;
+        p = p * z2 - 0.33262347f;
+        p = p * z2 + 0.99997726f;
+        return p * z;
+    }
 }
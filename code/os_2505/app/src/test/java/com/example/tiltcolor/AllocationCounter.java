@@ -0,0 +1,33 @@
+package com.example.tiltcolor;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * 現在スレッドのヒープ確保量（バイト）を測るテスト用ヘルパー。
+ * HotSpot の com.sun.management.ThreadMXBean が使えない JVM ではテストをスキップする。
+ */
+public final class AllocationCounter {
+
+    private AllocationCounter() {}
+
+    /** task を実行している間に現在スレッドが確保したバイト数（計測自体のぶんは差し引く） */
+    public static long allocatedBytes(Runnable task) {
+        java.lang.management.ThreadMXBean mx = ManagementFactory.getThreadMXBean();
+        assumeTrue(mx instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) mx;
+        assumeTrue(bean.isThreadAllocatedMemorySupported());
+        bean.setThreadAllocatedMemoryEnabled(true);
+
+        long id = Thread.currentThread().getId();
+        long o0 = bean.getThreadAllocatedBytes(id);
+        long o1 = bean.getThreadAllocatedBytes(id);
+        long overhead = o1 - o0;
+
+        long before = bean.getThreadAllocatedBytes(id);
+        task.run();
+        long after = bean.getThreadAllocatedBytes(id);
+        return Math.max(0L, after - before - overhead);
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.tiltcolor.decision;
+
+import com.example.tiltcolor.AllocationCounter;
+import com.example.tiltcolor.util.Hysteresis;
+import com.example.tiltcolor.util.TiltMath;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 乱数のイベント列を BlockDecision と参照実装（状態機械にする前の downSince/frontSince 方式）に
+ * 同じ順で流し、ブロック要求と遷移が一致するかを見る。
+ */
+public class BlockDecisionFuzzTest {
+
+    private static final int EVENTS = 20_000;
+
+    /** 状態機械にする前の判定（姿勢が届いたときだけデバウンスを確定する）に TIMER・画面を足したもの */
+    private static final class Reference {
+        final Hysteresis hysteresis;
+        long debounceMs;
+        final float baseline;
+        boolean wantDown, isDown, moving, enabled = true, screenOn = true;
+        long downSince = -1L, frontSince = -1L;
+
+        Reference(float hide, float show, long debounceMs, float baseline) {
+            hysteresis = new Hysteresis(hide, show);
+            this.debounceMs = debounceMs;
+            this.baseline = baseline;
+        }
+
+        void pose(float pitch, long now) {
+            wantDown = hysteresis.next(TiltMath.applyBaseline(pitch, baseline));
+            if (wantDown) {
+                if (downSince < 0) downSince = now;
+                frontSince = -1L;
+            } else {
+                if (frontSince < 0) frontSince = now;
+                downSince = -1L;
+            }
+            timer(now);
+        }
+
+        void timer(long now) {
+            if (wantDown && downSince >= 0 && now - downSince >= debounceMs) isDown = true;
+            if (!wantDown && frontSince >= 0 && now - frontSince >= debounceMs) isDown = false;
+        }
+
+        void screen(boolean on) {
+            screenOn = on;
+            if (!on) resetPose();
+        }
+
+        void resetPose() {
+            downSince = -1L;
+            frontSince = -1L;
+            isDown = false;
+        }
+
+        boolean shouldBlock() { return enabled && screenOn && moving && isDown; }
+    }
+
+    @Test
+    public void matchesReferenceOnRandomStreams() {
+        for (long seed = 1; seed <= 20; seed++) run(seed);
+    }
+
+    private static void run(long seed) {
+        Random rnd = new Random(seed);
+        float show = 65f + rnd.nextInt(10);
+        long debounce = 50 + rnd.nextInt(400);
+        BlockDecision d = new BlockDecision(65f, show, debounce, 0f);
+        Reference ref = new Reference(65f, show, debounce, 0f);
+
+        long now = 0L;
+        boolean blocked = false;
+        for (int i = 0; i < EVENTS; i++) {
+            long next = now + rnd.nextInt(120);
+            // ドライバ（GuardLoop + Host）と同じく、満了時刻が先に来るなら TIMER を入れる
+            // （デバウンスを短くした直後は満了時刻が過去になるので、すぐに入れる）
+            long deadline = d.deadlineMs();
+            if (deadline != BlockDecision.NO_DEADLINE && deadline <= next) {
+                now = Math.max(now, deadline);
+                ref.timer(now);
+                blocked = check(seed, d, ref, d.apply(BlockDecision.Event.TIMER, now, 0f), blocked);
+                assertTrue("seed " + seed + ": 満了したデバウンスが残っている", d.deadlineMs() > now);
+                continue;
+            }
+            now = next;
+
+            int r = rnd.nextInt(100);
+            BlockDecision.Transition t;
+            if (r < 70) {
+                // しきい値の近くを行き来する姿勢（デバウンス中の戻りが起きるように）
+                float pitch = 55f + rnd.nextFloat() * 30f;
+                ref.pose(pitch, now);
+                t = d.apply(BlockDecision.Event.POSE, now, pitch);
+                assertTrue("seed " + seed + ": 満了したデバウンスが残っている", d.deadlineMs() > now);
+            } else if (r < 88) {
+                boolean moving = rnd.nextInt(4) != 0;
+                ref.moving = moving;
+                t = d.apply(BlockDecision.Event.MOTION, now, moving ? 1f : 0f);
+            } else if (r < 93) {
+                boolean on = rnd.nextInt(5) != 0;
+                ref.screen(on);
+                t = d.apply(BlockDecision.Event.SCREEN, now, on ? 1f : 0f);
+            } else if (r < 97) {
+                boolean en = rnd.nextInt(5) != 0;
+                ref.enabled = en;
+                t = d.apply(BlockDecision.Event.ENABLED, now, en ? 1f : 0f);
+            } else if (r < 99) {
+                // 購読段の切替（姿勢の途中経過を捨てる）
+                ref.resetPose();
+                d.resetPose();
+                t = transition(blocked, d.shouldBlock());
+            } else {
+                // デバウンスだけを差し替える（途中経過は保つ）
+                long deb = 50 + rnd.nextInt(400);
+                ref.debounceMs = deb;
+                d.configure(65f, show, deb, 0f);
+                t = BlockDecision.Transition.NONE;
+            }
+            blocked = check(seed, d, ref, t, blocked);
+        }
+    }
+
+    @Test
+    public void timerCommitsWithoutWaitingForNextPose() {
+        BlockDecision d = new BlockDecision(65f, 70f, 300, 0f);
+        d.onMotion(true);
+        assertEquals(BlockDecision.Transition.NONE, d.apply(BlockDecision.Event.POSE, 1_000, 40f));
+        assertEquals(1_300, d.deadlineMs());
+        assertEquals(BlockDecision.Transition.NONE, d.onTimer(1_299));
+        assertEquals(BlockDecision.Transition.BLOCK, d.onTimer(1_300));
+        assertEquals(BlockDecision.NO_DEADLINE, d.deadlineMs());
+        // 画面OFF → 解除。ON に戻しても姿勢が届くまでは下向きに戻らない
+        assertEquals(BlockDecision.Transition.UNBLOCK, d.apply(BlockDecision.Event.SCREEN, 1_400, 0f));
+        assertEquals(BlockDecision.Transition.NONE, d.apply(BlockDecision.Event.SCREEN, 1_500, 1f));
+        assertEquals(BlockDecision.Phase.FRONT, d.phase());
+    }
+
+    @Test
+    public void applyDoesNotAllocate() {
+        BlockDecision d = new BlockDecision(65f, 70f, 200, 0f);
+        Random rnd = new Random(7);
+        int n = 50_000;
+        BlockDecision.Event[] events = new BlockDecision.Event[n];
+        float[] values = new float[n];
+        BlockDecision.Event[] kinds = BlockDecision.Event.values();
+        for (int i = 0; i < n; i++) {
+            events[i] = kinds[rnd.nextInt(kinds.length)];
+            values[i] = events[i] == BlockDecision.Event.POSE
+                    ? 40f + rnd.nextFloat() * 50f
+                    : rnd.nextInt(4) != 0 ? 1f : 0f;
+        }
+        for (int i = 0; i < n; i++) d.apply(events[i], i * 20L, values[i]); // 暖機
+        long bytes = AllocationCounter.allocatedBytes(() -> {
+            for (int i = 0; i < n; i++) d.apply(events[i], (n + i) * 20L, values[i]);
+        });
+        assertEquals(0L, bytes);
+    }
+
+    private static BlockDecision.Transition transition(boolean before, boolean after) {
+        if (before == after) return BlockDecision.Transition.NONE;
+        return after ? BlockDecision.Transition.BLOCK : BlockDecision.Transition.UNBLOCK;
+    }
+
+    /** 参照と一致するか、遷移が直前の状態と食い違っていないか */
+    private static boolean check(long seed, BlockDecision d, Reference ref,
+                                 BlockDecision.Transition t, boolean blocked) {
+        assertEquals("seed " + seed + ": isDown", ref.isDown, d.isDown());
+        assertEquals("seed " + seed + ": shouldBlock", ref.shouldBlock(), d.shouldBlock());
+        assertEquals("seed " + seed + ": transition", transition(blocked, d.shouldBlock()), t);
+        return d.shouldBlock();
+    }
+}
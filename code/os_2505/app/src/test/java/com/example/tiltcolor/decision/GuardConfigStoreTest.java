@@ -0,0 +1,103 @@
+package com.example.tiltcolor.decision;
+
+import com.example.tiltcolor.trace.SyntheticTrace;
+import com.example.tiltcolor.trace.TraceReader;
+import com.example.tiltcolor.trace.TraceReplay;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 設定スナップショットの差し替えと、判定ループへの実行中反映を確認する。
+ */
+public class GuardConfigStoreTest {
+
+    private static final long SEC = 1_000_000_000L;
+
+    @Test
+    public void concurrentUpdatesAreNotLost() throws InterruptedException {
+        GuardConfigStore store = new GuardConfigStore(GuardConfig.DEFAULT.withPitch(65f, 65f, 0, 0f));
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                for (int n = 0; n < 1000; n++) {
+                    store.update(c -> c.withPitch(c.hideThreshold, c.showThreshold, c.debounceMs + 1, c.baselinePitch));
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread t : threads) t.join();
+        assertEquals(4000L, store.get().debounceMs);
+    }
+
+    @Test
+    public void withParsesKeys() {
+        GuardConfig c = GuardConfig.DEFAULT.with("hide", "50").with("show", "55").with("window", "800")
+                .with("enabled", "false");
+        assertEquals(50f, c.hideThreshold, 0f);
+        assertEquals(55f, c.showThreshold, 0f);
+        assertEquals(800L, c.windowMs);
+        assertFalse(c.enabled);
+        assertTrue(c.sameMotion(GuardConfig.DEFAULT.withMotion(800, c.holdMs, c.threshMove, c.threshStill)));
+        assertSame(c, c.withEnabled(false));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsShowBelowHide() {
+        GuardConfig.DEFAULT.with("show", "40");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnknownKey() {
+        GuardConfig.DEFAULT.with("speed", "1");
+    }
+
+    /** 歩行・下向きの間に、しきい値と ON/OFF を再生を止めずに差し替える */
+    @Test
+    public void replayPicksUpChangesWithoutRestart() throws IOException {
+        byte[] trace = new SyntheticTrace(100).segment(30, true, 40).toByteArray();
+        long t0 = SyntheticTrace.startNanos();
+        GuardConfigStore store = new GuardConfigStore(GuardConfig.DEFAULT);
+        TraceReader reader = new TraceReader(new ByteArrayInputStream(trace));
+        TraceReplay r = new TraceReplay(store, reader.hasLinearAcceleration());
+
+        long unblockedAt = -1L, reblockedAt = -1L;
+        boolean lowered = false, disabled = false, restored = false;
+        while (reader.next()) {
+            long t = reader.timestampNanos();
+            if (!lowered && t - t0 >= 10 * SEC) {
+                // pitch 40° は下向きでなくなる（次のイベントで反映）
+                assertTrue(r.loop().isBlockRequested());
+                store.update(c -> c.withPitch(30f, 30f, c.debounceMs, c.baselinePitch));
+                lowered = true;
+            }
+            if (!disabled && t - t0 >= 15 * SEC) {
+                store.update(c -> c.withPitch(65f, 65f, c.debounceMs, c.baselinePitch).withEnabled(false));
+                disabled = true;
+            }
+            if (!restored && t - t0 >= 20 * SEC) {
+                // OFF 段ではイベントが届かないので、GuardService と同じく通知で読み直す
+                store.update(c -> c.withEnabled(true));
+                r.loop().refreshConfig(t);
+                restored = true;
+            }
+            r.onEvent(reader.type(), t, reader.values());
+            if (lowered && unblockedAt < 0 && !r.loop().isBlockRequested()) unblockedAt = t - t0;
+            if (restored && reblockedAt < 0 && r.loop().isBlockRequested()) reblockedAt = t - t0;
+        }
+        r.finish();
+
+        // デバウンス（300ms）後に解除、再有効化後も下向き・歩行の確定を待ってから再ブロック
+        assertTrue("unblocked=" + unblockedAt, unblockedAt >= 10 * SEC + 300_000_000L && unblockedAt < 11 * SEC);
+        assertTrue("reblocked=" + reblockedAt, reblockedAt >= 20 * SEC && reblockedAt < 22 * SEC);
+        assertEquals(2, r.blockCount());
+        assertSame(store.get(), r.loop().appliedConfig());
+    }
+}
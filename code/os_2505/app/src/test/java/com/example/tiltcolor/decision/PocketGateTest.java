@@ -0,0 +1,54 @@
+package com.example.tiltcolor.decision;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PocketGateTest {
+
+    private static final long MS = 1_000_000L;
+
+    @Test
+    public void nearClosesOnlyAfterHoldAndFarOpensImmediately() {
+        PocketGate g = new PocketGate();
+        g.onProximity(true, 0);
+        assertFalse(g.update(PocketGate.ENTER_NEAR_MS * MS - 1));
+        g.onProximity(false, 300 * MS);                  // 指がかすめただけ
+        assertFalse(g.update(2_000 * MS));
+
+        g.onProximity(true, 3_000 * MS);
+        assertTrue(g.update(3_500 * MS));
+        assertEquals(PocketGate.Reason.NEAR, g.reason());
+        g.onProximity(false, 10_000 * MS);
+        assertFalse(g.isGated());
+        assertEquals(1, g.entries());
+        assertEquals(6_500 * MS, g.gatedNanos(20_000 * MS));
+    }
+
+    @Test
+    public void faceDownClosesWhenFlatAndUpsideDown() {
+        PocketGate g = new PocketGate();
+        g.onPose(5f, 178f, 0);                              // 伏せ置き
+        g.onPose(5f, 178f, PocketGate.ENTER_FACE_DOWN_MS * MS);
+        assertEquals(PocketGate.Reason.FACE_DOWN, g.reason());
+        assertEquals(500 * MS, g.gatedNanos(PocketGate.ENTER_FACE_DOWN_MS * MS + 500 * MS));
+
+        g.onPose(60f, 178f, 2_000 * MS);                    // 起こした
+        assertFalse(g.isGated());
+
+        g.onPose(5f, 2f, 3_000 * MS);                       // 画面を上にして水平: 見える
+        assertFalse(g.update(10_000 * MS));
+    }
+
+    @Test
+    public void stoppingPoseForgetsFaceDown() {
+        PocketGate g = new PocketGate();
+        g.onPose(5f, -170f, 0);
+        assertTrue(g.update(2_000 * MS));
+        g.clearPose(3_000 * MS);
+        assertFalse(g.isGated());
+        assertEquals(1_000 * MS, g.gatedNanos(9_000 * MS));
+    }
+}
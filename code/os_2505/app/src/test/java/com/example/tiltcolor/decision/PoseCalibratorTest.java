@@ -0,0 +1,96 @@
+package com.example.tiltcolor.decision;
+
+import com.example.tiltcolor.trace.SyntheticTrace;
+import com.example.tiltcolor.trace.TraceReader;
+import com.example.tiltcolor.trace.TraceReplay;
+import com.example.tiltcolor.util.StreamingQuantile;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 基準の自動校正: 分位点推定の収束、補正の制限、判定への反映を確認する。
+ */
+public class PoseCalibratorTest {
+
+    @Test
+    public void streamingMedianIgnoresOutliers() {
+        StreamingQuantile q = new StreamingQuantile(0.5, 0.1, 32);
+        Random rnd = new Random(1);
+        for (int i = 0; i < 5000; i++) {
+            // 中央値 50、1割は大きく外れた値
+            double x = rnd.nextInt(10) == 0 ? 5.0 : 50.0 + rnd.nextGaussian() * 3.0;
+            q.add(x);
+        }
+        assertEquals(50.0, q.estimate(), 1.0);
+        assertEquals(5000L, q.count());
+    }
+
+    @Test
+    public void baselineStaysZeroUntilEnoughSamples() {
+        PoseCalibrator c = new PoseCalibrator();
+        for (int i = 0; i < PoseCalibrator.MIN_SAMPLES - 1; i++) assertFalse(c.offer(55f, 50f));
+        assertEquals(0f, c.baseline(), 0f);
+        assertTrue(c.offer(55f, 50f));
+        assertEquals(55f - PoseCalibrator.REFERENCE_PITCH, c.baseline(), 0f);
+        assertEquals(50f, c.neutralTilt(), 0.01f);
+    }
+
+    @Test
+    public void rejectsFlatPosesAndClampsShift() {
+        PoseCalibrator c = new PoseCalibrator();
+        for (int i = 0; i < 1000; i++) c.offer(2f, 2f); // 机の上
+        assertEquals(0L, c.sampleCount());
+
+        for (int i = 0; i < 1000; i++) c.offer(25f, 25f);
+        assertEquals(-PoseCalibrator.MAX_SHIFT_DOWN, c.baseline(), 0f);
+
+        PoseCalibrator restored = new PoseCalibrator();
+        restored.restore(c.neutralPitch(), c.neutralTilt(), c.sampleCount());
+        assertEquals(c.baseline(), restored.baseline(), 0f);
+    }
+
+    /** 低めに持つ人: 最初は歩くたびにブロックされるが、静止中の姿勢を学習した後はブロックされない */
+    @Test
+    public void lowHolderStopsBeingBlockedAfterCalibration() throws IOException {
+        SyntheticTrace trace = new SyntheticTrace(100);
+        for (int i = 0; i < 4; i++) {
+            trace.segment(10, true, 55).segment(8, false, 55);
+        }
+        trace.segment(10, true, 55);
+        TraceReader reader = new TraceReader(new ByteArrayInputStream(trace.toByteArray()));
+        GuardConfigStore store = new GuardConfigStore(GuardConfig.DEFAULT);
+        TraceReplay r = new TraceReplay(store, reader.hasLinearAcceleration());
+
+        long lastWalk = SyntheticTrace.startNanos() + 4 * 18_000_000_000L;
+        boolean blockedInLastWalk = false;
+        while (reader.next()) {
+            r.onEvent(reader.type(), reader.timestampNanos(), reader.values());
+            if (reader.timestampNanos() >= lastWalk && r.loop().isBlockRequested()) blockedInLastWalk = true;
+        }
+
+        assertTrue("blocks=" + r.blockCount(), r.blockCount() >= 1);
+        assertFalse(blockedInLastWalk);
+        assertEquals(-PoseCalibrator.MAX_SHIFT_DOWN, r.decision().baselinePitch(), 0f);
+    }
+
+    @Test
+    public void manualBaselineDisablesLearning() throws IOException {
+        byte[] trace = new SyntheticTrace(100).segment(10, true, 55).segment(8, false, 55)
+                .segment(10, true, 55).segment(8, false, 55).toByteArray();
+        TraceReader reader = new TraceReader(new ByteArrayInputStream(trace));
+        GuardConfigStore store = new GuardConfigStore(GuardConfig.DEFAULT.withAutoBaseline(false));
+        TraceReplay r = new TraceReplay(store, reader.hasLinearAcceleration());
+        r.run(reader);
+
+        assertEquals(0L, r.loop().calibrator().sampleCount());
+        assertEquals(0f, r.decision().baselinePitch(), 0f);
+    }
+}
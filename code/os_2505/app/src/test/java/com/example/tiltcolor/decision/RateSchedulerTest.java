@@ -0,0 +1,77 @@
+package com.example.tiltcolor.decision;
+
+import org.junit.Test;
+
+import static com.example.tiltcolor.decision.RateScheduler.Tier.ACTIVE;
+import static com.example.tiltcolor.decision.RateScheduler.Tier.GATED;
+import static com.example.tiltcolor.decision.RateScheduler.Tier.OFF;
+import static com.example.tiltcolor.decision.RateScheduler.Tier.SUSPENDED;
+import static com.example.tiltcolor.decision.RateScheduler.Tier.WATCH;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RateSchedulerTest {
+
+    private static final long MS = 1_000_000L;
+
+    @Test
+    public void startsInWatchAndPromotesOnMotion() {
+        RateScheduler s = new RateScheduler(5_000);
+        assertEquals(WATCH, s.tier());
+        assertFalse(s.tier().poseEnabled());
+        assertTrue(s.tier().motionEnabled());
+        assertEquals(ACTIVE, s.update(true, true, 0));
+        assertTrue(s.tier().poseEnabled());
+    }
+
+    @Test
+    public void dropsToWatchOnlyAfterLinger() {
+        RateScheduler s = new RateScheduler(5_000);
+        s.update(true, true, 0);
+        assertEquals(ACTIVE, s.update(true, false, 1_000 * MS));
+        assertEquals(ACTIVE, s.update(true, true, 3_000 * MS));   // 一時停止から再開 → リセット
+        assertEquals(ACTIVE, s.update(true, false, 4_000 * MS));
+        assertEquals(ACTIVE, s.update(true, false, 8_999 * MS));
+        assertEquals(WATCH, s.update(true, false, 9_000 * MS));
+    }
+
+    @Test
+    public void disabledUnregistersEverything() {
+        RateScheduler s = new RateScheduler(5_000);
+        s.update(true, true, 0);
+        assertEquals(OFF, s.update(false, true, 1 * MS));
+        assertFalse(s.tier().motionEnabled());
+        assertFalse(s.tier().poseEnabled());
+        assertEquals(WATCH, s.update(true, false, 2 * MS));
+    }
+
+    @Test
+    public void suspendsWhileNotInteractiveAndResumesPreviousTier() {
+        RateScheduler s = new RateScheduler(5_000);
+        s.update(true, true, false, true, 0);
+        assertEquals(SUSPENDED, s.update(true, false, false, false, 1_000 * MS));
+        assertFalse(s.tier().motionEnabled());
+        assertFalse(s.tier().poseEnabled());
+        assertEquals(SUSPENDED, s.update(true, false, false, true, 2_000 * MS)); // 遅れて届いた歩行でも戻らない
+        // ACTIVE から止めたので ACTIVE で再開し、linger は再開時刻から数える
+        assertEquals(ACTIVE, s.update(true, true, false, false, 60_000 * MS));
+        assertEquals(ACTIVE, s.update(true, true, false, false, 64_999 * MS));
+        assertEquals(WATCH, s.update(true, true, false, false, 65_000 * MS));
+        // WATCH から止めたら WATCH で再開
+        s.update(true, false, false, false, 70_000 * MS);
+        assertEquals(WATCH, s.update(true, true, false, false, 80_000 * MS));
+    }
+
+    @Test
+    public void gatedParksPoseUntilTheGateOpens() {
+        RateScheduler s = new RateScheduler(5_000);
+        s.update(true, true, false, true, 0);
+        assertEquals(GATED, s.update(true, true, true, true, 1_000 * MS)); // 歩いていてもポケットの中
+        assertEquals(GATED.motionPeriodUs, WATCH.motionPeriodUs);
+        assertTrue(GATED.posePeriodUs > ACTIVE.posePeriodUs);
+        assertEquals(ACTIVE, s.update(true, true, false, true, 2_000 * MS));
+        s.update(true, true, true, false, 3_000 * MS);
+        assertEquals(WATCH, s.update(true, true, false, false, 4_000 * MS));
+    }
+}
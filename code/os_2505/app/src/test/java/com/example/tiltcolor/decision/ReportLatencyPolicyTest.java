@@ -0,0 +1,36 @@
+package com.example.tiltcolor.decision;
+
+import org.junit.Test;
+
+import static com.example.tiltcolor.decision.ReportLatencyPolicy.Mode.BATCHED;
+import static com.example.tiltcolor.decision.ReportLatencyPolicy.Mode.LOW_LATENCY;
+import static org.junit.Assert.assertEquals;
+
+public class ReportLatencyPolicyTest {
+
+    private static final long MS = 1_000_000L;
+
+    @Test
+    public void batchesOnlyAfterStillPeriod() {
+        ReportLatencyPolicy p = new ReportLatencyPolicy(10_000, 1_000_000);
+        assertEquals(LOW_LATENCY, p.update(false, false, 0));
+        assertEquals(LOW_LATENCY, p.update(false, false, 9_999 * MS));
+        assertEquals(BATCHED, p.update(false, false, 10_000 * MS));
+        assertEquals(1_000_000, p.maxReportLatencyUs());
+    }
+
+    @Test
+    public void walkingOrLookingDownReturnsToLowLatencyImmediately() {
+        ReportLatencyPolicy p = new ReportLatencyPolicy(1_000, 500_000);
+        p.update(false, false, 0);
+        assertEquals(BATCHED, p.update(false, false, 2_000 * MS));
+        assertEquals(LOW_LATENCY, p.update(true, false, 2_001 * MS));
+        assertEquals(0, p.maxReportLatencyUs());
+
+        // 静止タイマーはやり直し
+        assertEquals(LOW_LATENCY, p.update(false, false, 2_002 * MS));
+        assertEquals(LOW_LATENCY, p.update(false, true, 3_500 * MS));
+        assertEquals(LOW_LATENCY, p.update(false, false, 4_000 * MS));
+        assertEquals(BATCHED, p.update(false, false, 5_000 * MS));
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.tiltcolor.dsp;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 歩調の周期性による歩行判定のオフライン評価（RMS だけの判定との比較）。
+ * 3秒静止のあと各シナリオを20秒流し、歩行を検出するまでの時間と、MOVING だった時間の割合を見る。
+ *  - 歩行: 1周期（2歩, 約1.2秒）以内に MOVING になる
+ *  - 乗り物の振動・持ち替え・ランダムな揺れ: RMS では MOVING になるが、周期性を見ると（ほぼ）ならない
+ */
+public class GaitClassifierTest {
+
+    private static final long MS = 1_000_000L;
+    private static final long SEC = 1_000 * MS;
+
+    private interface Scenario {
+        void sample(double sec, Random rnd, float[] out);
+    }
+
+    /** 約1.8歩/秒、上下 2.5m/s^2（前後にも少し） */
+    private static final Scenario WALK = (sec, rnd, out) -> {
+        double step = 2.5 * Math.sin(2 * Math.PI * 1.8 * sec);
+        out[0] = (float) (rnd.nextGaussian() * 0.03);
+        out[1] = (float) (step * 0.3 + rnd.nextGaussian() * 0.03);
+        out[2] = (float) (step + rnd.nextGaussian() * 0.03);
+    };
+
+    /** 約1.6歩/秒、高調波・左右の揺れ・ノイズ入り、端末は斜め持ち */
+    private static final Scenario WALK_IRREGULAR = (sec, rnd, out) -> {
+        double ph = 2 * Math.PI * 1.6 * sec;
+        double v = 1.5 * Math.sin(ph) + 0.6 * Math.sin(2 * ph + 1) + 0.3 * Math.sin(0.5 * ph);
+        out[0] = (float) (0.4 * Math.sin(0.5 * ph) + rnd.nextGaussian() * 0.2);
+        out[1] = (float) (v * 0.7 + rnd.nextGaussian() * 0.2);
+        out[2] = (float) (v * 0.7 + rnd.nextGaussian() * 0.2);
+    };
+
+    /** ランダムな揺れ（白色, 各軸 0.6m/s^2） */
+    private static final Scenario SHAKE = (sec, rnd, out) -> {
+        out[0] = (float) (rnd.nextGaussian() * 0.6);
+        out[1] = (float) (rnd.nextGaussian() * 0.6);
+        out[2] = (float) (rnd.nextGaussian() * 0.6);
+    };
+
+    /** 2.3秒ごとに 0.3秒の持ち替え（片側への振り） */
+    private static final Scenario HANDLING = (sec, rnd, out) -> {
+        double ph = sec % 2.3;
+        double v = ph < 0.3 ? 3.0 * Math.sin(Math.PI * ph / 0.3) : 0.0;
+        out[0] = (float) (v + rnd.nextGaussian() * 0.05);
+        out[1] = (float) (0.5 * v);
+        out[2] = (float) (rnd.nextGaussian() * 0.05);
+    };
+
+    /** 乗り物: 低い周波数に寄ったランダムな揺れ（1次のローパスを通したノイズ） */
+    private static Scenario vehicle(int rateHz) {
+        double[] state = new double[3];
+        double a = Math.exp(-2 * Math.PI * 1.5 / rateHz); // 約1.5Hz で減衰
+        double gain = 0.7 * Math.sqrt(1 - a * a);         // 各軸 約0.7m/s^2
+        return (sec, rnd, out) -> {
+            for (int i = 0; i < 3; i++) {
+                state[i] = a * state[i] + gain * rnd.nextGaussian();
+                out[i] = (float) state[i];
+            }
+        };
+    }
+
+    /** 評価結果: 検出までの時間（ns, 検出しなければ -1）と MOVING の割合 */
+    private static final class Result {
+        long latencyNanos = -1;
+        double movingFraction;
+        double cadenceHz;
+    }
+
+    private static Result run(Scenario s, int rateHz, boolean gait) {
+        MotionClassifier c = new MotionClassifier(500 * MS, 500 * MS, 0.28, 0.3, gait);
+        Random rnd = new Random(2505);
+        float[] v = new float[3];
+        long period = SEC / rateHz, start = 3 * SEC;
+        int moving = 0, n = 0;
+        Result r = new Result();
+        for (long t = 0; t < start + 20 * SEC; t += period) {
+            if (t < start) {
+                v[0] = (float) (rnd.nextGaussian() * 0.02);
+                v[1] = (float) (rnd.nextGaussian() * 0.02);
+                v[2] = (float) (rnd.nextGaussian() * 0.02);
+            } else {
+                s.sample((t - start) / 1e9, rnd, v);
+            }
+            boolean m = c.onLinearAcceleration(t, v[0], v[1], v[2]);
+            if (t < start) continue;
+            if (m && r.latencyNanos < 0) r.latencyNanos = t - start;
+            if (m) moving++;
+            n++;
+        }
+        r.movingFraction = moving / (double) n;
+        r.cadenceHz = c.cadenceHz();
+        return r;
+    }
+
+    @Test
+    public void detectsWalkingWithinAboutOneStride() {
+        for (int rate : new int[]{100, 50, 20}) {
+            for (Scenario s : new Scenario[]{WALK, WALK_IRREGULAR}) {
+                Result g = run(s, rate, true);
+                assertTrue(rate + "Hz latency=" + g.latencyNanos, g.latencyNanos >= 0 && g.latencyNanos <= 1_200 * MS);
+                assertTrue(rate + "Hz moving=" + g.movingFraction, g.movingFraction > 0.9);
+            }
+            assertEquals(1.8, run(WALK, rate, true).cadenceHz, 0.1);
+        }
+    }
+
+    @Test
+    public void ignoresShakingAndHandling() {
+        for (int rate : new int[]{100, 50, 20}) {
+            for (Scenario s : new Scenario[]{SHAKE, HANDLING}) {
+                Result rms = run(s, rate, false);
+                Result g = run(s, rate, true);
+                assertTrue(rate + "Hz rms moving=" + rms.movingFraction, rms.movingFraction > 0.3);
+                assertEquals(rate + "Hz gait moving", 0.0, g.movingFraction, 0.0);
+            }
+        }
+    }
+
+    /** 低い周波数に寄った振動は歩行と区別しにくいが、RMS だけの判定よりは大きく減る */
+    @Test
+    public void reducesVehicleFalsePositives() {
+        for (int rate : new int[]{100, 20}) {
+            Result rms = run(vehicle(rate), rate, false);
+            Result g = run(vehicle(rate), rate, true);
+            assertTrue(rate + "Hz rms=" + rms.movingFraction + " gait=" + g.movingFraction,
+                    g.movingFraction < rms.movingFraction / 2);
+        }
+    }
+
+    /** 購読の停止・再開（間隔が空く）では推定をやり直す */
+    @Test
+    public void restartsAfterGap() {
+        GaitClassifier g = new GaitClassifier();
+        Random rnd = new Random(1);
+        float[] v = new float[3];
+        long t = 0;
+        for (; t < 5 * SEC; t += 10 * MS) {
+            WALK.sample(t / 1e9, rnd, v);
+            g.onLinearAcceleration(t, v[0], v[1], v[2]);
+        }
+        assertTrue(g.isPeriodic(false));
+        g.onLinearAcceleration(t + 2 * SEC, 0f, 0f, 0f);
+        assertEquals(0.0, g.periodicity(), 0.0);
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.tiltcolor.dsp;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class GravityFilterTest {
+
+    private static final long SEC = 1_000_000_000L;
+
+    /** 重力が z から y へ切り替わる段差を rateHz で入れ、1秒後の gy を返す */
+    private static float stepAfterOneSecond(float tau, int rateHz) {
+        GravityFilter f = new GravityFilter(tau);
+        long period = SEC / rateHz;
+        f.update(0L, 0f, 0f, 9.8f);
+        for (long t = period; t <= SEC; t += period) f.update(t, 0f, 9.8f, 0f);
+        return f.gy();
+    }
+
+    @Test
+    public void stepResponseDoesNotDependOnSampleRate() {
+        float tau = GravityFilter.TILT_TIME_CONSTANT_S;
+        float expected = (float) (9.8 * (1 - Math.exp(-1.0 / tau)));
+        for (int rate : new int[]{5, 15, 50, 200, 500}) {
+            assertEquals("rate=" + rate, expected, stepAfterOneSecond(tau, rate), 1e-3f);
+        }
+    }
+
+    @Test
+    public void jitteredAndBatchedIntervalsGiveTheSameResponse() {
+        float tau = GravityFilter.MOTION_TIME_CONSTANT_S;
+        GravityFilter regular = new GravityFilter(tau);
+        GravityFilter jittered = new GravityFilter(tau);
+        regular.update(0L, 0f, 0f, 9.8f);
+        jittered.update(0L, 0f, 0f, 9.8f);
+        for (long t = 20_000_000L; t <= SEC / 2; t += 20_000_000L) regular.update(t, 0f, 9.8f, 0f);
+
+        // 5〜35ms の揺らぎ + 途中で 150ms の空白（バッチ配送の後など）
+        Random rnd = new Random(7);
+        long t = 0L;
+        while (t < SEC / 2) {
+            t = Math.min(SEC / 2, t + 5_000_000L + rnd.nextInt(30) * 1_000_000L
+                    + (t > SEC / 4 && t < SEC / 4 + 40_000_000L ? 150_000_000L : 0L));
+            jittered.update(t, 0f, 9.8f, 0f);
+        }
+        assertEquals(regular.gy(), jittered.gy(), 1e-3f);
+        assertEquals(regular.gz(), jittered.gz(), 1e-3f);
+    }
+
+    @Test
+    public void ignoresSamplesThatDoNotAdvanceTime() {
+        GravityFilter f = new GravityFilter(0.2f);
+        f.update(SEC, 0f, 0f, 9.8f);
+        f.update(SEC, 0f, 9.8f, 0f);          // 同時刻
+        f.update(SEC - 1, 0f, 9.8f, 0f);      // 巻き戻り
+        assertEquals(9.8f, f.gz(), 0f);
+        assertEquals(0f, f.gy(), 0f);
+    }
+
+    @Test
+    public void weightMatchesOldFixedAlphasAtTheirRates() {
+        // 旧実装: MotionDetector は GAME(20ms) で 1 − 0.9、SensorRepository は UI(66.7ms) で 0.1
+        assertEquals(0.1f, GravityFilter.weight(0.020f, GravityFilter.MOTION_TIME_CONSTANT_S), 0.002f);
+        assertEquals(0.1f, GravityFilter.weight(0.0667f, GravityFilter.TILT_TIME_CONSTANT_S), 0.002f);
+        // 長く空いたら新しいサンプルにほぼ置き換わる
+        assertTrue(GravityFilter.weight(5f, GravityFilter.TILT_TIME_CONSTANT_S) > 0.999f);
+    }
+}
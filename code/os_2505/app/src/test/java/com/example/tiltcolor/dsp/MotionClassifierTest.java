@@ -0,0 +1,82 @@
+package com.example.tiltcolor.dsp;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MotionClassifierTest {
+
+    private static final long MS = 1_000_000L;
+    private static final long STEP = 10 * MS; // 100Hz
+
+    private static MotionClassifier newClassifier() {
+        return new MotionClassifier(500 * MS, 500 * MS, 0.28, 0.3);
+    }
+
+    @Test
+    public void staysStillOnQuietSignal() {
+        MotionClassifier c = newClassifier();
+        for (int i = 0; i < 500; i++) {
+            assertFalse(c.onLinearAcceleration(i * STEP, 0.01f, -0.02f, 0.01f));
+        }
+    }
+
+    @Test
+    public void becomesMovingOnlyAfterHold() {
+        MotionClassifier c = newClassifier();
+        long t = 0;
+        for (int i = 0; i < 100; i++, t += STEP) c.onLinearAcceleration(t, 0f, 0f, 0f);
+        long start = t;
+        boolean moving = false;
+        while (!moving) {
+            moving = c.onLinearAcceleration(t, 2f, 0f, 0f);
+            t += STEP;
+        }
+        long elapsed = t - STEP - start;
+        assertTrue("hold not respected: " + elapsed, elapsed >= 500 * MS);
+        assertTrue("too slow: " + elapsed, elapsed <= 600 * MS);
+
+        // 静止に戻ると、窓が空になってから hold 後に STILL
+        for (int i = 0; i < 150; i++, t += STEP) c.onLinearAcceleration(t, 0f, 0f, 0f);
+        assertFalse(c.isMoving());
+    }
+
+    /** 3秒静止してから歩き出し（約1.8歩/秒、上下 2.5m/s^2）、MOVING になるまでの時間 */
+    private static long walkingOnsetNanos(MotionClassifier c, int rateHz) {
+        long step = 1_000 * MS / rateHz;
+        long t = 0;
+        for (; t < 3_000 * MS; t += step) c.onLinearAcceleration(t, 0.01f, -0.01f, 0.02f);
+        long start = t;
+        for (; t < start + 5_000 * MS; t += step) {
+            float v = (float) (2.5 * Math.sin(2 * Math.PI * 1.8 * (t - start) / 1e9));
+            if (c.onLinearAcceleration(t, 0f, 0.3f * v, v)) return t - start;
+        }
+        return -1;
+    }
+
+    @Test
+    public void defaultsConfirmWalkingOnsetAsFastAsRmsOnly() {
+        for (int rate : new int[]{20, 50, 100}) {
+            long rmsOnly = walkingOnsetNanos(newClassifier(), rate);
+            long defaults = walkingOnsetNanos(MotionClassifier.withDefaults(), rate);
+            assertTrue("rate=" + rate + " onset=" + defaults, defaults >= 500 * MS && defaults <= 650 * MS);
+            assertEquals("rate=" + rate, rmsOnly, defaults);
+        }
+    }
+
+    @Test
+    public void accelerometerPathRemovesGravity() {
+        MotionClassifier c = newClassifier();
+        for (int i = 0; i < 300; i++) {
+            assertFalse(c.onAccelerometer(i * STEP, 0f, 9.81f, 0.2f));
+        }
+        // 重力に乗った振動（約2Hz, 振幅 3m/s^2）は MOVING
+        for (int i = 300; i < 600; i++) {
+            float shake = (float) (3.0 * Math.sin(i * STEP / 1e9 * 2 * Math.PI * 2));
+            c.onAccelerometer(i * STEP, 0f, 9.81f + shake, 0.2f);
+        }
+        assertTrue(c.isMoving());
+    }
+}
@@ -0,0 +1,183 @@
+package com.example.tiltcolor.dsp;
+
+import com.example.tiltcolor.util.TiltMath;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * ジャイロ＋加速度の融合推定（OrientationFilter / PoseEstimator）を
+ * 従来の加速度ローパス（GravityFilter）と比べて、遅れとノイズが小さいことを確認する。
+ * 入力は X軸周りの回転だけ（pitch = tilt になる向き）を 100Hz で合成したもの。
+ */
+public class OrientationFilterTest {
+
+    private static final float G = 9.81f;
+    private static final long PERIOD = 10_000_000L; // 100Hz
+    /** 旧実装の加速度ローパス（サンプルごとの重み 0.1）を、このテストの周期で時定数に直したもの */
+    private static final float LEGACY_TAU_S = (float) (-PERIOD * 1e-9 / Math.log(0.9));
+
+    @Test
+    public void convergesToGravityAtRest() {
+        OrientationFilter f = new OrientationFilter();
+        assertFalse(f.isInitialized());
+        for (int i = 0; i < 300; i++) {
+            long t = i * PERIOD;
+            f.onGyroscope(t, 0f, 0f, 0f);
+            f.onAccelerometer(t, 0f, G * sin(60), G * cos(60));
+        }
+        assertTrue(f.isInitialized());
+        assertEquals(60f, f.pitchDeg(), 0.01f);
+        assertEquals(60f, f.tiltDeg(), 0.01f);
+        assertEquals(0f, f.rollDeg(), 0.01f);
+    }
+
+    /** 85° → 35° を 0.25s で倒す: 65° を下回るまでの遅れ */
+    @Test
+    public void followsFastTiltWithoutLowPassLag() {
+        PoseEstimator fused = new PoseEstimator();
+        GravityFilter legacy = new GravityFilter(LEGACY_TAU_S);
+        long truthCross = -1, fusedCross = -1, legacyCross = -1;
+
+        for (int i = 0; i < 200; i++) {
+            long t = i * PERIOD;
+            double sec = t / 1e9;
+            double rate = sec >= 0.5 && sec < 0.75 ? -200.0 : 0.0; // deg/s
+            double p = 85.0 + (sec < 0.5 ? 0.0 : -200.0 * Math.min(sec - 0.5, 0.25));
+            float ax = 0f, ay = G * sin(p), az = G * cos(p);
+
+            fused.onGyroscope(t, (float) Math.toRadians(rate), 0f, 0f);
+            fused.onAccelerometer(t, ax, ay, az);
+            legacy.update(t, ax, ay, az);
+            float legacyTilt = (float) OrientationMath.tiltDeg(legacy.gx(), legacy.gy(), legacy.gz());
+
+            if (truthCross < 0 && p < 65.0) truthCross = t;
+            if (fusedCross < 0 && fused.tiltDeg() < 65f) fusedCross = t;
+            if (legacyCross < 0 && legacyTilt < 65f) legacyCross = t;
+        }
+
+        assertTrue(fused.isFused());
+        assertTrue("fused lag=" + (fusedCross - truthCross), Math.abs(fusedCross - truthCross) <= 2 * PERIOD);
+        assertTrue("legacy lag=" + (legacyCross - truthCross), legacyCross - truthCross >= 5 * PERIOD);
+    }
+
+    /** 前向きで歩行（上下動 + 手ぶれ）: 真の傾きとの RMS 誤差 */
+    @Test
+    public void rejectsWalkingAccelerationBetterThanLowPass() {
+        PoseEstimator fused = new PoseEstimator();
+        GravityFilter legacy = new GravityFilter(LEGACY_TAU_S);
+        Random rnd = new Random(2505);
+        double fusedSq = 0, legacySq = 0;
+        int n = 0;
+
+        for (int i = 0; i < 2000; i++) {
+            long t = i * PERIOD;
+            double sec = t / 1e9;
+            double w = 2 * Math.PI * 1.8;
+            double p = 75.0 + 2.0 * Math.sin(w * sec);
+            double rate = Math.toRadians(2.0 * w * Math.cos(w * sec));
+            double step = 2.5 * Math.sin(w * sec);
+            float ax = (float) (rnd.nextGaussian() * 0.03);
+            float ay = (float) (step * 0.3 + rnd.nextGaussian() * 0.03) + G * sin(p);
+            float az = (float) (step + rnd.nextGaussian() * 0.03) + G * cos(p);
+
+            fused.onGyroscope(t, (float) (rate + rnd.nextGaussian() * 0.01), 0f, 0f);
+            fused.onAccelerometer(t, ax, ay, az);
+            legacy.update(t, ax, ay, az);
+
+            if (sec < 2.0) continue; // 収束待ち
+            double le = OrientationMath.tiltDeg(legacy.gx(), legacy.gy(), legacy.gz()) - p;
+            double fe = fused.tiltDeg() - p;
+            legacySq += le * le;
+            fusedSq += fe * fe;
+            n++;
+        }
+        double fusedRms = Math.sqrt(fusedSq / n), legacyRms = Math.sqrt(legacySq / n);
+        assertTrue("fused=" + fusedRms + " legacy=" + legacyRms, fusedRms < legacyRms / 3);
+        assertTrue("fused=" + fusedRms, fusedRms < 2.5);
+    }
+
+    /** ジャイロのバイアスは加速度の補正で打ち消され、一定の誤差に収まる */
+    @Test
+    public void boundsGyroBiasDrift() {
+        OrientationFilter f = new OrientationFilter();
+        for (int i = 0; i < 6000; i++) { // 60s
+            long t = i * PERIOD;
+            f.onGyroscope(t, 0.02f, 0f, 0f);
+            f.onAccelerometer(t, 0f, G * sin(70), G * cos(70));
+        }
+        // 定常誤差 ≈ bias·τ = 0.01rad ≈ 0.6°
+        assertEquals(70f, f.pitchDeg(), 1.0f);
+    }
+
+    /** ジャイロが無ければ従来どおり: tilt は加速度ローパス、pitch は回転ベクトル */
+    @Test
+    public void fallsBackWithoutGyroscope() {
+        PoseEstimator est = new PoseEstimator();
+        GravityFilter legacy = new GravityFilter(GravityFilter.TILT_TIME_CONSTANT_S);
+        float[] rv = {(float) Math.sin(Math.toRadians(30)), 0f, 0f, (float) Math.cos(Math.toRadians(30))};
+        for (int i = 0; i < 50; i++) {
+            long t = i * PERIOD;
+            float ay = G * sin(40 + i), az = G * cos(40 + i);
+            est.onRotationVector(rv);
+            est.onAccelerometer(t, new float[]{0f, ay, az});
+            legacy.update(t, 0f, ay, az);
+        }
+        assertFalse(est.isFused());
+        assertEquals(60f, est.pitchDeg(), 0.01f);
+        assertEquals((float) OrientationMath.tiltDeg(legacy.gx(), legacy.gy(), legacy.gz()), est.tiltDeg(),
+                TiltMath.ATAN2_MAX_ERROR_DEG);
+    }
+
+    @Test
+    public void fallsBackWhenGyroscopeStopsButNotAfterAPause() {
+        PoseEstimator est = new PoseEstimator();
+        long t = 0L;
+        for (int i = 0; i < 50; i++, t += PERIOD) {
+            est.onAccelerometer(t, 0f, G * sin(40), G * cos(40));
+            est.onGyroscope(t, 0f, 0f, 0f);
+        }
+        assertTrue(est.isFused());
+
+        // 購読の停止・再開（加速度も途切れた）ではジャイロの待ちを数え直す
+        t += 5_000_000_000L;
+        est.onAccelerometer(t, 0f, G * sin(40), G * cos(40));
+        assertTrue(est.isFused());
+
+        // 加速度だけが届き続けたら GYRO_TIMEOUT_NANOS で回転ベクトル＋ローパスへ戻る
+        long until = t + PoseEstimator.GYRO_TIMEOUT_NANOS + PERIOD;
+        for (t += PERIOD; t <= until; t += PERIOD) est.onAccelerometer(t, 0f, G * sin(40), G * cos(40));
+        assertFalse(est.isFused());
+        est.onGyroscope(t, 0f, 0f, 0f);
+        assertTrue(est.isFused());
+    }
+
+    /** GATED 段（200ms）の揺らぎで間隔が上限を少し超えても、伏せ置きから起こした姿勢に追いつく */
+    @Test
+    public void recoversFromFaceDownWhenSamplesArriveJustOverTheGapLimit() {
+        for (long gap : new long[]{190_000_000L, 200_000_000L, 205_000_000L, 230_000_000L}) {
+            PoseEstimator est = new PoseEstimator();
+            long t = 0L;
+            for (; t < 5_000_000_000L; t += gap) {
+                est.onAccelerometer(t, 0f, 0f, -G);   // 伏せ置き
+                est.onGyroscope(t, 0f, 0f, 0f);
+            }
+            assertEquals(0f, est.tiltDeg(), 0.5f);
+            for (long end = t + 5_000_000_000L; t < end; t += gap) {
+                est.onAccelerometer(t, 0f, G, 0f);    // 縦に起こした
+                est.onGyroscope(t, 0f, 0f, 0f);
+            }
+            assertTrue(est.isFused());
+            assertEquals("gap=" + gap, 90f, est.tiltDeg(), 1f);
+            assertEquals("gap=" + gap, 90f, est.pitchDeg(), 1f);
+        }
+    }
+
+    private static float sin(double deg) { return (float) Math.sin(Math.toRadians(deg)); }
+    private static float cos(double deg) { return (float) Math.cos(Math.toRadians(deg)); }
+}
@@ -0,0 +1,87 @@
+package com.example.tiltcolor.dsp;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class OrientationMathTest {
+
+    private static final float EPS = 1e-4f;
+
+    /** 軸 (ax, ay, az) 周りに deg 回転する回転ベクトル（x, y, z, w） */
+    private static float[] rotationVector(double ax, double ay, double az, double deg) {
+        double h = Math.toRadians(deg) / 2;
+        double s = Math.sin(h);
+        return new float[]{(float) (ax * s), (float) (ay * s), (float) (az * s), (float) Math.cos(h)};
+    }
+
+    private static float[] orientation(float[] rv) {
+        float[] R = new float[9];
+        float[] o = new float[3];
+        OrientationMath.getRotationMatrixFromVector(R, rv);
+        OrientationMath.getOrientation(R, o);
+        return o;
+    }
+
+    @Test
+    public void identityGivesIdentityMatrix() {
+        float[] R = new float[9];
+        OrientationMath.getRotationMatrixFromVector(R, new float[]{0f, 0f, 0f, 1f});
+        float[] expected = {1, 0, 0, 0, 1, 0, 0, 0, 1};
+        for (int i = 0; i < 9; i++) assertEquals(expected[i], R[i], EPS);
+    }
+
+    @Test
+    public void missingScalarComponentIsReconstructed() {
+        float[] rv4 = rotationVector(0.3, 0.5, 0.812404, 40);
+        float[] rv3 = {rv4[0], rv4[1], rv4[2]};
+        float[] R4 = new float[9], R3 = new float[9];
+        OrientationMath.getRotationMatrixFromVector(R4, rv4);
+        OrientationMath.getRotationMatrixFromVector(R3, rv3);
+        for (int i = 0; i < 9; i++) assertEquals(R4[i], R3[i], EPS);
+    }
+
+    @Test
+    public void rotationAboutXAxisIsPitch() {
+        // X軸周り +30° → getOrientation の pitch は -30°（rad）
+        float[] o = orientation(rotationVector(1, 0, 0, 30));
+        assertEquals(0f, o[0], EPS);
+        assertEquals((float) Math.toRadians(-30), o[1], EPS);
+        assertEquals(0f, o[2], EPS);
+    }
+
+    @Test
+    public void rotationAboutZAxisIsAzimuth() {
+        float[] o = orientation(rotationVector(0, 0, 1, 50));
+        assertEquals((float) Math.toRadians(-50), o[0], EPS);
+        assertEquals(0f, o[1], EPS);
+        assertEquals(0f, o[2], EPS);
+    }
+
+    @Test
+    public void rotationAboutYAxisIsRoll() {
+        float[] o = orientation(rotationVector(0, 1, 0, 20));
+        assertEquals(0f, o[0], EPS);
+        assertEquals(0f, o[1], EPS);
+        assertEquals((float) Math.toRadians(20), o[2], EPS);
+    }
+
+    @Test
+    public void tiltFromGravity() {
+        assertEquals(0.0, OrientationMath.tiltDeg(0f, 0f, 9.81f), 1e-6);   // 平置き
+        assertEquals(0.0, OrientationMath.tiltDeg(0f, 0f, -9.81f), 1e-6);  // 伏せ置き
+        assertEquals(90.0, OrientationMath.tiltDeg(0f, 9.81f, 0f), 1e-6);  // 縦持ち
+        assertEquals(45.0, OrientationMath.tiltDeg(0f, 1f, 1f), 1e-4);
+        assertEquals(90.0, OrientationMath.tiltDeg(0f, 0f, 0f), 1e-6);     // 無重力でも NaN にしない
+    }
+
+    @Test
+    public void poseEstimatorUsesPoseDataSignConvention() {
+        PoseEstimator est = new PoseEstimator();
+        // 画面を下に向ける（X軸周り -40°）→ pitch は負
+        est.onRotationVector(rotationVector(1, 0, 0, -40));
+        assertEquals(-40f, est.pitchDeg(), 1e-3f);
+        est.onAccelerometer(0L, new float[]{0f, 9.81f, 0f});
+        assertEquals(90f, est.tiltDeg(), 1e-3f);
+    }
+}
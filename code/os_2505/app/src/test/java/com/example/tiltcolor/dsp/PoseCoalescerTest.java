@@ -0,0 +1,59 @@
+package com.example.tiltcolor.dsp;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PoseCoalescerTest {
+
+    private static final long MS = 1_000_000L;
+
+    @Test
+    public void firstPoseIsAlwaysEmitted() {
+        PoseCoalescer c = new PoseCoalescer(50 * MS, 0.5f);
+        assertTrue(c.offer(0, 0f, 0f));
+        assertEquals(1, c.emittedCount());
+    }
+
+    @Test
+    public void smallChangesAreSuppressedUntilTick() {
+        PoseCoalescer c = new PoseCoalescer(50 * MS, 0.5f);
+        c.offer(0, -10f, 60f);
+        assertFalse(c.offer(10 * MS, -10.2f, 60.1f));
+        assertFalse(c.offer(20 * MS, -9.9f, 59.8f));
+        assertTrue(c.offer(50 * MS, -10f, 60f));   // tick 到達
+        assertFalse(c.offer(60 * MS, -10f, 60f));
+        assertEquals(2, c.emittedCount());
+        assertEquals(3, c.suppressedCount());
+    }
+
+    @Test
+    public void meaningfulChangeIsEmittedImmediately() {
+        PoseCoalescer c = new PoseCoalescer(50 * MS, 0.5f);
+        c.offer(0, -10f, 60f);
+        assertTrue(c.offer(1 * MS, -11f, 60f));    // pitch 変化
+        assertTrue(c.offer(2 * MS, -11f, 61f));    // tilt 変化
+        // 基準は最後に通知した値（小さな変化の積み重ねも epsilon を超えれば通知）
+        assertFalse(c.offer(3 * MS, -11.3f, 61f));
+        assertTrue(c.offer(4 * MS, -11.6f, 61f));
+    }
+
+    @Test
+    public void duplicateStreamsAreCollapsed() {
+        // 回転ベクトルと加速度が同じ姿勢で交互に来る → 約 tick ごとの通知に減る
+        PoseCoalescer c = new PoseCoalescer(50 * MS, 0.5f);
+        for (int i = 0; i < 1000; i++) c.offer(i * 5 * MS, -20f, 70f);
+        assertEquals(100, c.emittedCount());
+        assertEquals(900, c.suppressedCount());
+    }
+
+    @Test
+    public void resetForcesNextEmit() {
+        PoseCoalescer c = new PoseCoalescer(50 * MS, 0.5f);
+        c.offer(0, 0f, 0f);
+        c.reset();
+        assertTrue(c.offer(1 * MS, 0f, 0f));
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.tiltcolor.dsp;
+
+import com.example.tiltcolor.AllocationCounter;
+import com.example.tiltcolor.domain.PoseData;
+import com.example.tiltcolor.domain.PoseSnapshot;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+/**
+ * SensorRepository / MotionDetector がイベントごとに行う処理（推定 → スナップショット上書き →
+ * リスナー通知）が定常状態でヒープ確保をしないことを確認する。
+ */
+public class PosePipelineAllocationTest {
+
+    private static final int EVENTS = 100_000;
+
+    private final PoseEstimator estimator = new PoseEstimator();
+    private final PoseSnapshot snapshot = new PoseSnapshot();
+    private final MotionClassifier motion =
+            new MotionClassifier(500_000_000L, 500_000_000L, 0.28, 0.3, true);
+    private final float[] rv = new float[4];
+    private final float[] acc = new float[3];
+    private final float[] gyro = new float[3];
+    private long t = 0L;
+    private float sink;
+
+    private void runEvents(int n) {
+        for (int i = 0; i < n; i++) {
+            t += 10_000_000L; // 100Hz（時刻は呼び出しをまたいで単調増加）
+            double h = Math.toRadians(-30 + 20 * Math.sin(i * 0.01)) / 2;
+            rv[0] = (float) Math.sin(h); rv[1] = 0f; rv[2] = 0f; rv[3] = (float) Math.cos(h);
+            acc[0] = 0.1f; acc[1] = 6.9f + (float) Math.sin(i * 0.2); acc[2] = 6.9f;
+
+            // 回転ベクトル → 通知
+            estimator.onRotationVector(rv);
+            snapshot.set(estimator.pitchDeg(), estimator.rollDeg(), estimator.yawDeg(),
+                    estimator.tiltDeg(), t / 1_000_000L, t);
+            sink += snapshot.pitchDeg();
+
+            // 加速度 → 通知
+            estimator.onAccelerometer(t, acc);
+            snapshot.set(estimator.pitchDeg(), estimator.rollDeg(), estimator.yawDeg(),
+                    estimator.tiltDeg(), t / 1_000_000L, t);
+            sink += snapshot.tiltDeg();
+
+            // ジャイロ → 通知（融合推定）
+            gyro[0] = 0.05f * (float) Math.cos(i * 0.01); gyro[1] = 0.01f; gyro[2] = -0.02f;
+            if (estimator.onGyroscope(t, gyro)) {
+                snapshot.set(estimator.pitchDeg(), estimator.rollDeg(), estimator.yawDeg(),
+                        estimator.tiltDeg(), t / 1_000_000L, t);
+                sink += snapshot.pitchDeg();
+            }
+
+            // 歩行判定
+            if (motion.onAccelerometer(t, acc[0], acc[1], acc[2])) sink += 1f;
+        }
+    }
+
+    @Test
+    public void steadyStateAllocatesNothingPerEvent() {
+        runEvents(EVENTS); // ウォームアップ（RmsWindow の容量確定・JIT）
+        long bytes = AllocationCounter.allocatedBytes(() -> runEvents(EVENTS));
+        // 計測まわりの数十バイトは許容し、イベントあたりで 0 を要求する
+        assertEquals("bytes/event (total " + bytes + " for " + EVENTS + " events)",
+                0L, bytes / EVENTS);
+    }
+
+    @Test
+    public void poseDataIsBuiltOnlyOnDemandAndCached() {
+        snapshot.set(-40f, 1f, 2f, 60f, 123L, 456L);
+        PoseData a = snapshot.toPoseData();
+        assertSame(a, snapshot.toPoseData());
+        assertEquals(-40f, a.pitchDeg, 0f);
+        assertEquals(60f, a.tiltDeg, 0f);
+        assertEquals(123L, a.tsMillis);
+
+        snapshot.set(-10f, 1f, 2f, 60f, 124L, 457L);
+        PoseData b = snapshot.toPoseData();
+        assertNotSame(a, b);
+        assertEquals(-40f, a.pitchDeg, 0f); // 渡した PoseData は不変のまま
+        assertEquals(-10f, b.pitchDeg, 0f);
+    }
+}
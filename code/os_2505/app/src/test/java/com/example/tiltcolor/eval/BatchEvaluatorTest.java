@@ -0,0 +1,184 @@
+package com.example.tiltcolor.eval;
+
+import com.example.tiltcolor.decision.BlockDecision;
+import com.example.tiltcolor.trace.SyntheticTrace;
+import com.example.tiltcolor.trace.TraceReader;
+import com.example.tiltcolor.trace.TraceReplay;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * BatchEvaluator が TraceReplay（GuardService と同じ判定経路）と同じ結果を出し、
+ * 並列スイープでも結果が変わらないことを確認する。
+ */
+public class BatchEvaluatorTest {
+
+    private static final long SEC = 1_000_000_000L;
+
+    /** 静止前向き 5s → 歩行前向き 10s → 歩行下向き 10s → 静止下向き 5s */
+    private static byte[] trace() throws IOException {
+        return trace(false);
+    }
+
+    private static byte[] trace(boolean gyro) throws IOException {
+        return new SyntheticTrace(100, gyro)
+                .segment(5, false, 85)
+                .segment(10, true, 85)
+                .segment(10, true, 30)
+                .segment(5, false, 30)
+                .toByteArray();
+    }
+
+    private static BatchEvaluator.Sample sample(byte[] trace) throws IOException {
+        long t0 = SyntheticTrace.startNanos();
+        TraceColumns columns = TraceColumns.load(new TraceReader(new ByteArrayInputStream(trace)));
+        return new BatchEvaluator.Sample(columns, Labels.of(t0 + 15 * SEC, t0 + 25 * SEC));
+    }
+
+    @Test
+    public void defaultConfigMatchesReplay() throws IOException {
+        assertMatchesReplay(trace());
+    }
+
+    /** ジャイロ入りのトレース（融合推定の経路）でも一致する */
+    @Test
+    public void defaultConfigMatchesReplayWithGyro() throws IOException {
+        assertMatchesReplay(trace(true));
+    }
+
+    private static void assertMatchesReplay(byte[] trace) throws IOException {
+        TraceReplay replay = replay(trace);
+        EvalResult r = BatchEvaluator.evaluate(sample(trace), EvalConfig.DEFAULT);
+
+        assertEquals(replay.blockCount(), r.blockCount);
+        assertEquals(replay.blockedNanos(), r.truePositiveNanos + r.falsePositiveNanos);
+        assertEquals(replay.firstBlockNanos() - (SyntheticTrace.startNanos() + 15 * SEC), r.timeToBlockMaxNanos);
+    }
+
+    private static TraceReplay replay(byte[] trace) throws IOException {
+        TraceReader reader = new TraceReader(new ByteArrayInputStream(trace));
+        TraceReplay replay = new TraceReplay(new BlockDecision(65f, 65f, 300, 0f), reader.hasLinearAcceleration());
+        replay.run(reader);
+        return replay;
+    }
+
+    /** 伏せ置きのまま歩く（画面は見えない）: PocketGate が閉じてブロックしないところまで一致する */
+    @Test
+    public void faceDownGateMatchesReplay() throws IOException {
+        for (boolean gyro : new boolean[]{false, true}) {
+            byte[] trace = new SyntheticTrace(100, gyro)
+                    .segment(3, true, 85)
+                    .segment(20, true, 180)
+                    .toByteArray();
+            TraceReplay replay = replay(trace);
+            EvalResult r = BatchEvaluator.evaluate(
+                    new BatchEvaluator.Sample(TraceColumns.load(new TraceReader(new ByteArrayInputStream(trace))),
+                            Labels.of()), EvalConfig.DEFAULT);
+
+            assertEquals(1, replay.loop().gate().entries());
+            assertEquals("gyro=" + gyro, replay.blockCount(), r.blockCount);
+            assertEquals("gyro=" + gyro, replay.blockedNanos(), r.falsePositiveNanos);
+            // ゲートが閉じるまで（伏せてから ENTER_FACE_DOWN_MS 前後）しかブロックしない
+            assertTrue("fp=" + r.falsePositiveNanos, r.falsePositiveNanos < 2 * SEC);
+        }
+    }
+
+    /** 記録した近接（ポケットに出し入れ）でも一致する */
+    @Test
+    public void proximityGateMatchesReplay() throws IOException {
+        byte[] trace = new SyntheticTrace(100)
+                .segment(10, true, 30).proximity(true)
+                .segment(10, true, 30).proximity(false)
+                .segment(10, true, 30)
+                .toByteArray();
+        long t0 = SyntheticTrace.startNanos();
+        TraceReplay replay = replay(trace);
+        TraceColumns columns = TraceColumns.load(new TraceReader(new ByteArrayInputStream(trace)));
+        EvalResult r = BatchEvaluator.evaluate(new BatchEvaluator.Sample(columns,
+                Labels.of(t0, t0 + 10 * SEC, t0 + 20 * SEC, t0 + 30 * SEC)), EvalConfig.DEFAULT);
+
+        assertEquals(1, replay.loop().gate().entries());
+        assertEquals(2, replay.blockCount());
+        assertEquals(replay.blockCount(), r.blockCount);
+        assertEquals(replay.blockedNanos(), r.truePositiveNanos + r.falsePositiveNanos);
+        // ポケットの中（NEAR が 500ms 続いた後）はブロックしない
+        assertTrue("fp=" + r.falsePositiveNanos, r.falsePositiveNanos < SEC);
+    }
+
+    @Test
+    public void reportsPrecisionRecallAndTimeToBlock() throws IOException {
+        EvalResult r = BatchEvaluator.evaluate(sample(trace()), EvalConfig.DEFAULT);
+
+        assertEquals(1, r.labeledIntervals);
+        assertEquals(0, r.missedIntervals);
+        // 解除は止まってから RMS 窓＋持続ぶん遅れるので precision は 1 未満、recall はデバウンス分だけ欠ける
+        assertTrue("precision=" + r.precision(), r.precision() > 0.7 && r.precision() < 1.0);
+        assertTrue("recall=" + r.recall(), r.recall() > 0.9 && r.recall() < 1.0);
+        assertTrue("ttb=" + r.meanTimeToBlockMs(), r.meanTimeToBlockMs() >= 300 && r.meanTimeToBlockMs() < 1000);
+    }
+
+    @Test
+    public void longerDebounceBlocksLater() throws IOException {
+        BatchEvaluator.Sample s = sample(trace());
+        EvalConfig d = EvalConfig.DEFAULT;
+        EvalConfig slow = new EvalConfig(d.hideThreshold, d.showThreshold, 2000, d.baselinePitch,
+                d.windowMs, d.holdMs, d.threshMove, d.threshStill, d.gait);
+
+        EvalResult fast = BatchEvaluator.evaluate(s, d);
+        EvalResult late = BatchEvaluator.evaluate(s, slow);
+
+        assertTrue(late.timeToBlockMaxNanos >= fast.timeToBlockMaxNanos + 1_500_000_000L);
+        assertTrue(late.recall() < fast.recall());
+    }
+
+    @Test
+    public void parallelSweepMatchesSequential() throws IOException {
+        List<BatchEvaluator.Sample> corpus = new ArrayList<>();
+        corpus.add(sample(trace()));
+        corpus.add(sample(new SyntheticTrace(50).segment(20, false, 30).toByteArray()));
+        List<EvalConfig> configs = BatchEvaluator.grid(
+                new float[]{55f, 65f, 75f}, new long[]{0, 300, 1000},
+                new long[]{500}, new long[]{250, 500}, new double[]{0.28, 0.5});
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            List<EvalResult> parallel = BatchEvaluator.sweep(corpus, configs, pool);
+            assertEquals(configs.size(), parallel.size());
+            for (int i = 0; i < configs.size(); i++) {
+                EvalResult seq = BatchEvaluator.evaluate(corpus, configs.get(i));
+                EvalResult par = parallel.get(i);
+                assertEquals(configs.get(i), par.config);
+                assertEquals(seq.truePositiveNanos, par.truePositiveNanos);
+                assertEquals(seq.falsePositiveNanos, par.falsePositiveNanos);
+                assertEquals(seq.blockCount, par.blockCount);
+                assertEquals(seq.timeToBlockSumNanos, par.timeToBlockSumNanos);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsOverlappingLabels() {
+        Labels.of(0, 10, 5, 20);
+    }
+
+    @Test
+    public void emptyCorpusIsNeutral() {
+        EvalResult r = BatchEvaluator.evaluate(Collections.<BatchEvaluator.Sample>emptyList(), EvalConfig.DEFAULT);
+        assertEquals(1.0, r.precision(), 0.0);
+        assertEquals(1.0, r.recall(), 0.0);
+        assertTrue(Double.isNaN(r.meanTimeToBlockMs()));
+        assertEquals(0L, r.blockCount);
+    }
+}
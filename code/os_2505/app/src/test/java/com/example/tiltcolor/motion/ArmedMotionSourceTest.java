@@ -0,0 +1,133 @@
+package com.example.tiltcolor.motion;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ArmedMotionSourceTest {
+
+    private static final long MS = 1_000_000L;
+
+    /** きっかけセンサーの代わり（fire で発火） */
+    private static final class FakeWake implements WakeSource {
+        boolean available = true;
+        int armCount = 0;
+        int availableChecks = 0;
+        Listener listener;
+
+        @Override public boolean isAvailable() { availableChecks++; return available; }
+        @Override public void arm(Listener l) { listener = l; armCount++; }
+        @Override public void disarm() { listener = null; }
+
+        void fire(long t) { if (listener != null) listener.onWake(t); }
+    }
+
+    private FakeMotionSource rms;
+    private FakeWake wake;
+    private ArmedMotionSource source;
+    private boolean lastMoving;
+    private int notifications;
+
+    @Before
+    public void setUp() {
+        rms = new FakeMotionSource();
+        wake = new FakeWake();
+        source = new ArmedMotionSource(rms, wake, 10_000);
+        source.setListener((moving, r) -> { lastMoving = moving; notifications++; });
+    }
+
+    @Test
+    public void rmsPathSleepsUntilWake() {
+        source.start();
+        assertTrue(source.isRunning());
+        assertFalse(source.isAwake());
+        assertFalse(rms.isRunning());
+        assertFalse(rms.emit(0, true, 1.0)); // 寝ている間はサンプルが来ない
+
+        wake.fire(100 * MS);
+        assertTrue(source.isAwake());
+        assertTrue(rms.isRunning());
+        assertEquals(1, source.wakeCount());
+
+        rms.emit(200 * MS, true, 1.2);
+        assertTrue(lastMoving);
+        assertEquals(1, notifications);
+    }
+
+    @Test
+    public void goesBackToSleepAfterIdleAndRearms() {
+        source.start();
+        wake.fire(0);
+        rms.emit(1_000 * MS, true, 1.0);
+        rms.emit(5_000 * MS, false, 0.1);
+        assertTrue(source.isAwake());
+        rms.emit(10_999 * MS, false, 0.1);
+        assertTrue(source.isAwake());
+
+        int armsBefore = wake.armCount;
+        rms.emit(11_000 * MS, false, 0.1);   // 最後の MOVING から 10 秒
+        assertFalse(source.isAwake());
+        assertFalse(rms.isRunning());
+        assertFalse(lastMoving);
+        assertEquals(armsBefore + 1, wake.armCount);
+
+        wake.fire(20_000 * MS);
+        assertTrue(rms.isRunning());
+        assertEquals(2, source.wakeCount());
+    }
+
+    @Test
+    public void stepsKeepPipelineAwake() {
+        source.start();
+        wake.fire(0);
+        for (long t = 1_000; t <= 30_000; t += 1_000) {
+            wake.fire(t * MS);                 // 歩数は来ているが RMS はまだ STILL
+            rms.emit(t * MS + 1, false, 0.2);
+        }
+        assertTrue(source.isAwake());
+    }
+
+    @Test
+    public void fallsBackToContinuousRmsWithoutWakeSensors() {
+        wake.available = false;
+        source.start();
+        assertTrue(source.isAwake());
+        assertTrue(rms.isRunning());
+        rms.emit(0, false, 0.0);
+        rms.emit(60_000 * MS, false, 0.0);
+        assertTrue(rms.isRunning());          // 寝かせない
+    }
+
+    @Test
+    public void availabilityIsCheckedOncePerStart() {
+        source.start();
+        wake.fire(0);
+        for (long t = 0; t <= 5_000; t += 20) rms.emit(t * MS, false, 0.0);  // 50Hz の STILL
+        assertEquals(1, wake.availableChecks);
+        source.stop();
+        source.start();
+        assertEquals(2, wake.availableChecks);
+    }
+
+    @Test
+    public void rateSettingsAreForwarded() {
+        source.setSamplingPeriodUs(50_000);
+        source.setMaxReportLatencyUs(1_000_000);
+        assertEquals(50_000, rms.samplingPeriodUs());
+        assertEquals(1_000_000, rms.maxReportLatencyUs());
+    }
+
+    @Test
+    public void stopDisarmsEverything() {
+        source.start();
+        wake.fire(0);
+        source.stop();
+        assertFalse(source.isRunning());
+        assertFalse(rms.isRunning());
+        wake.fire(1);                          // disarm 済み
+        assertFalse(rms.isRunning());
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.tiltcolor.sensor;
+
+import com.example.tiltcolor.AllocationCounter;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SensorFanoutTest {
+
+    private static final long MS = 1_000_000L;
+    private static final int TYPE = 11; // Sensor.TYPE_ROTATION_VECTOR
+
+    /** 受けた件数と最後の時刻を数えるだけの購読者 */
+    private static final class Counter implements SensorFanout.Subscriber {
+        int count;
+        long last = -1L;
+
+        @Override public void onSensorEvent(int type, long timestampNanos, float[] values) {
+            assertEquals(TYPE, type);
+            count++;
+            last = timestampNanos;
+        }
+    }
+
+    @Test
+    public void registersFastestActiveRequestAndDecimatesSlowerSubscribers() {
+        SensorFanout f = new SensorFanout(TYPE);
+        Counter game = new Counter(), ui = new Counter(), live = new Counter();
+        assertTrue(f.put(ui, 2, 0));                 // SENSOR_DELAY_UI
+        assertEquals(66_667, f.samplingPeriodUs());
+        assertTrue(f.put(game, 20_000, 0));
+        assertFalse(f.putPassive(live, 100_000));    // passive は登録を変えない
+        assertEquals(20_000, f.samplingPeriodUs());
+
+        // 20ms ± 3ms の揺らぎで 10秒
+        Random rnd = new Random(3);
+        float[] v = new float[3];
+        long t = 1_000 * MS;
+        for (int i = 0; i < 500; i++) {
+            f.dispatch(t, v);
+            t += 17 * MS + rnd.nextInt(7) * MS;
+        }
+        assertEquals(500, game.count);                // 最速の購読者は間引かない
+        assertEquals(150, ui.count, 3);               // 10秒 / 66.7ms
+        assertEquals(100, live.count, 3);             // 10秒 / 100ms
+        assertEquals(500, f.receivedCount());
+        assertEquals(game.count + ui.count + live.count, f.deliveredCount());
+    }
+
+    @Test
+    public void registrationFollowsSubscribersAsTheyComeAndGo() {
+        SensorFanout f = new SensorFanout(TYPE);
+        Counter a = new Counter(), b = new Counter(), p = new Counter();
+        assertFalse(f.isActive());
+        assertFalse(f.putPassive(p, 100_000));
+        assertFalse(f.isActive());
+
+        assertTrue(f.put(a, 200_000, 1_000_000));     // バッチ配送を許す
+        assertEquals(1_000_000, f.maxReportLatencyUs());
+        assertTrue(f.put(b, 200_000, 0));             // 即時配送が要る購読者が来たら即時に
+        assertEquals(0, f.maxReportLatencyUs());
+        assertFalse(f.put(b, 200_000, 0));            // 変わらない
+        assertTrue(f.put(b, 20_000, 0));              // 周期だけ差し替え
+        assertEquals(20_000, f.samplingPeriodUs());
+        assertEquals(3, f.subscriberCount());
+
+        assertTrue(f.remove(b));
+        assertEquals(200_000, f.samplingPeriodUs());
+        assertEquals(1_000_000, f.maxReportLatencyUs());
+        assertFalse(f.remove(b));                     // 2回目は何もしない
+        assertTrue(f.remove(a));
+        assertFalse(f.isActive());
+        assertEquals(-1, f.samplingPeriodUs());
+        assertEquals(1, f.subscriberCount());         // passive は残る
+    }
+
+    @Test
+    public void changesDuringDispatchTakeEffectFromTheNextEvent() {
+        SensorFanout f = new SensorFanout(TYPE);
+        Counter late = new Counter();
+        SensorFanout.Subscriber[] self = new SensorFanout.Subscriber[1];
+        int[] calls = new int[1];
+        self[0] = (type, t, values) -> {
+            calls[0]++;
+            f.remove(self[0]);        // 自分を外し、代わりを入れる
+            f.put(late, 20_000, 0);
+        };
+        f.put(self[0], 20_000, 0);
+
+        float[] v = new float[3];
+        f.dispatch(0, v);
+        assertEquals(1, calls[0]);
+        assertEquals(0, late.count);  // 配送中に入った購読者は次のイベントから
+        f.dispatch(20 * MS, v);
+        assertEquals(1, calls[0]);
+        assertEquals(1, late.count);
+    }
+
+    @Test
+    public void gapRestartsTheDecimationGrid() {
+        SensorFanout f = new SensorFanout(TYPE);
+        Counter fast = new Counter(), slow = new Counter();
+        f.put(fast, 20_000, 0);
+        f.put(slow, 100_000, 0);
+        float[] v = new float[3];
+        f.dispatch(0, v);
+        f.dispatch(20 * MS, v);
+        assertEquals(1, slow.count);
+        f.dispatch(5_000 * MS, v);    // 止まっていた後の1件目はすぐ配る
+        assertEquals(2, slow.count);
+        f.dispatch(5_020 * MS, v);
+        assertEquals(2, slow.count);
+        f.dispatch(5_100 * MS, v);
+        assertEquals(3, slow.count);
+    }
+
+    @Test
+    public void dispatchDoesNotAllocate() {
+        SensorFanout f = new SensorFanout(TYPE);
+        Counter a = new Counter(), b = new Counter(), c = new Counter();
+        f.put(a, 20_000, 0);
+        f.put(b, 66_667, 0);
+        f.putPassive(c, 100_000);
+        float[] v = {0.1f, 0.2f, 0.3f, 0.9f};
+        int n = 100_000;
+        for (int i = 0; i < n; i++) f.dispatch(i * 20 * MS, v); // 暖機
+        long bytes = AllocationCounter.allocatedBytes(() -> {
+            for (int i = 0; i < n; i++) f.dispatch((n + i) * 20 * MS, v);
+        });
+        assertEquals(0L, bytes);
+        assertEquals(2L * n, a.count);
+    }
+}
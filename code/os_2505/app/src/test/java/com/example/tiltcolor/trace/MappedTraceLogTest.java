@@ -0,0 +1,224 @@
+package com.example.tiltcolor.trace;
+
+import com.example.tiltcolor.AllocationCounter;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class MappedTraceLogTest {
+
+    /** 64 レコードのセグメント */
+    private static final int SMALL_SEGMENT = MappedTraceLog.HEADER_BYTES + 64 * MappedTraceLog.RECORD_BYTES;
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    /** 次のセグメントが間に合わなければ I/O スレッドを待って書き直す（テスト用） */
+    private static void writeOrWait(MappedTraceLog log, int type, long t, float[] v) {
+        while (!log.write(type, t, v)) Thread.yield();
+    }
+
+    /** close() して I/O スレッドが止まるまで待つ */
+    private static void closeAndWait(MappedTraceLog log) {
+        log.close();
+        try {
+            assertTrue(log.awaitTermination(10_000));
+        } catch (InterruptedException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static TraceReader export(File dir) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        MappedTraceLog.export(dir, bytes);
+        return new TraceReader(new ByteArrayInputStream(bytes.toByteArray()));
+    }
+
+    @Test
+    public void rotatesCompressesAndExportsInOrder() throws IOException {
+        File dir = tmp.newFolder("trace");
+        MappedTraceLog log = new MappedTraceLog(dir, SensorTrace.FLAG_HAS_LINEAR_ACCELERATION,
+                SMALL_SEGMENT, 1L << 30);
+        for (int i = 0; i < 1000; i++) {
+            if (i % 2 == 0) {
+                writeOrWait(log, SensorTrace.TYPE_ROTATION_VECTOR, i, new float[]{i, 0.5f, -0.5f, 1f, -1f});
+            } else {
+                writeOrWait(log, SensorTrace.TYPE_ACCELEROMETER, i, new float[]{i, 9.8f, 0f});
+            }
+        }
+        closeAndWait(log);
+
+        assertNull(log.ioError());
+        assertEquals(1000, log.writtenCount());
+        // 64 件 × 15 + 40 件 → 16 セグメント、生ファイルは残らない
+        assertEquals(16, log.compressedCount());
+        String[] names = dir.list();
+        assertEquals(16, names.length);
+        for (String n : names) assertTrue(n, n.endsWith(".seg.gz"));
+
+        TraceReader r = export(dir);
+        assertTrue(r.hasLinearAcceleration());
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(r.next());
+            assertEquals(i, r.timestampNanos());
+            if (i % 2 == 0) {
+                assertEquals(SensorTrace.TYPE_ROTATION_VECTOR, r.type());
+                assertArrayEquals(new float[]{i, 0.5f, -0.5f, 1f, -1f}, r.values(), 0f);
+            } else {
+                assertEquals(SensorTrace.TYPE_ACCELEROMETER, r.type());
+                assertArrayEquals(new float[]{i, 9.8f, 0f}, r.values(), 0f);
+            }
+        }
+        assertFalse(r.next());
+    }
+
+    @Test
+    public void totalSizeStaysUnderCapByDroppingOldestSegments() throws IOException {
+        File dir = tmp.newFolder("trace");
+        long cap = 3L * SMALL_SEGMENT;
+        MappedTraceLog log = new MappedTraceLog(dir, 0, SMALL_SEGMENT, cap);
+        float[] v = new float[3];
+        for (int i = 0; i < 20_000; i++) {
+            v[0] = (float) Math.sin(i * 0.01);
+            writeOrWait(log, SensorTrace.TYPE_ACCELEROMETER, i, v);
+        }
+        closeAndWait(log);
+
+        long total = 0;
+        for (File f : dir.listFiles()) total += f.length();
+        assertTrue("total=" + total, total <= cap);
+        assertTrue(log.deletedCount() > 0);
+
+        // 残っているのは末尾の連続した区間
+        TraceReader r = export(dir);
+        long prev = -1, n = 0;
+        while (r.next()) {
+            if (prev >= 0) assertEquals(prev + 1, r.timestampNanos());
+            prev = r.timestampNanos();
+            n++;
+        }
+        assertEquals(19_999, prev);
+        assertTrue(n > 0);
+    }
+
+    @Test
+    public void newLogContinuesAfterExistingSegments() throws IOException {
+        File dir = tmp.newFolder("trace");
+        MappedTraceLog a = new MappedTraceLog(dir, 0, SMALL_SEGMENT, 1L << 30);
+        for (int i = 0; i < 10; i++) writeOrWait(a, SensorTrace.TYPE_ACCELEROMETER, i, new float[3]);
+        closeAndWait(a);
+        MappedTraceLog b = new MappedTraceLog(dir, 0, SMALL_SEGMENT, 1L << 30);
+        for (int i = 10; i < 20; i++) writeOrWait(b, SensorTrace.TYPE_ACCELEROMETER, i, new float[3]);
+        closeAndWait(b);
+
+        TraceReader r = export(dir);
+        for (int i = 0; i < 20; i++) {
+            assertTrue(r.next());
+            assertEquals(i, r.timestampNanos());
+        }
+        assertFalse(r.next());
+    }
+
+    @Test
+    public void emptyLogLeavesNoFiles() throws IOException {
+        File dir = tmp.newFolder("trace");
+        closeAndWait(new MappedTraceLog(dir, 0, SMALL_SEGMENT, 1L << 30));
+        assertEquals(0, dir.list().length);
+    }
+
+    @Test
+    public void writeDoesNotAllocate() throws IOException {
+        MappedTraceLog log = new MappedTraceLog(tmp.newFolder("trace"), "1000", 0);
+        float[] v = {0.1f, 0.2f, 0.3f, 0.9f};
+        int perBurst = 10_000;   // 3 バーストでも1セグメント（32767 件）に収まる
+        long[] t = {0};
+        Runnable burst = () -> {
+            for (int i = 0; i < perBurst; i++) log.write(SensorTrace.TYPE_ROTATION_VECTOR, t[0]++, v);
+        };
+        burst.run(); // JIT を温める
+        assertEquals(0L, AllocationCounter.allocatedBytes(burst) / perBurst);
+        closeAndWait(log);
+        assertEquals(0, log.droppedCount());
+    }
+
+    @Test
+    public void capCountsEverySessionUnderRoot() throws IOException {
+        File root = tmp.newFolder("trace");
+        long cap = 3L * SMALL_SEGMENT;
+        float[] v = new float[3];
+        for (String session : new String[]{"1000", "2000"}) {
+            MappedTraceLog log = new MappedTraceLog(root, session, 0, SMALL_SEGMENT, cap);
+            for (int i = 0; i < 20_000; i++) {
+                v[0] = (float) Math.sin(i * 0.01);
+                writeOrWait(log, SensorTrace.TYPE_ACCELEROMETER, i, v);
+            }
+            closeAndWait(log);
+        }
+
+        long total = 0;
+        for (File s : root.listFiles()) for (File f : s.listFiles()) total += f.length();
+        assertTrue("total=" + total, total <= cap);
+        // 古い記録は全部消え、ディレクトリも残らない
+        assertArrayEquals(new String[]{"2000"}, root.list());
+    }
+
+    @Test
+    public void leftoverRawSegmentsAreCompressedOnStartup() throws IOException {
+        File root = tmp.newFolder("trace");
+        File crashed = new File(root, "1000");
+        assertTrue(crashed.mkdirs());
+        // 閉じる前に止まった記録: records = 0 のまま 10 件、その先は空き
+        writeRawSegment(new File(crashed, "000000.seg"), 10);
+        // 形式の違うファイルは消す
+        try (FileOutputStream out = new FileOutputStream(new File(crashed, "000001.seg"))) {
+            out.write(new byte[8]);
+        }
+
+        MappedTraceLog log = new MappedTraceLog(root, "2000", 0, SMALL_SEGMENT, 1L << 30);
+        for (int i = 10; i < 20; i++) writeOrWait(log, SensorTrace.TYPE_ACCELEROMETER, i, new float[3]);
+        closeAndWait(log);
+
+        assertNull(log.ioError());
+        assertArrayEquals(new String[]{"000000.seg.gz"}, crashed.list());
+        TraceReader r = export(crashed);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(r.next());
+            assertEquals(i, r.timestampNanos());
+            assertArrayEquals(new float[]{i, 9.8f, 0f}, r.values(), 0f);
+        }
+        assertFalse(r.next());
+    }
+
+    /** MappedTraceLog のセグメント形式で、ヘッダの records を書かずに n 件書いたファイルを作る */
+    private static void writeRawSegment(File f, int n) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(SMALL_SEGMENT);
+        buf.putInt(0, MappedTraceLog.MAGIC);
+        buf.putInt(4, MappedTraceLog.VERSION);
+        buf.putInt(12, MappedTraceLog.RECORD_BYTES);
+        for (int i = 0; i < n; i++) {
+            int base = MappedTraceLog.HEADER_BYTES + i * MappedTraceLog.RECORD_BYTES;
+            buf.putLong(base, i);
+            buf.put(base + 8, (byte) SensorTrace.TYPE_ACCELEROMETER);
+            buf.put(base + 9, (byte) 3);
+            buf.putFloat(base + 12, i);
+            buf.putFloat(base + 16, 9.8f);
+        }
+        try (FileOutputStream out = new FileOutputStream(f)) {
+            out.write(buf.array());
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.tiltcolor.trace;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * テスト用の合成トレース（固定シードで再現可能）。
+ * 区間ごとに「歩行中か」「pitch（deg）」を指定し、rateHz 間隔で
+ * 回転ベクトル・加速度・線形加速度（gyro 指定時はジャイロも）を1件ずつ書く。
+ * proximity() で区間の境目に近接の変化を書ける。
+ */
+public final class SyntheticTrace {
+
+    private static final float G = 9.81f;
+
+    private final TraceWriter writer;
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    private final long periodNanos;
+    private final Random rnd = new Random(2505);
+    private final float[] rv = new float[4];
+    private final float[] acc = new float[3];
+    private final float[] lin = new float[3];
+    private final float[] gyro = new float[3];
+    private final float[] prox = {0f, 5f};
+    private final boolean withGyro;
+    private long t = 1_000_000_000L;
+
+    public SyntheticTrace(int rateHz) throws IOException {
+        this(rateHz, false);
+    }
+
+    public SyntheticTrace(int rateHz, boolean withGyro) throws IOException {
+        this.withGyro = withGyro;
+        this.periodNanos = 1_000_000_000L / rateHz;
+        this.writer = new TraceWriter(bytes, SensorTrace.FLAG_HAS_LINEAR_ACCELERATION);
+    }
+
+    /** seconds 秒ぶん、歩行（約1.8Hzの上下動）/静止と pitch を指定して書く */
+    public SyntheticTrace segment(double seconds, boolean walking, double pitchDeg) throws IOException {
+        long end = t + (long) (seconds * 1e9);
+        for (; t < end; t += periodNanos) {
+            double sec = t / 1e9;
+            double step = walking ? 2.5 * Math.sin(2 * Math.PI * 1.8 * sec) : 0.0;
+            lin[0] = (float) (rnd.nextGaussian() * 0.03);
+            lin[1] = (float) (step * 0.3 + rnd.nextGaussian() * 0.03);
+            lin[2] = (float) (step + rnd.nextGaussian() * 0.03);
+
+            double p = Math.toRadians(pitchDeg + (walking ? 2.0 * Math.sin(2 * Math.PI * 1.8 * sec) : 0.0));
+            acc[0] = lin[0];
+            acc[1] = lin[1] + (float) (G * Math.sin(p));
+            acc[2] = lin[2] + (float) (G * Math.cos(p));
+
+            // X軸周りの回転（PoseEstimator.pitchDeg() が pitchDeg になる向き）
+            rv[0] = (float) Math.sin(p / 2);
+            rv[1] = 0f;
+            rv[2] = 0f;
+            rv[3] = (float) Math.cos(p / 2);
+
+            writer.write(SensorTrace.TYPE_ROTATION_VECTOR, t, rv);
+            writer.write(SensorTrace.TYPE_ACCELEROMETER, t, acc);
+            writer.write(SensorTrace.TYPE_LINEAR_ACCELERATION, t, lin);
+            if (withGyro) {
+                // pitch の角速度（区間の切り替わりの段差は含まない）
+                double w = walking ? Math.toRadians(2.0 * 2 * Math.PI * 1.8 * Math.cos(2 * Math.PI * 1.8 * sec)) : 0.0;
+                gyro[0] = (float) (w + rnd.nextGaussian() * 0.01);
+                gyro[1] = (float) (rnd.nextGaussian() * 0.01);
+                gyro[2] = (float) (rnd.nextGaussian() * 0.01);
+                writer.write(SensorTrace.TYPE_GYROSCOPE, t, gyro);
+            }
+        }
+        return this;
+    }
+
+    /** 近接の変化を現在の時刻で1件書く（最大レンジ 5cm の2値センサー） */
+    public SyntheticTrace proximity(boolean near) throws IOException {
+        prox[0] = near ? 0f : 5f;
+        writer.write(SensorTrace.TYPE_PROXIMITY, t, prox);
+        return this;
+    }
+
+    /** 先頭イベントの時刻（ns） */
+    public static long startNanos() { return 1_000_000_000L; }
+
+    public byte[] toByteArray() throws IOException {
+        writer.flush();
+        return bytes.toByteArray();
+    }
+}
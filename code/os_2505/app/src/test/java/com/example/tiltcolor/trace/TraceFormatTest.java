@@ -0,0 +1,79 @@
+package com.example.tiltcolor.trace;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TraceFormatTest {
+
+    @Test
+    public void roundTripKeepsTypeTimestampAndValueCount() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (TraceWriter w = new TraceWriter(bytes, SensorTrace.FLAG_HAS_LINEAR_ACCELERATION)) {
+            w.write(SensorTrace.TYPE_ROTATION_VECTOR, 10L, new float[]{0.1f, 0.2f, 0.3f});
+            w.write(SensorTrace.TYPE_ROTATION_VECTOR, 20L, new float[]{0.1f, 0.2f, 0.3f, 0.9f, -1f});
+            w.write(SensorTrace.TYPE_ACCELEROMETER, 30L, new float[]{0f, 9.8f, 0.5f});
+            // 6個目以降は捨てる
+            w.write(SensorTrace.TYPE_LINEAR_ACCELERATION, Long.MAX_VALUE, new float[]{1, 2, 3, 4, 5, 6});
+            assertEquals(4, w.recordCount());
+        }
+
+        TraceReader r = new TraceReader(new ByteArrayInputStream(bytes.toByteArray()));
+        assertTrue(r.hasLinearAcceleration());
+
+        assertTrue(r.next());
+        assertEquals(SensorTrace.TYPE_ROTATION_VECTOR, r.type());
+        assertEquals(10L, r.timestampNanos());
+        assertArrayEquals(new float[]{0.1f, 0.2f, 0.3f}, r.values(), 0f);
+
+        assertTrue(r.next());
+        assertEquals(20L, r.timestampNanos());
+        assertArrayEquals(new float[]{0.1f, 0.2f, 0.3f, 0.9f, -1f}, r.values(), 0f);
+
+        assertTrue(r.next());
+        assertEquals(SensorTrace.TYPE_ACCELEROMETER, r.type());
+        assertArrayEquals(new float[]{0f, 9.8f, 0.5f}, r.values(), 0f);
+
+        assertTrue(r.next());
+        assertEquals(Long.MAX_VALUE, r.timestampNanos());
+        assertArrayEquals(new float[]{1, 2, 3, 4, 5}, r.values(), 0f);
+
+        assertFalse(r.next());
+    }
+
+    @Test
+    public void rejectsForeignFiles() {
+        try {
+            new TraceReader(new ByteArrayInputStream(new byte[]{1, 2, 3, 4, 0, 0, 0, 1, 0, 0, 0, 0}));
+            fail();
+        } catch (IOException expected) {
+            // OK
+        }
+    }
+
+    @Test
+    public void truncatedRecordIsAnError() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (TraceWriter w = new TraceWriter(bytes, 0)) {
+            w.write(SensorTrace.TYPE_ACCELEROMETER, 1L, new float[]{1f, 2f, 3f});
+        }
+        byte[] cut = Arrays.copyOf(bytes.toByteArray(), bytes.size() - 2);
+        TraceReader r = new TraceReader(new ByteArrayInputStream(cut));
+        assertFalse(r.hasLinearAcceleration());
+        try {
+            r.next();
+            fail();
+        } catch (IOException expected) {
+            // OK
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package com.example.tiltcolor.trace;
+
+import com.example.tiltcolor.AllocationCounter;
+import com.example.tiltcolor.decision.BlockDecision;
+import com.example.tiltcolor.decision.RateScheduler;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 合成トレースを GuardService と同じ判定経路に流し、ブロックの有無・タイミングを確認する。
+ */
+public class TraceReplayTest {
+
+    private static final long SEC = 1_000_000_000L;
+
+    /** GuardService と同じしきい値 */
+    private static BlockDecision guardDecision() {
+        return new BlockDecision(65f, 65f, 300, 0f);
+    }
+
+    private static TraceReplay replay(byte[] trace) throws IOException {
+        TraceReader reader = new TraceReader(new ByteArrayInputStream(trace));
+        TraceReplay r = new TraceReplay(guardDecision(), reader.hasLinearAcceleration());
+        r.run(reader);
+        return r;
+    }
+
+    @Test
+    public void blocksOnlyWhileWalkingAndLookingDown() throws IOException {
+        byte[] trace = new SyntheticTrace(100)
+                .segment(5, false, 85)   // 静止・前向き
+                .segment(10, true, 85)   // 歩行・前向き
+                .segment(10, true, 30)   // 歩行・下向き
+                .segment(5, false, 30)   // 静止・下向き
+                .toByteArray();
+        long t0 = SyntheticTrace.startNanos();
+
+        TraceReplay r = replay(trace);
+
+        assertEquals(1, r.blockCount());
+        long first = r.firstBlockNanos() - t0;
+        // 下向きになってからデバウンス（300ms）後、1秒以内
+        assertTrue("first=" + first, first >= 15 * SEC + 300_000_000L && first < 16 * SEC);
+        // 止まって RMS 窓＋持続ぶん後に解除（合計は約10秒）
+        assertTrue("blocked=" + r.blockedNanos(),
+                r.blockedNanos() > 9 * SEC && r.blockedNanos() < 12 * SEC);
+        assertTrue(!r.loop().isBlockRequested());
+    }
+
+    @Test
+    public void poseStreamIsParkedWhileStill() throws IOException {
+        byte[] trace = new SyntheticTrace(100).segment(20, false, 30).toByteArray();
+
+        TraceReplay r = replay(trace);
+
+        assertEquals(0, r.blockCount());
+        assertEquals(0, r.poseEventCount());   // WATCH 段: 姿勢センサーは購読しない
+        assertTrue(r.motionEventCount() > 0);
+        assertEquals(RateScheduler.Tier.WATCH, r.rateTier());
+    }
+
+    @Test
+    public void screenOffSuspendsSensorsAndResumesWarm() throws IOException {
+        byte[] trace = new SyntheticTrace(100).segment(30, true, 30).toByteArray(); // 歩行・下向き
+        long t0 = SyntheticTrace.startNanos();
+        TraceReader reader = new TraceReader(new ByteArrayInputStream(trace));
+        TraceReplay r = new TraceReplay(guardDecision(), reader.hasLinearAcceleration());
+
+        long off = t0 + 10 * SEC, on = t0 + 20 * SEC;
+        long poseAtOff = -1, motionAtOff = -1, reblock = -1;
+        boolean screenOn = true;
+        while (reader.next()) {
+            long t = reader.timestampNanos();
+            if (screenOn && t >= off && t < on) {
+                r.setInteractive(false, t);
+                screenOn = false;
+                poseAtOff = r.poseEventCount();
+                motionAtOff = r.motionEventCount();
+                assertEquals(RateScheduler.Tier.SUSPENDED, r.rateTier());
+                assertTrue(!r.loop().isBlockRequested());
+            } else if (!screenOn && t >= on) {
+                // 止める前の段（ACTIVE）からすぐ再開する
+                assertEquals(poseAtOff, r.poseEventCount());
+                assertEquals(motionAtOff, r.motionEventCount());
+                r.setInteractive(true, t);
+                screenOn = true;
+                assertEquals(RateScheduler.Tier.ACTIVE, r.rateTier());
+            }
+            r.onEvent(reader.type(), t, reader.values());
+            if (screenOn && t >= on && reblock < 0 && r.loop().isBlockRequested()) reblock = t - on;
+        }
+        r.finish();
+
+        assertEquals(2, r.blockCount());
+        long cold = r.firstBlockNanos() - t0;
+        // 再開後は推定器とヒステリシスが温まっているので、起動直後より早くブロックに戻る
+        assertTrue("reblock=" + reblock + " cold=" + cold, reblock >= 0 && reblock < cold);
+    }
+
+    @Test
+    public void proximityGateParksBlockingWhileInPocket() throws IOException {
+        byte[] trace = new SyntheticTrace(100).segment(30, true, 30).toByteArray(); // 歩行・下向き
+        long t0 = SyntheticTrace.startNanos();
+        TraceReader reader = new TraceReader(new ByteArrayInputStream(trace));
+        TraceReplay r = new TraceReplay(guardDecision(), reader.hasLinearAcceleration());
+
+        long near = t0 + 10 * SEC, far = t0 + 20 * SEC;
+        boolean inPocket = false, sawGated = false, blockedInPocket = false;
+        while (reader.next()) {
+            long t = reader.timestampNanos();
+            if (!inPocket && t >= near && t < far) {
+                r.onProximity(true, t);
+                inPocket = true;
+            } else if (inPocket && t >= far) {
+                r.onProximity(false, t);
+                inPocket = false;
+            }
+            r.onEvent(reader.type(), t, reader.values());
+            if (inPocket && t >= near + 600_000_000L) {
+                sawGated |= r.rateTier() == RateScheduler.Tier.GATED;
+                blockedInPocket |= r.loop().isBlockRequested();
+            }
+        }
+        r.finish();
+
+        assertTrue(sawGated);
+        assertTrue(!blockedInPocket);
+        assertEquals(2, r.blockCount());   // ポケットに入れて解除 → 出して再びブロック
+        // ゲートは NEAR が 500ms 続いてから FAR まで
+        long gated = r.loop().gate().gatedNanos(far);
+        assertTrue("gated=" + gated, gated > 9 * SEC && gated <= 10 * SEC - 500_000_000L);
+        assertEquals(1, r.loop().gate().entries());
+    }
+
+    @Test
+    public void accelerometerPathBehavesTheSameAcrossSampleRates() throws IOException {
+        // 線形加速度センサーが無い端末の経路（ACC − 重力ローパス）。記録の周期が変わってもブロックのタイミングはそろう
+        // （記録は GAME 以上の周期。25Hz のような段の周期より遅い記録は 20Hz の格子に揃わないので対象外）
+        long t0 = SyntheticTrace.startNanos();
+        long minFirst = Long.MAX_VALUE, maxFirst = Long.MIN_VALUE;
+        long minBlocked = Long.MAX_VALUE, maxBlocked = Long.MIN_VALUE;
+        for (int rate : new int[]{50, 100, 200, 400}) {
+            byte[] trace = new SyntheticTrace(rate)
+                    .segment(5, false, 85).segment(10, true, 30).segment(5, false, 30)
+                    .toByteArray();
+            TraceReader reader = new TraceReader(new ByteArrayInputStream(trace));
+            TraceReplay r = new TraceReplay(guardDecision(), false);
+            r.run(reader);
+
+            assertEquals("rate=" + rate, 1, r.blockCount());
+            long first = r.firstBlockNanos() - t0;
+            minFirst = Math.min(minFirst, first);
+            maxFirst = Math.max(maxFirst, first);
+            minBlocked = Math.min(minBlocked, r.blockedNanos());
+            maxBlocked = Math.max(maxBlocked, r.blockedNanos());
+        }
+        assertTrue("first=" + minFirst + ".." + maxFirst, maxFirst - minFirst < 250_000_000L);
+        assertTrue("blocked=" + minBlocked + ".." + maxBlocked, maxBlocked - minBlocked < 500_000_000L);
+    }
+
+    @Test
+    public void recordedSamplesAreDecimatedToTheTierRate() throws IOException {
+        // 100Hz の記録でも、WATCH 段では端末と同じく 20Hz で歩行判定する
+        byte[] still = new SyntheticTrace(100).segment(20, false, 85).toByteArray();
+        TraceReplay r = replay(still);
+        assertEquals(RateScheduler.Tier.WATCH, r.rateTier());
+        assertEquals(20 * 20, r.motionEventCount(), 2);
+
+        // 歩き出して ACTIVE 段に上がったら 50Hz（GAME）
+        byte[] walking = new SyntheticTrace(200).segment(5, true, 85).toByteArray();
+        TraceReader reader = new TraceReader(new ByteArrayInputStream(walking));
+        TraceReplay w = new TraceReplay(guardDecision(), reader.hasLinearAcceleration());
+        long activeFrom = -1L, motionAtActive = 0L;
+        while (reader.next()) {
+            w.onEvent(reader.type(), reader.timestampNanos(), reader.values());
+            if (activeFrom < 0 && w.rateTier() == RateScheduler.Tier.ACTIVE) {
+                activeFrom = reader.timestampNanos();
+                motionAtActive = w.motionEventCount();
+            }
+        }
+        assertTrue(activeFrom > 0);
+        double activeSec = (SyntheticTrace.startNanos() + 5 * SEC - activeFrom) / 1e9;
+        assertEquals(50 * activeSec, w.motionEventCount() - motionAtActive, 3);
+    }
+
+    @Test
+    public void replayIsDeterministic() throws IOException {
+        byte[] trace = new SyntheticTrace(200)
+                .segment(3, true, 85).segment(4, true, 20).segment(3, false, 20)
+                .segment(3, true, 20).segment(3, true, 85)
+                .toByteArray();
+
+        TraceReplay a = replay(trace);
+        TraceReplay b = replay(trace);
+
+        assertTrue(a.blockCount() > 0);
+        assertEquals(a.blockCount(), b.blockCount());
+        assertEquals(a.firstBlockNanos(), b.firstBlockNanos());
+        assertEquals(a.blockedNanos(), b.blockedNanos());
+        assertEquals(a.poseEventCount(), b.poseEventCount());
+    }
+
+    @Test
+    public void steadyStateReplayDoesNotAllocate() throws IOException {
+        TraceReplay r = new TraceReplay(guardDecision(), true);
+        float[] rv = {0.25f, 0f, 0f, 0.968f};
+        float[] acc = {0f, 4f, 9f};
+        float[] lin = {0f, 0f, 0f};
+        long[] t = {SEC};
+        Runnable burst = () -> {
+            for (int i = 0; i < 20_000; i++) {
+                long now = t[0] += 10_000_000L;
+                lin[2] = (float) (2.5 * Math.sin(i * 0.11));
+                r.onEvent(SensorTrace.TYPE_ROTATION_VECTOR, now, rv);
+                r.onEvent(SensorTrace.TYPE_ACCELEROMETER, now, acc);
+                r.onEvent(SensorTrace.TYPE_LINEAR_ACCELERATION, now, lin);
+            }
+        };
+        burst.run(); // 段の切替・JIT を済ませる
+        assertEquals(0L, AllocationCounter.allocatedBytes(burst) / 20_000);
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.tiltcolor.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class DutyStatsTest {
+
+    private static final long SEC = 1_000_000_000L;
+    private static final long MS = 1_000_000L;
+
+    @Test
+    public void attributesDeltasToTheStateThatWasActive() {
+        DutyStats d = new DutyStats("on", "off");
+        d.start(10 * SEC, 100 * MS, 1_000);
+        d.enter(1, 15 * SEC, 150 * MS, 1_500);   // on: 5s, 50ms, 500件
+        d.enter(1, 16 * SEC, 160 * MS, 1_600);   // 同じ状態: 何もしない
+        d.enter(0, 45 * SEC, 152 * MS, 1_502); // off: 30s, 2ms, 2件
+
+        assertEquals(5 * SEC, d.wallNanos(0, 45 * SEC));
+        assertEquals(30 * SEC, d.wallNanos(1, 45 * SEC));
+        assertEquals(50 * MS, d.cpuNanos(0, 152 * MS));
+        assertEquals(2 * MS, d.cpuNanos(1, 152 * MS));
+        assertEquals(500, d.events(0, 1_502));
+        assertEquals(2, d.events(1, 1_502));
+        assertEquals(2, d.entries(0));
+        assertEquals(1, d.entries(1));
+
+        // 現在の状態には now までの分を足して読む
+        assertEquals(7 * SEC, d.wallNanos(0, 47 * SEC));
+        assertEquals(60 * MS, d.cpuNanos(0, 162 * MS));
+        assertEquals(600, d.events(0, 1_602));
+        assertEquals("on", d.stateName());
+    }
+
+    @Test
+    public void formatsPerStateRates() {
+        DutyStats d = new DutyStats("interactive", "suspended");
+        d.start(0, 0, 0);
+        d.enter(1, 10 * SEC, 100 * MS, 1_000);
+        assertEquals("state=suspended"
+                        + " | interactive: n=1 time=10.0s events=1000 (100.0/s) cpu=100.0ms (1.00%)"
+                        + " | suspended: n=1 time=10.0s events=0 (0.0/s) cpu=1.0ms (0.01%)",
+                d.format(20 * SEC, 101 * MS, 1_000));
+    }
+}
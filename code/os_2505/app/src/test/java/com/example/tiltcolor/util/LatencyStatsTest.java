@@ -0,0 +1,32 @@
+package com.example.tiltcolor.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class LatencyStatsTest {
+
+    @Test
+    public void aggregatesCountMeanMaxAndLast() {
+        LatencyStats s = new LatencyStats("e2e");
+        assertEquals(0.0, s.meanNanos(), 0.0);
+        s.record(2_000_000L);
+        s.record(6_000_000L);
+        s.record(1_000_000L);
+        assertEquals(3, s.count());
+        assertEquals(3_000_000.0, s.meanNanos(), 1e-6);
+        assertEquals(6_000_000L, s.maxNanos());
+        assertEquals(1_000_000L, s.lastNanos());
+        assertEquals("e2e: n=3 mean=3.00ms max=6.00ms last=1.00ms", s.toString());
+    }
+
+    @Test
+    public void negativeLatencyIsClampedAndResetClears() {
+        LatencyStats s = new LatencyStats("x");
+        s.record(-5L);
+        assertEquals(0L, s.maxNanos());
+        assertEquals(1, s.count());
+        s.reset();
+        assertEquals(0, s.count());
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.tiltcolor.util;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * RmsWindow が旧 MotionDetector の ArrayDeque 実装と同じRMSを返すことを確認する。
+ */
+public class RmsWindowTest {
+
+    private static final long WINDOW_MS = 500;
+    private static final double EPS = 1e-9;
+
+    /** 旧実装（Sample + ArrayDeque + 毎回全走査）をそのまま再現した参照用 */
+    private static final class DequeRms {
+        private static final class Sample { final long t; final double v; Sample(long t, double v) { this.t = t; this.v = v; } }
+        private final ArrayDeque<Sample> window = new ArrayDeque<>();
+
+        double add(long now, double mag) {
+            window.addLast(new Sample(now, mag));
+            while (!window.isEmpty() && (now - window.peekFirst().t) > WINDOW_MS) {
+                window.removeFirst();
+            }
+            if (window.isEmpty()) return 0.0;
+            double sumSq = 0.0;
+            for (Sample s : window) sumSq += s.v * s.v;
+            return Math.sqrt(sumSq / window.size());
+        }
+
+        int size() { return window.size(); }
+    }
+
+    @Test
+    public void emptyWindowIsZero() {
+        RmsWindow w = new RmsWindow(WINDOW_MS, 4);
+        assertEquals(0.0, w.rms(), 0.0);
+        assertEquals(0, w.size());
+    }
+
+    @Test
+    public void matchesDequeOnRegularStream() {
+        // 約100Hz（10ms間隔）で正弦的な加速度
+        RmsWindow w = new RmsWindow(WINDOW_MS, 256);
+        DequeRms ref = new DequeRms();
+        for (int i = 0; i < 5000; i++) {
+            long t = i * 10L;
+            double mag = Math.abs(Math.sin(i * 0.07)) * 1.5;
+            double expected = ref.add(t, mag);
+            w.add(t, mag);
+            assertEquals("i=" + i, expected, w.rms(), EPS);
+            assertEquals(ref.size(), w.size());
+        }
+    }
+
+    @Test
+    public void matchesDequeOnJitteryStreamWithGapsAndBursts() {
+        Random rnd = new Random(42);
+        RmsWindow w = new RmsWindow(WINDOW_MS, 2); // 小さい初期容量 → 拡張経路も通す
+        DequeRms ref = new DequeRms();
+        long t = 0;
+        for (int i = 0; i < 20000; i++) {
+            int r = rnd.nextInt(100);
+            if (r < 2) t += 600 + rnd.nextInt(2000);     // 窓幅超えの空白（全追い出し）
+            else if (r < 20) t += 0;                      // 同時刻のバースト
+            else t += 1 + rnd.nextInt(30);
+            double mag = rnd.nextDouble() * (rnd.nextInt(10) == 0 ? 8.0 : 0.5);
+            double expected = ref.add(t, mag);
+            w.addSquared(t, mag * mag);
+            assertEquals("i=" + i, expected, w.rms(), EPS);
+            assertEquals(ref.size(), w.size());
+        }
+    }
+
+    @Test
+    public void boundarySampleIsKeptUntilStrictlyOlderThanWindow() {
+        RmsWindow w = new RmsWindow(WINDOW_MS, 4);
+        w.add(0, 3.0);
+        w.add(WINDOW_MS, 4.0);          // 差 == 窓幅 → 残る
+        assertEquals(2, w.size());
+        assertEquals(Math.sqrt((9.0 + 16.0) / 2), w.rms(), EPS);
+        w.add(WINDOW_MS + 1, 0.0);      // 差 > 窓幅 → 最古が抜ける
+        assertEquals(2, w.size());
+        assertEquals(Math.sqrt(16.0 / 2), w.rms(), EPS);
+    }
+
+    @Test
+    public void clearResetsState() {
+        RmsWindow w = new RmsWindow(WINDOW_MS, 4);
+        for (int i = 0; i < 10; i++) w.add(i, 2.0);
+        w.clear();
+        assertEquals(0, w.size());
+        assertEquals(0.0, w.rms(), 0.0);
+        w.add(100, 1.0);
+        assertEquals(1.0, w.rms(), EPS);
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.tiltcolor.util;
+
+import com.example.tiltcolor.AllocationCounter;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+
+public class TelemetryRingTest {
+
+    @Test
+    public void capacityRoundsUpToPowerOfTwo() {
+        assertEquals(8, new TelemetryRing(5, 1).capacity());
+        assertEquals(8, new TelemetryRing(8, 1).capacity());
+    }
+
+    @Test
+    public void overwritesOldestWhenFull() {
+        TelemetryRing r = new TelemetryRing(4, 1);
+        for (int i = 0; i < 10; i++) r.record(i, i, 0f, 0f, false, false, false);
+        assertEquals(4, r.size());
+        assertEquals(10, r.writtenCount());
+        for (int k = 0; k < 4; k++) {
+            assertEquals(6 + k, r.timestampAt(k));
+            assertEquals(6f + k, r.pitchAt(k), 0f);
+        }
+    }
+
+    @Test
+    public void sampleEveryKeepsOneInN() {
+        TelemetryRing r = new TelemetryRing(16, 4);
+        for (int i = 1; i <= 12; i++) r.record(i, 0f, 0f, 0f, false, false, false);
+        assertEquals(3, r.size());
+        assertEquals(4, r.timestampAt(0));
+        assertEquals(8, r.timestampAt(1));
+        assertEquals(12, r.timestampAt(2));
+    }
+
+    @Test
+    public void writeToProducesOldestFirstRecords() throws IOException {
+        TelemetryRing r = new TelemetryRing(2, 1);
+        r.record(100L, 1f, 2f, 3f, true, false, false);
+        r.record(200L, 4f, 5f, 6f, false, true, true);
+        r.record(300L, 7f, 8f, 9f, true, true, true);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        r.writeTo(bytes);
+        assertEquals(16 + 2 * TelemetryRing.RECORD_BYTES, bytes.size());
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        assertEquals(TelemetryRing.MAGIC, in.readInt());
+        assertEquals(TelemetryRing.VERSION, in.readInt());
+        assertEquals(1, in.readInt());
+        assertEquals(2, in.readInt());
+
+        assertEquals(200L, in.readLong());
+        assertEquals(4f, in.readFloat(), 0f);
+        assertEquals(5f, in.readFloat(), 0f);
+        assertEquals(6f, in.readFloat(), 0f);
+        assertEquals(TelemetryRing.FLAG_MOVING | TelemetryRing.FLAG_OVERLAY, in.readByte());
+
+        assertEquals(300L, in.readLong());
+        assertEquals(7f, in.readFloat(), 0f);
+        assertEquals(8f, in.readFloat(), 0f);
+        assertEquals(9f, in.readFloat(), 0f);
+        assertEquals(TelemetryRing.FLAG_DOWN | TelemetryRing.FLAG_MOVING | TelemetryRing.FLAG_OVERLAY,
+                in.readByte());
+    }
+
+    @Test
+    public void recordDoesNotAllocate() {
+        TelemetryRing r = new TelemetryRing(1024, 1);
+        Runnable burst = () -> {
+            for (int i = 0; i < 100_000; i++) {
+                r.record(i, i * 0.1f, 30f, 0.2f, (i & 1) == 0, (i & 2) == 0, (i & 4) == 0);
+            }
+        };
+        burst.run(); // JIT を温める
+        assertEquals(0L, AllocationCounter.allocatedBytes(burst) / 100_000);
+    }
+}
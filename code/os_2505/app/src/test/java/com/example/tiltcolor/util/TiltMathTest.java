@@ -0,0 +1,224 @@
+package com.example.tiltcolor.util;
+
+import com.example.tiltcolor.decision.BlockDecision;
+import com.example.tiltcolor.decision.PocketGate;
+import com.example.tiltcolor.dsp.GravityFilter;
+import com.example.tiltcolor.dsp.MotionClassifier;
+import com.example.tiltcolor.dsp.OrientationFilter;
+import com.example.tiltcolor.dsp.OrientationMath;
+import com.example.tiltcolor.dsp.PoseEstimator;
+import com.example.tiltcolor.trace.SensorTrace;
+import com.example.tiltcolor.trace.SyntheticTrace;
+import com.example.tiltcolor.trace.TraceReader;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * TiltMath の float 近似が誤差の上限（*_MAX_ERROR_DEG）を守ること、
+ * 近似に置き換えた姿勢・歩行判定が Math.* で計算していたときと同じ判定を返すことを確認する。
+ */
+public class TiltMathTest {
+
+    private static final long MS = 1_000_000L;
+
+    @Test
+    public void acosAndAsinStayWithinBound() {
+        double worst = 0;
+        for (int i = -1_000_000; i <= 1_000_000; i++) {
+            float x = i / 1_000_000f;
+            worst = Math.max(worst, Math.abs(TiltMath.acosDeg(x) - Math.toDegrees(Math.acos(x))));
+            worst = Math.max(worst, Math.abs(TiltMath.asinDeg(x) - Math.toDegrees(Math.asin(x))));
+        }
+        // ±1 の近く（水平・縦持ち）は float の刻みごとに
+        float x = 1f;
+        for (int i = 0; i < 100_000; i++) {
+            x = Math.nextDown(x);
+            worst = Math.max(worst, Math.abs(TiltMath.acosDeg(x) - Math.toDegrees(Math.acos(x))));
+            worst = Math.max(worst, Math.abs(TiltMath.asinDeg(-x) - Math.toDegrees(Math.asin(-x))));
+        }
+        assertTrue("worst=" + worst, worst <= TiltMath.ACOS_MAX_ERROR_DEG);
+
+        assertEquals(0f, TiltMath.acosDeg(1.0001f), 0f);     // 丸めで 1 を超えても NaN にしない
+        assertEquals(180f, TiltMath.acosDeg(-1.0001f), 0f);
+        assertEquals(-90f, TiltMath.asinDeg(-1.0001f), 0f);
+    }
+
+    @Test
+    public void atan2StaysWithinBound() {
+        Random rnd = new Random(11);
+        double worst = 0;
+        for (int i = 0; i < 1_000_000; i++) {
+            float y = (float) rnd.nextGaussian(), x = (float) rnd.nextGaussian();
+            worst = Math.max(worst, Math.abs(TiltMath.atan2Deg(y, x) - Math.toDegrees(Math.atan2(y, x))));
+        }
+        assertTrue("worst=" + worst, worst <= TiltMath.ATAN2_MAX_ERROR_DEG);
+
+        assertEquals(0f, TiltMath.atan2Deg(0f, 1f), 0f);
+        assertEquals(90f, TiltMath.atan2Deg(1f, 0f), 1e-5f);
+        assertEquals(-90f, TiltMath.atan2Deg(-1f, 0f), 1e-5f);
+        assertEquals(180f, TiltMath.atan2Deg(0f, -1f), 1e-5f);
+        assertEquals(0f, TiltMath.atan2Deg(0f, 0f), 0f);
+    }
+
+    @Test
+    public void tiltStaysWithinBound() {
+        Random rnd = new Random(5);
+        double worst = 0;
+        for (int i = 0; i < 200_000; i++) {
+            float gx = (float) rnd.nextGaussian(), gy = (float) rnd.nextGaussian(), gz = (float) rnd.nextGaussian();
+            // 参照は double の atan2（OrientationMath.tiltDeg は二乗和が float なので水平の近くで 5e-4° ずれる）
+            double exact = Math.toDegrees(Math.atan2(Math.hypot(gx, gy), Math.abs(gz)));
+            worst = Math.max(worst, Math.abs(TiltMath.tiltDeg(gx, gy, gz) - exact));
+        }
+        assertTrue("worst=" + worst, worst <= TiltMath.ATAN2_MAX_ERROR_DEG);
+        assertEquals(90f, TiltMath.tiltDeg(0f, 0f, 0f), 0f);  // 無重力でも NaN にしない
+    }
+
+    /** 近似前の PoseEstimator（Math.* で角度を出す）をそのまま再現した参照用 */
+    private static final class ExactPose {
+        final float[] rotation = new float[9];
+        final float[] orientation = new float[3];
+        final GravityFilter gravity = new GravityFilter(GravityFilter.TILT_TIME_CONSTANT_S);
+        final OrientationFilter fusion = new OrientationFilter();
+        boolean fused;
+        float pitch, roll, tilt;
+
+        void onRotationVector(float[] v) {
+            OrientationMath.getRotationMatrixFromVector(rotation, v);
+            OrientationMath.getOrientation(rotation, orientation);
+            if (fused) return;
+            pitch = (float) -Math.toDegrees(orientation[1]);
+            roll = (float) Math.toDegrees(orientation[2]);
+        }
+
+        void onAccelerometer(long t, float[] v) {
+            fusion.onAccelerometer(t, v[0], v[1], v[2]);
+            if (fused) {
+                fromFusion();
+            } else {
+                gravity.update(t, v[0], v[1], v[2]);
+                tilt = (float) OrientationMath.tiltDeg(gravity.gx(), gravity.gy(), gravity.gz());
+            }
+        }
+
+        void onGyroscope(long t, float[] v) {
+            fusion.onGyroscope(t, v[0], v[1], v[2]);
+            if (!fusion.isInitialized()) return;
+            fused = true;
+            fromFusion();
+        }
+
+        private void fromFusion() {
+            pitch = (float) Math.toDegrees(Math.asin(Math.max(-1f, Math.min(1f, fusion.uy()))));
+            tilt = (float) Math.toDegrees(Math.acos(Math.min(1f, Math.abs(fusion.uz()))));
+            roll = (float) Math.toDegrees(Math.atan2(-fusion.ux(), fusion.uz()));
+        }
+    }
+
+    /** 近似前の MotionClassifier の判定（RMS を sqrt してしきい値と比べる）を再現した参照用 */
+    private static final class ExactMotion {
+        final RmsWindow window = new RmsWindow(MotionClassifier.DEFAULT_WINDOW_MS * MS, 256);
+        boolean moving;
+        Boolean candidate;
+        long candidateStart;
+
+        boolean onLinearAcceleration(long t, float lx, float ly, float lz) {
+            window.addSquared(t, (double) lx * lx + (double) ly * ly + (double) lz * lz);
+            double rms = window.rms();
+            boolean now = moving ? !(rms < MotionClassifier.DEFAULT_THRESH_STILL)
+                                 : (rms > MotionClassifier.DEFAULT_THRESH_MOVE);
+            if (candidate == null || candidate != now) {
+                candidate = now;
+                candidateStart = t;
+            } else if (t - candidateStart >= MotionClassifier.DEFAULT_HOLD_MS * MS) {
+                moving = now;
+            }
+            return moving;
+        }
+    }
+
+    /**
+     * しきい値（pitch 65° = GuardService の hide/show、tilt 30° = 伏せ置き）のすぐそばの姿勢と、
+     * 歩行の揺れでしきい値を何度も横切る区間を流し、イベントごとの判定が参照実装と一致することを確かめる。
+     * （判定が変わりうるのは角度がしきい値から誤差の上限未満のときだけ。合成トレースは揺れの位相 0 で
+     *   区間の pitch ちょうどになるので、区間の pitch はしきい値からわずかにずらす）
+     */
+    @Test
+    public void decisionsMatchExactMathOnTraces() throws IOException {
+        for (boolean gyro : new boolean[]{false, true}) {
+            byte[] trace = new SyntheticTrace(100, gyro)
+                    .segment(5, false, 65.1).segment(10, true, 65.3).segment(5, true, 64.7)
+                    .segment(5, false, 64.9).segment(10, true, 150.3).segment(5, false, 150.1)
+                    .segment(5, true, 30).toByteArray();
+            int[] counts = replayBothWays(trace);
+            assertTrue("pose transitions=" + counts[0], counts[0] > 2);
+            assertTrue("face-down changes=" + counts[1], counts[1] > 2);
+            assertTrue("motion changes=" + counts[2], counts[2] > 1);
+        }
+    }
+
+    /** @return {下向き判定の遷移数, 伏せ置き判定の変化数, 歩行判定の変化数}（どれも参照実装と一致したうえで） */
+    private static int[] replayBothWays(byte[] trace) throws IOException {
+        TraceReader reader = new TraceReader(new ByteArrayInputStream(trace));
+        PoseEstimator fast = new PoseEstimator();
+        ExactPose exact = new ExactPose();
+        BlockDecision fastDecision = new BlockDecision(65f, 65f, 300, 0f);
+        BlockDecision exactDecision = new BlockDecision(65f, 65f, 300, 0f);
+        MotionClassifier fastMotion = new MotionClassifier(MotionClassifier.DEFAULT_WINDOW_MS * MS,
+                MotionClassifier.DEFAULT_HOLD_MS * MS, MotionClassifier.DEFAULT_THRESH_MOVE,
+                MotionClassifier.DEFAULT_THRESH_STILL);
+        ExactMotion exactMotion = new ExactMotion();
+
+        int phaseChanges = 0, faceDownChanges = 0, motionChanges = 0;
+        boolean lastFaceDown = false, lastMoving = false;
+        BlockDecision.Phase lastPhase = exactDecision.phase();
+        while (reader.next()) {
+            int type = reader.type();
+            long t = reader.timestampNanos();
+            float[] v = reader.values();
+            if (type == SensorTrace.TYPE_LINEAR_ACCELERATION) {
+                boolean m = fastMotion.onLinearAcceleration(t, v[0], v[1], v[2]);
+                assertEquals("motion t=" + t, exactMotion.onLinearAcceleration(t, v[0], v[1], v[2]), m);
+                if (m != lastMoving) motionChanges++;
+                lastMoving = m;
+                continue;
+            }
+            if (type == SensorTrace.TYPE_ROTATION_VECTOR) {
+                fast.onRotationVector(v);
+                exact.onRotationVector(v);
+                continue;
+            }
+            if (type == SensorTrace.TYPE_ACCELEROMETER) {
+                fast.onAccelerometer(t, v);
+                exact.onAccelerometer(t, v);
+            } else if (type == SensorTrace.TYPE_GYROSCOPE) {
+                fast.onGyroscope(t, v);
+                exact.onGyroscope(t, v);
+            } else {
+                continue;
+            }
+            assertEquals(exact.pitch, fast.pitchDeg(), TiltMath.ACOS_MAX_ERROR_DEG);
+            assertEquals(exact.tilt, fast.tiltDeg(), TiltMath.ATAN2_MAX_ERROR_DEG);
+
+            fastDecision.onPose(fast.pitchDeg(), t / MS);
+            exactDecision.onPose(exact.pitch, t / MS);
+            assertEquals("phase t=" + t, exactDecision.phase(), fastDecision.phase());
+            if (exactDecision.phase() != lastPhase) phaseChanges++;
+            lastPhase = exactDecision.phase();
+
+            boolean faceDown = fast.tiltDeg() < PocketGate.FACE_DOWN_TILT_DEG && Math.abs(fast.rollDeg()) > 90f;
+            boolean exactFaceDown = exact.tilt < PocketGate.FACE_DOWN_TILT_DEG && Math.abs(exact.roll) > 90f;
+            assertEquals("face-down t=" + t, exactFaceDown, faceDown);
+            if (faceDown != lastFaceDown) faceDownChanges++;
+            lastFaceDown = faceDown;
+        }
+        return new int[]{phaseChanges, faceDownChanges, motionChanges};
+    }
+}
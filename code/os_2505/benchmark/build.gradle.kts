@@ -0,0 +1,41 @@
+// 姿勢・歩行判定パイプラインの JMH ベンチマーク（JVM モジュール）。
+//   ./gradlew :benchmark:jmh
+// 結果: ns/event（AverageTime）、gc.alloc.rate.norm = B/event（gc プロファイラ）。
+// rateHz パラメータ（50/100/200）はサンプル間隔。CPU 使用率の目安は ns/event × rateHz。
+plugins {
+    java
+    alias(libs.plugins.jmh)
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+// app の Android 非依存パッケージ（と、その I/F）だけを計測対象としてそのままコンパイルする
+sourceSets {
+    main {
+        java {
+            setSrcDirs(listOf("../app/src/main/java"))
+            include(
+                "com/example/tiltcolor/decision/**",
+                "com/example/tiltcolor/domain/**",
+                "com/example/tiltcolor/dsp/**",
+                "com/example/tiltcolor/util/**",
+                "com/example/tiltcolor/trace/**",
+                "com/example/tiltcolor/eval/**",
+                "com/example/tiltcolor/motion/MotionSource.java",
+                "com/example/tiltcolor/sensor/PoseProvider.java",
+                "com/example/tiltcolor/sensor/SensorFanout.java",
+            )
+        }
+    }
+}
+
+jmh {
+    jmhVersion.set(libs.versions.jmh)
+    profilers.add("gc")
+    resultFormat.set("JSON")
+    // -PjmhInclude=MotionBenchmark などで対象を絞る
+    (findProperty("jmhInclude") as String?)?.let { includes.add(it) }
+}
@@ -0,0 +1,116 @@
+package com.example.tiltcolor.bench;
+
+import com.example.tiltcolor.decision.BlockDecision;
+import com.example.tiltcolor.dsp.MotionClassifier;
+import com.example.tiltcolor.dsp.PoseEstimator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GuardService.onPose 相当の判定経路（ログ・オーバーレイ操作を除く）。
+ * 1イベント = 回転ベクトル1件 + 加速度1件 + 線形加速度1件（常駐サービスの1サンプル周期分）。
+ * eventStream は BlockDecision.apply() だけを、前処理済みのイベント列（歩行・姿勢・タイマー）で測る。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DecisionBenchmark {
+
+    private static final long MS = 1_000_000L;
+
+    @Param({"50", "100", "200"})
+    public int rateHz;
+
+    private SensorStreams s;
+    private PoseEstimator estimator;
+    private MotionClassifier motion;
+    private BlockDecision decision;
+    private long base;
+
+    // eventStream 用: 1サンプル周期 = 歩行（満了時刻を過ぎていればタイマー）1件 + 姿勢1件
+    private static final int STREAM_EVENTS = 2 * SensorStreams.EVENTS;
+    private final BlockDecision.Event[] events = new BlockDecision.Event[STREAM_EVENTS];
+    private final long[] eventMs = new long[STREAM_EVENTS];
+    private final float[] values = new float[STREAM_EVENTS];
+    private BlockDecision machine;
+    private long baseMs;
+
+    @Setup
+    public void setup() {
+        s = new SensorStreams(rateHz);
+        estimator = new PoseEstimator();
+        motion = new MotionClassifier(500 * MS, 500 * MS, 0.28, 0.3);
+        // GuardService と同じしきい値
+        decision = new BlockDecision(65f, 65f, 300, 0f);
+        base = 0L;
+
+        // GuardLoop と同じ順でイベント列を作る（タイマーは満了時刻を過ぎた最初のサンプルの前に入れる）。
+        // pitch は +100° ずらして 20°〜110° にし、しきい値（65°）をまたがせる
+        MotionClassifier m = new MotionClassifier(500 * MS, 500 * MS, 0.28, 0.3);
+        BlockDecision sim = new BlockDecision(65f, 65f, 300, 0f);
+        for (int i = 0; i < SensorStreams.EVENTS; i++) {
+            long tMs = s.tNanos[i] / MS;
+            float[] la = s.linearAcc[i];
+            boolean moving = m.onLinearAcceleration(s.tNanos[i], la[0], la[1], la[2]);
+            int j = 2 * i;
+            long deadline = sim.deadlineMs();
+            if (deadline <= tMs) {
+                events[j] = BlockDecision.Event.TIMER;
+                eventMs[j] = deadline;
+            } else {
+                events[j] = BlockDecision.Event.MOTION;
+                eventMs[j] = tMs;
+                values[j] = moving ? 1f : 0f;
+            }
+            events[j + 1] = BlockDecision.Event.POSE;
+            eventMs[j + 1] = tMs;
+            values[j + 1] = s.pitchDeg[i] + 100f;
+            sim.apply(events[j], eventMs[j], values[j]);
+            sim.apply(events[j + 1], eventMs[j + 1], values[j + 1]);
+        }
+        machine = new BlockDecision(65f, 65f, 300, 0f);
+        baseMs = 0L;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SensorStreams.EVENTS)
+    public void onPoseDecisionPath(Blackhole bh) {
+        for (int i = 0; i < SensorStreams.EVENTS; i++) {
+            long t = base + s.tNanos[i];
+            float[] la = s.linearAcc[i];
+            decision.onMotion(motion.onLinearAcceleration(t, la[0], la[1], la[2]));
+
+            estimator.onRotationVector(s.rotationVector[i]);
+            estimator.onAccelerometer(t, s.acc[i]);
+            bh.consume(decision.onPose(estimator.pitchDeg(), t / MS));
+            bh.consume(decision.shouldBlock());
+        }
+        base += s.spanNanos;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(STREAM_EVENTS)
+    public void eventStream(Blackhole bh) {
+        for (int i = 0; i < STREAM_EVENTS; i++) {
+            bh.consume(machine.apply(events[i], baseMs + eventMs[i], values[i]));
+        }
+        baseMs += s.spanNanos / MS;
+    }
+}
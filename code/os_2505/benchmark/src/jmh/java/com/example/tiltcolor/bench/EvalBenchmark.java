@@ -0,0 +1,110 @@
+package com.example.tiltcolor.bench;
+
+import com.example.tiltcolor.decision.BlockDecision;
+import com.example.tiltcolor.eval.BatchEvaluator;
+import com.example.tiltcolor.eval.EvalConfig;
+import com.example.tiltcolor.eval.EvalResult;
+import com.example.tiltcolor.eval.Labels;
+import com.example.tiltcolor.eval.TraceColumns;
+import com.example.tiltcolor.trace.SensorTrace;
+import com.example.tiltcolor.trace.TraceReader;
+import com.example.tiltcolor.trace.TraceReplay;
+import com.example.tiltcolor.trace.TraceWriter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * しきい値スイープ1組あたりのコスト（100Hz・約2分のトレース）:
+ *  - replay: 組ごとに TraceReplay（GuardLoop 経由）で生イベントを流し直す
+ *  - columnar: BatchEvaluator で列データ（pitch 等は計算済み）を1組ずつ評価
+ *  - parallelSweep: 同じ格子を ForkJoinPool.commonPool() で並列に評価
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EvalBenchmark {
+
+    private static final int LAPS = 12;
+    private static final int CONFIGS = 36;
+
+    private SensorStreams s;
+    private List<BatchEvaluator.Sample> corpus;
+    private List<EvalConfig> configs;
+
+    @Setup
+    public void setup() throws IOException {
+        s = new SensorStreams(100);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        TraceWriter w = new TraceWriter(bytes, SensorTrace.FLAG_HAS_LINEAR_ACCELERATION);
+        for (int lap = 0; lap < LAPS; lap++) {
+            for (int i = 0; i < SensorStreams.EVENTS; i++) {
+                long t = lap * s.spanNanos + s.tNanos[i];
+                w.write(SensorTrace.TYPE_ROTATION_VECTOR, t, s.rotationVector[i]);
+                w.write(SensorTrace.TYPE_ACCELEROMETER, t, s.acc[i]);
+                w.write(SensorTrace.TYPE_LINEAR_ACCELERATION, t, s.linearAcc[i]);
+            }
+        }
+        w.flush();
+        TraceColumns columns = TraceColumns.load(new TraceReader(new ByteArrayInputStream(bytes.toByteArray())));
+        corpus = Collections.singletonList(new BatchEvaluator.Sample(columns, Labels.of()));
+        configs = BatchEvaluator.grid(new float[]{55f, 65f, 75f}, new long[]{0, 300, 1000},
+                new long[]{500}, new long[]{250, 500}, new double[]{0.28, 0.5});
+        if (configs.size() != CONFIGS) throw new IllegalStateException("grid size " + configs.size());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CONFIGS)
+    public void replay(Blackhole bh) {
+        for (EvalConfig c : configs) {
+            TraceReplay r = new TraceReplay(
+                    new BlockDecision(c.hideThreshold, c.showThreshold, c.debounceMs, c.baselinePitch), true);
+            for (int lap = 0; lap < LAPS; lap++) {
+                for (int i = 0; i < SensorStreams.EVENTS; i++) {
+                    long t = lap * s.spanNanos + s.tNanos[i];
+                    r.onEvent(SensorTrace.TYPE_ROTATION_VECTOR, t, s.rotationVector[i]);
+                    r.onEvent(SensorTrace.TYPE_ACCELEROMETER, t, s.acc[i]);
+                    r.onEvent(SensorTrace.TYPE_LINEAR_ACCELERATION, t, s.linearAcc[i]);
+                }
+            }
+            r.finish();
+            bh.consume(r.blockedNanos());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CONFIGS)
+    public void columnar(Blackhole bh) {
+        for (EvalConfig c : configs) {
+            EvalResult r = BatchEvaluator.evaluate(corpus, c);
+            bh.consume(r.falsePositiveNanos);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CONFIGS)
+    public List<EvalResult> parallelSweep() {
+        return BatchEvaluator.sweep(corpus, configs, ForkJoinPool.commonPool());
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.tiltcolor.bench;
+
+import com.example.tiltcolor.sensor.SensorFanout;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SensorHub の配送（SensorFanout）の1イベントあたりコスト。
+ * 判定（全件）・ライブ表示（passive, 10Hz）・トレース記録（全件）の3購読者に配る場合と、
+ * 購読者1つへ直接渡す場合（SensorHub を入れる前と同じ）を比べる。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FanoutBenchmark {
+
+    private static final int TYPE = 11; // Sensor.TYPE_ROTATION_VECTOR
+
+    @Param({"50", "100", "200"})
+    public int rateHz;
+
+    private SensorStreams s;
+    private SensorFanout fanout;
+    private SensorFanout.Subscriber direct;
+    private Blackhole sink;
+    private long base;
+
+    @Setup
+    public void setup(Blackhole bh) {
+        s = new SensorStreams(rateHz);
+        sink = bh;
+        direct = (type, t, v) -> sink.consume(v[0]);
+        fanout = new SensorFanout(TYPE);
+        int periodUs = (int) (s.periodNanos / 1_000L);
+        fanout.put(direct, periodUs, 0);
+        fanout.putPassive((type, t, v) -> sink.consume(v[1]), 100_000);
+        fanout.put((type, t, v) -> sink.consume(t), periodUs, 0);
+        base = 0L;
+    }
+
+    /** 3購読者へ配る */
+    @Benchmark
+    @OperationsPerInvocation(SensorStreams.EVENTS)
+    public void fanout() {
+        for (int i = 0; i < SensorStreams.EVENTS; i++) {
+            fanout.dispatch(base + s.tNanos[i], s.rotationVector[i]);
+        }
+        base += s.spanNanos;
+    }
+
+    /** 購読者1つへ直接（比較用） */
+    @Benchmark
+    @OperationsPerInvocation(SensorStreams.EVENTS)
+    public void direct() {
+        for (int i = 0; i < SensorStreams.EVENTS; i++) {
+            direct.onSensorEvent(TYPE, base + s.tNanos[i], s.rotationVector[i]);
+        }
+        base += s.spanNanos;
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.tiltcolor.bench;
+
+import com.example.tiltcolor.dsp.MotionClassifier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/** MotionDetector の歩行判定（RMS + 歩調の周期性 + ヒステリシス + 持続）の1イベントあたりコスト */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MotionBenchmark {
+
+    private static final long MS = 1_000_000L;
+
+    @Param({"50", "100", "200"})
+    public int rateHz;
+
+    private SensorStreams s;
+    private MotionClassifier linear;
+    private MotionClassifier fallback;
+    private MotionClassifier rmsOnly;
+    private long base;
+
+    @Setup
+    public void setup() {
+        s = new SensorStreams(rateHz);
+        // MotionDetector と同じ窓・しきい値
+        linear = new MotionClassifier(500 * MS, 500 * MS, 0.28, 0.3, true);
+        fallback = new MotionClassifier(500 * MS, 500 * MS, 0.28, 0.3, true);
+        rmsOnly = new MotionClassifier(500 * MS, 500 * MS, 0.28, 0.3, false);
+        base = 0L;
+    }
+
+    /** TYPE_LINEAR_ACCELERATION 経路 */
+    @Benchmark
+    @OperationsPerInvocation(SensorStreams.EVENTS)
+    public void linearAcceleration(Blackhole bh) {
+        for (int i = 0; i < SensorStreams.EVENTS; i++) {
+            float[] v = s.linearAcc[i];
+            bh.consume(linear.onLinearAcceleration(base + s.tNanos[i], v[0], v[1], v[2]));
+        }
+        base += s.spanNanos;
+    }
+
+    /** 周期性を見ない（RMS だけの）判定。GaitClassifier のぶんの差を見る */
+    @Benchmark
+    @OperationsPerInvocation(SensorStreams.EVENTS)
+    public void linearAccelerationRmsOnly(Blackhole bh) {
+        for (int i = 0; i < SensorStreams.EVENTS; i++) {
+            float[] v = s.linearAcc[i];
+            bh.consume(rmsOnly.onLinearAcceleration(base + s.tNanos[i], v[0], v[1], v[2]));
+        }
+        base += s.spanNanos;
+    }
+
+    /** TYPE_ACCELEROMETER（重力ローパス）経路 */
+    @Benchmark
+    @OperationsPerInvocation(SensorStreams.EVENTS)
+    public void accelerometerFallback(Blackhole bh) {
+        for (int i = 0; i < SensorStreams.EVENTS; i++) {
+            float[] v = s.acc[i];
+            bh.consume(fallback.onAccelerometer(base + s.tNanos[i], v[0], v[1], v[2]));
+        }
+        base += s.spanNanos;
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.tiltcolor.bench;
+
+import com.example.tiltcolor.dsp.PoseEstimator;
+import com.example.tiltcolor.util.Hysteresis;
+import com.example.tiltcolor.util.TiltMath;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/** 姿勢系（Hysteresis / TiltMath / 回転ベクトル→pitch / 加速度→tilt / ジャイロ＋加速度の融合）の1イベントあたりコスト */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PoseBenchmark {
+
+    @Param({"50", "100", "200"})
+    public int rateHz;
+
+    private SensorStreams s;
+    private PoseEstimator estimator;
+    private PoseEstimator fused;
+    private Hysteresis hysteresis;
+    private long base;
+
+    @Setup
+    public void setup() {
+        s = new SensorStreams(rateHz);
+        estimator = new PoseEstimator();
+        fused = new PoseEstimator();
+        base = 0L;
+        hysteresis = new Hysteresis(-30f, -20f);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SensorStreams.EVENTS)
+    public void hysteresisNext(Blackhole bh) {
+        for (int i = 0; i < SensorStreams.EVENTS; i++) bh.consume(hysteresis.next(s.pitchDeg[i]));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SensorStreams.EVENTS)
+    public void tiltMathApplyBaseline(Blackhole bh) {
+        for (int i = 0; i < SensorStreams.EVENTS; i++) {
+            bh.consume(TiltMath.applyBaseline(s.pitchDeg[i], 5f));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SensorStreams.EVENTS)
+    public void rotationVectorToPose(Blackhole bh) {
+        for (int i = 0; i < SensorStreams.EVENTS; i++) {
+            estimator.onRotationVector(s.rotationVector[i]);
+            bh.consume(estimator.pitchDeg());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SensorStreams.EVENTS)
+    public void accelerometerToTilt(Blackhole bh) {
+        for (int i = 0; i < SensorStreams.EVENTS; i++) {
+            estimator.onAccelerometer(base + s.tNanos[i], s.acc[i]);
+            bh.consume(estimator.tiltDeg());
+        }
+        base += s.spanNanos;
+    }
+
+    /** 1イベント = ジャイロ1回 + 加速度1回（同じレートで届く想定） */
+    @Benchmark
+    @OperationsPerInvocation(SensorStreams.EVENTS)
+    public void gyroAccelFusion(Blackhole bh) {
+        for (int i = 0; i < SensorStreams.EVENTS; i++) {
+            long t = base + s.tNanos[i];
+            fused.onGyroscope(t, s.gyro[i]);
+            fused.onAccelerometer(t, s.acc[i]);
+            bh.consume(fused.pitchDeg());
+            bh.consume(fused.tiltDeg());
+        }
+        base += s.spanNanos;
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.tiltcolor.bench;
+
+import com.example.tiltcolor.decision.BlockDecision;
+import com.example.tiltcolor.decision.GuardConfig;
+import com.example.tiltcolor.decision.GuardConfigStore;
+import com.example.tiltcolor.trace.SensorTrace;
+import com.example.tiltcolor.trace.TraceReplay;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * トレース再生（TraceReplay）経由の GuardService 判定経路全体:
+ * ReplayPoseProvider / ReplayMotionSource → GuardLoop（BlockDecision・バッチ配送・購読段）。
+ * 1イベント = 回転ベクトル1件 + 加速度1件 + 線形加速度1件。
+ * guardLoopPathWithConfigStore は GuardConfigStore から設定を読む経路（設定が変わらない間の確保は gc.alloc.rate.norm で見る）。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReplayBenchmark {
+
+    @Param({"50", "100", "200"})
+    public int rateHz;
+
+    private SensorStreams s;
+    private TraceReplay replay;
+    private TraceReplay storeReplay;
+    private long base;
+
+    @Setup
+    public void setup() {
+        s = new SensorStreams(rateHz);
+        // GuardService と同じしきい値
+        replay = new TraceReplay(new BlockDecision(65f, 65f, 300, 0f), true);
+        storeReplay = new TraceReplay(new GuardConfigStore(GuardConfig.DEFAULT), true);
+        base = 0L;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SensorStreams.EVENTS)
+    public void guardLoopPath(Blackhole bh) {
+        for (int i = 0; i < SensorStreams.EVENTS; i++) {
+            long t = base + s.tNanos[i];
+            replay.onEvent(SensorTrace.TYPE_ROTATION_VECTOR, t, s.rotationVector[i]);
+            replay.onEvent(SensorTrace.TYPE_ACCELEROMETER, t, s.acc[i]);
+            replay.onEvent(SensorTrace.TYPE_LINEAR_ACCELERATION, t, s.linearAcc[i]);
+        }
+        bh.consume(replay.blockCount());
+        base += s.spanNanos;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SensorStreams.EVENTS)
+    public void guardLoopPathWithConfigStore(Blackhole bh) {
+        for (int i = 0; i < SensorStreams.EVENTS; i++) {
+            long t = base + s.tNanos[i];
+            storeReplay.onEvent(SensorTrace.TYPE_ROTATION_VECTOR, t, s.rotationVector[i]);
+            storeReplay.onEvent(SensorTrace.TYPE_ACCELEROMETER, t, s.acc[i]);
+            storeReplay.onEvent(SensorTrace.TYPE_LINEAR_ACCELERATION, t, s.linearAcc[i]);
+        }
+        bh.consume(storeReplay.blockCount());
+        base += s.spanNanos;
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.tiltcolor.bench;
+
+import java.util.Random;
+
+/**
+ * ベンチマーク用の合成センサーストリーム（固定シードで再現可能）。
+ *  - 加速度: 重力 + 歩行（約1.8Hzの上下動）と静止を交互に繰り返す + ノイズ
+ *  - 線形加速度: 上記から重力を除いたもの
+ *  - 回転ベクトル: pitch を -80°〜+10° で往復（X軸周りの回転 + 小さな roll）
+ *  - ジャイロ: 上記の pitch / roll の角速度（rad/s）+ ノイズ
+ * 時刻は rateHz 間隔のナノ秒。
+ */
+final class SensorStreams {
+
+    /** 1回の @Benchmark 呼び出しで流すイベント数（@OperationsPerInvocation と揃える） */
+    static final int EVENTS = 1024;
+
+    private static final float G = 9.81f;
+
+    final int rateHz;
+    final long periodNanos;
+    /** 1周分（EVENTS 件）の時間幅。呼び出しごとに時刻を進めて単調増加を保つ */
+    final long spanNanos;
+
+    final long[] tNanos = new long[EVENTS];
+    final float[][] acc = new float[EVENTS][3];
+    final float[][] linearAcc = new float[EVENTS][3];
+    final float[][] rotationVector = new float[EVENTS][4];
+    final float[][] gyro = new float[EVENTS][3];
+    final float[] pitchDeg = new float[EVENTS];
+
+    SensorStreams(int rateHz) {
+        this.rateHz = rateHz;
+        this.periodNanos = 1_000_000_000L / rateHz;
+        this.spanNanos = periodNanos * EVENTS;
+
+        Random rnd = new Random(2505);
+        for (int i = 0; i < EVENTS; i++) {
+            long t = i * periodNanos;
+            double sec = t / 1e9;
+            tNanos[i] = t;
+
+            // 4秒歩行 / 4秒静止 を繰り返す
+            boolean walking = ((int) (sec / 4.0)) % 2 == 0;
+            double step = walking ? 2.5 * Math.sin(2 * Math.PI * 1.8 * sec) : 0.0;
+            float lx = (float) (rnd.nextGaussian() * 0.05);
+            float ly = (float) (step * 0.3 + rnd.nextGaussian() * 0.05);
+            float lz = (float) (step + rnd.nextGaussian() * 0.05);
+            linearAcc[i][0] = lx;
+            linearAcc[i][1] = ly;
+            linearAcc[i][2] = lz;
+
+            // 端末を 45°前後に傾けて持った状態の重力
+            acc[i][0] = lx;
+            acc[i][1] = ly + G * 0.7071f;
+            acc[i][2] = lz + G * 0.7071f;
+
+            double pitch = -35.0 + 45.0 * Math.sin(2 * Math.PI * 0.2 * sec);
+            double roll = 3.0 * Math.sin(2 * Math.PI * 0.5 * sec);
+            pitchDeg[i] = (float) pitch;
+            quaternion(rotationVector[i], -pitch, roll);
+            double w = 2 * Math.PI;
+            gyro[i][0] = (float) (Math.toRadians(45.0 * w * 0.2 * Math.cos(w * 0.2 * sec)) + rnd.nextGaussian() * 0.01);
+            gyro[i][1] = (float) (Math.toRadians(3.0 * w * 0.5 * Math.cos(w * 0.5 * sec)) + rnd.nextGaussian() * 0.01);
+            gyro[i][2] = (float) (rnd.nextGaussian() * 0.01);
+        }
+    }
+
+    /** X軸周り pitch°、Y軸周り roll° の回転を回転ベクトル（x, y, z, w）で表す */
+    private static void quaternion(float[] out, double pitchDeg, double rollDeg) {
+        double hp = Math.toRadians(pitchDeg) / 2, hr = Math.toRadians(rollDeg) / 2;
+        double cp = Math.cos(hp), sp = Math.sin(hp), cr = Math.cos(hr), sr = Math.sin(hr);
+        // q = qx(pitch) * qy(roll)
+        out[0] = (float) (sp * cr);
+        out[1] = (float) (cp * sr);
+        out[2] = (float) (sp * sr);
+        out[3] = (float) (cp * cr);
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.tiltcolor.bench;
+
+import com.example.tiltcolor.dsp.OrientationMath;
+import com.example.tiltcolor.util.TiltMath;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 毎サンプルの角度計算: Math.asin / acos / atan2 + toDegrees（*Math）と TiltMath の float 近似（*TiltMath）。
+ * 入力は加速度を正規化した単位ベクトル（OrientationFilter の u と同じ）と、ローパス後の重力ベクトル。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TiltMathBenchmark {
+
+    @Param({"100"})
+    public int rateHz;
+
+    private final float[] ux = new float[SensorStreams.EVENTS];
+    private final float[] uy = new float[SensorStreams.EVENTS];
+    private final float[] uz = new float[SensorStreams.EVENTS];
+    private SensorStreams s;
+
+    @Setup
+    public void setup() {
+        s = new SensorStreams(rateHz);
+        for (int i = 0; i < SensorStreams.EVENTS; i++) {
+            float[] a = s.acc[i];
+            float n = (float) Math.sqrt(a[0] * a[0] + a[1] * a[1] + a[2] * a[2]);
+            ux[i] = a[0] / n;
+            uy[i] = a[1] / n;
+            uz[i] = a[2] / n;
+        }
+    }
+
+    /** 1イベント = pitch + tilt + roll（融合推定の出力1回ぶん） */
+    @Benchmark
+    @OperationsPerInvocation(SensorStreams.EVENTS)
+    public void poseAnglesMath(Blackhole bh) {
+        for (int i = 0; i < SensorStreams.EVENTS; i++) {
+            bh.consume((float) Math.toDegrees(Math.asin(Math.max(-1f, Math.min(1f, uy[i])))));
+            bh.consume((float) Math.toDegrees(Math.acos(Math.min(1f, Math.abs(uz[i])))));
+            bh.consume((float) Math.toDegrees(Math.atan2(-ux[i], uz[i])));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SensorStreams.EVENTS)
+    public void poseAnglesTiltMath(Blackhole bh) {
+        for (int i = 0; i < SensorStreams.EVENTS; i++) {
+            bh.consume(TiltMath.asinDeg(uy[i]));
+            bh.consume(TiltMath.acosDeg(Math.abs(uz[i])));
+            bh.consume(TiltMath.atan2Deg(-ux[i], uz[i]));
+        }
+    }
+
+    /** 重力ベクトル → tilt（ジャイロが無い端末の経路） */
+    @Benchmark
+    @OperationsPerInvocation(SensorStreams.EVENTS)
+    public void gravityTiltMath(Blackhole bh) {
+        for (int i = 0; i < SensorStreams.EVENTS; i++) {
+            float[] a = s.acc[i];
+            bh.consume(OrientationMath.tiltDeg(a[0], a[1], a[2]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SensorStreams.EVENTS)
+    public void gravityTiltTiltMath(Blackhole bh) {
+        for (int i = 0; i < SensorStreams.EVENTS; i++) {
+            float[] a = s.acc[i];
+            bh.consume(TiltMath.tiltDeg(a[0], a[1], a[2]));
+        }
+    }
+}
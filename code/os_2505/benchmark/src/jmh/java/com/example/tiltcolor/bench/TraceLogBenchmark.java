@@ -0,0 +1,109 @@
+package com.example.tiltcolor.bench;
+
+import com.example.tiltcolor.trace.MappedTraceLog;
+import com.example.tiltcolor.trace.SensorTrace;
+import com.example.tiltcolor.trace.TraceWriter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * トレース記録の1イベントあたりのコスト:
+ *  - mapped:   MappedTraceLog（マップ済みバッファへの put。圧縮・上限管理は I/O スレッド）
+ *  - buffered: TraceWriter + BufferedOutputStream + FileOutputStream
+ *  - unbuffered: イベントごとに FileOutputStream.write（素朴な実装の目安）
+ * 1イベント = 回転ベクトル1件 + 加速度1件 + 線形加速度1件。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TraceLogBenchmark {
+
+    private SensorStreams s;
+    private File dir;
+    private MappedTraceLog mapped;
+    private TraceWriter buffered;
+    private FileOutputStream unbuffered;
+    private final byte[] record = new byte[MappedTraceLog.RECORD_BYTES];
+    private long base;
+
+    @Setup(Level.Iteration)
+    public void setup() throws IOException {
+        s = new SensorStreams(100);
+        dir = Files.createTempDirectory("trace-bench").toFile();
+        mapped = new MappedTraceLog(new File(dir, "mapped"), SensorTrace.FLAG_HAS_LINEAR_ACCELERATION,
+                MappedTraceLog.DEFAULT_SEGMENT_BYTES, 256L << 20);
+        buffered = new TraceWriter(new FileOutputStream(new File(dir, "buffered.trc")),
+                SensorTrace.FLAG_HAS_LINEAR_ACCELERATION);
+        unbuffered = new FileOutputStream(new File(dir, "unbuffered.bin"));
+        base = 0L;
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws IOException, InterruptedException {
+        mapped.close();
+        mapped.awaitTermination(60_000); // 残りの圧縮が終わってから消す
+        buffered.close();
+        unbuffered.close();
+        File[] files = new File(dir, "mapped").listFiles();
+        if (files != null) for (File f : files) f.delete();
+        new File(dir, "mapped").delete();
+        new File(dir, "buffered.trc").delete();
+        new File(dir, "unbuffered.bin").delete();
+        dir.delete();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SensorStreams.EVENTS)
+    public void mapped() {
+        for (int i = 0; i < SensorStreams.EVENTS; i++) {
+            long t = base + s.tNanos[i];
+            mapped.write(SensorTrace.TYPE_ROTATION_VECTOR, t, s.rotationVector[i]);
+            mapped.write(SensorTrace.TYPE_ACCELEROMETER, t, s.acc[i]);
+            mapped.write(SensorTrace.TYPE_LINEAR_ACCELERATION, t, s.linearAcc[i]);
+        }
+        base += s.spanNanos;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SensorStreams.EVENTS)
+    public void buffered() throws IOException {
+        for (int i = 0; i < SensorStreams.EVENTS; i++) {
+            long t = base + s.tNanos[i];
+            buffered.write(SensorTrace.TYPE_ROTATION_VECTOR, t, s.rotationVector[i]);
+            buffered.write(SensorTrace.TYPE_ACCELEROMETER, t, s.acc[i]);
+            buffered.write(SensorTrace.TYPE_LINEAR_ACCELERATION, t, s.linearAcc[i]);
+        }
+        base += s.spanNanos;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SensorStreams.EVENTS)
+    public void unbuffered() throws IOException {
+        for (int i = 0; i < SensorStreams.EVENTS; i++) {
+            unbuffered.write(record);
+            unbuffered.write(record);
+            unbuffered.write(record);
+        }
+    }
+}
@@ -21,3 +21,4 @@ dependencyResolutionManagement {
 
 rootProject.name = "os_2505"
 include(":app")
+include(":benchmark")